@@ -0,0 +1,442 @@
+package com.fwmotion.threescale.cms;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fwmotion.threescale.cms.model.*;
+import com.fwmotion.threescale.cms.support.AdaptiveRateLimiter;
+import com.fwmotion.threescale.cms.support.RetryingInvocationInterceptor;
+import com.redhat.threescale.rest.cms.ApiClient;
+import com.redhat.threescale.rest.cms.ApiException;
+import io.gatehill.imposter.embedded.ImposterBuilder;
+import io.gatehill.imposter.embedded.MockEngine;
+import io.gatehill.imposter.plugin.openapi.OpenApiPluginImpl;
+import io.gatehill.imposter.plugin.rest.RestPluginImpl;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.io.file.PathUtils;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end throughput of the REST client against an Imposter mock of a
+ * synthetic tenant (see {@link SyntheticTenant}), without any network access.
+ * Three phases are measured, each after warm-up runs:
+ * <ul>
+ *     <li>{@code list}: {@link ThreescaleCmsClient#listAllCmsObjects()}</li>
+ *     <li>{@code download}: the content of every file and the published
+ *     content of every template</li>
+ *     <li>{@code upload}: creating a copy of every section, file and
+ *     template, and publishing each template</li>
+ * </ul>
+ * For each run, the wall-clock time, number of HTTP requests (and so
+ * requests per second) and peak heap usage are written to a JSON report.
+ * <p>
+ * Options are given as {@code --name=value}; see {@link Options}.
+ */
+public final class ImposterThroughputBenchmark {
+
+    private static final String ACCESS_TOKEN = "benchmark access token";
+
+    private final Options options;
+    private final SyntheticTenant tenant;
+    private final LongAdder requestCount = new LongAdder();
+
+    private ImposterThroughputBenchmark(@Nonnull Options options) {
+        this.options = options;
+        this.tenant = new SyntheticTenant(
+            options.sections,
+            options.files,
+            options.templates,
+            options.latencyMinMillis,
+            options.latencyMaxMillis,
+            options.contentSize);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Report report = new ImposterThroughputBenchmark(options).run();
+
+        Files.createDirectories(options.report.toAbsolutePath().getParent());
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(options.report.toFile(), report);
+
+        for (PhaseResult phase : report.phases()) {
+            System.out.printf("%-8s %10.1f ms %10.1f requests/s %8.1f MiB peak heap%n",
+                phase.name(),
+                phase.mean().wallClockMillis(),
+                phase.mean().requestsPerSecond(),
+                phase.mean().peakHeapBytes() / (1024.0 * 1024.0));
+        }
+        System.out.println("Report written to " + options.report.toAbsolutePath());
+
+        // Imposter's server threads would otherwise keep the JVM running
+        System.exit(0);
+    }
+
+    @Nonnull
+    private Report run() throws Exception {
+        Path workDir = Files.createTempDirectory("cms-throughput");
+
+        try {
+            Path configDir = workDir.resolve("imposter");
+            tenant.writeImposterConfig(configDir);
+
+            Path content = workDir.resolve("content.txt");
+            Files.writeString(content, "x".repeat(options.contentSize));
+
+            MockEngine imposter = new ImposterBuilder<>()
+                .withPluginClass(OpenApiPluginImpl.class)
+                .withPluginClass(RestPluginImpl.class)
+                .withConfigurationDir(configDir)
+                .startBlocking();
+
+            try (ThreescaleCmsClientFactory clientFactory = newClientFactory(imposter)) {
+                ThreescaleCmsClient cmsClient = clientFactory.getThreescaleCmsClient();
+                List<CmsObject> listed = listAll(cmsClient);
+                File contentFile = content.toFile();
+
+                List<PhaseResult> phases = List.of(
+                    measure("list", () -> listAll(cmsClient)),
+                    measure("download", () -> downloadAll(cmsClient, listed)),
+                    measure("upload", () -> uploadAll(cmsClient, listed, contentFile)));
+
+                return new Report(Instant.now().toString(),
+                    System.getProperty("java.version"),
+                    Runtime.getRuntime().availableProcessors(),
+                    Runtime.getRuntime().maxMemory(),
+                    options,
+                    phases);
+            }
+        } finally {
+            PathUtils.deleteDirectory(workDir);
+        }
+    }
+
+    @Nonnull
+    private ThreescaleCmsClientFactory newClientFactory(@Nonnull MockEngine imposter) {
+        ThreescaleCmsClientFactory clientFactory = new ThreescaleCmsClientFactory();
+        clientFactory.setBaseUrl(imposter.getBaseUrl().toString());
+        clientFactory.setAccessToken(ACCESS_TOKEN);
+        clientFactory.setMaxConnectionsPerRoute(options.maxConnectionsPerRoute);
+        clientFactory.setMaxConnectionsTotal(Math.max(options.maxConnectionsPerRoute,
+            ThreescaleCmsClientFactory.DEFAULT_MAX_CONNECTIONS_TOTAL));
+        clientFactory.setMaxPagesInFlight(options.maxPagesInFlight);
+        clientFactory.setMaxConcurrentListings(options.maxConcurrentListings);
+
+        // Count each request (including retries), then send it as the
+        // factory's own interceptor would
+        ApiClient.InvocationInterceptor retryingInterceptor = new RetryingInvocationInterceptor(
+            new AdaptiveRateLimiter(0, options.maxConnectionsPerRoute),
+            ThreescaleCmsClientFactory.DEFAULT_MAX_RETRIES,
+            ThreescaleCmsClientFactory.DEFAULT_RETRY_BASE_DELAY,
+            ThreescaleCmsClientFactory.DEFAULT_RETRY_MAX_DELAY);
+        clientFactory.setInvocationInterceptor(new ApiClient.InvocationInterceptor() {
+            @Override
+            public <T> T intercept(String method, String path, ApiClient.Invocation<T> invocation) throws ApiException {
+                return retryingInterceptor.intercept(method, path, () -> {
+                    requestCount.increment();
+                    return invocation.invoke();
+                });
+            }
+        });
+
+        return clientFactory;
+    }
+
+    @Nonnull
+    private List<CmsObject> listAll(@Nonnull ThreescaleCmsClient cmsClient) {
+        List<CmsObject> listed = cmsClient.listAllCmsObjects();
+
+        if (listed.size() != tenant.getObjectCount()) {
+            throw new IllegalStateException("Listed " + listed.size() + " objects, but the tenant has "
+                + tenant.getObjectCount());
+        }
+
+        return listed;
+    }
+
+    private void downloadAll(@Nonnull ThreescaleCmsClient cmsClient,
+                             @Nonnull List<CmsObject> listed) throws Exception {
+        forEachInParallel(listed, object -> {
+            if (object instanceof CmsFile file) {
+                cmsClient.downloadFileContent(file, Channels.newChannel(OutputStream.nullOutputStream()));
+                // File content comes from the developer portal, without
+                // passing through the API client's interceptor
+                requestCount.increment();
+            } else if (object instanceof CmsTemplate template) {
+                Optional<InputStream> published = cmsClient.getTemplatePublished(template);
+                if (published.isPresent()) {
+                    try (InputStream inputStream = published.get()) {
+                        inputStream.transferTo(OutputStream.nullOutputStream());
+                    }
+                }
+            }
+        });
+    }
+
+    private void uploadAll(@Nonnull ThreescaleCmsClient cmsClient,
+                           @Nonnull List<CmsObject> listed,
+                           @Nonnull File content) throws Exception {
+        forEachInParallel(listed, object -> {
+            if (object instanceof CmsSection section) {
+                if (section.getParentId() != null) {
+                    cmsClient.save(copyOf(section));
+                }
+            } else if (object instanceof CmsFile file) {
+                cmsClient.save(copyOf(file), content);
+            } else if (object instanceof CmsTemplate template) {
+                CmsTemplate copy = copyOf(template);
+                cmsClient.save(copy, content);
+                cmsClient.publish(copy);
+            }
+        });
+    }
+
+    @Nonnull
+    private static CmsSection copyOf(@Nonnull CmsSection section) {
+        CmsSection copy = new CmsSection();
+        copy.setParentId(section.getParentId());
+        copy.setSystemName(section.getSystemName() + "-copy");
+        copy.setTitle(section.getTitle());
+        copy.setPath(section.getPath() + "-copy");
+        copy.setPublic(section.getPublic());
+        return copy;
+    }
+
+    @Nonnull
+    private static CmsFile copyOf(@Nonnull CmsFile file) {
+        CmsFile copy = new CmsFile();
+        copy.setSectionId(file.getSectionId());
+        copy.setPath(file.getPath() + "-copy");
+        copy.setDownloadable(file.getDownloadable());
+        copy.setContentType(file.getContentType());
+        return copy;
+    }
+
+    @Nonnull
+    private static CmsTemplate copyOf(@Nonnull CmsTemplate template) {
+        if (template instanceof CmsLayout layout) {
+            CmsLayout copy = new CmsLayout();
+            copy.setSystemName(layout.getSystemName() + "-copy");
+            copy.setTitle(layout.getTitle());
+            copy.setContentType(layout.getContentType());
+            copy.setLiquidEnabled(layout.getLiquidEnabled());
+            return copy;
+        } else if (template instanceof CmsPartial partial) {
+            CmsPartial copy = new CmsPartial();
+            copy.setSystemName(partial.getSystemName() + "-copy");
+            copy.setContentType(partial.getContentType());
+            copy.setLiquidEnabled(partial.getLiquidEnabled());
+            return copy;
+        } else if (template instanceof CmsPage page) {
+            CmsPage copy = new CmsPage();
+            copy.setSectionId(page.getSectionId());
+            copy.setPath(page.getPath() + "-copy");
+            copy.setTitle(page.getTitle());
+            copy.setLayout(page.getLayout());
+            copy.setContentType(page.getContentType());
+            copy.setLiquidEnabled(page.getLiquidEnabled());
+            return copy;
+        }
+
+        throw new UnsupportedOperationException("Unknown template type: " + template.getClass().getName());
+    }
+
+    private void forEachInParallel(@Nonnull List<CmsObject> objects,
+                                   @Nonnull ObjectTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(options.parallelism);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(objects.size());
+            for (CmsObject object : objects) {
+                futures.add(executor.submit(() -> {
+                    task.run(object);
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    private PhaseResult measure(@Nonnull String name,
+                                @Nonnull PhaseTask task) throws Exception {
+        for (int i = 0; i < options.warmups; i++) {
+            task.run();
+        }
+
+        List<RunResult> runs = new ArrayList<>(options.runs);
+        for (int i = 0; i < options.runs; i++) {
+            runs.add(measureRun(task));
+        }
+
+        return new PhaseResult(name, runs, new RunResult(
+            runs.stream().mapToDouble(RunResult::wallClockMillis).average().orElse(0),
+            Math.round(runs.stream().mapToLong(RunResult::requests).average().orElse(0)),
+            runs.stream().mapToDouble(RunResult::requestsPerSecond).average().orElse(0),
+            Math.round(runs.stream().mapToLong(RunResult::peakHeapBytes).average().orElse(0))));
+    }
+
+    @Nonnull
+    private RunResult measureRun(@Nonnull PhaseTask task) throws Exception {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+
+        // Start from as little garbage as possible, so that the peak is
+        // mostly this run's own allocations
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long requestsBefore = requestCount.sum();
+
+        long start = System.nanoTime();
+        task.run();
+        double wallClockMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        long requests = requestCount.sum() - requestsBefore;
+        long peakHeapBytes = heapPools.stream()
+            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+            .sum();
+
+        return new RunResult(wallClockMillis,
+            requests,
+            wallClockMillis > 0 ? requests * 1000.0 / wallClockMillis : 0,
+            peakHeapBytes);
+    }
+
+    @FunctionalInterface
+    private interface PhaseTask {
+        void run() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ObjectTask {
+        void run(@Nonnull CmsObject object) throws Exception;
+    }
+
+    /**
+     * @param peakHeapBytes sum of the heap memory pools' peak usage during
+     *                      the run
+     */
+    record RunResult(double wallClockMillis,
+                     long requests,
+                     double requestsPerSecond,
+                     long peakHeapBytes) {
+    }
+
+    /**
+     * @param mean the mean of each measurement over the runs
+     */
+    record PhaseResult(@Nonnull String name,
+                       @Nonnull List<RunResult> runs,
+                       @Nonnull RunResult mean) {
+    }
+
+    record Report(@Nonnull String timestamp,
+                  @Nonnull String javaVersion,
+                  int availableProcessors,
+                  long maxHeapBytes,
+                  @Nonnull Options options,
+                  @Nonnull List<PhaseResult> phases) {
+    }
+
+    /**
+     * Benchmark options, each given as {@code --name=value}
+     *
+     * @param sections               number of sections in the tenant,
+     *                               including the root section
+     * @param files                  number of files in the tenant
+     * @param templates              number of templates in the tenant
+     * @param latencyMinMillis       shortest delay of each response
+     * @param latencyMaxMillis       longest delay of each response
+     * @param contentSize            size of each file's and template's
+     *                               content, in bytes
+     * @param parallelism            number of objects downloaded or
+     *                               uploaded at a time
+     * @param maxConnectionsPerRoute HTTP connections to the mock server
+     * @param maxPagesInFlight       pages of each listing fetched ahead (0
+     *                               for the client's default)
+     * @param maxConcurrentListings  listings fetched at a time (0 for the
+     *                               client's default)
+     * @param warmups                runs of each phase before measuring
+     * @param runs                   measured runs of each phase
+     * @param report                 file to write the JSON report to
+     */
+    record Options(int sections,
+                   int files,
+                   int templates,
+                   int latencyMinMillis,
+                   int latencyMaxMillis,
+                   int contentSize,
+                   int parallelism,
+                   int maxConnectionsPerRoute,
+                   int maxPagesInFlight,
+                   int maxConcurrentListings,
+                   int warmups,
+                   int runs,
+                   @Nonnull Path report) {
+
+        @Nonnull
+        static Options parse(@Nonnull String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value, but got: " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+
+            int latencyMillis = intOption(values, "latency-ms", 0);
+
+            Options options = new Options(
+                intOption(values, "sections", 1000),
+                intOption(values, "files", 1000),
+                intOption(values, "templates", 1000),
+                intOption(values, "latency-min-ms", latencyMillis),
+                intOption(values, "latency-max-ms", latencyMillis),
+                intOption(values, "content-size", 1024),
+                intOption(values, "parallelism", ThreescaleCmsClientFactory.DEFAULT_MAX_CONNECTIONS_PER_ROUTE),
+                intOption(values, "max-connections-per-route", ThreescaleCmsClientFactory.DEFAULT_MAX_CONNECTIONS_PER_ROUTE),
+                intOption(values, "max-pages-in-flight", 0),
+                intOption(values, "max-concurrent-listings", 0),
+                intOption(values, "warmups", 1),
+                intOption(values, "runs", 3),
+                Path.of(values.getOrDefault("report", "target/imposter-throughput.json")));
+
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + String.join(", ", values.keySet()));
+            }
+
+            return options;
+        }
+
+        private static int intOption(@Nonnull Map<String, String> values,
+                                     @Nonnull String name,
+                                     int defaultValue) {
+            String value = values.remove(name);
+
+            return value == null ? defaultValue : Integer.parseInt(value);
+        }
+
+    }
+
+}
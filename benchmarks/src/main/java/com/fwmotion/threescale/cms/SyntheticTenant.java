@@ -0,0 +1,308 @@
+package com.fwmotion.threescale.cms;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.Nonnull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * Imposter configuration for a 3scale tenant with a given number of
+ * sections, files and templates, served from the CMS API's OpenAPI
+ * specification. Every response is delayed by the configured latency, to
+ * stand in for the network and 3scale's own processing time.
+ * <p>
+ * Listings are paged as 3scale pages them (20 per page, followed by an empty
+ * page); every other request (fetching a template, creating an object,
+ * publishing a template, or fetching a file's content from the developer
+ * portal) is answered with the same response whatever its parameters.
+ */
+public class SyntheticTenant {
+
+    static final int PAGE_SIZE = 20;
+
+    private static final String CREATED_AT = "2023-11-08T12:00:00Z";
+    private static final String SPEC_RESOURCE = "/api-spec/3scale-cms.yaml";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final int sectionCount;
+    private final int fileCount;
+    private final int templateCount;
+    private final int latencyMinMillis;
+    private final int latencyMaxMillis;
+    private final int contentSize;
+
+    /**
+     * @param sectionCount     number of sections, including the root section
+     * @param fileCount        number of files
+     * @param templateCount    number of templates
+     * @param latencyMinMillis shortest delay before each response
+     * @param latencyMaxMillis longest delay before each response; responses
+     *                         are delayed by a random time between the two
+     * @param contentSize      size of each file's and template's content,
+     *                         in bytes
+     */
+    public SyntheticTenant(int sectionCount,
+                           int fileCount,
+                           int templateCount,
+                           int latencyMinMillis,
+                           int latencyMaxMillis,
+                           int contentSize) {
+        if (sectionCount < 1) {
+            throw new IllegalArgumentException("A tenant has at least the root section");
+        }
+        if (latencyMinMillis < 0 || latencyMaxMillis < latencyMinMillis) {
+            throw new IllegalArgumentException("Latency must be a range of non-negative milliseconds");
+        }
+
+        this.sectionCount = sectionCount;
+        this.fileCount = fileCount;
+        this.templateCount = templateCount;
+        this.latencyMinMillis = latencyMinMillis;
+        this.latencyMaxMillis = latencyMaxMillis;
+        this.contentSize = contentSize;
+    }
+
+    public int getSectionCount() {
+        return sectionCount;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getTemplateCount() {
+        return templateCount;
+    }
+
+    public int getObjectCount() {
+        return sectionCount + fileCount + templateCount;
+    }
+
+    /**
+     * Write the configuration files and responses for Imposter
+     *
+     * @param configDir directory to write to; it is created if needed
+     */
+    public void writeImposterConfig(@Nonnull Path configDir) throws IOException {
+        Path responsesDir = Files.createDirectories(configDir.resolve("responses"));
+
+        try (InputStream spec = Objects.requireNonNull(
+            SyntheticTenant.class.getResourceAsStream(SPEC_RESOURCE),
+            "OpenAPI specification not found on classpath: " + SPEC_RESOURCE)) {
+            Files.copy(spec, configDir.resolve("3scale-cms.yaml"));
+        }
+
+        StringBuilder cmsConfig = new StringBuilder()
+            .append("plugin: openapi\n")
+            .append("specFile: 3scale-cms.yaml\n")
+            .append("\n")
+            .append("resources:\n");
+
+        appendListing(cmsConfig, configDir, "sections", sectionCount, this::section);
+        appendListing(cmsConfig, configDir, "files", fileCount, this::file);
+        appendListing(cmsConfig, configDir, "templates", templateCount, this::template);
+
+        String content = "x".repeat(contentSize);
+
+        ObjectNode template = page(1L);
+        template.put("draft", content);
+        template.put("published", content);
+        writeJson(responsesDir.resolve("template.json"), template);
+        writeJson(responsesDir.resolve("section.json"), section(2L));
+        writeJson(responsesDir.resolve("file.json"), file(1L));
+        Files.writeString(responsesDir.resolve("file-content.txt"), content);
+
+        appendResource(cmsConfig, "/admin/api/cms/templates/{template_id}.json", "get", 200, "responses/template.json");
+        appendResource(cmsConfig, "/admin/api/cms/templates/{template_id}/publish", "put", 200, "responses/template.json");
+        appendResource(cmsConfig, "/admin/api/cms/sections.json", "post", 201, "responses/section.json");
+        appendResource(cmsConfig, "/admin/api/cms/files.json", "post", 201, "responses/file.json");
+        appendResource(cmsConfig, "/admin/api/cms/templates.json", "post", 201, "responses/template.json");
+
+        // Point the developer portal at the Imposter-managed files in
+        // dev-portal-config.yaml
+        Files.writeString(responsesDir.resolve("provider-settings.json"),
+            "{\"account\":{\"id\":1,"
+                + "\"admin_base_url\":\"http://${request.host}\","
+                + "\"base_url\":\"http://${request.host}/devportal\","
+                + "\"site_access_code\":\"\"}}");
+        cmsConfig.append("- path: /admin/api/provider.json\n")
+            .append("  method: get\n")
+            .append("  capture:\n")
+            .append("    host:\n")
+            .append("      requestHeader: Host\n")
+            .append("      store: request\n")
+            .append("  response:\n")
+            .append("    template: true\n")
+            .append("    file: responses/provider-settings.json\n");
+        appendDelay(cmsConfig);
+
+        Files.writeString(configDir.resolve("3scale-cms-config.yaml"), cmsConfig);
+
+        StringBuilder devPortalConfig = new StringBuilder()
+            .append("plugin: rest\n")
+            .append("\n")
+            .append("resources:\n");
+        appendResource(devPortalConfig, "/devportal/{section}/{file}", "get", 200, "responses/file-content.txt");
+
+        Files.writeString(configDir.resolve("dev-portal-config.yaml"), devPortalConfig);
+    }
+
+    private void appendListing(@Nonnull StringBuilder config,
+                               @Nonnull Path configDir,
+                               @Nonnull String type,
+                               int count,
+                               @Nonnull LongFunction<ObjectNode> generator) throws IOException {
+        int totalPages = (count + PAGE_SIZE - 1) / PAGE_SIZE;
+
+        // As 3scale does, answer the page after the last with an empty one
+        for (int page = 1; page <= totalPages + 1; page++) {
+            ObjectNode list = objectMapper.createObjectNode();
+            ArrayNode collection = list.putArray("collection");
+            for (long id = (long) (page - 1) * PAGE_SIZE + 1; id <= Math.min((long) page * PAGE_SIZE, count); id++) {
+                collection.add(generator.apply(id));
+            }
+            list.putObject("metadata")
+                .put("per_page", PAGE_SIZE)
+                .put("total_entries", count)
+                .put("total_pages", totalPages)
+                .put("current_page", page);
+
+            String file = "responses/" + type + "-" + page + ".json";
+            writeJson(configDir.resolve(file), list);
+
+            config.append("- path: /admin/api/cms/").append(type).append(".json\n")
+                .append("  method: get\n")
+                .append("  queryParams:\n")
+                .append("    page: ").append(page).append('\n')
+                .append("  response:\n")
+                .append("    file: ").append(file).append('\n');
+            appendDelay(config);
+        }
+    }
+
+    private void appendResource(@Nonnull StringBuilder config,
+                                @Nonnull String path,
+                                @Nonnull String method,
+                                int statusCode,
+                                @Nonnull String file) {
+        config.append("- path: ").append(path).append('\n')
+            .append("  method: ").append(method).append('\n')
+            .append("  response:\n")
+            .append("    statusCode: ").append(statusCode).append('\n')
+            .append("    file: ").append(file).append('\n');
+        appendDelay(config);
+    }
+
+    private void appendDelay(@Nonnull StringBuilder config) {
+        if (latencyMaxMillis == 0) {
+            return;
+        }
+
+        config.append("    delay:\n");
+        if (latencyMinMillis == latencyMaxMillis) {
+            config.append("      exact: ").append(latencyMinMillis).append('\n');
+        } else {
+            config.append("      min: ").append(latencyMinMillis).append('\n')
+                .append("      max: ").append(latencyMaxMillis).append('\n');
+        }
+    }
+
+    private void writeJson(@Nonnull Path path, @Nonnull ObjectNode json) throws IOException {
+        Files.write(path, objectMapper.writeValueAsBytes(json));
+    }
+
+    /**
+     * Section 1 is the root; the others are directly under it
+     */
+    @Nonnull
+    private ObjectNode section(long id) {
+        ObjectNode section = objectMapper.createObjectNode()
+            .put("id", id)
+            .put("created_at", CREATED_AT)
+            .put("updated_at", CREATED_AT)
+            .put("title", sectionName(id))
+            .put("system_name", sectionName(id))
+            .put("public", true);
+
+        if (id == 1) {
+            section.putNull("parent_id");
+            section.put("partial_path", "/");
+        } else {
+            section.put("parent_id", 1L);
+            section.put("partial_path", "/" + sectionName(id));
+        }
+
+        return section;
+    }
+
+    @Nonnull
+    private ObjectNode file(long fileNumber) {
+        long sectionId = sectionIdFor(fileNumber);
+
+        return objectMapper.createObjectNode()
+            .put("id", sectionCount + fileNumber)
+            .put("created_at", CREATED_AT)
+            .put("updated_at", CREATED_AT)
+            .put("section_id", sectionId)
+            .put("path", "/" + sectionName(sectionId) + "/f" + fileNumber + ".txt")
+            .put("downloadable", false)
+            .put("title", "f" + fileNumber + ".txt")
+            .put("content_type", "text/plain");
+    }
+
+    /**
+     * One in 20 templates is a layout, and one in 5 a partial; the rest are
+     * pages
+     */
+    @Nonnull
+    private ObjectNode template(long templateNumber) {
+        if (templateNumber % 20 == 0) {
+            return templateBase(templateNumber, "layout")
+                .put("title", "layout" + templateNumber)
+                .put("system_name", "layout" + templateNumber);
+        } else if (templateNumber % 5 == 1) {
+            return templateBase(templateNumber, "partial")
+                .put("system_name", "partial" + templateNumber);
+        }
+
+        return page(templateNumber);
+    }
+
+    @Nonnull
+    private ObjectNode page(long templateNumber) {
+        return templateBase(templateNumber, "page")
+            .put("title", "p" + templateNumber)
+            .put("path", "/" + sectionName(sectionIdFor(templateNumber)) + "/p" + templateNumber)
+            .put("hidden", false)
+            .put("layout", "layout20");
+    }
+
+    @Nonnull
+    private ObjectNode templateBase(long templateNumber, @Nonnull String type) {
+        return objectMapper.createObjectNode()
+            .put("id", (long) sectionCount + fileCount + templateNumber)
+            .put("type", type)
+            .put("created_at", CREATED_AT)
+            .put("updated_at", CREATED_AT)
+            .put("content_type", "text/html")
+            .put("liquid_enabled", true);
+    }
+
+    private long sectionIdFor(long objectNumber) {
+        return objectNumber % sectionCount + 1;
+    }
+
+    @Nonnull
+    private static String sectionName(long sectionId) {
+        return sectionId == 1 ? "root" : "s" + sectionId;
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.CmsObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the path key of every object in a CMS tree, as is done for each
+ * listed object and each local file on every command
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsObjectPathKeyGeneratorBenchmark {
+
+    @Param({"10000", "100000"})
+    int objectCount;
+
+    private final CmsObjectPathKeyGenerator pathKeyGenerator = new CmsObjectPathKeyGenerator();
+
+    private List<CmsObject> objects;
+
+    @Setup
+    public void setUp() {
+        objects = SyntheticCmsTree.generate(objectCount).getRemoteObjects();
+    }
+
+    @Benchmark
+    public void generatePathKeyForObject(Blackhole blackhole) {
+        for (CmsObject object : objects) {
+            blackhole.consume(pathKeyGenerator.generatePathKeyForObject(object));
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.CmsObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a CMS object for every file and directory of a local copy of a
+ * CMS tree, as the local scan does
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocalFileCmsObjectGeneratorBenchmark {
+
+    @Param({"10000", "100000"})
+    int objectCount;
+
+    private final LocalFileCmsObjectGenerator localFileCmsObjectGenerator = new LocalFileCmsObjectGenerator();
+
+    private Path localRoot;
+    private List<String> pathKeys;
+    private List<File> files;
+
+    @Setup
+    public void setUp() throws IOException {
+        CmsObjectPathKeyGenerator pathKeyGenerator = new CmsObjectPathKeyGenerator();
+        SyntheticCmsTree tree = SyntheticCmsTree.generate(objectCount);
+
+        localRoot = Files.createTempDirectory("cms-benchmark");
+        tree.writeLocalTree(localRoot, pathKeyGenerator);
+
+        pathKeys = new ArrayList<>(objectCount);
+        files = new ArrayList<>(objectCount);
+        for (CmsObject object : tree.getRemoteObjects()) {
+            String pathKey = pathKeyGenerator.generatePathKeyForObject(object);
+            pathKeys.add(pathKey);
+            files.add(localRoot.resolve(pathKey.substring(1)).toFile());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticCmsTree.deleteLocalTree(localRoot);
+    }
+
+    @Benchmark
+    public void generateObjectFromFile(Blackhole blackhole) {
+        for (int i = 0; i < pathKeys.size(); i++) {
+            blackhole.consume(localFileCmsObjectGenerator.generateObjectFromFile(pathKeys.get(i), files.get(i)));
+        }
+    }
+
+}
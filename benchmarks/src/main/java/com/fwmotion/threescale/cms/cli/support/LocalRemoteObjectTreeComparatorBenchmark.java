@@ -0,0 +1,66 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a CMS tree with a local copy of it, as {@code info}, {@code diff},
+ * {@code download} and {@code upload} do: scanning the local directory,
+ * then matching local and remote objects by path key. One in ten local files
+ * is newer than its CMS object.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocalRemoteObjectTreeComparatorBenchmark {
+
+    @Param({"10000", "100000"})
+    int objectCount;
+
+    /**
+     * Threads to scan the local directory with; 0 for one per processor
+     */
+    @Param({"1", "0"})
+    int scanParallelism;
+
+    private final LocalRemoteObjectTreeComparator treeComparator = new LocalRemoteObjectTreeComparator();
+
+    private Path localRoot;
+    private CmsPathIndex remotePathIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        CmsObjectPathKeyGenerator pathKeyGenerator = new CmsObjectPathKeyGenerator();
+        SyntheticCmsTree tree = SyntheticCmsTree.generate(objectCount);
+
+        localRoot = Files.createTempDirectory("cms-benchmark");
+        tree.writeLocalTree(localRoot, pathKeyGenerator);
+
+        remotePathIndex = CmsPathIndex.build(tree.getRemoteObjects(), pathKeyGenerator);
+
+        treeComparator.cmsObjectPathKeyGenerator = pathKeyGenerator;
+        treeComparator.localFileCmsObjectGenerator = new LocalFileCmsObjectGenerator();
+        treeComparator.setLocalScanParallelism(scanParallelism);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticCmsTree.deleteLocalTree(localRoot);
+    }
+
+    @Benchmark
+    public LocalRemoteTreeComparisonDetails compareLocalAndRemoteCmsObjectTrees() throws Exception {
+        File localRootFile = localRoot.toFile();
+
+        return treeComparator.compareLocalAndRemoteCmsObjectTrees(remotePathIndex, localRootFile, true);
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.CmsSection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Selects everything under the top-level sections of a CMS tree (which is
+ * nearly all of it), as {@code download}, {@code upload} and {@code delete}
+ * do for the paths they're given
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathRecursionSupportBenchmark {
+
+    @Param({"10000", "100000"})
+    int objectCount;
+
+    @Param({"PARENT_ID", "PATH_PREFIX", "NONE"})
+    PathRecursionSupport.RecursionOption recurseBy;
+
+    private final PathRecursionSupport pathRecursionSupport = new PathRecursionSupport();
+
+    private CmsPathIndex pathIndex;
+    private List<String> specifiedPaths;
+
+    @Setup
+    public void setUp() {
+        CmsObjectPathKeyGenerator pathKeyGenerator = new CmsObjectPathKeyGenerator();
+        SyntheticCmsTree tree = SyntheticCmsTree.generate(objectCount);
+        CmsSection root = tree.getSections().get(0);
+
+        pathIndex = CmsPathIndex.build(tree.getRemoteObjects(), pathKeyGenerator);
+        specifiedPaths = tree.getSections().stream()
+            .filter(section -> root.getId().equals(section.getParentId()))
+            .map(pathKeyGenerator::generatePathKeyForObject)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Set<String> calculateSpecifiedPaths() {
+        return pathRecursionSupport.calculateSpecifiedPaths(specifiedPaths, recurseBy, pathIndex);
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.io.file.PathUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A CMS tree of a given number of objects, shaped like a large developer
+ * portal: sections nested several levels deep, each holding files, pages and
+ * partials, and a few layouts at the top. The same size always gives the same
+ * tree, so results are comparable between runs.
+ */
+public final class SyntheticCmsTree {
+
+    /**
+     * Sub-sections per section
+     */
+    private static final int SECTION_FANOUT = 8;
+
+    /**
+     * One in this many objects is a section
+     */
+    private static final int OBJECTS_PER_SECTION = 25;
+
+    /**
+     * One in this many objects is a layout
+     */
+    private static final int OBJECTS_PER_LAYOUT = 500;
+
+    /**
+     * One in this many local files was modified after it was last uploaded
+     */
+    private static final int FILES_PER_LOCAL_CHANGE = 10;
+
+    private static final OffsetDateTime UPDATED_AT =
+        OffsetDateTime.of(2023, 11, 8, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final List<CmsObject> remoteObjects;
+    private final List<CmsSection> sections;
+
+    private SyntheticCmsTree(@Nonnull List<CmsObject> remoteObjects,
+                             @Nonnull List<CmsSection> sections) {
+        this.remoteObjects = remoteObjects;
+        this.sections = sections;
+    }
+
+    @Nonnull
+    public static SyntheticCmsTree generate(int objectCount) {
+        List<CmsObject> objects = new ArrayList<>(objectCount);
+        List<CmsSection> sections = new ArrayList<>(objectCount / OBJECTS_PER_SECTION + 1);
+
+        CmsSection root = new CmsSection();
+        root.setId(1L);
+        root.setSystemName("root");
+        root.setTitle("root");
+        root.setPath("/");
+        root.setPublic(true);
+        root.setUpdatedAt(UPDATED_AT);
+        objects.add(root);
+        sections.add(root);
+
+        for (int i = 1; i < objectCount; i++) {
+            long id = i + 1L;
+
+            if (i % OBJECTS_PER_SECTION == 0) {
+                // Fill each section with sub-sections before going deeper
+                CmsSection parent = sections.get((sections.size() - 1) / SECTION_FANOUT);
+                objects.add(section(id, parent));
+                sections.add((CmsSection) objects.get(objects.size() - 1));
+            } else if (i % OBJECTS_PER_LAYOUT == 1) {
+                objects.add(layout(id));
+            } else {
+                CmsSection section = sections.get(i % sections.size());
+                objects.add(switch (i % 5) {
+                    case 0, 1 -> file(id, section);
+                    case 2, 3 -> page(id, section);
+                    default -> partial(id, section);
+                });
+            }
+        }
+
+        return new SyntheticCmsTree(Collections.unmodifiableList(objects),
+            Collections.unmodifiableList(sections));
+    }
+
+    @Nonnull
+    private static CmsSection section(long id, @Nonnull CmsSection parent) {
+        CmsSection section = new CmsSection();
+        section.setId(id);
+        section.setParentId(parent.getId());
+        section.setSystemName("s" + id);
+        section.setTitle("s" + id);
+        section.setPath(childPath(parent, "s" + id));
+        section.setPublic(true);
+        section.setUpdatedAt(UPDATED_AT);
+        return section;
+    }
+
+    @Nonnull
+    private static CmsLayout layout(long id) {
+        CmsLayout layout = new CmsLayout();
+        layout.setId(id);
+        layout.setSystemName("layout" + id);
+        layout.setTitle("layout" + id + " layout");
+        layout.setContentType("text/html");
+        layout.setLiquidEnabled(true);
+        layout.setUpdatedAt(UPDATED_AT);
+        return layout;
+    }
+
+    @Nonnull
+    private static CmsFile file(long id, @Nonnull CmsSection section) {
+        CmsFile file = new CmsFile();
+        file.setId(id);
+        file.setSectionId(section.getId());
+        file.setPath(childPath(section, "f" + id + (id % 2 == 0 ? ".png" : ".css")));
+        file.setUpdatedAt(UPDATED_AT);
+        return file;
+    }
+
+    @Nonnull
+    private static CmsPage page(long id, @Nonnull CmsSection section) {
+        CmsPage page = new CmsPage();
+        page.setId(id);
+        page.setSectionId(section.getId());
+        page.setPath(childPath(section, "p" + id));
+        page.setTitle("p" + id);
+        page.setContentType("text/html");
+        page.setLiquidEnabled(true);
+        page.setUpdatedAt(UPDATED_AT);
+        return page;
+    }
+
+    @Nonnull
+    private static CmsPartial partial(long id, @Nonnull CmsSection section) {
+        CmsPartial partial = new CmsPartial();
+        partial.setId(id);
+        partial.setSystemName(childPath(section, "partial" + id).substring(1));
+        partial.setContentType("text/html");
+        partial.setLiquidEnabled(true);
+        partial.setUpdatedAt(UPDATED_AT);
+        return partial;
+    }
+
+    @Nonnull
+    private static String childPath(@Nonnull CmsSection section,
+                                    @Nonnull String name) {
+        return "/".equals(section.getPath())
+            ? "/" + name
+            : section.getPath() + "/" + name;
+    }
+
+    /**
+     * @return all objects, with the root section first
+     */
+    @Nonnull
+    public List<CmsObject> getRemoteObjects() {
+        return remoteObjects;
+    }
+
+    /**
+     * @return all sections, with the root section first and each section
+     * after its parent
+     */
+    @Nonnull
+    public List<CmsSection> getSections() {
+        return sections;
+    }
+
+    /**
+     * Write a local copy of the tree, as a download would: sections as
+     * directories, and files and templates as files at their path keys. Some
+     * files are given a later modification time than the CMS objects, as if
+     * edited locally.
+     */
+    public void writeLocalTree(@Nonnull Path localRoot,
+                               @Nonnull CmsObjectPathKeyGenerator pathKeyGenerator) throws IOException {
+        FileTime syncedTime = FileTime.from(UPDATED_AT.toInstant());
+        FileTime changedTime = FileTime.from(UPDATED_AT.plusDays(1).toInstant());
+        byte[] content = "<p>synthetic</p>\n".getBytes(StandardCharsets.UTF_8);
+
+        for (CmsObject object : remoteObjects) {
+            Path path = localRoot.resolve(pathKeyGenerator.generatePathKeyForObject(object).substring(1));
+
+            if (object instanceof CmsSection) {
+                Files.createDirectories(path);
+                continue;
+            }
+
+            Files.createDirectories(path.getParent());
+            Files.write(path, content);
+            Files.setLastModifiedTime(path,
+                object.getId() % FILES_PER_LOCAL_CHANGE == 0 ? changedTime : syncedTime);
+        }
+    }
+
+    public static void deleteLocalTree(@Nonnull Path localRoot) throws IOException {
+        PathUtils.deleteDirectory(localRoot);
+    }
+
+}
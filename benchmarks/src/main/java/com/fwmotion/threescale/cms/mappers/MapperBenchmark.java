@@ -0,0 +1,158 @@
+package com.fwmotion.threescale.cms.mappers;
+
+import com.fwmotion.threescale.cms.model.CmsFile;
+import com.fwmotion.threescale.cms.model.CmsPage;
+import com.fwmotion.threescale.cms.model.CmsSection;
+import com.redhat.threescale.rest.cms.model.*;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps a CMS listing's worth of sections, files and templates from the REST
+ * API's model, as listing does, and the CLI's objects back to it, as
+ * uploading does
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private static final OffsetDateTime UPDATED_AT =
+        OffsetDateTime.of(2023, 11, 8, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    /**
+     * Number of objects of each kind (sections, files and templates)
+     */
+    @Param({"10000", "100000"})
+    int objectCount;
+
+    private final CmsSectionMapper sectionMapper = Mappers.getMapper(CmsSectionMapper.class);
+    private final CmsFileMapper fileMapper = Mappers.getMapper(CmsFileMapper.class);
+    private final CmsTemplateMapper templateMapper = Mappers.getMapper(CmsTemplateMapper.class);
+
+    private List<Section> restSections;
+    private List<ModelFile> restFiles;
+    private List<Template> restTemplates;
+
+    private List<CmsSection> cmsSections;
+    private List<CmsFile> cmsFiles;
+    private List<CmsPage> cmsPages;
+
+    @Setup
+    public void setUp() {
+        restSections = new ArrayList<>(objectCount);
+        restFiles = new ArrayList<>(objectCount);
+        restTemplates = new ArrayList<>(objectCount);
+
+        for (long id = 1; id <= objectCount; id++) {
+            restSections.add(new Section()
+                .id(id)
+                .parentId(id / 8)
+                .systemName("s" + id)
+                .title("s" + id)
+                .partialPath("/s" + id / 8 + "/s" + id)
+                ._public(true)
+                .createdAt(UPDATED_AT)
+                .updatedAt(UPDATED_AT));
+
+            restFiles.add(new ModelFile()
+                .id(id)
+                .sectionId(id / 8)
+                .path("/s" + id / 8 + "/f" + id + ".png")
+                .title("f" + id + ".png")
+                .downloadable(false)
+                .contentType("image/png")
+                .createdAt(UPDATED_AT)
+                .updatedAt(UPDATED_AT));
+
+            restTemplates.add(switch ((int) (id % 4)) {
+                case 0 -> new Layout()
+                    .systemName("layout" + id)
+                    .title("layout" + id + " layout")
+                    .id(id)
+                    .contentType("text/html")
+                    .liquidEnabled(true)
+                    .createdAt(UPDATED_AT)
+                    .updatedAt(UPDATED_AT);
+                case 1 -> new Partial()
+                    .systemName("s" + id / 8 + "/partial" + id)
+                    .id(id)
+                    .contentType("text/html")
+                    .liquidEnabled(true)
+                    .createdAt(UPDATED_AT)
+                    .updatedAt(UPDATED_AT);
+                default -> new Page()
+                    .path("/s" + id / 8 + "/p" + id)
+                    .title("p" + id)
+                    .layout("main_layout")
+                    .hidden(false)
+                    .id(id)
+                    .contentType("text/html")
+                    .handler(EnumHandler.MARKDOWN)
+                    .liquidEnabled(true)
+                    .createdAt(UPDATED_AT)
+                    .updatedAt(UPDATED_AT);
+            });
+        }
+
+        cmsSections = restSections.stream().map(sectionMapper::fromRest).toList();
+        cmsFiles = restFiles.stream().map(fileMapper::fromRest).toList();
+        cmsPages = restTemplates.stream()
+            .filter(Page.class::isInstance)
+            .map(page -> templateMapper.fromRestPage((Page) page))
+            .toList();
+    }
+
+    @Benchmark
+    public void sectionsFromRest(Blackhole blackhole) {
+        for (Section section : restSections) {
+            blackhole.consume(sectionMapper.fromRest(section));
+        }
+    }
+
+    @Benchmark
+    public void sectionsToRest(Blackhole blackhole) {
+        for (CmsSection section : cmsSections) {
+            blackhole.consume(sectionMapper.toRest(section));
+        }
+    }
+
+    @Benchmark
+    public void filesFromRest(Blackhole blackhole) {
+        for (ModelFile file : restFiles) {
+            blackhole.consume(fileMapper.fromRest(file));
+        }
+    }
+
+    @Benchmark
+    public void filesToRest(Blackhole blackhole) {
+        for (CmsFile file : cmsFiles) {
+            blackhole.consume(fileMapper.toRest(file));
+        }
+    }
+
+    @Benchmark
+    public void templatesFromRest(Blackhole blackhole) {
+        for (Template template : restTemplates) {
+            blackhole.consume(templateMapper.fromRest(template));
+        }
+    }
+
+    @Benchmark
+    public void pagesToRest(Blackhole blackhole) {
+        for (CmsPage page : cmsPages) {
+            blackhole.consume(templateMapper.toRestPageUpdate(page));
+        }
+    }
+
+}
@@ -1,19 +1,16 @@
 package com.fwmotion.threescale.cms.cli;
 
 import com.fwmotion.threescale.cms.ThreescaleCmsClient;
-import com.fwmotion.threescale.cms.cli.support.CmsObjectPathKeyGenerator;
-import com.fwmotion.threescale.cms.cli.support.CmsSectionToTopComparator;
-import com.fwmotion.threescale.cms.cli.support.PathRecursionSupport;
-import com.fwmotion.threescale.cms.exception.ThreescaleCmsCannotDeleteBuiltinException;
+import com.fwmotion.threescale.cms.cli.support.*;
 import com.fwmotion.threescale.cms.model.CmsObject;
 import io.quarkus.logging.Log;
 import jakarta.annotation.Nonnull;
 import jakarta.inject.Inject;
 import picocli.CommandLine;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
@@ -28,15 +25,15 @@ public class DeleteCommand extends CommandBase implements Callable<Integer> {
 
     private static final String REALLY_DELETE_FLAG = "--yes-i-really-want-to-delete-the-entire-developer-portal";
 
-    @Inject
-    CmsObjectPathKeyGenerator pathKeyGenerator;
-
     @Inject
     PathRecursionSupport pathRecursionSupport;
 
     @Inject
     CmsSectionToTopComparator sectionToTopComparator;
 
+    @Inject
+    CmsObjectDeleter cmsObjectDeleter;
+
     @CommandLine.ArgGroup
     MutuallyExclusiveGroup exclusiveOptions;
 
@@ -49,9 +46,19 @@ public class DeleteCommand extends CommandBase implements Callable<Integer> {
     )
     private boolean noop;
 
+    @CommandLine.Option(
+        names = {"-p", "--parallelism"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "4",
+        description = "Number of objects to delete at the same time, within " +
+            "each level of the section tree"
+    )
+    private int parallelism;
+
     @Nonnull
     @Override
-    public Integer call() {
+    public Integer call() throws InterruptedException, IOException {
 
         List<String> remotePathsToDelete;
         PathRecursionSupport.RecursionOption recursionStyle;
@@ -77,16 +84,14 @@ public class DeleteCommand extends CommandBase implements Callable<Integer> {
             }
         }
 
-        Map<String, CmsObject> remoteObjectsByPath = topLevelCommand.getCmsObjects()
-            .stream()
-            .collect(Collectors.toMap(pathKeyGenerator::generatePathKeyForObject, o -> o));
+        CmsPathIndex remotePathIndex = topLevelCommand.getCmsPathIndex(false, false);
 
         List<CmsObject> remoteObjectsToDelete = pathRecursionSupport.calculateSpecifiedPaths(
                 remotePathsToDelete,
                 recursionStyle,
-                remoteObjectsByPath)
+                remotePathIndex)
             .stream()
-            .map(remoteObjectsByPath::get)
+            .map(remotePathIndex::getObject)
             .sorted(sectionToTopComparator
                 .reversed())
             .collect(Collectors.toList());
@@ -98,34 +103,21 @@ public class DeleteCommand extends CommandBase implements Callable<Integer> {
 
         if (noop) {
             for (CmsObject object : remoteObjectsToDelete) {
-                Log.info("Would delete " + object.getType() + " " + pathKeyGenerator.generatePathKeyForObject(object));
+                Log.info("Would delete " + object.getType() + " " + remotePathIndex.getPathKey(object).orElseThrow());
             }
         } else {
             ThreescaleCmsClient client = topLevelCommand.getClient();
+            topLevelCommand.invalidateCmsObjects();
 
-            deleteObjects(client, pathKeyGenerator, remoteObjectsToDelete);
+            CmsObjectDeletionSummary summary = cmsObjectDeleter.deleteObjects(client, remoteObjectsToDelete, parallelism);
+            if (summary.hasFailures()) {
+                return 1;
+            }
         }
 
         return 0;
     }
 
-    static void deleteObjects(ThreescaleCmsClient client, CmsObjectPathKeyGenerator pathKeyGenerator, List<CmsObject> remoteObjectsToDelete) {
-        for (CmsObject object : remoteObjectsToDelete) {
-            String objectName = object.getType() + " " + pathKeyGenerator.generatePathKeyForObject(object);
-
-            Log.info("Deleting " + objectName);
-            try {
-                client.delete(object);
-            } catch (ThreescaleCmsCannotDeleteBuiltinException e) {
-                Log.info("Could not delete built-in " + objectName);
-            } catch (Exception e) {
-                // TODO: Handle exceptions properly, and provide better logs
-                //       indicating the reason for failure
-                Log.warn("Failed to delete " + objectName, e);
-            }
-        }
-    }
-
     private boolean isDeleteAll() {
         return exclusiveOptions == null
             || exclusiveOptions.individualFilesDeletionGroup == null
@@ -1,8 +1,10 @@
 package com.fwmotion.threescale.cms.cli;
 
 import com.fwmotion.threescale.cms.cli.support.CmsObjectPathKeyGenerator;
+import com.fwmotion.threescale.cms.cli.support.CompareMode;
 import com.fwmotion.threescale.cms.cli.support.LocalRemoteObjectTreeComparator;
 import com.fwmotion.threescale.cms.cli.support.LocalRemoteTreeComparisonDetails;
+import com.fwmotion.threescale.cms.cli.support.TemplateVersion;
 import com.fwmotion.threescale.cms.model.CmsLayout;
 import io.quarkus.logging.Log;
 import jakarta.inject.Inject;
@@ -26,6 +28,24 @@ public class DiffCommand extends CommandBase implements Callable<Integer> {
     @CommandLine.ParentCommand
     private TopLevelCommand topLevelCommand;
 
+    @CommandLine.Option(
+        names = {"--compare"},
+        paramLabel = "MODE",
+        arity = "1",
+        defaultValue = "TIMESTAMP",
+        description = "How to tell whether content without a sync manifest " +
+            "record has changed; one of: ${COMPLETION-CANDIDATES}. CONTENT " +
+            "compares templates' content with the CMS"
+    )
+    private CompareMode compareMode;
+
+    @CommandLine.Option(
+        names = "--draft",
+        description = "Compare templates' content with their draft version " +
+            "(otherwise, published will be compared)"
+    )
+    private boolean compareDraft;
+
     @Override
     public Integer call() throws Exception {
         showDiff(false);
@@ -45,10 +65,17 @@ public class DiffCommand extends CommandBase implements Callable<Integer> {
     private void showDiff(boolean includeDetails) throws Exception {
         InfoCommand.displayCmsUrl(topLevelCommand.getProviderDomain());
 
+        TemplateVersion compareTemplateContent = compareMode == CompareMode.CONTENT
+            ? (compareDraft ? TemplateVersion.DRAFT : TemplateVersion.PUBLISHED)
+            : null;
+
         LocalRemoteTreeComparisonDetails details = treeComparator.compareLocalAndRemoteCmsObjectTrees(
-            topLevelCommand.getCmsObjects().stream(),
+            topLevelCommand.getCmsPathIndex(compareTemplateContent != null, true),
             topLevelCommand.getRootDirectory(),
-            true);
+            true,
+            topLevelCommand.getSyncManifest(),
+            topLevelCommand.getLocalContentHashes(),
+            compareTemplateContent);
 
         CmsLayout defaultLayout = details.getDefaultLayout().orElse(null);
         if (defaultLayout == null) {
@@ -1,14 +1,14 @@
 package com.fwmotion.threescale.cms.cli;
 
-import com.fwmotion.threescale.cms.cli.support.LocalRemoteObjectTreeComparator;
-import com.fwmotion.threescale.cms.cli.support.LocalRemoteTreeComparisonDetails;
-import com.fwmotion.threescale.cms.cli.support.PathRecursionSupport;
+import com.fwmotion.threescale.cms.ThreescaleCmsClient;
+import com.fwmotion.threescale.cms.cli.support.*;
 import com.fwmotion.threescale.cms.model.CmsFile;
 import com.fwmotion.threescale.cms.model.CmsObject;
 import com.fwmotion.threescale.cms.model.CmsSection;
 import com.fwmotion.threescale.cms.model.CmsTemplate;
 import io.quarkus.logging.Log;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import jakarta.inject.Inject;
 import org.apache.commons.collections4.SetUtils;
 import org.apache.commons.io.FileUtils;
@@ -20,7 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.concurrent.*;
 
 @CommandLine.Command(
     header = "Download 3scale CMS Content",
@@ -30,6 +30,8 @@ import java.util.concurrent.Callable;
 )
 public class DownloadCommand extends CommandBase implements Callable<Integer> {
 
+    @Inject
+    CmsObjectPathKeyGenerator pathKeyGenerator;
 
     @Inject
     LocalRemoteObjectTreeComparator localRemoteObjectTreeComparator;
@@ -50,6 +52,18 @@ public class DownloadCommand extends CommandBase implements Callable<Integer> {
     )
     private boolean downloadDraft;
 
+    @CommandLine.Option(
+        names = {"--compare"},
+        paramLabel = "MODE",
+        arity = "1",
+        defaultValue = "TIMESTAMP",
+        description = "How to tell whether content without a sync manifest " +
+            "record has changed; one of: ${COMPLETION-CANDIDATES}. CONTENT " +
+            "skips templates whose local content already matches the " +
+            "version being downloaded"
+    )
+    private CompareMode compareMode;
+
     @CommandLine.Option(
         names = {"-n", "--dry-run"},
         description = "Dry run: do not download any files; instead, just list " +
@@ -57,14 +71,40 @@ public class DownloadCommand extends CommandBase implements Callable<Integer> {
     )
     private boolean noop;
 
+    @CommandLine.Option(
+        names = {"-p", "--parallelism"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "4",
+        description = "Number of files and templates to download at the " +
+            "same time"
+    )
+    private int parallelism;
+
     @Override
     public Integer call() throws Exception {
+        try {
+            return download(topLevelCommand.getSyncManifest());
+        } finally {
+            if (!noop) {
+                topLevelCommand.saveSyncManifest();
+            }
+        }
+    }
+
+    private int download(@Nullable SyncManifest syncManifest) throws Exception {
+        TemplateVersion compareTemplateContent = compareMode == CompareMode.CONTENT
+            ? (downloadDraft ? TemplateVersion.DRAFT : TemplateVersion.PUBLISHED)
+            : null;
 
         LocalRemoteTreeComparisonDetails treeDetails =
             localRemoteObjectTreeComparator.compareLocalAndRemoteCmsObjectTrees(
-                topLevelCommand.getCmsObjects().stream(),
+                topLevelCommand.getCmsPathIndex(compareTemplateContent != null, true),
                 topLevelCommand.getRootDirectory(),
-                true);
+                true,
+                syncManifest,
+                topLevelCommand.getLocalContentHashes(),
+                compareTemplateContent);
 
         Map<String, CmsObject> remoteObjectsByPath = treeDetails.getRemoteObjectsByCmsPath();
         Path rootPath = topLevelCommand.getRootDirectory().toPath();
@@ -91,7 +131,7 @@ public class DownloadCommand extends CommandBase implements Callable<Integer> {
             remotePathsToDownload = pathRecursionSupport.calculateSpecifiedPaths(
                 exclusiveOptions.individualFilesDownloadGroup.downloadPaths,
                 recursionStyle(),
-                remoteObjectsByPath);
+                treeDetails.getRemotePathIndex());
 
             localPathsToDelete = Collections.emptySet();
         }
@@ -101,9 +141,8 @@ public class DownloadCommand extends CommandBase implements Callable<Integer> {
             return 0;
         }
 
-        List<File> deleteFiles = localPathsToDelete.stream()
-            .map(treeDetails.getLocalObjectsByCmsPath()::get)
-            .map(Pair::getRight)
+        List<Pair<String, File>> deleteFiles = localPathsToDelete.stream()
+            .map(pathKey -> Pair.of(pathKey, treeDetails.getLocalObjectsByCmsPath().get(pathKey).getRight()))
             .toList();
 
         List<Pair<CmsObject, Path>> remoteObjectsToDownload = remotePathsToDownload.stream()
@@ -116,8 +155,8 @@ public class DownloadCommand extends CommandBase implements Callable<Integer> {
             .toList();
 
         if (noop) {
-            for (File file : deleteFiles) {
-                Log.info("Would delete " + file);
+            for (Pair<String, File> pair : deleteFiles) {
+                Log.info("Would delete " + pair.getRight());
             }
 
             for (Pair<CmsObject, Path> pair : remoteObjectsToDownload) {
@@ -136,22 +175,82 @@ public class DownloadCommand extends CommandBase implements Callable<Integer> {
                 Log.info("Would download " + targetPath.toString() + draftIndicator);
             }
         } else {
-            for (File file : deleteFiles) {
+            for (Pair<String, File> pair : deleteFiles) {
+                File file = pair.getRight();
                 Log.info("Deleting " + file + "...");
-                if (!file.delete()) {
+                if (file.delete()) {
+                    if (syncManifest != null) {
+                        syncManifest.remove(pair.getLeft());
+                    }
+                } else {
                     Log.warn("Failed to delete " + file);
                 }
             }
-            for (Pair<CmsObject, Path> pair : remoteObjectsToDownload) {
-                performDownload(pair.getLeft(), pair.getRight());
-            }
+            performDownloads(topLevelCommand.getClient(), remoteObjectsToDownload, syncManifest);
         }
 
         return 0;
     }
 
-    private void performDownload(@Nonnull CmsObject cmsObject,
-                                 @Nonnull Path targetPath) throws IOException {
+    /**
+     * Download the objects, with files and templates fetched concurrently.
+     * Section directories are all created first, so that content can be
+     * written into them in any order; their last-modified times are only set
+     * once all content has been written, as writing into a directory would
+     * otherwise update it again.
+     */
+    private void performDownloads(@Nonnull ThreescaleCmsClient client,
+                                  @Nonnull List<Pair<CmsObject, Path>> remoteObjectsToDownload,
+                                  @Nullable SyncManifest syncManifest) throws Exception {
+        List<Pair<CmsObject, Path>> sections = remoteObjectsToDownload.stream()
+            .filter(pair -> pair.getLeft() instanceof CmsSection)
+            .sorted(Comparator.comparing(Pair::getRight))
+            .toList();
+
+        List<Pair<CmsObject, Path>> content = remoteObjectsToDownload.stream()
+            .filter(pair -> !(pair.getLeft() instanceof CmsSection))
+            .toList();
+
+        for (Pair<CmsObject, Path> pair : sections) {
+            Log.info("Downloading " + pair.getRight());
+            createDirectories(pair.getRight().toFile());
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+        try {
+            List<Future<?>> downloads = new ArrayList<>(content.size());
+            for (Pair<CmsObject, Path> pair : content) {
+                downloads.add(executorService.submit(() -> {
+                    performDownload(client, pair.getLeft(), pair.getRight(), syncManifest);
+                    return null;
+                }));
+            }
+
+            for (Future<?> download : downloads) {
+                try {
+                    download.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // Deepest sections first, matching the order directories are left in
+        for (int i = sections.size() - 1; i >= 0; i--) {
+            Pair<CmsObject, Path> pair = sections.get(i);
+            setLastModified(pair.getLeft(), pair.getRight().toFile());
+        }
+    }
+
+    private void performDownload(@Nonnull ThreescaleCmsClient client,
+                                 @Nonnull CmsObject cmsObject,
+                                 @Nonnull Path targetPath,
+                                 @Nullable SyncManifest syncManifest) throws IOException {
         String draftIndicator;
         if (cmsObject instanceof CmsTemplate) {
             draftIndicator = downloadDraft
@@ -167,58 +266,62 @@ public class DownloadCommand extends CommandBase implements Callable<Integer> {
         File parentDirectory = targetFile.getParentFile();
 
         if (parentDirectory != null) {
-            if (!parentDirectory.exists() && !parentDirectory.mkdirs()) {
-                throw new IllegalStateException("Unable to create parent directories for " + targetFile);
-            }
+            createDirectories(parentDirectory);
         }
 
         switch (cmsObject.getType()) {
-            case SECTION:
-                performDownloadSection((CmsSection) cmsObject, targetFile);
-                break;
             case FILE:
-                performDownloadFile((CmsFile) cmsObject, targetFile);
+                performDownloadFile(client, (CmsFile) cmsObject, targetFile);
                 break;
             case TEMPLATE:
                 assert cmsObject instanceof CmsTemplate;
-                performDownloadTemplate((CmsTemplate) cmsObject, targetFile);
+                performDownloadTemplate(client, (CmsTemplate) cmsObject, targetFile);
                 break;
             default:
                 throw new UnsupportedOperationException("Unknown CMS type: " + cmsObject.getType());
         }
 
-        if (!targetFile.setLastModified(cmsObject.getUpdatedAt().toInstant().toEpochMilli())) {
-            Log.warn("Couldn't set last-modified for " + targetFile);
+        setLastModified(cmsObject, targetFile);
+
+        if (syncManifest != null) {
+            syncManifest.recordSynced(
+                pathKeyGenerator.generatePathKeyForObject(cmsObject),
+                cmsObject.getId(),
+                cmsObject.getUpdatedAt(),
+                topLevelCommand.getLocalContentHashes().hash(targetFile));
         }
+    }
 
+    private static void createDirectories(@Nonnull File directory) {
+        // Another download may create the same directory concurrently, so
+        // only fail if it still doesn't exist afterward
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            throw new IllegalStateException("Failed to create directory " + directory);
+        }
     }
 
-    private void performDownloadSection(@Nonnull CmsSection cmsSection,
+    private static void setLastModified(@Nonnull CmsObject cmsObject,
                                         @Nonnull File targetFile) {
-        if (!targetFile.exists() && !targetFile.mkdir()) {
-            throw new IllegalStateException("Failed to create directory " + targetFile);
+        if (!targetFile.setLastModified(cmsObject.getUpdatedAt().toInstant().toEpochMilli())) {
+            Log.warn("Couldn't set last-modified for " + targetFile);
         }
     }
 
-    private void performDownloadFile(@Nonnull CmsFile cmsFile,
-                                     @Nonnull File targetFile) throws IOException {
-        InputStream fileContent = topLevelCommand.getClient()
-            .getFileContent(cmsFile)
-            .orElseThrow(() -> new IllegalStateException("Failed to download file content for " + targetFile));
-
-        FileUtils.copyInputStreamToFile(fileContent, targetFile);
+    private void performDownloadFile(@Nonnull ThreescaleCmsClient client,
+                                     @Nonnull CmsFile cmsFile,
+                                     @Nonnull File targetFile) {
+        client.downloadFileContent(cmsFile, targetFile.toPath());
     }
 
-    private void performDownloadTemplate(@Nonnull CmsTemplate cmsTemplate,
+    private void performDownloadTemplate(@Nonnull ThreescaleCmsClient client,
+                                         @Nonnull CmsTemplate cmsTemplate,
                                          @Nonnull File targetFile) throws IOException {
         Optional<InputStream> fileContentOptional;
 
         if (downloadDraft) {
-            fileContentOptional = topLevelCommand.getClient()
-                .getTemplateDraft(cmsTemplate);
+            fileContentOptional = client.getTemplateDraft(cmsTemplate);
         } else {
-            fileContentOptional = topLevelCommand.getClient()
-                .getTemplatePublished(cmsTemplate);
+            fileContentOptional = client.getTemplatePublished(cmsTemplate);
         }
 
         InputStream fileContent = fileContentOptional
@@ -4,7 +4,6 @@ import com.fwmotion.threescale.cms.cli.support.CmsObjectPathKeyGenerator;
 import com.fwmotion.threescale.cms.cli.support.LocalRemoteObjectTreeComparator;
 import com.fwmotion.threescale.cms.cli.support.LocalRemoteTreeComparisonDetails;
 import com.fwmotion.threescale.cms.model.CmsLayout;
-import com.fwmotion.threescale.cms.model.CmsObject;
 import io.quarkus.logging.Log;
 import jakarta.annotation.Nonnull;
 import jakarta.inject.Inject;
@@ -14,7 +13,6 @@ import picocli.CommandLine;
 
 import java.net.URISyntaxException;
 import java.nio.file.Path;
-import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -54,9 +52,8 @@ public class InfoCommand extends CommandBase implements Callable<Integer> {
     private void showInfo(boolean includeDetails) throws Exception {
         displayCmsUrl(topLevelCommand.getProviderDomain());
 
-        List<CmsObject> allRemoteObjects = topLevelCommand.getCmsObjects();
         LocalRemoteTreeComparisonDetails details = treeComparator.compareLocalAndRemoteCmsObjectTrees(
-            allRemoteObjects.stream(),
+            topLevelCommand.getCmsPathIndex(),
             topLevelCommand.getRootDirectory(),
             true);
 
@@ -68,9 +65,9 @@ public class InfoCommand extends CommandBase implements Callable<Integer> {
                 cmsObjectPathKeyGenerator.generatePathKeyForObject(defaultLayout));
         }
 
-        Log.info(allRemoteObjects.size() + " items found in CMS");
+        Log.info(details.getRemoteObjectsByCmsPath().size() + " items found in CMS");
         if (includeDetails) {
-            if (!allRemoteObjects.isEmpty()) {
+            if (!details.getRemoteObjectsByCmsPath().isEmpty()) {
                 int longestPath = details.getRemoteObjectsByCmsPath().keySet().stream()
                     .mapToInt(String::length)
                     .max()
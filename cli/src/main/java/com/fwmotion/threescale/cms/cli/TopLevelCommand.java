@@ -2,15 +2,30 @@ package com.fwmotion.threescale.cms.cli;
 
 import com.fwmotion.threescale.cms.ThreescaleCmsClient;
 import com.fwmotion.threescale.cms.ThreescaleCmsClientFactory;
+import com.fwmotion.threescale.cms.cli.support.CmsListingCache;
+import com.fwmotion.threescale.cms.cli.support.CmsObjectPathKeyGenerator;
+import com.fwmotion.threescale.cms.cli.support.CmsPathIndex;
+import com.fwmotion.threescale.cms.cli.support.LocalContentHashes;
+import com.fwmotion.threescale.cms.cli.support.LocalRemoteObjectTreeComparator;
+import com.fwmotion.threescale.cms.cli.support.SyncManifest;
+import com.fwmotion.threescale.cms.cli.support.SyncManifestStore;
 import com.fwmotion.threescale.cms.model.CmsObject;
+import io.quarkus.logging.Log;
 import io.quarkus.picocli.runtime.annotations.TopCommand;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
 import picocli.CommandLine;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @TopCommand
 @CommandLine.Command(
@@ -29,7 +44,19 @@ import java.util.List;
     synopsisSubcommandLabel = "[COMMAND] ",
     commandListHeading = "%n@|green,bold COMMANDS|@%n"
 )
-public class TopLevelCommand extends CommandBase {
+public class TopLevelCommand extends CommandBase implements AutoCloseable {
+
+    @Inject
+    SyncManifestStore syncManifestStore;
+
+    @Inject
+    CmsListingCache cmsListingCache;
+
+    @Inject
+    LocalRemoteObjectTreeComparator localRemoteObjectTreeComparator;
+
+    @Inject
+    CmsObjectPathKeyGenerator pathKeyGenerator;
 
     @CommandLine.Option(
         names = {"-k", "--insecure"},
@@ -78,11 +105,207 @@ public class TopLevelCommand extends CommandBase {
     )
     private File rootDirectory;
 
+    @CommandLine.Option(
+        names = {"--max-pages-in-flight"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "4",
+        description = "Number of CMS list pages to request in the " +
+            "background while listing CMS content; 0 requests one page at " +
+            "a time"
+    )
+    private int maxPagesInFlight;
+
+    @CommandLine.Option(
+        names = {"--max-concurrent-listings"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "3",
+        description = "Number of CMS collections (sections, files, " +
+            "templates) to list at the same time; 1 lists them one after " +
+            "another"
+    )
+    private int maxConcurrentListings;
+
+    @CommandLine.Option(
+        names = {"--max-connections"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "" + ThreescaleCmsClientFactory.DEFAULT_MAX_CONNECTIONS_TOTAL,
+        description = "Maximum number of pooled HTTP connections"
+    )
+    private int maxConnectionsTotal;
+
+    @CommandLine.Option(
+        names = {"--max-connections-per-host"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "" + ThreescaleCmsClientFactory.DEFAULT_MAX_CONNECTIONS_PER_ROUTE,
+        description = "Maximum number of pooled HTTP connections to each of " +
+            "the admin portal and developer portal"
+    )
+    private int maxConnectionsPerRoute;
+
+    @CommandLine.Option(
+        names = {"--connect-timeout"},
+        paramLabel = "SECONDS",
+        arity = "1",
+        defaultValue = "30",
+        description = "Time allowed to establish a connection; 0 waits " +
+            "indefinitely"
+    )
+    private long connectTimeoutSeconds;
+
+    @CommandLine.Option(
+        names = {"--socket-timeout"},
+        paramLabel = "SECONDS",
+        arity = "1",
+        defaultValue = "300",
+        description = "Time allowed between packets of data on an open " +
+            "connection; 0 waits indefinitely"
+    )
+    private long socketTimeoutSeconds;
+
+    @CommandLine.Option(
+        names = {"--response-timeout"},
+        paramLabel = "SECONDS",
+        arity = "1",
+        defaultValue = "300",
+        description = "Time allowed for the server to start responding to a " +
+            "request; 0 waits indefinitely"
+    )
+    private long responseTimeoutSeconds;
+
+    @CommandLine.Option(
+        names = {"--keep-alive"},
+        paramLabel = "SECONDS",
+        arity = "1",
+        defaultValue = "30",
+        description = "How long to keep idle connections for reuse, when " +
+            "the server doesn't specify"
+    )
+    private long keepAliveSeconds;
+
+    @CommandLine.Option(
+        names = {"--idle-connection-timeout"},
+        paramLabel = "SECONDS",
+        arity = "1",
+        defaultValue = "60",
+        description = "Close pooled connections unused for this long; 0 " +
+            "never closes idle connections early"
+    )
+    private long idleConnectionTimeoutSeconds;
+
+    @CommandLine.Option(
+        names = {"--tcp-nodelay"},
+        negatable = true,
+        defaultValue = "true",
+        fallbackValue = "true",
+        description = "Disable Nagle's algorithm on HTTP connections"
+    )
+    private boolean tcpNoDelay;
+
+    @CommandLine.Option(
+        names = {"--max-retries"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "" + ThreescaleCmsClientFactory.DEFAULT_MAX_RETRIES,
+        description = "Number of times to retry an API call that was " +
+            "throttled or failed for a transient reason; 0 never retries"
+    )
+    private int maxRetries;
+
+    @CommandLine.Option(
+        names = {"--max-requests-per-second"},
+        paramLabel = "RATE",
+        arity = "1",
+        defaultValue = "0",
+        description = "Maximum rate at which to make API calls; 0 doesn't " +
+            "limit the rate. Calls in flight are reduced whenever the " +
+            "server throttles them, either way"
+    )
+    private double maxRequestsPerSecond;
+
+    @CommandLine.Option(
+        names = {"--http-transport"},
+        paramLabel = "TRANSPORT",
+        arity = "1",
+        defaultValue = "CLASSIC",
+        description = {
+            "How to send API requests; one of: ${COMPLETION-CANDIDATES}.",
+            "CLASSIC uses one connection per request in progress; ASYNC " +
+                "negotiates HTTP/2 where offered; HTTP2 multiplexes all " +
+                "requests over one connection per host, and requires a " +
+                "server that supports HTTP/2"
+        }
+    )
+    private ThreescaleCmsClientFactory.HttpTransport httpTransport;
+
+    @CommandLine.Option(
+        names = {"--sync-manifest"},
+        negatable = true,
+        defaultValue = "true",
+        fallbackValue = "true",
+        description = "Record what was last synced in " +
+            SyncManifestStore.MANIFEST_FILENAME + " in the local directory, " +
+            "so that download and upload detect changes by content rather " +
+            "than by file timestamps"
+    )
+    private boolean useSyncManifest;
+
+    @CommandLine.Option(
+        names = {"--cache-directory"},
+        paramLabel = "DIRECTORY",
+        arity = "1",
+        description = "Directory in which to cache data between runs, such " +
+            "as content hashes of local files; defaults to 3scale-cms in " +
+            "$XDG_CACHE_HOME, or in ~/.cache"
+    )
+    private File cacheDirectory;
+
+    @CommandLine.Option(
+        names = {"--listing-cache-ttl"},
+        paramLabel = "SECONDS",
+        arity = "1",
+        defaultValue = "0",
+        description = "Cache the CMS listing of info, diff and download, and " +
+            "reuse it in later such commands for up to this long, as long " +
+            "as no content has since been added or removed (or changed by " +
+            "upload or delete). Edits to existing content within this time " +
+            "aren't noticed, so upload and delete always list the CMS " +
+            "afresh, as does comparing template content, which is never " +
+            "cached; 0 (the default) caches nothing"
+    )
+    private long listingCacheTtlSeconds;
+
+    @CommandLine.Option(
+        names = {"--scan-parallelism"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "0",
+        description = "Number of threads to scan the local directory with; " +
+            "0 uses one per processor, and 1 walks it one directory at a time"
+    )
+    void setScanParallelism(int scanParallelism) {
+        localRemoteObjectTreeComparator.setLocalScanParallelism(scanParallelism);
+    }
+
     private ThreescaleCmsClientFactory factory;
+    private ThreescaleCmsClient client;
     private List<CmsObject> cmsObjects;
+    private boolean cmsObjectsIncludeTemplateContent;
+    private boolean cmsObjectsFromListingCache;
+    private CmsPathIndex cmsPathIndex;
+    private SyncManifest syncManifest;
+    private LocalContentHashes localContentHashes;
 
-    public ThreescaleCmsClient getClient() {
-        if (factory == null) {
+    /**
+     * Get the client for this run; it is built on first use, and shared by
+     * everything (including concurrent downloads and uploads) until the
+     * command finishes.
+     */
+    public synchronized ThreescaleCmsClient getClient() {
+        if (client == null) {
             factory = new ThreescaleCmsClientFactory();
             factory.setBaseUrl(providerDomain);
             if (StringUtils.isNotBlank(accessToken)) {
@@ -91,19 +314,209 @@ public class TopLevelCommand extends CommandBase {
                 factory.setProviderKey(providerKey);
             }
             factory.setUseInsecureConnections(useInsecureConnections);
+            factory.setMaxPagesInFlight(maxPagesInFlight);
+            factory.setMaxConcurrentListings(maxConcurrentListings);
+            factory.setMaxConnectionsTotal(maxConnectionsTotal);
+            factory.setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+            factory.setConnectTimeout(Duration.ofSeconds(connectTimeoutSeconds));
+            factory.setSocketTimeout(Duration.ofSeconds(socketTimeoutSeconds));
+            factory.setResponseTimeout(Duration.ofSeconds(responseTimeoutSeconds));
+            factory.setKeepAlive(Duration.ofSeconds(keepAliveSeconds));
+            factory.setIdleConnectionTimeout(Duration.ofSeconds(idleConnectionTimeoutSeconds));
+            factory.setTcpNoDelay(tcpNoDelay);
+            factory.setHttpTransport(httpTransport);
+            factory.setMaxRetries(maxRetries);
+            factory.setMaxRequestsPerSecond(maxRequestsPerSecond);
+
+            client = factory.getThreescaleCmsClient();
         }
 
-        return factory.getThreescaleCmsClient();
+        return client;
     }
 
     public List<CmsObject> getCmsObjects() {
-        if (cmsObjects == null) {
-            cmsObjects = getClient().listAllCmsObjects();
+        return getCmsObjects(false, true);
+    }
+
+    /**
+     * List all CMS objects, once per run
+     *
+     * @param includeTemplateContent whether templates need their draft and
+     *                               published content
+     * @param allowCachedListing     whether a listing cached by a previous
+     *                               command may be used (and this listing
+     *                               cached for the next); it can't tell
+     *                               whether existing objects have been
+     *                               edited since, so commands that change CMS
+     *                               content don't use it. Listings with
+     *                               template content are never cached.
+     */
+    public synchronized List<CmsObject> getCmsObjects(boolean includeTemplateContent,
+                                                      boolean allowCachedListing) {
+        if (cmsObjects == null
+            || (includeTemplateContent && !cmsObjectsIncludeTemplateContent)
+            || (!allowCachedListing && cmsObjectsFromListingCache)) {
+            File listingCacheFile = listingCacheTtlSeconds > 0 && allowCachedListing && !includeTemplateContent
+                ? getListingCacheFile()
+                : null;
+
+            List<CmsObject> cachedObjects = null;
+            if (listingCacheFile != null) {
+                cachedObjects = cmsListingCache.load(listingCacheFile,
+                    providerDomain,
+                    Duration.ofSeconds(listingCacheTtlSeconds),
+                    () -> getClient().countCmsObjects());
+            }
+
+            if (cachedObjects != null) {
+                cmsObjects = cachedObjects;
+            } else {
+                // Anything changed while listing will be seen by the next
+                // listing, however soon
+                Instant listedAt = Instant.now();
+                cmsObjects = getClient().listAllCmsObjects(includeTemplateContent);
+
+                if (listingCacheFile != null) {
+                    try {
+                        cmsListingCache.save(listingCacheFile, providerDomain, listedAt, cmsObjects);
+                    } catch (IOException e) {
+                        Log.warn("Failed to cache CMS listing", e);
+                    }
+                }
+            }
+            cmsObjectsIncludeTemplateContent = includeTemplateContent;
+            cmsObjectsFromListingCache = cachedObjects != null;
+            cmsPathIndex = null;
         }
 
         return new ArrayList<>(cmsObjects);
     }
 
+    public CmsPathIndex getCmsPathIndex() {
+        return getCmsPathIndex(false, true);
+    }
+
+    /**
+     * Index all CMS objects by path key, once per listing
+     *
+     * @param includeTemplateContent whether templates need their draft and
+     *                               published content
+     * @param allowCachedListing     whether a listing cached by a previous
+     *                               command may be used
+     * @see #getCmsObjects(boolean, boolean)
+     */
+    public synchronized CmsPathIndex getCmsPathIndex(boolean includeTemplateContent,
+                                                     boolean allowCachedListing) {
+        List<CmsObject> objects = getCmsObjects(includeTemplateContent, allowCachedListing);
+
+        if (cmsPathIndex == null) {
+            cmsPathIndex = CmsPathIndex.build(objects, pathKeyGenerator);
+        }
+
+        return cmsPathIndex;
+    }
+
+    /**
+     * Forget the CMS listing (including any listing cached by previous
+     * commands) before changing CMS content
+     */
+    public synchronized void invalidateCmsObjects() throws IOException {
+        cmsObjects = null;
+        cmsPathIndex = null;
+
+        File listingCacheFile = getListingCacheFile();
+        if (listingCacheFile != null) {
+            cmsListingCache.invalidate(listingCacheFile);
+        }
+    }
+
+    /**
+     * Get the sync manifest for the target tenant, loaded on first use
+     *
+     * @return the manifest, or {@code null} if disabled
+     */
+    @Nullable
+    public synchronized SyncManifest getSyncManifest() throws IOException {
+        if (useSyncManifest && syncManifest == null) {
+            syncManifest = syncManifestStore.load(getRootDirectory(), providerDomain);
+        }
+
+        return syncManifest;
+    }
+
+    /**
+     * Save the sync manifest, if it was used and has changed
+     */
+    public synchronized void saveSyncManifest() throws IOException {
+        if (syncManifest != null && syncManifest.isModified()) {
+            syncManifestStore.save(getRootDirectory(), providerDomain, syncManifest);
+        }
+    }
+
+    /**
+     * Get content hashes of local files, memoized from previous runs; they
+     * are saved for the next run when the command finishes
+     */
+    @Nonnull
+    public synchronized LocalContentHashes getLocalContentHashes() throws IOException {
+        if (localContentHashes == null) {
+            localContentHashes = LocalContentHashes.load(getContentHashesCacheFile());
+        }
+
+        return localContentHashes;
+    }
+
+    /**
+     * @return the file that content hashes for the root directory are cached
+     * in, or {@code null} if there's nowhere to cache them
+     */
+    @Nullable
+    private File getContentHashesCacheFile() throws IOException {
+        File directory = getCacheDirectory();
+        if (directory == null) {
+            return null;
+        }
+
+        String rootPath = getRootDirectory().getCanonicalPath();
+        UUID rootId = UUID.nameUUIDFromBytes(rootPath.getBytes(StandardCharsets.UTF_8));
+
+        return new File(new File(directory, "content-hashes"), rootId + ".json");
+    }
+
+    /**
+     * @return the file that the CMS listing of the tenant is cached in, or
+     * {@code null} if there's nowhere to cache it
+     */
+    @Nullable
+    private File getListingCacheFile() {
+        File directory = getCacheDirectory();
+        if (directory == null) {
+            return null;
+        }
+
+        String tenant = StringUtils.removeEnd(providerDomain.trim(), "/");
+        UUID tenantId = UUID.nameUUIDFromBytes(tenant.getBytes(StandardCharsets.UTF_8));
+
+        return new File(new File(directory, "listings"), tenantId + ".json");
+    }
+
+    @Nullable
+    private File getCacheDirectory() {
+        if (cacheDirectory != null) {
+            return cacheDirectory;
+        }
+
+        String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+        String userHome = System.getProperty("user.home");
+        if (StringUtils.isNotBlank(xdgCacheHome)) {
+            return new File(xdgCacheHome, "3scale-cms");
+        } else if (StringUtils.isNotBlank(userHome)) {
+            return new File(new File(userHome, ".cache"), "3scale-cms");
+        }
+
+        return null;
+    }
+
     public String getProviderDomain() {
         return providerDomain;
     }
@@ -125,4 +538,32 @@ public class TopLevelCommand extends CommandBase {
         return rootDirectory;
     }
 
+    @Override
+    public synchronized void close() throws Exception {
+        if (localContentHashes != null) {
+            try {
+                File cacheFile = getContentHashesCacheFile();
+                if (cacheFile != null) {
+                    localContentHashes.save(cacheFile);
+                }
+            } catch (IOException e) {
+                // Only costs re-reading files next time
+                Log.warn("Failed to save content hashes of local files", e);
+            }
+        }
+
+        try {
+            if (client != null) {
+                client.close();
+            }
+        } finally {
+            client = null;
+
+            if (factory != null) {
+                factory.close();
+                factory = null;
+            }
+        }
+    }
+
 }
@@ -12,8 +12,11 @@ import org.apache.commons.lang3.tuple.Pair;
 import picocli.CommandLine;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @CommandLine.Command(
@@ -24,9 +27,6 @@ import java.util.stream.Collectors;
 )
 public class UploadCommand extends CommandBase implements Callable<Integer> {
 
-    @Inject
-    CmsObjectPathKeyGenerator pathKeyGenerator;
-
     @Inject
     LocalRemoteObjectTreeComparator localRemoteObjectTreeComparator;
 
@@ -36,6 +36,15 @@ public class UploadCommand extends CommandBase implements Callable<Integer> {
     @Inject
     CmsSectionToTopComparator sectionToTopComparator;
 
+    @Inject
+    DependencyGraphExecutor dependencyGraphExecutor;
+
+    @Inject
+    CmsObjectDeleter cmsObjectDeleter;
+
+    @Inject
+    TemplatePublisher templatePublisher;
+
     @CommandLine.ArgGroup
     MutuallyExclusiveGroup exclusiveOptions;
 
@@ -48,6 +57,26 @@ public class UploadCommand extends CommandBase implements Callable<Integer> {
     )
     private boolean keepAsDraft;
 
+    @CommandLine.Option(
+        names = {"--compare"},
+        paramLabel = "MODE",
+        arity = "1",
+        defaultValue = "TIMESTAMP",
+        description = "How to tell whether content without a sync manifest " +
+            "record has changed; one of: ${COMPLETION-CANDIDATES}. CONTENT " +
+            "skips templates whose content already matches the CMS (the " +
+            "draft with --keep-as-draft, otherwise the published version)"
+    )
+    private CompareMode compareMode;
+
+    @CommandLine.Option(
+        names = {"--publish-after-each-save"},
+        description = "Publish each template as soon as it has been " +
+            "uploaded, rather than publishing all templates once every " +
+            "upload has finished"
+    )
+    private boolean publishAfterEachSave;
+
     @CommandLine.Option(
         names = {"--layout"},
         arity = "1",
@@ -63,16 +92,47 @@ public class UploadCommand extends CommandBase implements Callable<Integer> {
     )
     private boolean noop;
 
+    @CommandLine.Option(
+        names = {"-p", "--parallelism"},
+        paramLabel = "COUNT",
+        arity = "1",
+        defaultValue = "4",
+        description = "Number of objects to upload at the same time, once " +
+            "the sections and layouts they depend on have been uploaded"
+    )
+    private int parallelism;
+
     @Override
     public Integer call() throws Exception {
+        try {
+            return upload(topLevelCommand.getSyncManifest());
+        } finally {
+            if (!noop) {
+                topLevelCommand.saveSyncManifest();
+            }
+        }
+    }
+
+    private int upload(@Nullable SyncManifest syncManifest) throws Exception {
+        TemplateVersion compareTemplateContent = compareMode == CompareMode.CONTENT
+            ? (keepAsDraft ? TemplateVersion.DRAFT : TemplateVersion.PUBLISHED)
+            : null;
+
         LocalRemoteTreeComparisonDetails treeDetails =
             localRemoteObjectTreeComparator.compareLocalAndRemoteCmsObjectTrees(
-                topLevelCommand.getCmsObjects().stream(),
+                topLevelCommand.getCmsPathIndex(compareTemplateContent != null, false),
                 topLevelCommand.getRootDirectory(),
-                !isDeleteMissing());
+                !isDeleteMissing(),
+                syncManifest,
+                topLevelCommand.getLocalContentHashes(),
+                compareTemplateContent);
 
-        Map<String, CmsObject> remoteObjectsByPath = treeDetails.getRemoteObjectsByCmsPath();
+        CmsPathIndex remotePathIndex = treeDetails.getRemotePathIndex();
+        Map<String, CmsObject> remoteObjectsByPath = remotePathIndex.getObjectsByPathKey();
         Map<String, Pair<CmsObject, File>> localObjectsByPath = treeDetails.getLocalObjectsByCmsPath();
+        CmsPathIndex localPathIndex = CmsPathIndex.of(localObjectsByPath.entrySet()
+            .stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getKey())));
 
         Set<String> remotePathsToDelete;
         Set<String> localPathsToUpload;
@@ -91,15 +151,11 @@ public class UploadCommand extends CommandBase implements Callable<Integer> {
                 remotePathsToDelete = Collections.emptySet();
             }
         } else {
-            Map<String, CmsObject> simplifiedLocalObjectsByPath = localObjectsByPath.entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getKey()));
-
             localPathsToUpload = new HashSet<>(
                 pathRecursionSupport.calculateSpecifiedPaths(
                     exclusiveOptions.individualFilesUploadGroup.uploadPaths,
                     recursionStyle(),
-                    simplifiedLocalObjectsByPath));
+                    localPathIndex));
 
             remotePathsToDelete = Collections.emptySet();
         }
@@ -172,12 +228,12 @@ public class UploadCommand extends CommandBase implements Callable<Integer> {
 
         if (noop) {
             for (CmsObject object : deleteObjects) {
-                Log.info("Would delete " + object.getType() + " " + pathKeyGenerator.generatePathKeyForObject(object));
+                Log.info("Would delete " + object.getType() + " " + remotePathIndex.getPathKey(object).orElseThrow());
             }
 
             for (Pair<CmsObject, File> pair : localObjectsToUpload) {
                 CmsObject object = pair.getLeft();
-                Log.info("Would upload " + object.getType() + " " + pathKeyGenerator.generatePathKeyForObject(object));
+                Log.info("Would upload " + object.getType() + " " + localPathIndex.getPathKey(object).orElseThrow());
             }
 
             if (!keepAsDraft) {
@@ -185,56 +241,130 @@ public class UploadCommand extends CommandBase implements Callable<Integer> {
                     CmsObject object = pair.getLeft();
 
                     if (object.getType() == ThreescaleObjectType.TEMPLATE) {
-                        Log.info("Would publish " + object.getType() + " " + pathKeyGenerator.generatePathKeyForObject(object));
+                        Log.info("Would publish " + object.getType() + " " + localPathIndex.getPathKey(object).orElseThrow());
                     }
                 }
             }
 
         } else {
             ThreescaleCmsClient client = topLevelCommand.getClient();
+            topLevelCommand.invalidateCmsObjects();
 
-            DeleteCommand.deleteObjects(client, pathKeyGenerator, deleteObjects);
-
-            for (Pair<CmsObject, File> pair : localObjectsToUpload) {
-                performUpload(client, pair.getLeft(), pair.getRight(), localObjectsByPath, remoteObjectsByPath);
+            CmsObjectDeletionSummary deletionSummary = cmsObjectDeleter.deleteObjects(client, deleteObjects, parallelism);
+            if (syncManifest != null) {
+                deletionSummary.getDeletedPaths().forEach(syncManifest::remove);
             }
 
-            if (!keepAsDraft) {
-                for (Pair<CmsObject, File> pair : localObjectsToUpload) {
-                    CmsObject object = pair.getLeft();
+            TemplatePublisher.Publication publication = templatePublisher.begin(client,
+                publishTiming(),
+                parallelism,
+                object -> localPathIndex.getPathKey(object).orElseThrow());
+
+            dependencyGraphExecutor.execute(
+                localObjectsToUpload,
+                uploadDependencies(localObjectsToUpload, localPathIndex),
+                parallelism,
+                pair -> {
+                    performUpload(client, pair.getLeft(), pair.getRight(), localPathIndex, remotePathIndex);
 
-                    if (object instanceof CmsTemplate cmsTemplate) {
-                        Log.info("Publishing " + object.getType() + " " + pathKeyGenerator.generatePathKeyForObject(object) + "...");
-                        client.publish(cmsTemplate);
+                    if (syncManifest != null) {
+                        recordUpload(syncManifest, pair.getLeft(), pair.getRight(), localPathIndex);
                     }
-                }
+
+                    publication.saved(pair.getLeft());
+                });
+
+            publication.finish(localObjectsToUpload.stream()
+                .map(Pair::getLeft)
+                .toList());
+
+            Map<String, Exception> publishFailures = publication.getFailuresByPath();
+            if (!publishFailures.isEmpty()) {
+                Log.error("Failed to publish " + publishFailures.size() + " template(s):");
+                publishFailures.forEach((pathKey, e) -> Log.error("  " + pathKey + ": " + e.getMessage()));
+                return 1;
             }
         }
 
         return 0;
     }
 
+    @Nonnull
+    private TemplatePublisher.PublishTiming publishTiming() {
+        if (keepAsDraft) {
+            return TemplatePublisher.PublishTiming.NEVER;
+        } else if (publishAfterEachSave) {
+            return TemplatePublisher.PublishTiming.AFTER_EACH_SAVE;
+        } else {
+            return TemplatePublisher.PublishTiming.AFTER_ALL_SAVES;
+        }
+    }
+
+    /**
+     * Each object depends on the closest section above it that is also being
+     * uploaded (as it needs that section's ID), and each page depends on its
+     * layout if that is being uploaded too.
+     */
+    @Nonnull
+    private Function<Pair<CmsObject, File>, List<Pair<CmsObject, File>>> uploadDependencies(
+        @Nonnull List<Pair<CmsObject, File>> localObjectsToUpload,
+        @Nonnull CmsPathIndex localPathIndex) {
+
+        Map<String, Pair<CmsObject, File>> uploadsByPathKey = new HashMap<>();
+        Map<String, Pair<CmsObject, File>> layoutUploadsBySystemName = new HashMap<>();
+
+        for (Pair<CmsObject, File> pair : localObjectsToUpload) {
+            CmsObject object = pair.getLeft();
+            uploadsByPathKey.put(localPathIndex.getPathKey(object).orElseThrow(), pair);
+
+            if (object instanceof CmsLayout layout && layout.getSystemName() != null) {
+                layoutUploadsBySystemName.put(layout.getSystemName(), pair);
+            }
+        }
+
+        return pair -> {
+            List<Pair<CmsObject, File>> dependencies = new ArrayList<>(2);
+            CmsPathIndex.Node node = localPathIndex.getNode(localPathIndex.getPathKey(pair.getLeft()).orElseThrow())
+                .orElseThrow();
+
+            for (CmsPathIndex.Node parent = node.getParent(); parent != null; parent = parent.getParent()) {
+                Pair<CmsObject, File> parentUpload = uploadsByPathKey.get(parent.getPathKey());
+                if (parentUpload != null) {
+                    dependencies.add(parentUpload);
+                    break;
+                }
+            }
+
+            if (pair.getLeft() instanceof CmsPage page && page.getLayout() != null) {
+                Optional.ofNullable(layoutUploadsBySystemName.get(page.getLayout()))
+                    .ifPresent(dependencies::add);
+            }
+
+            return dependencies;
+        };
+    }
+
     private void performUpload(@Nonnull ThreescaleCmsClient client,
                                @Nonnull CmsObject object,
                                @Nonnull File file,
-                               @Nonnull Map<String, Pair<CmsObject, File>> localFilesByPathKey,
-                               @Nonnull Map<String, CmsObject> remoteObjectsByPathKey) {
-        String pathKey = pathKeyGenerator.generatePathKeyForObject(object);
+                               @Nonnull CmsPathIndex localPathIndex,
+                               @Nonnull CmsPathIndex remotePathIndex) {
+        String pathKey = localPathIndex.getPathKey(object).orElseThrow();
         Log.info("Uploading " + object.getType() + " " + pathKey + "...");
 
         if (object instanceof CmsSection section) {
             if (section.getParentId() == null && !"/".equals(pathKey)) {
-                section.setParentId(findParentId(pathKey, localFilesByPathKey, remoteObjectsByPathKey));
+                section.setParentId(findParentId(pathKey, localPathIndex, remotePathIndex));
             }
             client.save(section);
         } else if (object instanceof CmsFile cmsFile) {
             if (cmsFile.getSectionId() == null) {
-                cmsFile.setSectionId(findParentId(pathKey, localFilesByPathKey, remoteObjectsByPathKey));
+                cmsFile.setSectionId(findParentId(pathKey, localPathIndex, remotePathIndex));
             }
             client.save(cmsFile, file);
         } else if (object instanceof CmsTemplate template) {
             if (template instanceof CmsPage page && page.getSectionId() == null) {
-                page.setSectionId(findParentId(pathKey, localFilesByPathKey, remoteObjectsByPathKey));
+                page.setSectionId(findParentId(pathKey, localPathIndex, remotePathIndex));
             }
             client.save(template, file);
         } else {
@@ -242,31 +372,45 @@ public class UploadCommand extends CommandBase implements Callable<Integer> {
         }
     }
 
-    private Long findParentId(@Nonnull String pathKey,
-                              @Nonnull Map<String, Pair<CmsObject, File>> localFilesByPathKey,
-                              @Nonnull Map<String, CmsObject> remoteObjectsByPathKey) {
-        String parentPathKey;
-        if (pathKey.endsWith("/")) {
-            parentPathKey = pathKey.substring(0, pathKey.lastIndexOf('/', pathKey.length() - 2) + 1);
-        } else {
-            parentPathKey = pathKey.substring(0, pathKey.lastIndexOf('/') + 1);
+    private void recordUpload(@Nonnull SyncManifest syncManifest,
+                              @Nonnull CmsObject object,
+                              @Nonnull File file,
+                              @Nonnull CmsPathIndex localPathIndex) {
+        if (object instanceof CmsSection || object.getId() == null) {
+            return;
         }
 
-        do {
-            CmsObject potentialParent = Optional.ofNullable(localFilesByPathKey.get(parentPathKey))
-                .map(Pair::getLeft)
-                .orElse(null);
-            if (potentialParent != null && potentialParent.getId() != null) {
-                return potentialParent.getId();
+        try {
+            syncManifest.recordUpload(
+                localPathIndex.getPathKey(object).orElseThrow(),
+                object.getId(),
+                topLevelCommand.getLocalContentHashes().hash(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to record upload of " + file, e);
+        }
+    }
+
+    /**
+     * Find the ID of the closest section above a path key: either a local
+     * section that has been uploaded, or a section in the CMS
+     */
+    private Long findParentId(@Nonnull String pathKey,
+                              @Nonnull CmsPathIndex localPathIndex,
+                              @Nonnull CmsPathIndex remotePathIndex) {
+        CmsPathIndex.Node node = localPathIndex.getNode(pathKey).orElseThrow();
+
+        for (CmsPathIndex.Node parent = node.getParent();
+             parent != null && !parent.getPathKey().isEmpty();
+             parent = parent.getParent()) {
+            if (parent.getId() != null) {
+                return parent.getId();
             }
 
-            potentialParent = remoteObjectsByPathKey.get(parentPathKey);
+            CmsObject potentialParent = remotePathIndex.getObject(parent.getPathKey());
             if (potentialParent != null) {
                 return potentialParent.getId();
             }
-
-            parentPathKey = parentPathKey.substring(0, pathKey.lastIndexOf('/', parentPathKey.length() - 2) + 1);
-        } while (!parentPathKey.isEmpty());
+        }
 
         throw new IllegalStateException("Couldn't find any parent section ID... not even root");
     }
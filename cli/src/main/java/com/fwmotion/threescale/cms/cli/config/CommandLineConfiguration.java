@@ -0,0 +1,36 @@
+package com.fwmotion.threescale.cms.cli.config;
+
+import com.fwmotion.threescale.cms.cli.TopLevelCommand;
+import io.quarkus.logging.Log;
+import io.quarkus.picocli.runtime.PicocliCommandLineFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import picocli.CommandLine;
+
+@ApplicationScoped
+public class CommandLineConfiguration {
+
+    /**
+     * Run commands as usual, but release the 3scale CMS client (and its
+     * pooled connections) once the command has finished, however it ends.
+     */
+    @Produces
+    CommandLine customCommandLine(PicocliCommandLineFactory factory) {
+        return factory.create()
+            .setCaseInsensitiveEnumValuesAllowed(true)
+            .setExecutionStrategy(parseResult -> {
+                try {
+                    return new CommandLine.RunLast().execute(parseResult);
+                } finally {
+                    if (parseResult.commandSpec().userObject() instanceof TopLevelCommand topLevelCommand) {
+                        try {
+                            topLevelCommand.close();
+                        } catch (Exception e) {
+                            Log.warn("Failed to close 3scale CMS client", e);
+                        }
+                    }
+                }
+            });
+    }
+
+}
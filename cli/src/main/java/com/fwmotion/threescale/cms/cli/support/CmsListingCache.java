@@ -0,0 +1,189 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fwmotion.threescale.cms.model.*;
+import io.quarkus.logging.Log;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the last listing of a tenant's CMS objects on disk, so that
+ * read-only commands run back to back (such as {@code diff} then
+ * {@code download}) don't each list the whole CMS.
+ * <p>
+ * The CMS API can't list only what changed since a given time, nor answer
+ * conditional requests, so a cached listing is reused only while it is
+ * younger than a given age, and only if the number of objects of each type
+ * (which takes one small request per type to find) hasn't changed. Edits to
+ * existing objects don't change those numbers, so a reused listing may not
+ * show them; commands that change CMS content therefore always list it
+ * afresh, and invalidate the cached listing.
+ * <p>
+ * Only listings without template content are cached, so that no tenant
+ * content is written outside the local directory.
+ */
+@ApplicationScoped
+public class CmsListingCache {
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final Map<String, Class<? extends CmsObject>> OBJECT_CLASSES_BY_NAME = List.of(
+            CmsSection.class,
+            CmsFile.class,
+            CmsLayout.class,
+            CmsPage.class,
+            CmsPartial.class,
+            CmsBuiltinPage.class,
+            CmsBuiltinPartial.class)
+        .stream()
+        .collect(Collectors.toUnmodifiableMap(Class::getSimpleName, Function.identity()));
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * Load a cached listing, if it is still valid
+     *
+     * @param cacheFile      file the listing is cached in
+     * @param providerDomain tenant the listing must be of
+     * @param maxAge         age beyond which the listing is stale
+     * @param currentCounts  supplier of the tenant's current number of
+     *                       objects by type, called only if the listing is
+     *                       otherwise valid
+     * @return the cached objects, or {@code null} if there is no valid listing
+     */
+    @Nullable
+    public List<CmsObject> load(@Nonnull File cacheFile,
+                                @Nonnull String providerDomain,
+                                @Nonnull Duration maxAge,
+                                @Nonnull Supplier<Map<ThreescaleObjectType, Integer>> currentCounts) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        List<CmsObject> objects;
+        try {
+            JsonNode root = objectMapper.readTree(cacheFile);
+            if (root.path("version").asInt() != FORMAT_VERSION
+                || !normalizeProviderDomain(providerDomain).equals(root.path("providerDomain").asText())) {
+                return null;
+            }
+
+            Instant listedAt = Instant.parse(root.path("listedAt").asText());
+            if (listedAt.plus(maxAge).isBefore(Instant.now())) {
+                Log.debug("Cached CMS listing from " + listedAt + " is too old to use");
+                return null;
+            }
+
+            objects = new ArrayList<>();
+            for (JsonNode objectNode : root.path("objects")) {
+                Class<? extends CmsObject> objectClass = OBJECT_CLASSES_BY_NAME.get(objectNode.path("class").asText());
+                if (objectClass == null) {
+                    return null;
+                }
+
+                objects.add(objectMapper.treeToValue(objectNode.path("object"), objectClass));
+            }
+        } catch (IOException | DateTimeParseException e) {
+            Log.debug("Ignoring unreadable CMS listing cache " + cacheFile, e);
+            return null;
+        }
+
+        if (!countByType(objects).equals(currentCounts.get())) {
+            Log.debug("CMS content was added or removed since it was last listed");
+            return null;
+        }
+
+        Log.debug("Using cached CMS listing of " + objects.size() + " objects");
+        return objects;
+    }
+
+    /**
+     * Cache a listing that has just been made, without template content
+     */
+    public void save(@Nonnull File cacheFile,
+                     @Nonnull String providerDomain,
+                     @Nonnull Instant listedAt,
+                     @Nonnull List<CmsObject> objects) throws IOException {
+        for (CmsObject object : objects) {
+            if (object instanceof CmsTemplate template
+                && (template.getDraftContent() != null || template.getPublishedContent() != null)) {
+                throw new IllegalArgumentException("Listings with template content must not be cached");
+            }
+        }
+
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("version", FORMAT_VERSION);
+        root.put("providerDomain", normalizeProviderDomain(providerDomain));
+        root.put("listedAt", listedAt.toString());
+
+        ArrayNode objectsNode = root.putArray("objects");
+        for (CmsObject object : objects) {
+            ObjectNode entry = objectsNode.addObject();
+            entry.put("class", object.getClass().getSimpleName());
+            entry.set("object", objectMapper.valueToTree(object));
+        }
+
+        Path cachePath = cacheFile.toPath();
+        Files.createDirectories(cachePath.toAbsolutePath().getParent());
+
+        Path temporaryPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(temporaryPath.toFile(), root);
+            Files.move(temporaryPath, cachePath,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Discard a cached listing, once CMS content is about to change
+     */
+    public void invalidate(@Nonnull File cacheFile) throws IOException {
+        Files.deleteIfExists(cacheFile.toPath());
+    }
+
+    @Nonnull
+    private static Map<ThreescaleObjectType, Integer> countByType(@Nonnull List<CmsObject> objects) {
+        Map<ThreescaleObjectType, Integer> counts = new EnumMap<>(ThreescaleObjectType.class);
+        for (ThreescaleObjectType type : ThreescaleObjectType.values()) {
+            counts.put(type, 0);
+        }
+
+        objects.forEach(object -> counts.merge(object.getType(), 1, Integer::sum));
+
+        return counts;
+    }
+
+    @Nonnull
+    static String normalizeProviderDomain(@Nonnull String providerDomain) {
+        return StringUtils.removeEnd(providerDomain.trim(), "/");
+    }
+
+}
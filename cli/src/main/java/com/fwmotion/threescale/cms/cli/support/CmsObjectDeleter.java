@@ -0,0 +1,165 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.ThreescaleCmsClient;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsCannotDeleteBuiltinException;
+import com.fwmotion.threescale.cms.model.*;
+import io.quarkus.logging.Log;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.Positive;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes CMS objects a level of the tree at a time, from the bottom up, with
+ * the objects of each level deleted concurrently. A section is only deleted
+ * once everything in it (by section ID, rather than by path, as pages and
+ * files can be in a section whatever their path) is gone, and layouts are
+ * only deleted once all pages (which may use them) are gone.
+ */
+@ApplicationScoped
+public class CmsObjectDeleter {
+
+    @Inject
+    CmsObjectPathKeyGenerator pathKeyGenerator;
+
+    @Nonnull
+    public CmsObjectDeletionSummary deleteObjects(@Nonnull ThreescaleCmsClient client,
+                                                  @Nonnull Collection<CmsObject> objects,
+                                                  @Positive int parallelism) throws InterruptedException {
+        Set<String> deletedPaths = ConcurrentHashMap.newKeySet();
+        Set<String> builtinPathsSkipped = ConcurrentHashMap.newKeySet();
+        Map<String, Exception> failuresByPath = new ConcurrentHashMap<>();
+
+        Map<CmsObject, Integer> deletionLevels = deletionLevels(objects);
+        NavigableMap<Integer, List<CmsObject>> objectsByLevel = objects.stream()
+            .collect(Collectors.groupingBy(deletionLevels::get, TreeMap::new, Collectors.toList()));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+        try {
+            for (List<CmsObject> level : objectsByLevel.values()) {
+                List<Future<?>> deletions = new ArrayList<>(level.size());
+
+                for (CmsObject object : level) {
+                    deletions.add(executorService.submit(() ->
+                        deleteObject(client, object, deletedPaths, builtinPathsSkipped, failuresByPath)));
+                }
+
+                // Finish the whole level before moving up to its parents
+                for (Future<?> deletion : deletions) {
+                    try {
+                        deletion.get();
+                    } catch (ExecutionException e) {
+                        // deleteObject records its own failures
+                        Log.debug("Unexpected failure while deleting", e.getCause());
+                    }
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        CmsObjectDeletionSummary summary = new CmsObjectDeletionSummary();
+        summary.setDeletedPaths(new TreeSet<>(deletedPaths));
+        summary.setBuiltinPathsSkipped(new TreeSet<>(builtinPathsSkipped));
+        summary.setFailuresByPath(new TreeMap<>(failuresByPath));
+
+        Log.info("Deleted " + deletedPaths.size() + ", skipped "
+            + builtinPathsSkipped.size() + " built-in, failed to delete "
+            + failuresByPath.size());
+        summary.getFailuresByPath()
+            .forEach((pathKey, e) -> Log.warn("  Failed to delete " + pathKey + ": " + e.getMessage()));
+
+        return summary;
+    }
+
+    /**
+     * Objects that nothing else being deleted depends on are at level 0. A
+     * section is one level above the highest of the objects in it, and
+     * layouts are at level 1, above all pages.
+     */
+    @Nonnull
+    private Map<CmsObject, Integer> deletionLevels(@Nonnull Collection<CmsObject> objects) {
+        Map<Long, List<CmsObject>> contentsBySectionId = new HashMap<>();
+        for (CmsObject object : objects) {
+            Long sectionId = sectionIdOf(object);
+            if (sectionId != null) {
+                contentsBySectionId.computeIfAbsent(sectionId, id -> new ArrayList<>())
+                    .add(object);
+            }
+        }
+
+        Map<CmsObject, Integer> levels = new IdentityHashMap<>();
+        for (CmsObject object : objects) {
+            deletionLevel(object, contentsBySectionId, levels);
+        }
+
+        return levels;
+    }
+
+    private int deletionLevel(@Nonnull CmsObject object,
+                              @Nonnull Map<Long, List<CmsObject>> contentsBySectionId,
+                              @Nonnull Map<CmsObject, Integer> levels) {
+        Integer level = levels.get(object);
+        if (level != null) {
+            return level;
+        }
+
+        if (object instanceof CmsLayout) {
+            level = 1;
+        } else if (object instanceof CmsSection && object.getId() != null) {
+            // Provisionally at the bottom, in case the sections' parent IDs
+            // form a loop
+            levels.put(object, 0);
+
+            level = 0;
+            for (CmsObject content : contentsBySectionId.getOrDefault(object.getId(), List.of())) {
+                level = Math.max(level, deletionLevel(content, contentsBySectionId, levels) + 1);
+            }
+        } else {
+            level = 0;
+        }
+
+        levels.put(object, level);
+        return level;
+    }
+
+    @Nullable
+    private static Long sectionIdOf(@Nonnull CmsObject object) {
+        if (object instanceof CmsSection section) {
+            return section.getParentId();
+        } else if (object instanceof CmsFile file) {
+            return file.getSectionId();
+        } else if (object instanceof CmsPage page) {
+            return page.getSectionId();
+        }
+
+        return null;
+    }
+
+    private void deleteObject(@Nonnull ThreescaleCmsClient client,
+                              @Nonnull CmsObject object,
+                              @Nonnull Set<String> deletedPaths,
+                              @Nonnull Set<String> builtinPathsSkipped,
+                              @Nonnull Map<String, Exception> failuresByPath) {
+        String pathKey = pathKeyGenerator.generatePathKeyForObject(object);
+        String objectName = object.getType() + " " + pathKey;
+
+        Log.info("Deleting " + objectName);
+        try {
+            client.delete(object);
+            deletedPaths.add(pathKey);
+        } catch (ThreescaleCmsCannotDeleteBuiltinException e) {
+            Log.info("Could not delete built-in " + objectName);
+            builtinPathsSkipped.add(pathKey);
+        } catch (Exception e) {
+            Log.warn("Failed to delete " + objectName, e);
+            failuresByPath.put(pathKey, e);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import java.util.Map;
+import java.util.Set;
+
+public class CmsObjectDeletionSummary {
+
+    private Set<String> deletedPaths;
+    private Set<String> builtinPathsSkipped;
+    private Map<String, Exception> failuresByPath;
+
+    public Set<String> getDeletedPaths() {
+        return deletedPaths;
+    }
+
+    public void setDeletedPaths(Set<String> deletedPaths) {
+        this.deletedPaths = deletedPaths;
+    }
+
+    public Set<String> getBuiltinPathsSkipped() {
+        return builtinPathsSkipped;
+    }
+
+    public void setBuiltinPathsSkipped(Set<String> builtinPathsSkipped) {
+        this.builtinPathsSkipped = builtinPathsSkipped;
+    }
+
+    public Map<String, Exception> getFailuresByPath() {
+        return failuresByPath;
+    }
+
+    public void setFailuresByPath(Map<String, Exception> failuresByPath) {
+        this.failuresByPath = failuresByPath;
+    }
+
+    public boolean hasFailures() {
+        return failuresByPath != null && !failuresByPath.isEmpty();
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.CmsObject;
+import com.fwmotion.threescale.cms.model.CmsSection;
+import com.fwmotion.threescale.cms.model.ThreescaleObjectType;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Immutable index of CMS objects by path key, as a trie whose edges are
+ * whole path segments: each directory segment (ending in {@code /}) is a
+ * node, so every ancestor directory of an object's path key has a node,
+ * whether or not an object (such as a section) is at that path.
+ * <p>
+ * Each node links to its parent, so walking up from an object to the closest
+ * section above it costs its depth, and the objects under a directory can be
+ * visited without looking at any others. Path keys are generated once, when
+ * the index is built.
+ */
+public final class CmsPathIndex {
+
+    private final Node root = new Node("", null, true, null);
+    private final Map<String, Node> nodesByPathKey = new HashMap<>();
+    private final Map<String, CmsObject> objectsByPathKey;
+    private final Map<CmsObject, String> pathKeysByObject = new IdentityHashMap<>();
+
+    private CmsPathIndex(@Nonnull Map<String, CmsObject> objectsByPathKey) {
+        this.objectsByPathKey = objectsByPathKey;
+        nodesByPathKey.put(root.pathKey, root);
+
+        // Every object is known before any node is made, so each node is
+        // made with the object at its path key (if any)
+        objectsByPathKey.forEach((pathKey, object) -> {
+            pathKeysByObject.put(object, pathKey);
+            addNodes(pathKey);
+        });
+    }
+
+    /**
+     * Index objects by the path keys generated for them
+     *
+     * @throws IllegalStateException if two objects have the same path key
+     */
+    @Nonnull
+    public static CmsPathIndex build(@Nonnull Collection<? extends CmsObject> objects,
+                                     @Nonnull CmsObjectPathKeyGenerator pathKeyGenerator) {
+        Map<String, CmsObject> objectsByPathKey = new HashMap<>();
+
+        for (CmsObject object : objects) {
+            String pathKey = pathKeyGenerator.generatePathKeyForObject(object);
+
+            if (objectsByPathKey.putIfAbsent(pathKey, object) != null) {
+                throw new IllegalStateException("Duplicate path key " + pathKey);
+            }
+        }
+
+        return new CmsPathIndex(objectsByPathKey);
+    }
+
+    /**
+     * Index objects that are already keyed by path
+     */
+    @Nonnull
+    public static CmsPathIndex of(@Nonnull Map<String, ? extends CmsObject> objectsByPathKey) {
+        return new CmsPathIndex(new HashMap<>(objectsByPathKey));
+    }
+
+    private void addNodes(@Nonnull String pathKey) {
+        Node node = root;
+        int segmentStart = 0;
+        while (segmentStart < pathKey.length()) {
+            int slash = pathKey.indexOf('/', segmentStart);
+            int segmentEnd = slash < 0 ? pathKey.length() : slash + 1;
+
+            String segment = pathKey.substring(segmentStart, segmentEnd);
+            Node child = node.children.get(segment);
+            if (child == null) {
+                String childPathKey = pathKey.substring(0, segmentEnd);
+                child = new Node(childPathKey, node, slash >= 0, objectsByPathKey.get(childPathKey));
+                node.children.put(segment, child);
+                nodesByPathKey.put(child.pathKey, child);
+            }
+
+            node = child;
+            segmentStart = segmentEnd;
+        }
+    }
+
+    /**
+     * @return all indexed objects, by path key
+     */
+    @Nonnull
+    public Map<String, CmsObject> getObjectsByPathKey() {
+        return Collections.unmodifiableMap(objectsByPathKey);
+    }
+
+    @Nullable
+    public CmsObject getObject(@Nonnull String pathKey) {
+        return objectsByPathKey.get(pathKey);
+    }
+
+    /**
+     * @return the path key an object was indexed by (the object must be the
+     * same instance that was indexed), if it was
+     */
+    @Nonnull
+    public Optional<String> getPathKey(@Nonnull CmsObject object) {
+        return Optional.ofNullable(pathKeysByObject.get(object));
+    }
+
+    /**
+     * @return the node for an object's path key, or for a directory above
+     * one
+     */
+    @Nonnull
+    public Optional<Node> getNode(@Nonnull String pathKey) {
+        return Optional.ofNullable(nodesByPathKey.get(pathKey));
+    }
+
+    /**
+     * Directories that objects are in (by their path keys) without there
+     * being a section for them; the root directory is never implicit
+     */
+    @Nonnull
+    public Set<String> getImplicitSectionPaths() {
+        Set<String> implicitSectionPaths = new HashSet<>();
+
+        for (Node node : nodesByPathKey.values()) {
+            if (node.directory
+                && node.pathKey.length() > 1
+                && !(node.object instanceof CmsSection)) {
+                implicitSectionPaths.add(node.pathKey);
+            }
+        }
+
+        return implicitSectionPaths;
+    }
+
+    /**
+     * Visit the object at a path key (if any) and, if it is a directory, all
+     * objects under it
+     */
+    public void forEachObjectUnder(@Nonnull String pathKey,
+                                   @Nonnull Consumer<Node> action) {
+        Node start = nodesByPathKey.get(pathKey);
+        if (start == null) {
+            return;
+        }
+
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(start);
+
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+
+            if (node.object != null) {
+                action.accept(node);
+            }
+
+            node.children.values().forEach(pending::push);
+        }
+    }
+
+    public static final class Node {
+
+        private final String pathKey;
+        private final Node parent;
+        private final boolean directory;
+        private final CmsObject object;
+        private final ThreescaleObjectType type;
+        private final Map<String, Node> children = new HashMap<>();
+
+        private Node(@Nonnull String pathKey,
+                     @Nullable Node parent,
+                     boolean directory,
+                     @Nullable CmsObject object) {
+            this.pathKey = pathKey;
+            this.parent = parent;
+            this.directory = directory;
+            this.object = object;
+            this.type = object == null ? null : object.getType();
+        }
+
+        @Nonnull
+        public String getPathKey() {
+            return pathKey;
+        }
+
+        /**
+         * @return the directory this node is in; the root directory
+         * ({@code /}) is in the top node, which has an empty path key and
+         * no object, and is the only node with no parent
+         */
+        @Nullable
+        public Node getParent() {
+            return parent;
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        /**
+         * @return the object at this path key, or {@code null} for a
+         * directory with no section
+         */
+        @Nullable
+        public CmsObject getObject() {
+            return object;
+        }
+
+        @Nullable
+        public ThreescaleObjectType getType() {
+            return type;
+        }
+
+        /**
+         * @return the current ID of the object at this path key, if there is
+         * one and it has an ID
+         */
+        @Nullable
+        public Long getId() {
+            return object == null ? null : object.getId();
+        }
+
+        @Nonnull
+        public Collection<Node> getChildren() {
+            return Collections.unmodifiableCollection(children.values());
+        }
+
+    }
+
+}
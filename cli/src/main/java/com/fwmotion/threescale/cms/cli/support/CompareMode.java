@@ -0,0 +1,21 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+/**
+ * How to decide whether a local file and a remote object differ, when the
+ * sync manifest can't tell
+ */
+public enum CompareMode {
+
+    /**
+     * Compare the local file's last-modified time with the remote object's
+     * {@code updatedAt}
+     */
+    TIMESTAMP,
+
+    /**
+     * Compare templates' content with the remote content, falling back to
+     * timestamps for files and for templates whose content differs
+     */
+    CONTENT
+
+}
@@ -0,0 +1,141 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import jakarta.annotation.Nonnull;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.validation.constraints.Positive;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a task for each node of a dependency graph, with nodes whose
+ * dependencies are all done running concurrently.
+ * <p>
+ * Nodes are tracked by identity, as CMS objects change (and so do their
+ * hash codes) when they're saved.
+ */
+@ApplicationScoped
+public class DependencyGraphExecutor {
+
+    /**
+     * Run {@code task} for every node, only starting a node once the tasks
+     * for all its dependencies have finished.
+     * <p>
+     * Once any task fails, no further tasks are started; tasks already
+     * running are allowed to finish, and the first failure is then thrown.
+     *
+     * @param nodes          nodes to run the task for
+     * @param dependenciesOf the nodes a node depends on; dependencies not in
+     *                       {@code nodes} are ignored
+     * @param parallelism    maximum number of tasks to run at the same time
+     * @param task           the task to run for each node
+     */
+    public <T> void execute(@Nonnull Collection<T> nodes,
+                            @Nonnull Function<? super T, ? extends Collection<T>> dependenciesOf,
+                            @Positive int parallelism,
+                            @Nonnull Consumer<? super T> task) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+
+        try {
+            Scheduler<T> scheduler = new Scheduler<>(nodes, dependenciesOf, executorService, task);
+            scheduler.scheduleAll();
+            scheduler.awaitAll();
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static final class Scheduler<T> {
+
+        private final Set<T> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<T, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+        private final Set<T> visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Function<? super T, ? extends Collection<T>> dependenciesOf;
+        private final ExecutorService executorService;
+        private final Consumer<? super T> task;
+        private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+        private Scheduler(@Nonnull Collection<T> nodes,
+                          @Nonnull Function<? super T, ? extends Collection<T>> dependenciesOf,
+                          @Nonnull ExecutorService executorService,
+                          @Nonnull Consumer<? super T> task) {
+            this.nodes.addAll(nodes);
+            this.dependenciesOf = dependenciesOf;
+            this.executorService = executorService;
+            this.task = task;
+        }
+
+        private void scheduleAll() {
+            for (T node : nodes) {
+                schedule(node);
+            }
+        }
+
+        @Nonnull
+        private CompletableFuture<Void> schedule(@Nonnull T node) {
+            CompletableFuture<Void> future = futures.get(node);
+            if (future != null) {
+                return future;
+            }
+
+            if (!visiting.add(node)) {
+                throw new IllegalStateException("Dependency cycle involving " + node);
+            }
+
+            CompletableFuture<?>[] dependencyFutures = dependenciesOf.apply(node)
+                .stream()
+                .filter(nodes::contains)
+                .map(this::schedule)
+                .toArray(CompletableFuture[]::new);
+
+            future = CompletableFuture.allOf(dependencyFutures)
+                .thenRunAsync(() -> {
+                    if (firstFailure.get() == null) {
+                        task.accept(node);
+                    }
+                }, executorService)
+                .whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        firstFailure.compareAndSet(null, unwrap(throwable));
+                    }
+                });
+
+            visiting.remove(node);
+            futures.put(node, future);
+
+            return future;
+        }
+
+        private void awaitAll() throws Exception {
+            try {
+                CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .join();
+            } catch (CompletionException e) {
+                // Reported below, from the first failure seen
+            }
+
+            Throwable failure = firstFailure.get();
+            if (failure instanceof Exception exception) {
+                throw exception;
+            } else if (failure instanceof Error error) {
+                throw error;
+            }
+        }
+
+        @Nonnull
+        private static Throwable unwrap(@Nonnull Throwable throwable) {
+            if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                return throwable.getCause();
+            }
+            return throwable;
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.logging.Log;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Content hashes of local files (as recorded in the {@link SyncManifest}),
+ * memoized by path, size and last-modified time, so that files that haven't
+ * been touched since the last run aren't read again.
+ * <p>
+ * Files modified in the last couple of seconds aren't memoized, as a change
+ * made within the same timestamp granularity couldn't be told apart.
+ */
+public class LocalContentHashes {
+
+    private static final long RACY_MODIFICATION_MILLIS = 2000;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<Path, Entry> entriesByPath = new ConcurrentHashMap<>();
+    private volatile boolean modified = false;
+
+    /**
+     * Get the content hash of a file, reading it only if it changed since it
+     * was last hashed
+     */
+    @Nonnull
+    public String hash(@Nonnull File file) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        Entry entry = entriesByPath.get(path);
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+            return entry.contentHash;
+        }
+
+        String contentHash = SyncManifest.hashFile(file);
+
+        if (lastModified < System.currentTimeMillis() - RACY_MODIFICATION_MILLIS) {
+            entriesByPath.put(path, new Entry(size, lastModified, contentHash));
+            modified = true;
+        } else if (entry != null) {
+            entriesByPath.remove(path);
+            modified = true;
+        }
+
+        return contentHash;
+    }
+
+    /**
+     * Hash files in parallel, reading only those that changed since they
+     * were last hashed
+     *
+     * @return content hashes by file
+     */
+    @Nonnull
+    public Map<File, String> hashAll(@Nonnull Collection<File> files) throws IOException {
+        try {
+            return files.parallelStream()
+                .distinct()
+                .collect(Collectors.toConcurrentMap(Function.identity(), file -> {
+                    try {
+                        return hash(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Load memoized hashes saved by a previous run; a missing or unreadable
+     * cache file just means files will be read again
+     */
+    @Nonnull
+    public static LocalContentHashes load(@Nullable File cacheFile) {
+        LocalContentHashes contentHashes = new LocalContentHashes();
+
+        if (cacheFile == null || !cacheFile.isFile()) {
+            return contentHashes;
+        }
+
+        try {
+            JsonNode root = OBJECT_MAPPER.readTree(cacheFile);
+            Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode entry = field.getValue();
+
+                if (entry.path("size").canConvertToLong()
+                    && entry.path("lastModified").canConvertToLong()
+                    && entry.path("sha256").isTextual()) {
+                    contentHashes.entriesByPath.put(Path.of(field.getKey()), new Entry(
+                        entry.get("size").asLong(),
+                        entry.get("lastModified").asLong(),
+                        entry.get("sha256").asText()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.debug("Ignoring unreadable content hash cache " + cacheFile, e);
+        }
+
+        return contentHashes;
+    }
+
+    /**
+     * Save memoized hashes for the next run, if any have changed; hashes of
+     * files that no longer exist are dropped
+     */
+    public void save(@Nonnull File cacheFile) throws IOException {
+        if (!modified) {
+            return;
+        }
+
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        new TreeMap<>(entriesByPath).forEach((path, entry) -> {
+            if (Files.isRegularFile(path)) {
+                ObjectNode entryNode = root.putObject(path.toString());
+                entryNode.put("size", entry.size);
+                entryNode.put("lastModified", entry.lastModified);
+                entryNode.put("sha256", entry.contentHash);
+            }
+        });
+
+        Path cachePath = cacheFile.toPath();
+        Files.createDirectories(cachePath.toAbsolutePath().getParent());
+
+        Path temporaryPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try {
+            OBJECT_MAPPER.writeValue(temporaryPath.toFile(), root);
+            Files.move(temporaryPath, cachePath,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+
+        modified = false;
+    }
+
+    private record Entry(long size, long lastModified, String contentHash) {
+    }
+
+}
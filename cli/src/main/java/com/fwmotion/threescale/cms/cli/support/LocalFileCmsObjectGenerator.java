@@ -14,10 +14,6 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class LocalFileCmsObjectGenerator {
@@ -47,21 +43,10 @@ public class LocalFileCmsObjectGenerator {
         "text/html"
     );
 
-    private static final Pattern LAYOUT_PREFIX_PATTERN = Pattern.compile("(?<path>.*/)" + CmsObjectPathKeyGenerator.LAYOUT_FILENAME_PREFIX + "(?<layoutname>[^/]+)");
-    private static final Predicate<String> LAYOUT_PREFIX_PREDICATE = LAYOUT_PREFIX_PATTERN.asMatchPredicate();
-
-    private static final Pattern PARTIAL_PREFIX_PATTERN = Pattern.compile("(?<path>.*/)" + CmsObjectPathKeyGenerator.PARTIAL_FILENAME_PREFIX + "(?<partialname>[^/]+)");
-    private static final Predicate<String> PARTIAL_PREFIX_PREDICATE = PARTIAL_PREFIX_PATTERN.asMatchPredicate();
-
-    private static final Pattern FILE_SUFFIX_PATTERN = Pattern.compile(
-        "(?<filename>.*?)" +
-            "(?<fileext>" +
-            FILE_EXT_TO_CONTENT_TYPE.keySet().stream().map(ext -> "\\" + ext).collect(Collectors.joining("|"))
-            + ")?" +
-            "(?:\\.(?<handler>markdown|textile))?" +
-            "(?<liquid>\\.liquid)?");
+    private static final String[] FILE_EXTS = FILE_EXT_TO_CONTENT_TYPE.keySet().toArray(String[]::new);
 
     private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final String INDEX_PAGE_SUFFIX = "/index";
 
     @Nonnull
     private static OffsetDateTime calculateUpdatedAt(@Nonnull File file) {
@@ -75,56 +60,82 @@ public class LocalFileCmsObjectGenerator {
             return generateSectionFromFile(relativePath, file);
         }
 
-        if (LAYOUT_PREFIX_PREDICATE.test(relativePath)
+        LocalFilePath localFilePath = LocalFilePath.parse(relativePath, FILE_EXTS);
+
+        if (localFilePath.getPrefix() == LocalFilePath.Prefix.LAYOUT
             || StringUtils.startsWith(relativePath, "/layouts/")) {
-            return generateLayoutFromFile(relativePath, file);
+            return generateLayoutFromFile(relativePath, localFilePath, file);
         }
 
-        if (PARTIAL_PREFIX_PREDICATE.test(relativePath)) {
-            return generatePartialFromFile(relativePath, file);
+        if (localFilePath.getPrefix() == LocalFilePath.Prefix.PARTIAL) {
+            return generatePartialFromFile(relativePath, localFilePath, file);
         }
 
-        Matcher matcher = FILE_SUFFIX_PATTERN.matcher(relativePath);
-        if (matcher.matches()) {
-            String fileExt = StringUtils.trimToEmpty(matcher.group("fileext"));
-            String contentType = FILE_EXT_TO_CONTENT_TYPE.getOrDefault(fileExt, DEFAULT_CONTENT_TYPE);
-
-            if (TEMPLATE_CONTENT_TYPES.contains(contentType)) {
-                return generatePageFromFile(relativePath, file);
-            }
+        if (localFilePath.isSuffixParsed()
+            && TEMPLATE_CONTENT_TYPES.contains(contentType(localFilePath))) {
+            return generatePageFromFile(relativePath, localFilePath, file);
         }
 
         return generateCmsFileFromFile(relativePath, file);
     }
 
+    @Nonnull
+    private static String contentType(@Nonnull LocalFilePath localFilePath) {
+        String fileExt = localFilePath.getFileExt();
+
+        return fileExt == null
+            ? DEFAULT_CONTENT_TYPE
+            : FILE_EXT_TO_CONTENT_TYPE.get(fileExt);
+    }
+
+    /**
+     * Apply what the path's suffixes say about the object, and set the path
+     * that remains once they (and the name's prefix, if any) are removed
+     *
+     * @param pathStart    index of the path to start from
+     * @param prefixLength length of the name's prefix to leave out
+     */
     private void applyFileSuffixInfo(@Nonnull String path,
+                                     @Nonnull LocalFilePath localFilePath,
+                                     int pathStart,
+                                     int prefixLength,
                                      @Nonnull Consumer<String> setContentType,
                                      @Nonnull Consumer<String> setHandler,
                                      @Nonnull Consumer<Boolean> setLiquidEnabled,
                                      @Nonnull Consumer<String> setPath) {
-        Matcher matcher = FILE_SUFFIX_PATTERN.matcher(path);
-        if (matcher.matches()) {
-            String fileExt = StringUtils.trimToEmpty(matcher.group("fileext"));
-            String contentType = FILE_EXT_TO_CONTENT_TYPE.getOrDefault(fileExt, DEFAULT_CONTENT_TYPE);
-            setContentType.accept(contentType);
+        int nameStart = localFilePath.getNameStart();
+        StringBuilder pathBuilder = new StringBuilder(path.length())
+            .append(path, Math.min(pathStart, nameStart), nameStart)
+            .append(path, nameStart + prefixLength, localFilePath.getFilenameEnd());
 
-            String handler = StringUtils.trimToEmpty(matcher.group("handler"));
-            setHandler.accept(handler);
+        if (localFilePath.isSuffixParsed()) {
+            String contentType = contentType(localFilePath);
+            setContentType.accept(contentType);
+            setHandler.accept(localFilePath.getHandler());
 
-            if (StringUtils.isNotBlank(matcher.group("liquid"))) {
+            if (localFilePath.isLiquid()) {
                 setLiquidEnabled.accept(true);
             }
 
-            String filename = matcher.group("filename");
-            if (StringUtils.isNotBlank(fileExt)
+            if (localFilePath.getFileExt() != null
                 && !REMOVE_FILEEXT_CONTENT_TYPES.contains(contentType)) {
-                filename += fileExt;
+                pathBuilder.append(localFilePath.getFileExt());
             }
+        }
 
-            setPath.accept(filename);
-        } else {
-            setPath.accept(path);
+        setPath.accept(pathBuilder.toString());
+    }
+
+    /**
+     * @return the number of {@code /} characters the path starts with
+     */
+    private static int countLeadingSlashes(@Nonnull String path) {
+        int count = 0;
+        while (count < path.length() && path.charAt(count) == '/') {
+            count++;
         }
+
+        return count;
     }
 
     @Nonnull
@@ -139,7 +150,7 @@ public class LocalFileCmsObjectGenerator {
 
         section.setSystemName(basename);
         section.setTitle(basename);
-        section.setPath(relativePath.replaceAll("/+$", ""));
+        section.setPath(StringUtils.stripEnd(relativePath, "/"));
         section.setPublic(true);
         section.setUpdatedAt(calculateUpdatedAt(file));
 
@@ -148,28 +159,27 @@ public class LocalFileCmsObjectGenerator {
 
     @Nonnull
     private CmsLayout generateLayoutFromFile(@Nonnull String relativePath,
+                                             @Nonnull LocalFilePath localFilePath,
                                              @Nonnull File file) {
         CmsLayout layout = new CmsLayout();
 
-        String transformedPath;
-
-        Matcher matcher = LAYOUT_PREFIX_PATTERN.matcher(relativePath);
-        if (matcher.matches()) {
-            transformedPath = matcher.group("path") + matcher.group("layoutname");
-        } else {
-            transformedPath = relativePath;
-        }
+        // Layouts in /layouts/ may not have the prefix
+        int prefixLength = localFilePath.getPrefix() == LocalFilePath.Prefix.LAYOUT
+            ? LocalFilePath.Prefix.LAYOUT.length()
+            : 0;
 
-        applyFileSuffixInfo(transformedPath,
+        applyFileSuffixInfo(relativePath,
+            localFilePath,
+            countLeadingSlashes(relativePath),
+            prefixLength,
             layout::setContentType,
             layout::setHandler,
             layout::setLiquidEnabled,
-            path -> layout.setSystemName(path.replaceFirst("^/+", "")
-                .replaceFirst("^/layouts/", "/")));
+            layout::setSystemName);
 
         layout.setUpdatedAt(calculateUpdatedAt(file));
 
-        String layoutTitle = layout.getSystemName().replaceAll("_", " ");
+        String layoutTitle = layout.getSystemName().replace('_', ' ');
         if (!StringUtils.endsWithIgnoreCase(layoutTitle, " layout")) {
             layoutTitle += " layout";
         }
@@ -180,23 +190,18 @@ public class LocalFileCmsObjectGenerator {
 
     @Nonnull
     private CmsPartial generatePartialFromFile(@Nonnull String relativePath,
+                                               @Nonnull LocalFilePath localFilePath,
                                                @Nonnull File file) {
         CmsPartial partial = new CmsPartial();
 
-        String transformedPath;
-
-        Matcher matcher = PARTIAL_PREFIX_PATTERN.matcher(relativePath);
-        if (matcher.matches()) {
-            transformedPath = matcher.group("path") + matcher.group("partialname");
-        } else {
-            transformedPath = relativePath;
-        }
-
-        applyFileSuffixInfo(transformedPath,
+        applyFileSuffixInfo(relativePath,
+            localFilePath,
+            countLeadingSlashes(relativePath),
+            LocalFilePath.Prefix.PARTIAL.length(),
             partial::setContentType,
             partial::setHandler,
             partial::setLiquidEnabled,
-            path -> partial.setSystemName(path.replaceFirst("^/+", "")));
+            partial::setSystemName);
 
         partial.setUpdatedAt(calculateUpdatedAt(file));
 
@@ -205,14 +210,20 @@ public class LocalFileCmsObjectGenerator {
 
     @Nonnull
     private CmsPage generatePageFromFile(@Nonnull String relativePath,
+                                         @Nonnull LocalFilePath localFilePath,
                                          @Nonnull File file) {
         CmsPage page = new CmsPage();
 
         applyFileSuffixInfo(relativePath,
+            localFilePath,
+            0,
+            0,
             page::setContentType,
             page::setHandler,
             page::setLiquidEnabled,
-            path -> page.setPath(path.replaceFirst("/index$", "/")));
+            path -> page.setPath(path.endsWith(INDEX_PAGE_SUFFIX)
+                ? path.substring(0, path.length() - INDEX_PAGE_SUFFIX.length() + 1)
+                : path));
 
         page.setUpdatedAt(calculateUpdatedAt(file));
 
@@ -0,0 +1,210 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * The parts of a local file's path key that decide which CMS object it
+ * becomes: a layout or partial prefix on the file's name, and a file
+ * extension, handler and {@code .liquid} suffix at its end (each optional,
+ * in that order).
+ * <p>
+ * A path is parsed in a single scan from its end, without regular
+ * expressions or copying any part of it, as this is done for every local
+ * file. The result matches what these patterns would find, with
+ * {@code .} not matching line terminators:
+ * <pre>
+ * (?&lt;path&gt;.*&#47;)l_(?&lt;layoutname&gt;[^/]+)
+ * (?&lt;path&gt;.*&#47;)_(?&lt;partialname&gt;[^/]+)
+ * (?&lt;filename&gt;.*?)(?&lt;fileext&gt;\.css|...)?(?:\.(?&lt;handler&gt;markdown|textile))?(?&lt;liquid&gt;\.liquid)?
+ * </pre>
+ */
+final class LocalFilePath {
+
+    enum Prefix {
+        LAYOUT(CmsObjectPathKeyGenerator.LAYOUT_FILENAME_PREFIX),
+        PARTIAL(CmsObjectPathKeyGenerator.PARTIAL_FILENAME_PREFIX),
+        NONE("");
+
+        private final String value;
+
+        Prefix(@Nonnull String value) {
+            this.value = value;
+        }
+
+        int length() {
+            return value.length();
+        }
+    }
+
+    private static final String LIQUID_SUFFIX = ".liquid";
+    private static final String[] HANDLER_SUFFIXES = {".markdown", ".textile"};
+    private static final String[] HANDLERS = {"markdown", "textile"};
+
+    private final Prefix prefix;
+    private final int nameStart;
+    private final boolean suffixParsed;
+    private final int filenameEnd;
+    private final String fileExt;
+    private final String handler;
+    private final boolean liquid;
+
+    private LocalFilePath(@Nonnull Prefix prefix,
+                          int nameStart,
+                          boolean suffixParsed,
+                          int filenameEnd,
+                          @Nullable String fileExt,
+                          @Nonnull String handler,
+                          boolean liquid) {
+        this.prefix = prefix;
+        this.nameStart = nameStart;
+        this.suffixParsed = suffixParsed;
+        this.filenameEnd = filenameEnd;
+        this.fileExt = fileExt;
+        this.handler = handler;
+        this.liquid = liquid;
+    }
+
+    /**
+     * Parse a path key
+     *
+     * @param path     path key of a local file
+     * @param fileExts file extensions to recognize, each starting with
+     *                 {@code .}
+     */
+    @Nonnull
+    static LocalFilePath parse(@Nonnull String path,
+                               @Nonnull String[] fileExts) {
+        int end = path.length();
+
+        // Suffixes, from the end: each is optional, but if present, must be
+        // in this order
+        int filenameEnd = end;
+
+        boolean liquid = endsWithAt(path, filenameEnd, LIQUID_SUFFIX);
+        if (liquid) {
+            filenameEnd -= LIQUID_SUFFIX.length();
+        }
+
+        String handler = "";
+        for (int i = 0; i < HANDLER_SUFFIXES.length; i++) {
+            if (endsWithAt(path, filenameEnd, HANDLER_SUFFIXES[i])) {
+                handler = HANDLERS[i];
+                filenameEnd -= HANDLER_SUFFIXES[i].length();
+                break;
+            }
+        }
+
+        String fileExt = null;
+        for (String candidate : fileExts) {
+            if (endsWithAt(path, filenameEnd, candidate)) {
+                fileExt = candidate;
+                filenameEnd -= candidate.length();
+                break;
+            }
+        }
+
+        // The rest of the scan finds the start of the file's name, and any
+        // line terminators (which the patterns' "." doesn't match)
+        int lastSlash = -1;
+        boolean terminatorInName = false;
+        boolean terminatorBeforeName = false;
+        for (int i = end - 1; i >= 0; i--) {
+            char c = path.charAt(i);
+
+            if (c == '/' && lastSlash < 0) {
+                lastSlash = i;
+            } else if (isLineTerminator(c)) {
+                if (lastSlash < 0) {
+                    terminatorInName = true;
+                } else {
+                    terminatorBeforeName = true;
+                    break;
+                }
+            }
+        }
+
+        int nameStart = lastSlash + 1;
+
+        Prefix prefix = Prefix.NONE;
+        if (lastSlash >= 0 && !terminatorBeforeName) {
+            if (hasPrefix(path, nameStart, Prefix.LAYOUT)) {
+                prefix = Prefix.LAYOUT;
+            } else if (hasPrefix(path, nameStart, Prefix.PARTIAL)) {
+                prefix = Prefix.PARTIAL;
+            }
+        }
+
+        if (terminatorInName || terminatorBeforeName) {
+            return new LocalFilePath(prefix, nameStart, false, end, null, "", false);
+        }
+
+        return new LocalFilePath(prefix, nameStart, true, filenameEnd, fileExt, handler, liquid);
+    }
+
+    private static boolean endsWithAt(@Nonnull String path,
+                                      int end,
+                                      @Nonnull String suffix) {
+        int start = end - suffix.length();
+        return start >= 0 && path.regionMatches(start, suffix, 0, suffix.length());
+    }
+
+    /**
+     * The prefix must be followed by at least one more character of the
+     * name
+     */
+    private static boolean hasPrefix(@Nonnull String path,
+                                     int nameStart,
+                                     @Nonnull Prefix prefix) {
+        return path.length() - nameStart > prefix.length()
+            && path.startsWith(prefix.value, nameStart);
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    @Nonnull
+    Prefix getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * @return index of the start of the file's name (after the last
+     * {@code /})
+     */
+    int getNameStart() {
+        return nameStart;
+    }
+
+    /**
+     * @return whether the suffixes could be parsed; if not (the path has a
+     * line terminator), the path has no file extension, handler or
+     * {@code .liquid} suffix, and {@link #getFilenameEnd()} is its end
+     */
+    boolean isSuffixParsed() {
+        return suffixParsed;
+    }
+
+    /**
+     * @return index of the end of the path, before its suffixes
+     */
+    int getFilenameEnd() {
+        return filenameEnd;
+    }
+
+    @Nullable
+    String getFileExt() {
+        return fileExt;
+    }
+
+    @Nonnull
+    String getHandler() {
+        return handler;
+    }
+
+    boolean isLiquid() {
+        return liquid;
+    }
+
+}
@@ -19,7 +19,7 @@ import java.util.stream.StreamSupport;
 
 class LocalFileVisitor extends SimpleFileVisitor<Path> {
 
-    private static final String CMSIGNORE_FILENAME = ".cmsignore";
+    static final String CMSIGNORE_FILENAME = ".cmsignore";
 
 
     private final LocalFileCmsObjectGenerator localFileCmsObjectGenerator;
@@ -30,7 +30,6 @@ class LocalFileVisitor extends SimpleFileVisitor<Path> {
     private final BiConsumer<String, Pair<CmsObject, File>> registerCmsObjectForPath;
 
 
-    private final FileSystem defaultFileSystem = FileSystems.getDefault();
     private final Deque<List<Pair<PathMatcher, Boolean>>> ignoreRules = new ArrayDeque<>();
     private int emptyDirDepth = 0;
 
@@ -54,20 +53,13 @@ class LocalFileVisitor extends SimpleFileVisitor<Path> {
                                              @Nonnull BasicFileAttributes attrs) throws IOException {
 
         // Test if the entire directory is ignored
-        if (testPathIsIgnored(dir)) {
-            ignorePath.accept(pathKeyFromPath(dir, true));
+        if (testPathIsIgnored(ignoreRules, dir)) {
+            ignorePath.accept(pathKeyFromPath(rootPath, dir, true));
             return FileVisitResult.SKIP_SUBTREE;
         }
 
         // If directory is not ignored, try loading .cmsignore
-        Path cmsIgnorePath = dir.resolve(CMSIGNORE_FILENAME);
-        if (cmsIgnorePath.toFile().exists()
-            && cmsIgnorePath.toFile().canRead()
-        ) {
-            readCmsIgnoreFile(cmsIgnorePath);
-        } else {
-            ignoreRules.addLast(Collections.emptyList());
-        }
+        ignoreRules.addLast(readCmsIgnoreRules(rootPath, dir));
 
         emptyDirDepth++;
 
@@ -92,9 +84,15 @@ class LocalFileVisitor extends SimpleFileVisitor<Path> {
     public FileVisitResult visitFile(@Nonnull Path path,
                                      @Nonnull BasicFileAttributes attrs) {
 
-        String pathKey = pathKeyFromPath(path, false);
+        // The sync manifest describes the local directory; it isn't content
+        if (rootPath.equals(path.getParent())
+            && SyncManifestStore.MANIFEST_FILENAME.equals(path.getFileName().toString())) {
+            return FileVisitResult.CONTINUE;
+        }
+
+        String pathKey = pathKeyFromPath(rootPath, path, false);
 
-        if (testPathIsIgnored(path)) {
+        if (testPathIsIgnored(ignoreRules, path)) {
             ignorePath.accept(pathKey);
             return FileVisitResult.CONTINUE;
         }
@@ -114,14 +112,13 @@ class LocalFileVisitor extends SimpleFileVisitor<Path> {
             throw exc;
         }
 
-        if (!testPathIsIgnored(dir)) {
-            ignoreRules.removeLast();
-        }
+        // The directory's own rules only apply within it
+        ignoreRules.removeLast();
 
         emptyDirDepth = Math.max(0, emptyDirDepth);
 
         if (emptyDirDepth == 0) {
-            String pathKey = pathKeyFromPath(dir, true);
+            String pathKey = pathKeyFromPath(rootPath, dir, true);
 
             if (!implicitSectionPaths.contains(pathKey)) {
                 generateAndRegisterObject(pathKey, dir.toFile());
@@ -133,7 +130,13 @@ class LocalFileVisitor extends SimpleFileVisitor<Path> {
         return FileVisitResult.CONTINUE;
     }
 
-    private boolean testPathIsIgnored(@Nonnull Path path) {
+    /**
+     * Test a path against the ignore rules in scope, from the root
+     * directory's down to the innermost directory's; the last rule to match
+     * decides whether the path is ignored
+     */
+    static boolean testPathIsIgnored(@Nonnull Collection<List<Pair<PathMatcher, Boolean>>> ignoreRules,
+                                     @Nonnull Path path) {
         Path normalizedPath = path.normalize();
 
         List<Boolean> matchingRules = ignoreRules.stream()
@@ -153,7 +156,9 @@ class LocalFileVisitor extends SimpleFileVisitor<Path> {
     }
 
     @Nonnull
-    private String pathKeyFromPath(@Nonnull Path path, boolean isDirectory) {
+    static String pathKeyFromPath(@Nonnull Path rootPath,
+                                  @Nonnull Path path,
+                                  boolean isDirectory) {
         if (rootPath.equals(path)) {
             return "/";
         }
@@ -167,7 +172,22 @@ class LocalFileVisitor extends SimpleFileVisitor<Path> {
             + (isDirectory ? "/" : "");
     }
 
-    private void readCmsIgnoreFile(@Nonnull Path cmsIgnorePath) throws IOException {
+    /**
+     * Read the ignore rules a directory's {@code .cmsignore} file adds
+     *
+     * @return the rules, in file order; empty if there is no readable file
+     */
+    @Nonnull
+    static List<Pair<PathMatcher, Boolean>> readCmsIgnoreRules(@Nonnull Path rootPath,
+                                                                @Nonnull Path dir) throws IOException {
+        Path cmsIgnorePath = dir.resolve(CMSIGNORE_FILENAME);
+        if (!cmsIgnorePath.toFile().exists()
+            || !cmsIgnorePath.toFile().canRead()) {
+            return Collections.emptyList();
+        }
+
+        FileSystem defaultFileSystem = FileSystems.getDefault();
+
         try (Stream<String> lines = Files.lines(cmsIgnorePath)) {
             List<Pair<PathMatcher, Boolean>> ignoreMatchers = new ArrayList<>();
 
@@ -189,26 +209,26 @@ class LocalFileVisitor extends SimpleFileVisitor<Path> {
                         || StringUtils.startsWith(computedLine, defaultFileSystem.getSeparator())) {
                         ignoreMatchers.add(
                             Pair.of(
-                                generatePathMatcher("." + computedLine),
+                                generatePathMatcher(rootPath, "." + computedLine),
                                 isIgnored));
                     } else {
                         computedLine = StringUtils.removeStart(computedLine, "**/");
                         ignoreMatchers.add(
                             Pair.of(
-                                generatePathMatcher("./" + computedLine),
+                                generatePathMatcher(rootPath, "./" + computedLine),
                                 isIgnored));
                         ignoreMatchers.add(
                             Pair.of(
-                                generatePathMatcher("**/" + computedLine),
+                                generatePathMatcher(rootPath, "**/" + computedLine),
                                 isIgnored));
                     }
                 });
 
-            ignoreRules.addLast(ignoreMatchers);
+            return ignoreMatchers;
         }
     }
 
-    private PathMatcher generatePathMatcher(String path) {
-        return defaultFileSystem.getPathMatcher("glob:" + rootPath.resolve(path).normalize());
+    private static PathMatcher generatePathMatcher(Path rootPath, String path) {
+        return FileSystems.getDefault().getPathMatcher("glob:" + rootPath.resolve(path).normalize());
     }
 }
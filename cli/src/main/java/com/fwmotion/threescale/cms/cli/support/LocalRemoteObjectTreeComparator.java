@@ -3,11 +3,12 @@ package com.fwmotion.threescale.cms.cli.support;
 import com.fwmotion.threescale.cms.model.CmsLayout;
 import com.fwmotion.threescale.cms.model.CmsObject;
 import com.fwmotion.threescale.cms.model.CmsSection;
+import com.fwmotion.threescale.cms.model.CmsTemplate;
 import com.fwmotion.threescale.cms.model.ThreescaleObjectType;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.File;
@@ -19,9 +20,10 @@ import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @ApplicationScoped
@@ -33,16 +35,61 @@ public class LocalRemoteObjectTreeComparator {
     @Inject
     LocalFileCmsObjectGenerator localFileCmsObjectGenerator;
 
+    private int localScanParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Set the number of threads to scan the local directory with; 1 walks it
+     * one directory at a time
+     *
+     * @param localScanParallelism number of threads, or 0 for one per
+     *                             processor
+     */
+    public void setLocalScanParallelism(int localScanParallelism) {
+        this.localScanParallelism = localScanParallelism > 0
+            ? localScanParallelism
+            : Runtime.getRuntime().availableProcessors();
+    }
+
     @Nonnull
     public LocalRemoteTreeComparisonDetails compareLocalAndRemoteCmsObjectTrees(
-        @Nonnull Stream<CmsObject> remoteObjects,
+        @Nonnull CmsPathIndex remotePathIndex,
         @Nonnull File localRoot,
         boolean defaultLayoutCanBeRemoteOnly) throws Exception {
+        return compareLocalAndRemoteCmsObjectTrees(remotePathIndex, localRoot, defaultLayoutCanBeRemoteOnly,
+            null, new LocalContentHashes(), null);
+    }
+
+    /**
+     * Compare the local and remote trees. When comparing template content,
+     * templates whose local content matches the remote content are
+     * unchanged. Objects recorded in the sync manifest are compared by
+     * whether they've changed on either side since they were last synced;
+     * other objects (and objects changed on both sides) are compared by
+     * timestamp.
+     *
+     * @param syncManifest           manifest of content last synced with the
+     *                               remote tenant, or {@code null} to only
+     *                               compare timestamps
+     * @param localContentHashes     memoized hashes of local files
+     * @param compareTemplateContent version of template content to compare
+     *                               local templates with (the remote objects
+     *                               must have been listed with their
+     *                               content), or {@code null} not to compare
+     *                               content
+     */
+    @Nonnull
+    public LocalRemoteTreeComparisonDetails compareLocalAndRemoteCmsObjectTrees(
+        @Nonnull CmsPathIndex remotePathIndex,
+        @Nonnull File localRoot,
+        boolean defaultLayoutCanBeRemoteOnly,
+        @Nullable SyncManifest syncManifest,
+        @Nonnull LocalContentHashes localContentHashes,
+        @Nullable TemplateVersion compareTemplateContent) throws Exception {
         LocalRemoteTreeComparisonDetails details = new LocalRemoteTreeComparisonDetails();
 
-        calculateRemoteObjects(details, remoteObjects);
+        calculateRemoteObjects(details, remotePathIndex);
         calculateLocalObjects(details, localRoot);
-        calculateDiffs(details);
+        calculateDiffs(details, syncManifest, localContentHashes, compareTemplateContent);
         calculateDefaultLayout(details, defaultLayoutCanBeRemoteOnly);
 
         return details;
@@ -50,31 +97,10 @@ public class LocalRemoteObjectTreeComparator {
 
     private void calculateRemoteObjects(
         @Nonnull LocalRemoteTreeComparisonDetails details,
-        @Nonnull Stream<CmsObject> remoteObjects) {
-
-        Map<String, Boolean> implicitSectionsMap = new HashMap<>();
-
-        details.setRemoteObjectsByCmsPath(
-            remoteObjects
-                .map(cmsObject -> Pair.of(cmsObjectPathKeyGenerator.generatePathKeyForObject(cmsObject), cmsObject))
-                .peek(pair -> {
-                    String path = pair.getLeft();
-                    if (pair.getRight() instanceof CmsSection) {
-                        implicitSectionsMap.put(path, false);
-                        path = StringUtils.left(path, StringUtils.lastIndexOf(path, '/'));
-                    }
-
-                    while (StringUtils.countMatches(path, '/') > 1) {
-                        path = StringUtils.left(path, StringUtils.lastIndexOf(path, '/'));
-                        implicitSectionsMap.computeIfAbsent(path + "/", k -> true);
-                    }
-                })
-                .collect(Collectors.toMap(Pair::getLeft, Pair::getRight)));
+        @Nonnull CmsPathIndex remotePathIndex) {
 
-        details.setImplicitSectionPaths(implicitSectionsMap.entrySet().stream()
-            .filter(Map.Entry::getValue)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toSet()));
+        details.setRemotePathIndex(remotePathIndex);
+        details.setImplicitSectionPaths(remotePathIndex.getImplicitSectionPaths());
     }
 
     private void calculateLocalObjects(
@@ -88,27 +114,41 @@ public class LocalRemoteObjectTreeComparator {
         Set<String> localPathIgnored = new HashSet<>();
         Map<String, Pair<CmsObject, File>> localObjectsByCmsPath = new HashMap<>();
 
-        Files.walkFileTree(
-            rootPath,
-            Set.of(FileVisitOption.FOLLOW_LINKS),
-            Integer.MAX_VALUE,
-            new LocalFileVisitor(localFileCmsObjectGenerator,
+        if (localScanParallelism > 1) {
+            new ParallelLocalFileScanner(localFileCmsObjectGenerator,
                 cmsObjectPathKeyGenerator,
                 rootPath,
-                implicitSectionPaths,
-                localPathIgnored::add,
-                localObjectsByCmsPath::put));
+                implicitSectionPaths)
+                .scan(localScanParallelism,
+                    localPathIgnored::add,
+                    localObjectsByCmsPath::put);
+        } else {
+            Files.walkFileTree(
+                rootPath,
+                Set.of(FileVisitOption.FOLLOW_LINKS),
+                Integer.MAX_VALUE,
+                new LocalFileVisitor(localFileCmsObjectGenerator,
+                    cmsObjectPathKeyGenerator,
+                    rootPath,
+                    implicitSectionPaths,
+                    localPathIgnored::add,
+                    localObjectsByCmsPath::put));
+        }
 
         details.setLocalPathsIgnored(localPathIgnored);
         details.setLocalObjectsByCmsPath(localObjectsByCmsPath);
     }
 
-    private void calculateDiffs(@Nonnull LocalRemoteTreeComparisonDetails details) {
+    private void calculateDiffs(@Nonnull LocalRemoteTreeComparisonDetails details,
+                                @Nullable SyncManifest syncManifest,
+                                @Nonnull LocalContentHashes localContentHashes,
+                                @Nullable TemplateVersion compareTemplateContent) throws IOException {
         Set<String> remoteObjectsNewerThanLocal = new HashSet<>();
         Set<String> localObjectsNewerThanLocal = new HashSet<>();
         Set<String> remotePathsMissingInLocal = new HashSet<>();
 
         Map<String, Pair<CmsObject, File>> localObjects = new HashMap<>(details.getLocalObjectsByCmsPath());
+        Map<File, String> localHashes = hashLocalFiles(details, syncManifest, localContentHashes, compareTemplateContent);
 
         for (Map.Entry<String, CmsObject> remoteEntry : details.getRemoteObjectsByCmsPath().entrySet()) {
             String path = remoteEntry.getKey();
@@ -124,6 +164,30 @@ public class LocalRemoteObjectTreeComparator {
                     continue;
                 }
 
+                String localHash = localHashes.get(localFilePair.getRight());
+
+                if (compareTemplateContent != null
+                    && localHash != null
+                    && remoteEntry.getValue() instanceof CmsTemplate remoteTemplate
+                    && isSameContent(remoteTemplate, compareTemplateContent, localFilePair.getRight(), localHash)) {
+                    if (syncManifest != null) {
+                        syncManifest.recordSynced(path, remoteTemplate.getId(), remoteTemplate.getUpdatedAt(), localHash);
+                    }
+                    continue;
+                }
+
+                SyncedChange syncedChange = changeSinceSync(
+                    syncManifest, path, remoteEntry.getValue(), localHash);
+                if (syncedChange == SyncedChange.LOCAL) {
+                    localObjectsNewerThanLocal.add(path);
+                    continue;
+                } else if (syncedChange == SyncedChange.REMOTE) {
+                    remoteObjectsNewerThanLocal.add(path);
+                    continue;
+                } else if (syncedChange == SyncedChange.NONE) {
+                    continue;
+                }
+
                 OffsetDateTime remoteUpdatedAt = remoteEntry.getValue().getUpdatedAt()
                     .truncatedTo(ChronoUnit.SECONDS);
                 OffsetDateTime localUpdatedAt = localFilePair.getLeft().getUpdatedAt()
@@ -145,6 +209,91 @@ public class LocalRemoteObjectTreeComparator {
         details.setLocalPathsMissingInRemote(new HashSet<>(localObjects.keySet()));
     }
 
+    /**
+     * Hash, in parallel, the local files that will be compared by content:
+     * those recorded in the sync manifest and, when comparing template
+     * content, templates
+     */
+    @Nonnull
+    private Map<File, String> hashLocalFiles(@Nonnull LocalRemoteTreeComparisonDetails details,
+                                             @Nullable SyncManifest syncManifest,
+                                             @Nonnull LocalContentHashes localContentHashes,
+                                             @Nullable TemplateVersion compareTemplateContent) throws IOException {
+        Map<String, Pair<CmsObject, File>> localObjects = details.getLocalObjectsByCmsPath();
+
+        List<File> filesToHash = details.getRemoteObjectsByCmsPath()
+            .entrySet()
+            .stream()
+            .filter(entry -> entry.getValue().getType() != ThreescaleObjectType.SECTION)
+            .filter(entry -> localObjects.containsKey(entry.getKey()))
+            .filter(entry -> (syncManifest != null && syncManifest.getEntry(entry.getKey()).isPresent())
+                || (compareTemplateContent != null && entry.getValue() instanceof CmsTemplate))
+            .map(entry -> localObjects.get(entry.getKey()).getRight())
+            .filter(File::isFile)
+            .toList();
+
+        return localContentHashes.hashAll(filesToHash);
+    }
+
+    /**
+     * @return whether a local file has the content that downloading the
+     * given version of the remote template would give it
+     */
+    private static boolean isSameContent(@Nonnull CmsTemplate remoteTemplate,
+                                         @Nonnull TemplateVersion templateVersion,
+                                         @Nonnull File localFile,
+                                         @Nonnull String localHash) {
+        if (remoteTemplate.getId() == null) {
+            return false;
+        }
+
+        return templateVersion.getDownloadedContent(remoteTemplate)
+            .filter(content -> content.length == localFile.length())
+            .map(SyncManifest::hashContent)
+            .filter(localHash::equals)
+            .isPresent();
+    }
+
+    /**
+     * Use the sync manifest to determine which side of a path changed since
+     * it was last synced; {@link SyncedChange#UNKNOWN} if the manifest has no
+     * record of it, the remote object has been replaced, or both sides
+     * changed
+     */
+    @Nonnull
+    SyncedChange changeSinceSync(@Nullable SyncManifest syncManifest,
+                                 @Nonnull String path,
+                                 @Nonnull CmsObject remoteObject,
+                                 @Nullable String localHash) {
+        SyncManifest.Entry entry = Optional.ofNullable(syncManifest)
+            .flatMap(manifest -> manifest.getEntry(path))
+            .orElse(null);
+
+        if (entry == null
+            || remoteObject.getId() == null
+            || entry.getRemoteId() != remoteObject.getId()
+            || localHash == null) {
+            return SyncedChange.UNKNOWN;
+        }
+
+        boolean remoteChanged;
+        if (entry.getRemoteUpdatedAt().isPresent()) {
+            remoteChanged = !entry.getRemoteUpdatedAt().get().isEqual(remoteObject.getUpdatedAt());
+        } else {
+            // Uploaded last time; this listing gives its updatedAt after that
+            syncManifest.recordRemoteUpdatedAt(path, remoteObject.getUpdatedAt());
+            remoteChanged = false;
+        }
+
+        boolean localChanged = !entry.getContentHash().equals(localHash);
+
+        if (remoteChanged) {
+            return localChanged ? SyncedChange.UNKNOWN : SyncedChange.REMOTE;
+        }
+
+        return localChanged ? SyncedChange.LOCAL : SyncedChange.NONE;
+    }
+
     private void calculateDefaultLayout(LocalRemoteTreeComparisonDetails details, boolean defaultLayoutCanBeRemoteOnly) {
         Stream<CmsObject> remoteObjectStream;
         if (defaultLayoutCanBeRemoteOnly) {
@@ -176,4 +325,11 @@ public class LocalRemoteObjectTreeComparator {
 
     }
 
+    enum SyncedChange {
+        NONE,
+        LOCAL,
+        REMOTE,
+        UNKNOWN
+    }
+
 }
@@ -14,7 +14,7 @@ public class LocalRemoteTreeComparisonDetails {
     private Set<String> implicitSectionPaths;
 
     private Map<String, Pair<CmsObject, File>> localObjectsByCmsPath;
-    private Map<String, CmsObject> remoteObjectsByCmsPath;
+    private CmsPathIndex remotePathIndex;
 
     private Set<String> localPathsIgnored;
 
@@ -43,11 +43,15 @@ public class LocalRemoteTreeComparisonDetails {
     }
 
     public Map<String, CmsObject> getRemoteObjectsByCmsPath() {
-        return remoteObjectsByCmsPath;
+        return remotePathIndex.getObjectsByPathKey();
     }
 
-    public void setRemoteObjectsByCmsPath(Map<String, CmsObject> remoteObjectsByCmsPath) {
-        this.remoteObjectsByCmsPath = remoteObjectsByCmsPath;
+    public CmsPathIndex getRemotePathIndex() {
+        return remotePathIndex;
+    }
+
+    public void setRemotePathIndex(CmsPathIndex remotePathIndex) {
+        this.remotePathIndex = remotePathIndex;
     }
 
     public Set<String> getLocalPathsIgnored() {
@@ -0,0 +1,282 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.CmsObject;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Scans the local directory like {@link LocalFileVisitor} does, but with
+ * each subdirectory scanned as a separate task in a fork/join pool. Each
+ * task carries the stack of {@code .cmsignore} rules in scope for its
+ * subtree, so rules from one directory never leak into its siblings.
+ * <p>
+ * Results are reported in the order the serial walk would report them (so
+ * that, should two files generate the same path key, the same one wins), and
+ * with the same rules: ignored directories are skipped, the sync manifest
+ * isn't content, and a directory is a section only if some file under it
+ * isn't ignored.
+ */
+class ParallelLocalFileScanner {
+
+    private final LocalFileCmsObjectGenerator localFileCmsObjectGenerator;
+    private final CmsObjectPathKeyGenerator pathKeyGenerator;
+    private final Path rootPath;
+    private final Set<String> implicitSectionPaths;
+
+    ParallelLocalFileScanner(@Nonnull LocalFileCmsObjectGenerator localFileCmsObjectGenerator,
+                             @Nonnull CmsObjectPathKeyGenerator pathKeyGenerator,
+                             @Nonnull Path rootPath,
+                             @Nonnull Set<String> implicitSectionPaths) {
+        this.localFileCmsObjectGenerator = localFileCmsObjectGenerator;
+        this.pathKeyGenerator = pathKeyGenerator;
+        this.rootPath = rootPath;
+        this.implicitSectionPaths = implicitSectionPaths;
+    }
+
+    /**
+     * Scan the local directory
+     *
+     * @param parallelism              number of threads to scan with
+     * @param ignorePath               receives the path keys of ignored files
+     *                                 and directories
+     * @param registerCmsObjectForPath receives the object generated for each
+     *                                 file and section directory
+     */
+    void scan(int parallelism,
+              @Nonnull Consumer<String> ignorePath,
+              @Nonnull BiConsumer<String, Pair<CmsObject, File>> registerCmsObjectForPath) throws IOException {
+        BasicFileAttributes rootAttributes = readAttributes(rootPath);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        DirectoryResult result;
+        try {
+            result = pool.invoke(new DirectoryTask(rootPath, rootAttributes, List.of(), List.of()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+
+        // Flatten without recursion, in case the tree is very deep
+        Deque<Iterator<Object>> stack = new ArrayDeque<>();
+        stack.push(result.items.iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Object> items = stack.peek();
+            if (!items.hasNext()) {
+                stack.pop();
+                continue;
+            }
+
+            Object item = items.next();
+            if (item instanceof DirectoryResult directoryResult) {
+                stack.push(directoryResult.items.iterator());
+            } else if (item instanceof Registration registration) {
+                registerCmsObjectForPath.accept(registration.pathKey(), registration.entry());
+            } else if (item instanceof Ignored ignored) {
+                ignorePath.accept(ignored.pathKey());
+            }
+        }
+    }
+
+    @Nonnull
+    private Registration generateObject(@Nonnull String pathKey,
+                                        @Nonnull File file) {
+        CmsObject cmsObject = localFileCmsObjectGenerator.generateObjectFromFile(pathKey, file);
+
+        // Objects may have better canonical paths than what is on the file
+        // system
+        return new Registration(pathKeyGenerator.generatePathKeyForObject(cmsObject), Pair.of(cmsObject, file));
+    }
+
+    /**
+     * Read attributes the way {@link Files#walkFileTree} does when following
+     * links: a link that can't be followed is visited as a file
+     */
+    @Nonnull
+    private static BasicFileAttributes readAttributes(@Nonnull Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException ignored) {
+                throw e;
+            }
+        }
+    }
+
+    private record Registration(String pathKey, Pair<CmsObject, File> entry) {
+    }
+
+    private record Ignored(String pathKey) {
+    }
+
+    /**
+     * What was found in a directory, in walk order: {@link Registration}s,
+     * {@link Ignored} paths and the {@code DirectoryResult}s of
+     * subdirectories
+     */
+    private static final class DirectoryResult {
+
+        private final List<Object> items = new ArrayList<>();
+        private boolean hasFiles;
+
+    }
+
+    private record Ancestor(Path path, Object fileKey) {
+    }
+
+    private final class DirectoryTask extends RecursiveTask<DirectoryResult> {
+
+        private final Path dir;
+        private final BasicFileAttributes attributes;
+        private final List<List<Pair<PathMatcher, Boolean>>> parentIgnoreRules;
+        private final List<Ancestor> ancestors;
+
+        private DirectoryTask(@Nonnull Path dir,
+                              @Nonnull BasicFileAttributes attributes,
+                              @Nonnull List<List<Pair<PathMatcher, Boolean>>> parentIgnoreRules,
+                              @Nonnull List<Ancestor> ancestors) {
+            this.dir = dir;
+            this.attributes = attributes;
+            this.parentIgnoreRules = parentIgnoreRules;
+            this.ancestors = ancestors;
+        }
+
+        @Override
+        protected DirectoryResult compute() {
+            try {
+                return scanDirectory();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Nonnull
+        private DirectoryResult scanDirectory() throws IOException {
+            List<List<Pair<PathMatcher, Boolean>>> ignoreRules = new ArrayList<>(parentIgnoreRules.size() + 1);
+            ignoreRules.addAll(parentIgnoreRules);
+            ignoreRules.add(LocalFileVisitor.readCmsIgnoreRules(rootPath, dir));
+
+            List<Ancestor> childAncestors = new ArrayList<>(ancestors.size() + 1);
+            childAncestors.addAll(ancestors);
+            childAncestors.add(new Ancestor(dir, attributes.fileKey()));
+
+            List<Path> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                stream.forEach(entries::add);
+            }
+
+            // Start subdirectories first, so that they're scanned while this
+            // directory's files are
+            List<Object> slots = new ArrayList<>(entries.size());
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            for (Path entry : entries) {
+                BasicFileAttributes entryAttributes = readAttributes(entry);
+
+                if (!entryAttributes.isDirectory()) {
+                    slots.add(entry);
+                    continue;
+                }
+
+                // As with Files.walkFileTree, a loop fails the scan even if
+                // the link would be ignored
+                checkForLoop(entry, entryAttributes, childAncestors);
+
+                if (LocalFileVisitor.testPathIsIgnored(ignoreRules, entry)) {
+                    slots.add(new Ignored(LocalFileVisitor.pathKeyFromPath(rootPath, entry, true)));
+                } else {
+                    DirectoryTask subtask = new DirectoryTask(entry, entryAttributes, ignoreRules, childAncestors);
+                    subtask.fork();
+                    subtasks.add(subtask);
+                    slots.add(subtask);
+                }
+            }
+
+            DirectoryResult result = new DirectoryResult();
+            try {
+                for (Object slot : slots) {
+                    if (slot instanceof Path file) {
+                        scanFile(file, ignoreRules, result);
+                    } else {
+                        result.items.add(slot);
+                    }
+                }
+
+                for (int i = 0; i < result.items.size(); i++) {
+                    if (result.items.get(i) instanceof DirectoryTask subtask) {
+                        DirectoryResult subResult = subtask.join();
+                        result.hasFiles |= subResult.hasFiles;
+                        result.items.set(i, subResult);
+                    }
+                }
+            } catch (RuntimeException e) {
+                subtasks.forEach(subtask -> subtask.cancel(false));
+                throw e;
+            }
+
+            if (result.hasFiles) {
+                String pathKey = LocalFileVisitor.pathKeyFromPath(rootPath, dir, true);
+
+                if (!implicitSectionPaths.contains(pathKey)) {
+                    result.items.add(generateObject(pathKey, dir.toFile()));
+                }
+            }
+
+            return result;
+        }
+
+        private void scanFile(@Nonnull Path file,
+                              @Nonnull List<List<Pair<PathMatcher, Boolean>>> ignoreRules,
+                              @Nonnull DirectoryResult result) {
+            // The sync manifest describes the local directory; it isn't content
+            if (rootPath.equals(file.getParent())
+                && SyncManifestStore.MANIFEST_FILENAME.equals(file.getFileName().toString())) {
+                return;
+            }
+
+            String pathKey = LocalFileVisitor.pathKeyFromPath(rootPath, file, false);
+
+            if (LocalFileVisitor.testPathIsIgnored(ignoreRules, file)) {
+                result.items.add(new Ignored(pathKey));
+                return;
+            }
+
+            result.hasFiles = true;
+            result.items.add(generateObject(pathKey, file.toFile()));
+        }
+
+        /**
+         * Fail on a link back to a directory being scanned, as
+         * {@link Files#walkFileTree} does
+         */
+        private static void checkForLoop(@Nonnull Path entry,
+                                         @Nonnull BasicFileAttributes entryAttributes,
+                                         @Nonnull List<Ancestor> ancestors) throws IOException {
+            Object fileKey = entryAttributes.fileKey();
+
+            for (Ancestor ancestor : ancestors) {
+                boolean sameDirectory = fileKey != null && ancestor.fileKey() != null
+                    ? fileKey.equals(ancestor.fileKey())
+                    : Files.isSameFile(entry, ancestor.path());
+
+                if (sameDirectory) {
+                    throw new FileSystemLoopException(entry.toString());
+                }
+            }
+        }
+
+    }
+
+}
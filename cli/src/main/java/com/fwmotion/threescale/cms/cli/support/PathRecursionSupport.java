@@ -3,14 +3,13 @@ package com.fwmotion.threescale.cms.cli.support;
 import com.fwmotion.threescale.cms.model.*;
 import jakarta.annotation.Nonnull;
 import jakarta.enterprise.context.ApplicationScoped;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @ApplicationScoped
 public class PathRecursionSupport {
@@ -24,35 +23,30 @@ public class PathRecursionSupport {
             CmsSection.class, section -> ((CmsSection) section).getParentId()
         );
 
-    private static void addChildObjectsToList(LinkedList<Pair<String, CmsObject>> recursingList, Map<String, CmsObject> objectsByPath) {
-        ListIterator<Pair<String, CmsObject>> treeWalker = recursingList.listIterator();
-
-        while (treeWalker.hasNext()) {
-            Pair<String, CmsObject> currentPair = treeWalker.next();
-            CmsObject currentObject = currentPair.getRight();
-
-            if (currentObject.getType() != ThreescaleObjectType.SECTION) {
+    /**
+     * Add the path keys of everything under a section, by following parent
+     * IDs down from it
+     */
+    private static void addDescendantPaths(@Nonnull String pathKey,
+                                           @Nonnull Map<String, CmsObject> objectsByPath,
+                                           @Nonnull ChildrenByParentId childrenByParentId,
+                                           @Nonnull Set<String> result) {
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push(pathKey);
+
+        while (!pending.isEmpty()) {
+            String currentKey = pending.pop();
+            if (!result.add(currentKey)) {
                 continue;
             }
 
-            Long parentId = currentObject.getId();
-
-            int addedChildren = Math.toIntExact(
-                objectsByPath.entrySet()
-                    .stream()
-                    .filter(childEntry -> {
-                        CmsObject childObject = childEntry.getValue();
-                        Long childParentId = GET_PARENT_ID_FUNCTIONS.getOrDefault(childObject.getClass(), o -> Long.MIN_VALUE)
-                            .apply(childObject);
-
-                        return Objects.equals(parentId, childParentId);
-                    })
-                    .peek(e -> treeWalker.add(Pair.of(e)))
-                    .count());
-
-            for (int i = 0; i < addedChildren; i++) {
-                treeWalker.previous();
+            CmsObject currentObject = objectsByPath.get(currentKey);
+            if (currentObject.getType() != ThreescaleObjectType.SECTION
+                || currentObject.getId() == null) {
+                continue;
             }
+
+            childrenByParentId.forEachChild(currentObject.getId(), pending::push);
         }
     }
 
@@ -68,36 +62,92 @@ public class PathRecursionSupport {
 
     public Set<String> calculateSpecifiedPaths(@Nonnull Collection<String> specifiedPaths,
                                                @Nonnull RecursionOption recurseBy,
-                                               @Nonnull Map<String, CmsObject> objectsByPath) {
+                                               @Nonnull CmsPathIndex pathIndex) {
+        Map<String, CmsObject> objectsByPath = pathIndex.getObjectsByPathKey();
 
         validatePaths(specifiedPaths, objectsByPath);
 
-        return switch (recurseBy) {
-            case NONE -> new HashSet<>(specifiedPaths);
-            case PATH_PREFIX -> specifiedPaths.stream()
-                    .flatMap(pathKey -> {
-                        if (objectsByPath.get(pathKey).getType() == ThreescaleObjectType.SECTION) {
-                            return objectsByPath.keySet().stream()
-                                    .filter(subKey -> StringUtils.startsWith(subKey, pathKey));
-                        }
-
-                        return Stream.of(pathKey);
-                    })
-                    .collect(Collectors.toSet());
-            case PARENT_ID -> specifiedPaths.stream()
-                    .flatMap(pathKey -> {
-                        CmsObject parentObject = objectsByPath.get(pathKey);
-
-                        LinkedList<Pair<String, CmsObject>> recursingList = new LinkedList<>();
-                        recursingList.add(Pair.of(pathKey, parentObject));
-
-                        addChildObjectsToList(recursingList, objectsByPath);
-
-                        return recursingList.stream()
-                                .map(Pair::getKey);
-                    })
-                    .collect(Collectors.toSet());
-        };
+        Set<String> result = new HashSet<>();
+
+        switch (recurseBy) {
+            case NONE -> result.addAll(specifiedPaths);
+            case PATH_PREFIX -> {
+                for (String pathKey : specifiedPaths) {
+                    if (objectsByPath.get(pathKey).getType() == ThreescaleObjectType.SECTION) {
+                        // A section's path key ends with '/', so the keys
+                        // starting with it are exactly those under its node
+                        pathIndex.forEachObjectUnder(pathKey, node -> result.add(node.getPathKey()));
+                    } else {
+                        result.add(pathKey);
+                    }
+                }
+            }
+            case PARENT_ID -> {
+                ChildrenByParentId childrenByParentId = new ChildrenByParentId(objectsByPath);
+
+                for (String pathKey : specifiedPaths) {
+                    addDescendantPaths(pathKey, objectsByPath, childrenByParentId, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Path keys of objects, grouped by the ID of their parent section. The
+     * IDs are kept unboxed and sorted, with the path keys of each one's
+     * children in a contiguous range of a single array.
+     */
+    private static final class ChildrenByParentId {
+
+        private final long[] parentIds;
+        private final int[] childrenStart;
+        private final String[] childPathKeys;
+
+        private ChildrenByParentId(@Nonnull Map<String, CmsObject> objectsByPath) {
+            List<Pair<Long, String>> children = new ArrayList<>(objectsByPath.size());
+            objectsByPath.forEach((pathKey, object) -> {
+                Long parentId = GET_PARENT_ID_FUNCTIONS.getOrDefault(object.getClass(), o -> null)
+                    .apply(object);
+
+                if (parentId != null) {
+                    children.add(Pair.of(parentId, pathKey));
+                }
+            });
+            children.sort(Map.Entry.comparingByKey());
+
+            childPathKeys = new String[children.size()];
+            long[] ids = new long[children.size()];
+            int[] starts = new int[children.size() + 1];
+            int distinctIds = 0;
+
+            for (int i = 0; i < children.size(); i++) {
+                long parentId = children.get(i).getKey();
+                if (distinctIds == 0 || ids[distinctIds - 1] != parentId) {
+                    ids[distinctIds] = parentId;
+                    starts[distinctIds] = i;
+                    distinctIds++;
+                }
+                childPathKeys[i] = children.get(i).getValue();
+            }
+            starts[distinctIds] = children.size();
+
+            parentIds = Arrays.copyOf(ids, distinctIds);
+            childrenStart = Arrays.copyOf(starts, distinctIds + 1);
+        }
+
+        private void forEachChild(long parentId, @Nonnull Consumer<String> action) {
+            int index = Arrays.binarySearch(parentIds, parentId);
+            if (index < 0) {
+                return;
+            }
+
+            for (int i = childrenStart[index]; i < childrenStart[index + 1]; i++) {
+                action.accept(childPathKeys[i]);
+            }
+        }
+
     }
 
     public enum RecursionOption {
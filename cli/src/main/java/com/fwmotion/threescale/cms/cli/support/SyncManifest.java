@@ -0,0 +1,180 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record of the content last synced between the local directory and one
+ * 3scale tenant, by path key: the remote object's ID and
+ * {@code updatedAt}, and a hash of the local file's content at the time.
+ * <p>
+ * With it, a change on either side can be detected without relying on the
+ * local file's last-modified time (which, for example, a fresh git checkout
+ * resets): the remote object changed if its {@code updatedAt} has moved on,
+ * and the local file changed if its content hash has.
+ * <p>
+ * After an upload, the remote {@code updatedAt} isn't known until the CMS is
+ * next listed (publishing a template updates it again), so the entry is
+ * recorded without one, and takes the {@code updatedAt} from the next
+ * listing.
+ * <p>
+ * Sections have no content of their own, so aren't recorded.
+ */
+public class SyncManifest {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, Entry> entriesByPathKey = new ConcurrentHashMap<>();
+    private volatile boolean modified = false;
+
+    public SyncManifest() {
+    }
+
+    SyncManifest(@Nonnull Map<String, Entry> entriesByPathKey) {
+        this.entriesByPathKey.putAll(entriesByPathKey);
+    }
+
+    @Nonnull
+    public Optional<Entry> getEntry(@Nonnull String pathKey) {
+        return Optional.ofNullable(entriesByPathKey.get(pathKey));
+    }
+
+    @Nonnull
+    public Map<String, Entry> getEntries() {
+        return Collections.unmodifiableMap(entriesByPathKey);
+    }
+
+    /**
+     * Record that a remote object has been downloaded to a local file, or
+     * found to have the same content as it
+     */
+    public void recordSynced(@Nonnull String pathKey,
+                             long remoteId,
+                             @Nonnull OffsetDateTime remoteUpdatedAt,
+                             @Nonnull String contentHash) {
+        putEntry(pathKey, new Entry(remoteId, remoteUpdatedAt, contentHash));
+    }
+
+    /**
+     * Record that a local file has been uploaded to a remote object; the
+     * remote object's new {@code updatedAt} will be taken from the next
+     * listing
+     */
+    public void recordUpload(@Nonnull String pathKey,
+                             long remoteId,
+                             @Nonnull String contentHash) {
+        putEntry(pathKey, new Entry(remoteId, null, contentHash));
+    }
+
+    /**
+     * Set the remote {@code updatedAt} of an entry recorded by an upload
+     */
+    public void recordRemoteUpdatedAt(@Nonnull String pathKey,
+                                      @Nonnull OffsetDateTime remoteUpdatedAt) {
+        entriesByPathKey.computeIfPresent(pathKey, (key, entry) ->
+            new Entry(entry.getRemoteId(), remoteUpdatedAt, entry.getContentHash()));
+        modified = true;
+    }
+
+    public void remove(@Nonnull String pathKey) {
+        if (entriesByPathKey.remove(pathKey) != null) {
+            modified = true;
+        }
+    }
+
+    /**
+     * @return whether any entries have changed since the manifest was loaded
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    private void putEntry(@Nonnull String pathKey, @Nonnull Entry entry) {
+        entriesByPathKey.put(pathKey, entry);
+        modified = true;
+    }
+
+    /**
+     * Hash a file's content, as recorded in the manifest
+     */
+    @Nonnull
+    public static String hashFile(@Nonnull File file) throws IOException {
+        MessageDigest digest = newDigest();
+
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hash content in the same way as {@link #hashFile(File)}
+     */
+    @Nonnull
+    public static String hashContent(@Nonnull byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    @Nonnull
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    public static final class Entry {
+
+        private final long remoteId;
+        private final OffsetDateTime remoteUpdatedAt;
+        private final String contentHash;
+
+        public Entry(long remoteId,
+                     @Nullable OffsetDateTime remoteUpdatedAt,
+                     @Nonnull String contentHash) {
+            this.remoteId = remoteId;
+            this.remoteUpdatedAt = remoteUpdatedAt;
+            this.contentHash = contentHash;
+        }
+
+        public long getRemoteId() {
+            return remoteId;
+        }
+
+        /**
+         * @return the remote object's {@code updatedAt} when last synced, or
+         * empty if it hasn't been listed since it was uploaded
+         */
+        @Nonnull
+        public Optional<OffsetDateTime> getRemoteUpdatedAt() {
+            return Optional.ofNullable(remoteUpdatedAt);
+        }
+
+        @Nonnull
+        public String getContentHash() {
+            return contentHash;
+        }
+
+    }
+
+}
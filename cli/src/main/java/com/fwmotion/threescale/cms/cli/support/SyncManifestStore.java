@@ -0,0 +1,147 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.logging.Log;
+import jakarta.annotation.Nonnull;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Loads and saves {@link SyncManifest}s, kept in a JSON file in the root of
+ * the local directory. A directory may be synced with several tenants (for
+ * example, when promoting content between environments), so the file holds
+ * a separate manifest for each provider domain.
+ */
+@ApplicationScoped
+public class SyncManifestStore {
+
+    public static final String MANIFEST_FILENAME = ".3scale-cms-manifest.json";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Load the manifest for a tenant; a missing or unreadable manifest file
+     * gives an empty manifest, so that changes are detected by timestamps
+     * until content has been synced again.
+     */
+    @Nonnull
+    public SyncManifest load(@Nonnull File rootDirectory,
+                             @Nonnull String providerDomain) {
+        ObjectNode root = readManifestFile(manifestPath(rootDirectory));
+        JsonNode tenant = root.path("tenants").path(normalizeProviderDomain(providerDomain));
+
+        Map<String, SyncManifest.Entry> entriesByPathKey = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = tenant.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode entry = field.getValue();
+
+            if (!entry.path("id").canConvertToLong() || !entry.path("sha256").isTextual()) {
+                continue;
+            }
+
+            OffsetDateTime updatedAt;
+            try {
+                updatedAt = entry.hasNonNull("updatedAt")
+                    ? OffsetDateTime.parse(entry.get("updatedAt").asText())
+                    : null;
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+
+            entriesByPathKey.put(field.getKey(), new SyncManifest.Entry(
+                entry.get("id").asLong(),
+                updatedAt,
+                entry.get("sha256").asText()));
+        }
+
+        return new SyncManifest(entriesByPathKey);
+    }
+
+    /**
+     * Save the manifest for a tenant, leaving other tenants' manifests in the
+     * file as they are. The file is replaced in one step, so an interrupted
+     * save doesn't leave it corrupt.
+     */
+    public void save(@Nonnull File rootDirectory,
+                     @Nonnull String providerDomain,
+                     @Nonnull SyncManifest manifest) throws IOException {
+        Path manifestPath = manifestPath(rootDirectory);
+        ObjectNode root = readManifestFile(manifestPath);
+
+        root.put("version", FORMAT_VERSION);
+        ObjectNode tenants = root.has("tenants") && root.get("tenants").isObject()
+            ? (ObjectNode) root.get("tenants")
+            : root.putObject("tenants");
+
+        ObjectNode tenant = tenants.putObject(normalizeProviderDomain(providerDomain));
+        new TreeMap<>(manifest.getEntries()).forEach((pathKey, entry) -> {
+            ObjectNode entryNode = tenant.putObject(pathKey);
+            entryNode.put("id", entry.getRemoteId());
+            entry.getRemoteUpdatedAt()
+                .ifPresent(updatedAt -> entryNode.put("updatedAt", updatedAt.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+            entryNode.put("sha256", entry.getContentHash());
+        });
+
+        Path temporaryPath = manifestPath.resolveSibling(MANIFEST_FILENAME + ".tmp");
+        try {
+            objectMapper.writeValue(temporaryPath.toFile(), root);
+            Files.move(temporaryPath, manifestPath,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    @Nonnull
+    private ObjectNode readManifestFile(@Nonnull Path manifestPath) {
+        if (Files.isRegularFile(manifestPath)) {
+            try {
+                JsonNode root = objectMapper.readTree(manifestPath.toFile());
+                if (root instanceof ObjectNode objectNode
+                    && root.path("version").asInt() == FORMAT_VERSION) {
+                    return objectNode;
+                }
+
+                Log.warn("Ignoring sync manifest " + manifestPath + " in an unknown format");
+            } catch (IOException e) {
+                Log.warn("Ignoring unreadable sync manifest " + manifestPath, e);
+            }
+        }
+
+        return objectMapper.createObjectNode();
+    }
+
+    @Nonnull
+    private static Path manifestPath(@Nonnull File rootDirectory) {
+        return rootDirectory.toPath()
+            .toAbsolutePath()
+            .normalize()
+            .resolve(MANIFEST_FILENAME);
+    }
+
+    @Nonnull
+    private static String normalizeProviderDomain(@Nonnull String providerDomain) {
+        return StringUtils.removeEnd(providerDomain.trim(), "/");
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.ThreescaleCmsClient;
+import com.fwmotion.threescale.cms.model.CmsObject;
+import com.fwmotion.threescale.cms.model.CmsTemplate;
+import io.quarkus.logging.Log;
+import jakarta.annotation.Nonnull;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.validation.constraints.Positive;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Publishes templates as they are uploaded. Templates are independent of
+ * each other, so a failure to publish one is recorded, and the rest are
+ * still published.
+ */
+@ApplicationScoped
+public class TemplatePublisher {
+
+    public enum PublishTiming {
+        /**
+         * Keep uploaded templates as drafts
+         */
+        NEVER,
+
+        /**
+         * Publish each template as soon as it has been saved
+         */
+        AFTER_EACH_SAVE,
+
+        /**
+         * Publish all templates concurrently, once every object has been
+         * saved
+         */
+        AFTER_ALL_SAVES
+    }
+
+    /**
+     * Start publishing the templates of an upload
+     *
+     * @param client      client to publish with
+     * @param timing      when to publish
+     * @param parallelism maximum number of templates to publish at the same
+     *                    time, when publishing after all saves
+     * @param pathKeyOf   path key of an uploaded object, for reporting
+     */
+    @Nonnull
+    public Publication begin(@Nonnull ThreescaleCmsClient client,
+                             @Nonnull PublishTiming timing,
+                             @Positive int parallelism,
+                             @Nonnull Function<CmsObject, String> pathKeyOf) {
+        return new Publication(client, timing, parallelism, pathKeyOf);
+    }
+
+    public static final class Publication {
+
+        private final ThreescaleCmsClient client;
+        private final PublishTiming timing;
+        private final int parallelism;
+        private final Function<CmsObject, String> pathKeyOf;
+        private final Map<String, Exception> failuresByPath = new ConcurrentHashMap<>();
+
+        private Publication(@Nonnull ThreescaleCmsClient client,
+                            @Nonnull PublishTiming timing,
+                            @Positive int parallelism,
+                            @Nonnull Function<CmsObject, String> pathKeyOf) {
+            this.client = client;
+            this.timing = timing;
+            this.parallelism = parallelism;
+            this.pathKeyOf = pathKeyOf;
+        }
+
+        /**
+         * Note that an object has been saved; a template is published right
+         * away when publishing after each save. Safe to call from several
+         * threads at once.
+         */
+        public void saved(@Nonnull CmsObject object) {
+            if (timing == PublishTiming.AFTER_EACH_SAVE && object instanceof CmsTemplate template) {
+                publish(template);
+            }
+        }
+
+        /**
+         * Publish the saved templates when publishing after all saves
+         *
+         * @param savedObjects every object saved by the upload
+         */
+        public void finish(@Nonnull Collection<? extends CmsObject> savedObjects) throws InterruptedException {
+            if (timing != PublishTiming.AFTER_ALL_SAVES) {
+                return;
+            }
+
+            List<CmsTemplate> templates = savedObjects.stream()
+                .filter(CmsTemplate.class::isInstance)
+                .map(CmsTemplate.class::cast)
+                .toList();
+
+            ExecutorService executorService = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+
+            try {
+                for (CmsTemplate template : templates) {
+                    executorService.execute(() -> publish(template));
+                }
+
+                executorService.shutdown();
+                while (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                    Log.debug("Still waiting for templates to be published...");
+                }
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+
+        /**
+         * @return the failures to publish so far, by path key
+         */
+        @Nonnull
+        public SortedMap<String, Exception> getFailuresByPath() {
+            return new TreeMap<>(failuresByPath);
+        }
+
+        private void publish(@Nonnull CmsTemplate template) {
+            String pathKey = pathKeyOf.apply(template);
+            Log.info("Publishing " + template.getType() + " " + pathKey + "...");
+
+            try {
+                client.publish(template);
+            } catch (Exception e) {
+                Log.warn("Failed to publish " + template.getType() + " " + pathKey, e);
+                failuresByPath.put(pathKey, e);
+            }
+        }
+
+    }
+
+}
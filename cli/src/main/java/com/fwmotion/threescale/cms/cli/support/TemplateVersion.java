@@ -0,0 +1,50 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.CmsTemplate;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.Charset;
+import java.util.Optional;
+
+/**
+ * Which version of a template's content a local file is compared with
+ */
+public enum TemplateVersion {
+
+    DRAFT {
+        @Nonnull
+        @Override
+        Optional<String> getContent(@Nonnull CmsTemplate template) {
+            // As downloaded: the draft, or the published content when there
+            // isn't one
+            return Optional.ofNullable(StringUtils.trimToNull(template.getDraftContent()))
+                .or(() -> Optional.ofNullable(StringUtils.trimToNull(template.getPublishedContent())));
+        }
+    },
+
+    PUBLISHED {
+        @Nonnull
+        @Override
+        Optional<String> getContent(@Nonnull CmsTemplate template) {
+            return Optional.ofNullable(template.getPublishedContent());
+        }
+    };
+
+    @Nonnull
+    abstract Optional<String> getContent(@Nonnull CmsTemplate template);
+
+    /**
+     * Get the content a local file would have, had this version of the
+     * template been downloaded to it
+     *
+     * @return the content, or empty if the template has none (or was listed
+     * without its content)
+     */
+    @Nonnull
+    public Optional<byte[]> getDownloadedContent(@Nonnull CmsTemplate template) {
+        return getContent(template)
+            .map(content -> content.getBytes(Charset.defaultCharset()));
+    }
+
+}
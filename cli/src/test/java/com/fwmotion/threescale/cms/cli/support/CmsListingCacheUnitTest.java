@@ -0,0 +1,217 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CmsListingCacheUnitTest {
+
+    private static final String PROVIDER_DOMAIN = "https://example-admin.3scale.net";
+    private static final OffsetDateTime UPDATED_AT = OffsetDateTime.of(2023, 11, 2, 10, 15, 30, 0, ZoneOffset.ofHours(2));
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    @TempDir
+    Path tempDir;
+
+    CmsListingCache cmsListingCache = new CmsListingCache();
+
+    AtomicInteger countRequests = new AtomicInteger();
+
+    @Test
+    void load_RoundTripsListing() throws Exception {
+        // Given a listing that has just been cached
+        File cacheFile = cacheFile();
+        List<CmsObject> objects = listing();
+        cmsListingCache.save(cacheFile, PROVIDER_DOMAIN, Instant.now(), objects);
+
+        // When it is loaded, with the same number of objects of each type
+        List<CmsObject> loaded = cmsListingCache.load(cacheFile, PROVIDER_DOMAIN + "/", MAX_AGE,
+            countsOf(objects));
+
+        // Then each object should be as it was listed
+        assertThat(loaded, hasSize(3));
+        CmsSection section = (CmsSection) loaded.get(0);
+        assertThat(section.getId(), is(10L));
+        assertThat(section.getPath(), is("/css/"));
+
+        CmsFile file = (CmsFile) loaded.get(1);
+        assertThat(file.getId(), is(20L));
+        assertThat(file.getPath(), is("/css/site.css"));
+        assertThat(file.getSectionId(), is(10L));
+        assertThat(file.getUpdatedAt().isEqual(UPDATED_AT), is(true));
+
+        CmsPage page = (CmsPage) loaded.get(2);
+        assertThat(page.getId(), is(30L));
+        assertThat(page.getPath(), is("/index.html"));
+        assertThat(page.getSectionId(), is(1L));
+
+        // And the current counts should have been checked once
+        assertThat(countRequests.get(), is(1));
+    }
+
+    @Test
+    void load_CountsChanged() throws Exception {
+        // Given a cached listing
+        File cacheFile = cacheFile();
+        List<CmsObject> objects = listing();
+        cmsListingCache.save(cacheFile, PROVIDER_DOMAIN, Instant.now(), objects);
+
+        // When a page has since been added, then it should not be used
+        Map<ThreescaleObjectType, Integer> counts = countsOf(objects).get();
+        counts.merge(ThreescaleObjectType.TEMPLATE, 1, Integer::sum);
+        assertThat(cmsListingCache.load(cacheFile, PROVIDER_DOMAIN, MAX_AGE, () -> counts),
+            is(nullValue()));
+    }
+
+    @Test
+    void load_EditsWithinMaxAgeGoUnnoticed() throws Exception {
+        // Given a cached listing
+        File cacheFile = cacheFile();
+        List<CmsObject> objects = listing();
+        cmsListingCache.save(cacheFile, PROVIDER_DOMAIN, Instant.now(), objects);
+
+        // When a page has since been edited (so the number of objects of
+        // each type is the same)
+        // Then the cached listing should still be used, with the page as it
+        // was; this is why commands that change content don't use it
+        List<CmsObject> loaded = cmsListingCache.load(cacheFile, PROVIDER_DOMAIN, MAX_AGE,
+            countsOf(objects));
+        assertThat(loaded.get(2).getUpdatedAt().isEqual(UPDATED_AT), is(true));
+    }
+
+    @Test
+    void load_TooOld() throws Exception {
+        // Given a listing cached longer ago than the maximum age
+        File cacheFile = cacheFile();
+        List<CmsObject> objects = listing();
+        cmsListingCache.save(cacheFile, PROVIDER_DOMAIN,
+            Instant.now().minus(MAX_AGE).minusSeconds(1), objects);
+
+        // When it is loaded, then it should not be used, without checking
+        // the current counts
+        assertThat(cmsListingCache.load(cacheFile, PROVIDER_DOMAIN, MAX_AGE, countsOf(objects)),
+            is(nullValue()));
+        assertThat(countRequests.get(), is(0));
+    }
+
+    @Test
+    void load_OtherTenant() throws Exception {
+        // Given a listing cached for one tenant
+        File cacheFile = cacheFile();
+        List<CmsObject> objects = listing();
+        cmsListingCache.save(cacheFile, PROVIDER_DOMAIN, Instant.now(), objects);
+
+        // When it is loaded for another, then it should not be used
+        assertThat(cmsListingCache.load(cacheFile, "https://other-admin.3scale.net", MAX_AGE,
+                countsOf(objects)),
+            is(nullValue()));
+        assertThat(countRequests.get(), is(0));
+    }
+
+    @Test
+    void save_RefusesTemplateContent() {
+        // Given a listing of a page with its content
+        CmsPage page = new CmsPage();
+        page.setId(30L);
+        page.setPath("/index.html");
+        page.setDraftContent("<p>Draft</p>");
+
+        // When it is cached, then it should fail, and write nothing
+        File cacheFile = cacheFile();
+        assertThrows(IllegalArgumentException.class,
+            () -> cmsListingCache.save(cacheFile, PROVIDER_DOMAIN, Instant.now(), List.of(page)));
+        assertThat(cacheFile.exists(), is(false));
+    }
+
+    @Test
+    void load_MissingOrUnreadable() throws Exception {
+        // Given no cached listing, then there should be none to use
+        File cacheFile = cacheFile();
+        assertThat(cmsListingCache.load(cacheFile, PROVIDER_DOMAIN, MAX_AGE, countsOf(List.of())),
+            is(nullValue()));
+
+        // And given a cache file that isn't JSON, then there should be none
+        // to use
+        Files.createDirectories(cacheFile.toPath().getParent());
+        Files.writeString(cacheFile.toPath(), "not json {");
+        assertThat(cmsListingCache.load(cacheFile, PROVIDER_DOMAIN, MAX_AGE, countsOf(List.of())),
+            is(nullValue()));
+    }
+
+    @Test
+    void invalidate_DiscardsListing() throws Exception {
+        // Given a cached listing
+        File cacheFile = cacheFile();
+        List<CmsObject> objects = listing();
+        cmsListingCache.save(cacheFile, PROVIDER_DOMAIN, Instant.now(), objects);
+
+        // When it is invalidated, then it should no longer be used
+        cmsListingCache.invalidate(cacheFile);
+        assertThat(cmsListingCache.load(cacheFile, PROVIDER_DOMAIN, MAX_AGE, countsOf(objects)),
+            is(nullValue()));
+
+        // And invalidating it again should do nothing
+        cmsListingCache.invalidate(cacheFile);
+    }
+
+    @Nonnull
+    private File cacheFile() {
+        return tempDir.resolve("listings/example.json").toFile();
+    }
+
+    @Nonnull
+    private Supplier<Map<ThreescaleObjectType, Integer>> countsOf(@Nonnull List<CmsObject> objects) {
+        return () -> {
+            countRequests.incrementAndGet();
+
+            Map<ThreescaleObjectType, Integer> counts = new EnumMap<>(ThreescaleObjectType.class);
+            for (ThreescaleObjectType type : ThreescaleObjectType.values()) {
+                counts.put(type, 0);
+            }
+            objects.forEach(object -> counts.merge(object.getType(), 1, Integer::sum));
+            return counts;
+        };
+    }
+
+    @Nonnull
+    private static List<CmsObject> listing() {
+        CmsSection section = new CmsSection();
+        section.setId(10L);
+        section.setParentId(1L);
+        section.setPath("/css/");
+        section.setUpdatedAt(UPDATED_AT);
+
+        CmsFile file = new CmsFile();
+        file.setId(20L);
+        file.setSectionId(10L);
+        file.setPath("/css/site.css");
+        file.setUpdatedAt(UPDATED_AT);
+
+        CmsPage page = new CmsPage();
+        page.setId(30L);
+        page.setSectionId(1L);
+        page.setPath("/index.html");
+        page.setUpdatedAt(UPDATED_AT);
+
+        return List.of(section, file, page);
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.ThreescaleCmsClient;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsApiException;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsCannotDeleteBuiltinException;
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class CmsObjectDeleterUnitTest {
+
+    @Mock
+    ThreescaleCmsClient client;
+
+    CmsObjectDeleter cmsObjectDeleter = new CmsObjectDeleter();
+
+    List<CmsObject> deleted = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cmsObjectDeleter.pathKeyGenerator = new CmsObjectPathKeyGenerator();
+
+        willAnswer(invocation -> deleted.add(invocation.getArgument(0)))
+            .given(client).delete(any(CmsObject.class));
+    }
+
+    @Test
+    void deleteObjects_DeletesSectionContentsFirst() throws Exception {
+        // Given a section within a section
+        CmsSection outerSection = section(10L, 1L, "/a/");
+        CmsSection innerSection = section(20L, 10L, "/a/b/");
+
+        // And a page in the inner section, whose path isn't under the section
+        CmsPage page = page(30L, 20L, "/x");
+
+        // And a file in the inner section
+        CmsFile file = file(40L, 20L, "/a/b/logo.png");
+
+        // And a layout
+        CmsLayout layout = layout(50L, "main-layout");
+
+        // When all of them are deleted
+        CmsObjectDeletionSummary summary = cmsObjectDeleter.deleteObjects(client,
+            List.of(outerSection, layout, innerSection, file, page), 4);
+
+        // Then everything should have been deleted
+        assertThat(deleted, containsInAnyOrder(outerSection, layout, innerSection, file, page));
+        assertThat(summary.getDeletedPaths(), contains(
+            "/a/", "/a/b/", "/a/b/logo.png", "/l_main-layout.html.liquid", "/x.html"));
+        assertThat(summary.hasFailures(), is(false));
+
+        // And each section's contents should have been deleted before it
+        assertThat(deleted.indexOf(page), is(lessThan(deleted.indexOf(innerSection))));
+        assertThat(deleted.indexOf(file), is(lessThan(deleted.indexOf(innerSection))));
+        assertThat(deleted.indexOf(innerSection), is(lessThan(deleted.indexOf(outerSection))));
+
+        // And the layout should have been deleted after the page
+        assertThat(deleted.indexOf(page), is(lessThan(deleted.indexOf(layout))));
+    }
+
+    @Test
+    void deleteObjects_DeletesNestedSectionAfterShallowContents() throws Exception {
+        // Given a nested section holding a page with a top-level path
+        CmsSection section = section(20L, 10L, "/a/b/c/");
+        CmsPage page = page(30L, 20L, "/x");
+
+        // When both are deleted
+        cmsObjectDeleter.deleteObjects(client, List.of(section, page), 4);
+
+        // Then the page should have been deleted first
+        assertThat(deleted, contains(page, section));
+    }
+
+    @Test
+    void deleteObjects_ReportsFailuresAndSkippedBuiltins() throws Exception {
+        // Given a built-in page, which can't be deleted
+        CmsBuiltinPage builtinPage = new CmsBuiltinPage();
+        builtinPage.setId(60L);
+        builtinPage.setSystemName("dashboard");
+        lenient().doThrow(new ThreescaleCmsCannotDeleteBuiltinException())
+            .when(client).delete(builtinPage);
+
+        // And a page that will fail to be deleted
+        CmsPage failingPage = page(70L, 1L, "/failing");
+        lenient().doThrow(new ThreescaleCmsApiException(500, "Internal Server Error"))
+            .when(client).delete(failingPage);
+
+        // And a page that can be deleted
+        CmsPage page = page(80L, 1L, "/deletable");
+
+        // When all of them are deleted
+        CmsObjectDeletionSummary summary = cmsObjectDeleter.deleteObjects(client,
+            List.of(builtinPage, failingPage, page), 2);
+
+        // Then each outcome should have been recorded
+        assertThat(summary.getDeletedPaths(), contains("/deletable.html"));
+        assertThat(summary.getBuiltinPathsSkipped(), contains("/dashboard.html.liquid"));
+        assertThat(summary.getFailuresByPath().keySet(), contains("/failing.html"));
+        assertThat(summary.getFailuresByPath().get("/failing.html").getMessage(),
+            is("Internal Server Error"));
+        assertThat(summary.hasFailures(), is(true));
+    }
+
+    @Nonnull
+    private static CmsSection section(long id, long parentId, @Nonnull String path) {
+        CmsSection section = new CmsSection();
+        section.setId(id);
+        section.setParentId(parentId);
+        section.setPath(path);
+        return section;
+    }
+
+    @Nonnull
+    private static CmsPage page(long id, long sectionId, @Nonnull String path) {
+        CmsPage page = new CmsPage();
+        page.setId(id);
+        page.setSectionId(sectionId);
+        page.setPath(path);
+        page.setContentType("text/html");
+        return page;
+    }
+
+    @Nonnull
+    private static CmsFile file(long id, long sectionId, @Nonnull String path) {
+        CmsFile file = new CmsFile();
+        file.setId(id);
+        file.setSectionId(sectionId);
+        file.setPath(path);
+        return file;
+    }
+
+    @Nonnull
+    private static CmsLayout layout(long id, @Nonnull String systemName) {
+        CmsLayout layout = new CmsLayout();
+        layout.setId(id);
+        layout.setSystemName(systemName);
+        return layout;
+    }
+
+}
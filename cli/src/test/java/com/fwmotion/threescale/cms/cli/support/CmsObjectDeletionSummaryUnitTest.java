@@ -0,0 +1,40 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class CmsObjectDeletionSummaryUnitTest {
+
+    CmsObjectDeletionSummary summary = new CmsObjectDeletionSummary();
+
+    @Test
+    void hasFailures_NoFailuresRecorded() {
+        // Given no failures have been set
+        // Then there should be no failures
+        assertThat(summary.hasFailures(), is(false));
+    }
+
+    @Test
+    void hasFailures_EmptyFailures() {
+        // Given an empty set of failures
+        summary.setFailuresByPath(new TreeMap<>());
+
+        // Then there should be no failures
+        assertThat(summary.hasFailures(), is(false));
+    }
+
+    @Test
+    void hasFailures_WithFailure() {
+        // Given a failure to delete
+        summary.setFailuresByPath(Map.of("/a.html", new IllegalStateException("Failed")));
+
+        // Then there should be failures
+        assertThat(summary.hasFailures(), is(true));
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CmsPathIndexUnitTest {
+
+    CmsObjectPathKeyGenerator pathKeyGenerator = new CmsObjectPathKeyGenerator();
+
+    @Test
+    void build_IndexesByGeneratedPathKey() {
+        // Given a section, a page and a file in it, and a layout
+        CmsSection section = section(10L, "/docs/");
+        CmsPage page = page(20L, "/docs/intro");
+        CmsFile file = file(30L, "/docs/img/logo.png");
+        CmsLayout layout = layout(40L, "main");
+
+        // When they are indexed
+        CmsPathIndex index = CmsPathIndex.build(List.of(section, page, file, layout), pathKeyGenerator);
+
+        // Then each should be found by its generated path key, and the path
+        // key by it
+        assertThat(index.getObjectsByPathKey(), is(Map.of(
+            "/docs/", section,
+            "/docs/intro.html", page,
+            "/docs/img/logo.png", file,
+            "/l_main.html.liquid", layout)));
+        assertThat(index.getObject("/docs/intro.html"), is(sameInstance(page)));
+        assertThat(index.getObject("/docs/missing.html"), is(nullValue()));
+        assertThat(index.getPathKey(file), is(Optional.of("/docs/img/logo.png")));
+
+        // And an equal object that wasn't indexed should have no path key
+        assertThat(index.getPathKey(file(30L, "/docs/img/logo.png")), is(Optional.empty()));
+    }
+
+    @Test
+    void build_DuplicatePathKey() {
+        // Given 2 pages whose path keys are the same
+        List<CmsObject> objects = List.of(page(20L, "/about"), page(21L, "/about.html"));
+
+        // When they are indexed, then it should fail
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> CmsPathIndex.build(objects, pathKeyGenerator));
+        assertThat(e.getMessage(), containsString("/about.html"));
+    }
+
+    @Test
+    void of_IsUnaffectedByLaterChangesToMap() {
+        // Given objects keyed by path
+        Map<String, CmsObject> objectsByPathKey = new HashMap<>();
+        objectsByPathKey.put("/index.html", page(20L, "/"));
+
+        // When they are indexed, and the map is then changed
+        CmsPathIndex index = CmsPathIndex.of(objectsByPathKey);
+        objectsByPathKey.put("/other.html", page(21L, "/other"));
+
+        // Then the index should have only what was in the map, and not be
+        // changeable through its own map
+        assertThat(index.getObjectsByPathKey().keySet(), is(Set.of("/index.html")));
+        assertThrows(UnsupportedOperationException.class,
+            () -> index.getObjectsByPathKey().remove("/index.html"));
+    }
+
+    @Test
+    void getNode_LinksEachDirectory() {
+        // Given a file in a directory with no section, in a section
+        CmsSection section = section(10L, "/docs/");
+        CmsFile file = file(30L, "/docs/img/logo.png");
+        CmsPathIndex index = CmsPathIndex.build(List.of(file, section), pathKeyGenerator);
+
+        // When the file's node is walked up to the top
+        CmsPathIndex.Node fileNode = index.getNode("/docs/img/logo.png").orElseThrow();
+        CmsPathIndex.Node imgNode = fileNode.getParent();
+        CmsPathIndex.Node docsNode = imgNode.getParent();
+        CmsPathIndex.Node rootNode = docsNode.getParent();
+        CmsPathIndex.Node topNode = rootNode.getParent();
+
+        // Then each should have its object, whichever was indexed first
+        assertThat(fileNode.getPathKey(), is("/docs/img/logo.png"));
+        assertThat(fileNode.isDirectory(), is(false));
+        assertThat(fileNode.getObject(), is(sameInstance(file)));
+        assertThat(fileNode.getType(), is(ThreescaleObjectType.FILE));
+        assertThat(fileNode.getId(), is(30L));
+
+        assertThat(imgNode.getPathKey(), is("/docs/img/"));
+        assertThat(imgNode.isDirectory(), is(true));
+        assertThat(imgNode.getObject(), is(nullValue()));
+        assertThat(imgNode.getType(), is(nullValue()));
+        assertThat(imgNode.getId(), is(nullValue()));
+
+        assertThat(docsNode.getPathKey(), is("/docs/"));
+        assertThat(docsNode.getObject(), is(sameInstance(section)));
+        assertThat(docsNode.getType(), is(ThreescaleObjectType.SECTION));
+
+        assertThat(rootNode.getPathKey(), is("/"));
+        assertThat(topNode.getPathKey(), is(""));
+        assertThat(topNode.getParent(), is(nullValue()));
+
+        // And directories should be found by their path keys
+        assertThat(index.getNode("/docs/img/"), is(Optional.of(imgNode)));
+        assertThat(index.getNode("/docs/img"), is(Optional.empty()));
+        assertThat(docsNode.getChildren(), contains(imgNode));
+        assertThrows(UnsupportedOperationException.class, () -> docsNode.getChildren().clear());
+    }
+
+    @Test
+    void getImplicitSectionPaths_DirectoriesWithoutSections() {
+        // Given objects in directories with and without sections
+        CmsPathIndex index = CmsPathIndex.build(List.of(
+                section(10L, "/docs/"),
+                file(30L, "/docs/img/logo.png"),
+                page(20L, "/blog/2023/post"),
+                page(21L, "/index")),
+            pathKeyGenerator);
+
+        // When the implicit sections are requested, then they should be the
+        // directories without sections, but never the root
+        assertThat(index.getImplicitSectionPaths(), is(Set.of("/docs/img/", "/blog/", "/blog/2023/")));
+    }
+
+    @Test
+    void forEachObjectUnder_VisitsOnlyThatSubtree() {
+        // Given objects in and around a directory, including one whose path
+        // key only shares a prefix with it
+        CmsPathIndex index = CmsPathIndex.build(List.of(
+                section(10L, "/docs/"),
+                section(11L, "/docs/api/"),
+                file(30L, "/docs/api/spec.yaml"),
+                file(31L, "/docs/img/logo.png"),
+                file(32L, "/docs-old/readme.txt"),
+                page(20L, "/docs")),
+            pathKeyGenerator);
+
+        // When the objects under it are visited
+        Set<String> visited = new HashSet<>();
+        index.forEachObjectUnder("/docs/", node -> visited.add(node.getPathKey()));
+
+        // Then only it and what's under it should have been visited
+        assertThat(visited, is(Set.of("/docs/", "/docs/api/", "/docs/api/spec.yaml", "/docs/img/logo.png")));
+
+        // And directories without sections can be started from
+        visited.clear();
+        index.forEachObjectUnder("/docs/img/", node -> visited.add(node.getPathKey()));
+        assertThat(visited, is(Set.of("/docs/img/logo.png")));
+
+        // And a file is visited alone, and an unknown path visits nothing
+        visited.clear();
+        index.forEachObjectUnder("/docs.html", node -> visited.add(node.getPathKey()));
+        index.forEachObjectUnder("/missing/", node -> visited.add(node.getPathKey()));
+        assertThat(visited, is(Set.of("/docs.html")));
+    }
+
+    @Nonnull
+    private static CmsSection section(long id, @Nonnull String path) {
+        CmsSection section = new CmsSection();
+        section.setId(id);
+        section.setPath(path);
+        return section;
+    }
+
+    @Nonnull
+    private static CmsPage page(long id, @Nonnull String path) {
+        CmsPage page = new CmsPage();
+        page.setId(id);
+        page.setPath(path);
+        page.setContentType("text/html");
+        return page;
+    }
+
+    @Nonnull
+    private static CmsFile file(long id, @Nonnull String path) {
+        CmsFile file = new CmsFile();
+        file.setId(id);
+        file.setPath(path);
+        return file;
+    }
+
+    @Nonnull
+    private static CmsLayout layout(long id, @Nonnull String systemName) {
+        CmsLayout layout = new CmsLayout();
+        layout.setId(id);
+        layout.setSystemName(systemName);
+        return layout;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DependencyGraphExecutorUnitTest {
+
+    DependencyGraphExecutor dependencyGraphExecutor = new DependencyGraphExecutor();
+
+    @Test
+    void execute_RunsDependenciesFirst() throws Exception {
+        // Given a tree of nodes, each depending on its parent
+        Map<String, List<String>> dependencies = Map.of(
+            "/", List.of(),
+            "/a", List.of("/"),
+            "/a/b", List.of("/a"),
+            "/a/c", List.of("/a"),
+            "/d", List.of("/"),
+            "/d/e", List.of("/d"));
+        List<String> completed = new CopyOnWriteArrayList<>();
+
+        // When a task is run for every node
+        dependencyGraphExecutor.execute(dependencies.keySet(), dependencies::get, 4,
+            completed::add);
+
+        // Then every node should have been run once, after its dependencies
+        assertThat(completed, containsInAnyOrder(dependencies.keySet().toArray()));
+        dependencies.forEach((node, nodeDependencies) -> nodeDependencies
+            .forEach(dependency -> assertThat(node + " after " + dependency,
+                completed.indexOf(node), is(greaterThan(completed.indexOf(dependency))))));
+    }
+
+    @Test
+    void execute_RunsIndependentNodesConcurrently() throws Exception {
+        // Given 3 independent nodes, which each wait for all of them to start
+        List<String> nodes = List.of("a", "b", "c");
+        CountDownLatch allStarted = new CountDownLatch(nodes.size());
+        AtomicInteger timedOut = new AtomicInteger();
+
+        // When a task is run for every node, 3 at a time
+        dependencyGraphExecutor.execute(nodes, node -> List.of(), 3, node -> {
+            allStarted.countDown();
+            try {
+                if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                    timedOut.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Then they should all have been running at the same time
+        assertThat(timedOut.get(), is(0));
+    }
+
+    @Test
+    void execute_IgnoresDependenciesOutsideNodes() throws Exception {
+        // Given a node depending on one not being run
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+
+        // When a task is run for the node
+        dependencyGraphExecutor.execute(List.of("/a/b"), node -> List.of("/a"), 2,
+            completed::add);
+
+        // Then it should still be run
+        assertThat(completed, contains("/a/b"));
+    }
+
+    @Test
+    void execute_SkipsDependentsOfFailedNode() {
+        // Given a node whose task fails, with a chain of dependents
+        Map<String, List<String>> dependencies = Map.of(
+            "/", List.of(),
+            "/a", List.of("/"),
+            "/a/b", List.of("/a"),
+            "/a/b/c", List.of("/a/b"));
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+        IllegalStateException failure = new IllegalStateException("Failed to save /a");
+
+        // When a task is run for every node, then the failure should be
+        // thrown as it was
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> dependencyGraphExecutor.execute(dependencies.keySet(), dependencies::get, 2, node -> {
+                if ("/a".equals(node)) {
+                    throw failure;
+                }
+                completed.add(node);
+            }));
+        assertThat(exception, is(sameInstance(failure)));
+
+        // And none of the failed node's dependents should have been run
+        assertThat(completed, contains("/"));
+    }
+
+    @Test
+    void execute_StopsStartingTasksAfterFailure() {
+        // Given independent nodes run one at a time, the first of which to be
+        // run fails
+        List<Integer> nodes = List.of(1, 2, 3, 4, 5);
+        AtomicBoolean failed = new AtomicBoolean();
+        Set<Integer> completed = ConcurrentHashMap.newKeySet();
+
+        // When a task is run for every node, then the failure should be thrown
+        assertThrows(IllegalStateException.class,
+            () -> dependencyGraphExecutor.execute(nodes,
+                node -> List.<Integer>of(),
+                1,
+                node -> {
+                    if (failed.compareAndSet(false, true)) {
+                        throw new IllegalStateException("Failed");
+                    }
+                    completed.add(node);
+                }));
+
+        // And no further tasks should have been run
+        assertThat(completed, is(empty()));
+    }
+
+    @Test
+    void execute_RejectsCycles() {
+        // Given nodes that depend on each other
+        Map<String, Collection<String>> dependencies = Map.of(
+            "a", List.of("b"),
+            "b", List.of("c"),
+            "c", List.of("a"));
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+
+        // When a task is run for every node, then the cycle should be reported
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> dependencyGraphExecutor.execute(dependencies.keySet(), dependencies::get, 2,
+                completed::add));
+        assertThat(exception.getMessage(), startsWith("Dependency cycle involving "));
+
+        // And nothing should have been run
+        assertThat(completed, is(empty()));
+    }
+
+}
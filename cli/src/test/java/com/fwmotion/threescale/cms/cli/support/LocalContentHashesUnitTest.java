@@ -0,0 +1,216 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class LocalContentHashesUnitTest {
+
+    // Well outside the window in which modifications are too recent to trust
+    private static final Instant AN_HOUR_AGO = Instant.now().minus(Duration.ofHours(1)).truncatedTo(ChronoUnit.SECONDS);
+
+    @TempDir
+    Path tempDir;
+
+    LocalContentHashes localContentHashes = new LocalContentHashes();
+
+    @Test
+    void hash_MemoizesBySizeAndLastModified() throws Exception {
+        // Given a file last modified an hour ago, that has been hashed
+        File file = writeFile("index.html", "<p>Old</p>", AN_HOUR_AGO);
+        String oldHash = localContentHashes.hash(file);
+        assertThat(oldHash, is(hashOf("<p>Old</p>")));
+
+        // When its content is replaced without changing its size or
+        // last-modified time
+        writeFile("index.html", "<p>New</p>", AN_HOUR_AGO);
+
+        // Then the memoized hash should be given, without reading it again
+        assertThat(localContentHashes.hash(file), is(oldHash));
+    }
+
+    @Test
+    void hash_RereadsWhenLastModifiedChanges() throws Exception {
+        // Given a file that has been hashed
+        File file = writeFile("index.html", "<p>Old</p>", AN_HOUR_AGO);
+        localContentHashes.hash(file);
+
+        // When it's rewritten with the same size, but a new last-modified
+        // time
+        writeFile("index.html", "<p>New</p>", AN_HOUR_AGO.plusSeconds(1));
+
+        // Then it should be read again
+        assertThat(localContentHashes.hash(file), is(hashOf("<p>New</p>")));
+    }
+
+    @Test
+    void hash_RereadsWhenSizeChanges() throws Exception {
+        // Given a file that has been hashed
+        File file = writeFile("index.html", "<p>Old</p>", AN_HOUR_AGO);
+        localContentHashes.hash(file);
+
+        // When it's rewritten with the same last-modified time, but a new
+        // size
+        writeFile("index.html", "<p>Newer</p>", AN_HOUR_AGO);
+
+        // Then it should be read again
+        assertThat(localContentHashes.hash(file), is(hashOf("<p>Newer</p>")));
+    }
+
+    @Test
+    void hash_KeysByNormalizedPath() throws Exception {
+        // Given a file that has been hashed
+        File file = writeFile("index.html", "<p>Old</p>", AN_HOUR_AGO);
+        localContentHashes.hash(file);
+        writeFile("index.html", "<p>New</p>", AN_HOUR_AGO);
+
+        // When it's hashed by another path to the same file, then the
+        // memoized hash should be given
+        File otherPath = tempDir.resolve("subdirectory/../index.html").toFile();
+        Files.createDirectories(tempDir.resolve("subdirectory"));
+        assertThat(localContentHashes.hash(otherPath), is(hashOf("<p>Old</p>")));
+
+        // And when another file is hashed, then it should be read
+        File otherFile = writeFile("other.html", "<p>Old</p>", AN_HOUR_AGO);
+        writeFile("other.html", "<p>New</p>", AN_HOUR_AGO);
+        assertThat(localContentHashes.hash(otherFile), is(hashOf("<p>New</p>")));
+    }
+
+    @Test
+    void hash_DoesNotMemoizeRecentlyModifiedFile() throws Exception {
+        // Given a file that has just been modified and hashed
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        File file = writeFile("index.html", "<p>Old</p>", now);
+        assertThat(localContentHashes.hash(file), is(hashOf("<p>Old</p>")));
+
+        // When it's modified again within the same timestamp, keeping its
+        // size
+        writeFile("index.html", "<p>New</p>", now);
+
+        // Then it should be read again, as the modifications can't be told
+        // apart by their timestamps
+        assertThat(localContentHashes.hash(file), is(hashOf("<p>New</p>")));
+
+        // And nothing should have been memoized to save
+        File cacheFile = tempDir.resolve("cache/content-hashes.json").toFile();
+        localContentHashes.save(cacheFile);
+        assertThat(cacheFile.exists(), is(false));
+    }
+
+    @Test
+    void hash_ForgetsFileModifiedRecently() throws Exception {
+        // Given a file that has been hashed and memoized
+        File file = writeFile("index.html", "<p>Old</p>", AN_HOUR_AGO);
+        localContentHashes.hash(file);
+
+        // When it's modified just now, and hashed
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        writeFile("index.html", "<p>New</p>", now);
+        assertThat(localContentHashes.hash(file), is(hashOf("<p>New</p>")));
+
+        // And it's modified again within the same timestamp
+        writeFile("index.html", "<p>Two</p>", now);
+
+        // Then it should be read again
+        assertThat(localContentHashes.hash(file), is(hashOf("<p>Two</p>")));
+
+        // And its old hash should no longer be memoized
+        File cacheFile = tempDir.resolve("content-hashes.json").toFile();
+        localContentHashes.save(cacheFile);
+        assertThat(Files.readString(cacheFile.toPath()), not(containsString("index.html")));
+    }
+
+    @Test
+    void save_RoundTripsMemoizedHashes() throws Exception {
+        // Given a file that has been hashed, and the hashes saved
+        File file = writeFile("index.html", "<p>Old</p>", AN_HOUR_AGO);
+        localContentHashes.hash(file);
+        File cacheFile = tempDir.resolve("cache/content-hashes.json").toFile();
+        localContentHashes.save(cacheFile);
+
+        // When the file's content is replaced without changing its size or
+        // last-modified time, and the hashes are loaded by another run
+        writeFile("index.html", "<p>New</p>", AN_HOUR_AGO);
+        LocalContentHashes loaded = LocalContentHashes.load(cacheFile);
+
+        // Then the memoized hash should be given
+        assertThat(loaded.hash(file), is(hashOf("<p>Old</p>")));
+
+        // And no temporary file should have been left behind
+        assertThat(cacheFile.getParentFile().list(), arrayContaining("content-hashes.json"));
+    }
+
+    @Test
+    void save_DropsDeletedFiles() throws Exception {
+        // Given 2 files that have been hashed, one of which is then deleted
+        File kept = writeFile("kept.html", "<p>Kept</p>", AN_HOUR_AGO);
+        File deleted = writeFile("deleted.html", "<p>Deleted</p>", AN_HOUR_AGO);
+        localContentHashes.hashAll(List.of(kept, deleted));
+        Files.delete(deleted.toPath());
+
+        // When the hashes are saved
+        File cacheFile = tempDir.resolve("content-hashes.json").toFile();
+        localContentHashes.save(cacheFile);
+
+        // Then only the remaining file should have been saved
+        String saved = Files.readString(cacheFile.toPath());
+        assertThat(saved, containsString(kept.toPath().toAbsolutePath().normalize().toString()));
+        assertThat(saved, not(containsString("deleted.html")));
+    }
+
+    @Test
+    void load_MissingOrUnreadableCache() throws Exception {
+        // Given no cache file, then loading should give no memoized hashes
+        File cacheFile = tempDir.resolve("content-hashes.json").toFile();
+        File file = writeFile("index.html", "<p>Old</p>", AN_HOUR_AGO);
+        assertThat(LocalContentHashes.load(cacheFile).hash(file), is(hashOf("<p>Old</p>")));
+        assertThat(LocalContentHashes.load(null).hash(file), is(hashOf("<p>Old</p>")));
+
+        // And given a cache file that isn't JSON, then loading should give
+        // no memoized hashes
+        Files.writeString(cacheFile.toPath(), "not json {");
+        assertThat(LocalContentHashes.load(cacheFile).hash(file), is(hashOf("<p>Old</p>")));
+    }
+
+    @Test
+    void hashAll_HashesEachFile() throws Exception {
+        // Given several files
+        File first = writeFile("first.html", "<p>First</p>", AN_HOUR_AGO);
+        File second = writeFile("second.html", "<p>Second</p>", AN_HOUR_AGO);
+
+        // When they are hashed together, with one given twice
+        Map<File, String> hashes = localContentHashes.hashAll(List.of(first, second, first));
+
+        // Then each should have its own hash
+        assertThat(hashes, is(Map.of(
+            first, hashOf("<p>First</p>"),
+            second, hashOf("<p>Second</p>"))));
+    }
+
+    @Nonnull
+    private File writeFile(@Nonnull String name, @Nonnull String content, @Nonnull Instant lastModified) throws Exception {
+        Path path = Files.writeString(tempDir.resolve(name), content, StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(path, FileTime.from(lastModified));
+        return path.toFile();
+    }
+
+    @Nonnull
+    private static String hashOf(@Nonnull String content) {
+        return SyncManifest.hashContent(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,502 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class LocalFileCmsObjectGeneratorUnitTest {
+
+    private static final String[] LINE_TERMINATORS = {"\n", "\r", "\r\n", "\u0085", "\u2028", "\u2029"};
+
+    private static final String[] DIRECTORY_SEGMENTS = {
+        "a", "docs", "layouts", "l_", "_", "l_x", "_x", "index", "x.html", "l_l_", "__", "_l_", " ", "a\nb"
+    };
+
+    private static final String[] NAMES = {
+        "", "a", "index", "l_", "_", "l_x", "_x", "l_l_x", "__x", "_l_x", "l__x", "l_.", "_.", "x.y", ".", "..",
+        "main layout", "x_y_z", "\uff4c_x", "\n", "x\n", "\nx", "l_\n", "_\nx"
+    };
+
+    private static final String[] FILE_EXTS = {
+        "", ".css", ".gif", ".htm", ".html", ".ico", ".jpg", ".jpeg", ".js", ".png", ".txt", ".pdf", ".HTML", ".html.html"
+    };
+
+    private static final String[] HANDLERS = {"", ".markdown", ".textile", ".md"};
+
+    private static final String[] LIQUID_SUFFIXES = {"", ".liquid", ".LIQUID", ".liquid.liquid"};
+
+    private static final Map<Class<?>, PropertyDescriptor[]> PROPERTIES_BY_CLASS = new HashMap<>();
+
+    @TempDir
+    Path tempDir;
+
+    LocalFileCmsObjectGenerator generator = new LocalFileCmsObjectGenerator();
+
+    RegexLocalFileCmsObjectGenerator regexGenerator = new RegexLocalFileCmsObjectGenerator();
+
+    // Doesn't exist, so has no last-modified time and isn't a directory
+    File missingFile = new File("missing-file");
+
+    @Test
+    void generateObjectFromFile_MatchesRegexClassifier() throws Exception {
+        // Given paths made of every combination of name and suffixes, with
+        // and without layout directories and line terminators
+        List<String> paths = new ArrayList<>();
+        for (String name : NAMES) {
+            for (String fileExt : FILE_EXTS) {
+                for (String handler : HANDLERS) {
+                    for (String liquid : LIQUID_SUFFIXES) {
+                        String filename = name + fileExt + handler + liquid;
+                        paths.add("/" + filename);
+                        paths.add("/layouts/" + filename);
+                        paths.add("/docs/l_" + filename);
+                        paths.add("/docs/_" + filename);
+                    }
+                }
+            }
+        }
+
+        for (String terminator : LINE_TERMINATORS) {
+            paths.add("/index.html" + terminator);
+            paths.add("/l_main" + terminator + ".html");
+            paths.add("/_menu.html.liquid" + terminator);
+            paths.add("/docs" + terminator + "/index.html");
+            paths.add("/layouts/main" + terminator);
+            paths.add(terminator);
+        }
+
+        // When each is classified by both, then every field of the objects
+        // should be the same
+        for (String path : paths) {
+            assertSameAsRegexGenerator(path);
+        }
+    }
+
+    @Test
+    void generateObjectFromFile_MatchesRegexClassifierOnRandomPaths() throws Exception {
+        // Given random paths of random directories and names
+        Random random = new Random(20231102L);
+        String[] leadingSlashes = {"/", "/", "/", "//", ""};
+
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder path = new StringBuilder(pick(random, leadingSlashes));
+
+            for (int depth = random.nextInt(3); depth > 0; depth--) {
+                path.append(pick(random, DIRECTORY_SEGMENTS)).append('/');
+            }
+
+            path.append(pick(random, NAMES))
+                .append(pick(random, FILE_EXTS))
+                .append(pick(random, HANDLERS))
+                .append(pick(random, LIQUID_SUFFIXES));
+
+            if (random.nextInt(10) == 0) {
+                path.insert(random.nextInt(path.length() + 1), pick(random, LINE_TERMINATORS));
+            }
+
+            // When it is classified by both, then every field of the objects
+            // should be the same
+            assertSameAsRegexGenerator(path.toString());
+        }
+    }
+
+    @Test
+    void generateObjectFromFile_SectionsMatchRegexClassifier() throws Exception {
+        // Given a directory
+        File dir = Files.createDirectory(tempDir.resolve("docs")).toFile();
+
+        // When it is classified by both with various path keys, then every
+        // field of the sections should be the same
+        for (String path : List.of("/", "/docs/", "/docs//", "/docs", "/a/docs/", "/docs\n/", "//")) {
+            assertThat(describe(path), propertiesOf(generator.generateObjectFromFile(path, dir)),
+                is(propertiesOf(regexGenerator.generateObjectFromFile(path, dir))));
+        }
+    }
+
+    @Test
+    void generateObjectFromFile_HtmAndHtmlPages() {
+        // Given pages with either HTML extension, then the extension should
+        // be dropped from the path, and an index page be its directory's
+        CmsPage htm = (CmsPage) generator.generateObjectFromFile("/docs/intro.htm", missingFile);
+        assertThat(htm.getPath(), is("/docs/intro"));
+        assertThat(htm.getContentType(), is("text/html"));
+
+        CmsPage html = (CmsPage) generator.generateObjectFromFile("/docs/index.html.liquid", missingFile);
+        assertThat(html.getPath(), is("/docs/"));
+        assertThat(html.getTitle(), is("docs"));
+        assertThat(html.getLiquidEnabled(), is(true));
+
+        CmsPage home = (CmsPage) generator.generateObjectFromFile("/index.html", missingFile);
+        assertThat(home.getPath(), is("/"));
+        assertThat(home.getTitle(), is("Home"));
+
+        // And other template extensions should be kept
+        CmsPage css = (CmsPage) generator.generateObjectFromFile("/css/site.css", missingFile);
+        assertThat(css.getPath(), is("/css/site.css"));
+        assertThat(css.getContentType(), is("text/css"));
+    }
+
+    @Test
+    void generateObjectFromFile_BarePrefixes() {
+        // Given names that are only a layout or partial prefix, then they
+        // should be neither layouts nor partials
+        assertThat(generator.generateObjectFromFile("/l_", missingFile), is(instanceOf(CmsFile.class)));
+        assertThat(generator.generateObjectFromFile("/docs/_", missingFile), is(instanceOf(CmsFile.class)));
+
+        // But given a prefix followed only by a suffix, then the name is
+        // left empty
+        CmsPartial emptyName = (CmsPartial) generator.generateObjectFromFile("/docs/_.html", missingFile);
+        assertThat(emptyName.getSystemName(), is("docs/"));
+
+        // And given a prefix followed by anything, then they should be
+        CmsLayout layout = (CmsLayout) generator.generateObjectFromFile("/l_main_site.html", missingFile);
+        assertThat(layout.getSystemName(), is("main_site"));
+        assertThat(layout.getTitle(), is("main site layout"));
+
+        CmsPartial partial = (CmsPartial) generator.generateObjectFromFile("/docs/_menu.html.liquid", missingFile);
+        assertThat(partial.getSystemName(), is("docs/menu"));
+        assertThat(partial.getLiquidEnabled(), is(true));
+    }
+
+    @Test
+    void generateObjectFromFile_LayoutsDirectory() {
+        // Given files in /layouts/, with and without prefixes, then they
+        // should all be layouts, named with their directory
+        CmsLayout unprefixed = (CmsLayout) generator.generateObjectFromFile("/layouts/main.html", missingFile);
+        assertThat(unprefixed.getSystemName(), is("layouts/main"));
+
+        CmsLayout prefixed = (CmsLayout) generator.generateObjectFromFile("/layouts/l_main.html", missingFile);
+        assertThat(prefixed.getSystemName(), is("layouts/main"));
+
+        CmsLayout partialPrefixed = (CmsLayout) generator.generateObjectFromFile("/layouts/_x.html", missingFile);
+        assertThat(partialPrefixed.getSystemName(), is("layouts/_x"));
+        assertThat(partialPrefixed.getTitle(), is("layouts/ x layout"));
+    }
+
+    @Test
+    void generateObjectFromFile_LineTerminators() {
+        // Given a path with a line terminator at its end, then its suffixes
+        // should not be recognized
+        CmsFile file = (CmsFile) generator.generateObjectFromFile("/index.html\n", missingFile);
+        assertThat(file.getPath(), is("/index.html\n"));
+
+        // And given a layout with a line terminator in its name, then it
+        // should still be a layout, but without suffix information
+        CmsLayout layout = (CmsLayout) generator.generateObjectFromFile("/l_main\n.html", missingFile);
+        assertThat(layout.getSystemName(), is("main\n.html"));
+        assertThat(layout.getContentType(), is(nullValue()));
+    }
+
+    private void assertSameAsRegexGenerator(@Nonnull String path) throws IntrospectionException {
+        CmsObject expected;
+        try {
+            expected = regexGenerator.generateObjectFromFile(path, missingFile);
+        } catch (RuntimeException e) {
+            // Then both should fail the same way
+            Class<? extends RuntimeException> expectedType = e.getClass();
+            RuntimeException actual = null;
+            try {
+                generator.generateObjectFromFile(path, missingFile);
+            } catch (RuntimeException thrown) {
+                actual = thrown;
+            }
+            assertThat(describe(path), actual, is(instanceOf(expectedType)));
+            return;
+        }
+
+        Map<String, Object> expectedProperties = propertiesOf(expected);
+        Map<String, Object> actualProperties = propertiesOf(generator.generateObjectFromFile(path, missingFile));
+        if (!actualProperties.equals(expectedProperties)) {
+            assertThat(describe(path), actualProperties, is(expectedProperties));
+        }
+    }
+
+    /**
+     * @return the values of all of an object's bean properties (its class
+     * included), by name
+     */
+    @Nonnull
+    private static Map<String, Object> propertiesOf(@Nonnull CmsObject object) throws IntrospectionException {
+        PropertyDescriptor[] descriptors = PROPERTIES_BY_CLASS.get(object.getClass());
+        if (descriptors == null) {
+            descriptors = Introspector.getBeanInfo(object.getClass()).getPropertyDescriptors();
+            PROPERTIES_BY_CLASS.put(object.getClass(), descriptors);
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        for (PropertyDescriptor descriptor : descriptors) {
+            if (descriptor.getReadMethod() == null) {
+                continue;
+            }
+
+            try {
+                properties.put(descriptor.getName(), descriptor.getReadMethod().invoke(object));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to read " + descriptor.getName(), e);
+            }
+        }
+
+        return properties;
+    }
+
+    @Nonnull
+    private static String pick(@Nonnull Random random, @Nonnull String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    @Nonnull
+    private static String describe(@Nonnull String path) {
+        StringBuilder description = new StringBuilder("\"");
+        path.chars().forEach(c -> {
+            if (c < 0x20 || c > 0x7e) {
+                description.append(String.format("\\u%04x", c));
+            } else {
+                description.append((char) c);
+            }
+        });
+        return description.append('"').toString();
+    }
+
+    /**
+     * The classifier as it was, with regular expressions, to compare against
+     */
+    private static final class RegexLocalFileCmsObjectGenerator {
+
+        private static final Map<String, String> FILE_EXT_TO_CONTENT_TYPE =
+            Map.of(
+                ".css", "text/css",
+                ".gif", "image/gif",
+                ".htm", "text/html",
+                ".html", "text/html",
+                ".ico", "image/x-icon",
+                ".jpg", "image/jpeg",
+                ".jpeg", "image/jpeg",
+                ".js", "text/javascript",
+                ".png", "image/png",
+                ".txt", "text/plain"
+            );
+
+        private static final Set<String> TEMPLATE_CONTENT_TYPES = Set.of(
+            "text/css",
+            "text/html",
+            "text/javascript",
+            "text/plain"
+        );
+
+        private static final Set<String> REMOVE_FILEEXT_CONTENT_TYPES = Collections.singleton(
+            "text/html"
+        );
+
+        private static final Pattern LAYOUT_PREFIX_PATTERN = Pattern.compile("(?<path>.*/)" + CmsObjectPathKeyGenerator.LAYOUT_FILENAME_PREFIX + "(?<layoutname>[^/]+)");
+        private static final Predicate<String> LAYOUT_PREFIX_PREDICATE = LAYOUT_PREFIX_PATTERN.asMatchPredicate();
+
+        private static final Pattern PARTIAL_PREFIX_PATTERN = Pattern.compile("(?<path>.*/)" + CmsObjectPathKeyGenerator.PARTIAL_FILENAME_PREFIX + "(?<partialname>[^/]+)");
+        private static final Predicate<String> PARTIAL_PREFIX_PREDICATE = PARTIAL_PREFIX_PATTERN.asMatchPredicate();
+
+        private static final Pattern FILE_SUFFIX_PATTERN = Pattern.compile(
+            "(?<filename>.*?)" +
+                "(?<fileext>" +
+                FILE_EXT_TO_CONTENT_TYPE.keySet().stream().map(ext -> "\\" + ext).collect(Collectors.joining("|"))
+                + ")?" +
+                "(?:\\.(?<handler>markdown|textile))?" +
+                "(?<liquid>\\.liquid)?");
+
+        private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+        @Nonnull
+        private static OffsetDateTime calculateUpdatedAt(@Nonnull File file) {
+            return Instant.ofEpochMilli(file.lastModified()).atOffset(ZoneOffset.UTC);
+        }
+
+        @Nonnull
+        CmsObject generateObjectFromFile(@Nonnull String relativePath,
+                                         @Nonnull File file) {
+            if (file.isDirectory()) {
+                return generateSectionFromFile(relativePath, file);
+            }
+
+            if (LAYOUT_PREFIX_PREDICATE.test(relativePath)
+                || StringUtils.startsWith(relativePath, "/layouts/")) {
+                return generateLayoutFromFile(relativePath, file);
+            }
+
+            if (PARTIAL_PREFIX_PREDICATE.test(relativePath)) {
+                return generatePartialFromFile(relativePath, file);
+            }
+
+            Matcher matcher = FILE_SUFFIX_PATTERN.matcher(relativePath);
+            if (matcher.matches()) {
+                String fileExt = StringUtils.trimToEmpty(matcher.group("fileext"));
+                String contentType = FILE_EXT_TO_CONTENT_TYPE.getOrDefault(fileExt, DEFAULT_CONTENT_TYPE);
+
+                if (TEMPLATE_CONTENT_TYPES.contains(contentType)) {
+                    return generatePageFromFile(relativePath, file);
+                }
+            }
+
+            return generateCmsFileFromFile(relativePath, file);
+        }
+
+        private void applyFileSuffixInfo(@Nonnull String path,
+                                         @Nonnull Consumer<String> setContentType,
+                                         @Nonnull Consumer<String> setHandler,
+                                         @Nonnull Consumer<Boolean> setLiquidEnabled,
+                                         @Nonnull Consumer<String> setPath) {
+            Matcher matcher = FILE_SUFFIX_PATTERN.matcher(path);
+            if (matcher.matches()) {
+                String fileExt = StringUtils.trimToEmpty(matcher.group("fileext"));
+                String contentType = FILE_EXT_TO_CONTENT_TYPE.getOrDefault(fileExt, DEFAULT_CONTENT_TYPE);
+                setContentType.accept(contentType);
+
+                String handler = StringUtils.trimToEmpty(matcher.group("handler"));
+                setHandler.accept(handler);
+
+                if (StringUtils.isNotBlank(matcher.group("liquid"))) {
+                    setLiquidEnabled.accept(true);
+                }
+
+                String filename = matcher.group("filename");
+                if (StringUtils.isNotBlank(fileExt)
+                    && !REMOVE_FILEEXT_CONTENT_TYPES.contains(contentType)) {
+                    filename += fileExt;
+                }
+
+                setPath.accept(filename);
+            } else {
+                setPath.accept(path);
+            }
+        }
+
+        @Nonnull
+        private CmsSection generateSectionFromFile(@Nonnull String relativePath,
+                                                   @Nonnull File file) {
+            CmsSection section = new CmsSection();
+
+            String basename = file.toPath().getFileName().toString();
+            if ("/".equals(relativePath)) {
+                basename = "root";
+            }
+
+            section.setSystemName(basename);
+            section.setTitle(basename);
+            section.setPath(relativePath.replaceAll("/+$", ""));
+            section.setPublic(true);
+            section.setUpdatedAt(calculateUpdatedAt(file));
+
+            return section;
+        }
+
+        @Nonnull
+        private CmsLayout generateLayoutFromFile(@Nonnull String relativePath,
+                                                 @Nonnull File file) {
+            CmsLayout layout = new CmsLayout();
+
+            String transformedPath;
+
+            Matcher matcher = LAYOUT_PREFIX_PATTERN.matcher(relativePath);
+            if (matcher.matches()) {
+                transformedPath = matcher.group("path") + matcher.group("layoutname");
+            } else {
+                transformedPath = relativePath;
+            }
+
+            applyFileSuffixInfo(transformedPath,
+                layout::setContentType,
+                layout::setHandler,
+                layout::setLiquidEnabled,
+                path -> layout.setSystemName(path.replaceFirst("^/+", "")
+                    .replaceFirst("^/layouts/", "/")));
+
+            layout.setUpdatedAt(calculateUpdatedAt(file));
+
+            String layoutTitle = layout.getSystemName().replaceAll("_", " ");
+            if (!StringUtils.endsWithIgnoreCase(layoutTitle, " layout")) {
+                layoutTitle += " layout";
+            }
+            layout.setTitle(layoutTitle);
+
+            return layout;
+        }
+
+        @Nonnull
+        private CmsPartial generatePartialFromFile(@Nonnull String relativePath,
+                                                   @Nonnull File file) {
+            CmsPartial partial = new CmsPartial();
+
+            String transformedPath;
+
+            Matcher matcher = PARTIAL_PREFIX_PATTERN.matcher(relativePath);
+            if (matcher.matches()) {
+                transformedPath = matcher.group("path") + matcher.group("partialname");
+            } else {
+                transformedPath = relativePath;
+            }
+
+            applyFileSuffixInfo(transformedPath,
+                partial::setContentType,
+                partial::setHandler,
+                partial::setLiquidEnabled,
+                path -> partial.setSystemName(path.replaceFirst("^/+", "")));
+
+            partial.setUpdatedAt(calculateUpdatedAt(file));
+
+            return partial;
+        }
+
+        @Nonnull
+        private CmsPage generatePageFromFile(@Nonnull String relativePath,
+                                             @Nonnull File file) {
+            CmsPage page = new CmsPage();
+
+            applyFileSuffixInfo(relativePath,
+                page::setContentType,
+                page::setHandler,
+                page::setLiquidEnabled,
+                path -> page.setPath(path.replaceFirst("/index$", "/")));
+
+            page.setUpdatedAt(calculateUpdatedAt(file));
+
+            if ("/".equals(page.getPath())) {
+                page.setTitle("Home");
+            } else {
+                page.setTitle(Path.of(page.getPath()).getFileName().toString());
+            }
+
+            return page;
+        }
+
+        @Nonnull
+        private CmsFile generateCmsFileFromFile(@Nonnull String relativePath,
+                                                @Nonnull File file) {
+            CmsFile cmsFile = new CmsFile();
+
+            cmsFile.setPath(relativePath);
+            cmsFile.setUpdatedAt(calculateUpdatedAt(file));
+
+            return cmsFile;
+        }
+
+    }
+
+}
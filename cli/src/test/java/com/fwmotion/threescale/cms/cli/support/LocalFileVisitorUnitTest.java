@@ -0,0 +1,89 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class LocalFileVisitorUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    Set<String> ignored = new HashSet<>();
+
+    Map<String, Path> registered = new HashMap<>();
+
+    @Test
+    void postVisitDirectory_DropsRulesThatIgnoreDirectoryItself() throws Exception {
+        // Given 2 directories, each with a .cmsignore whose rule matches the
+        // directory itself (but nothing within it)
+        writeFile("a/.cmsignore", "a\n");
+        writeFile("b/.cmsignore", "b\n");
+
+        // And, in each, a file the other directory's rule would match; as
+        // either directory may be walked first, one of these is walked after
+        // leaving the other directory
+        writeFile("a/b", "<p>B</p>");
+        writeFile("b/a", "<p>A</p>");
+
+        // When the directory is walked
+        walk();
+
+        // Then neither directory's rules should have applied outside it
+        assertThat(registered.keySet(), hasItems("/a/b", "/b/a", "/a/", "/b/"));
+        assertThat(ignored, not(hasItems("/a/b", "/b/a")));
+    }
+
+    @Test
+    void postVisitDirectory_KeepsParentRules() throws Exception {
+        // Given a .cmsignore at the root, and another in a subdirectory
+        writeFile(".cmsignore", "*.txt\n");
+        writeFile("a/.cmsignore", "*.css\n");
+        writeFile("a/site.css", "body {}");
+        writeFile("a/notes.txt", "Notes");
+
+        // And files walked after leaving the subdirectory
+        writeFile("b/site.css", "body {}");
+        writeFile("b/notes.txt", "Notes");
+
+        // When the directory is walked
+        walk();
+
+        // Then the root's rules should have applied throughout, and the
+        // subdirectory's only within it
+        assertThat(ignored, hasItems("/a/site.css", "/a/notes.txt", "/b/notes.txt"));
+        assertThat(registered.keySet(), hasItem("/b/site.css"));
+    }
+
+    private void walk() throws IOException {
+        Files.walkFileTree(
+            tempDir,
+            Set.of(FileVisitOption.FOLLOW_LINKS),
+            Integer.MAX_VALUE,
+            new LocalFileVisitor(new LocalFileCmsObjectGenerator(),
+                new CmsObjectPathKeyGenerator(),
+                tempDir,
+                Set.of(),
+                ignored::add,
+                (pathKey, entry) -> registered.put(pathKey, entry.getRight().toPath())));
+    }
+
+    private void writeFile(@Nonnull String name, @Nonnull String content) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.cli.support.LocalRemoteObjectTreeComparator.SyncedChange;
+import com.fwmotion.threescale.cms.model.CmsPage;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class LocalRemoteObjectTreeComparatorUnitTest {
+
+    private static final OffsetDateTime SYNCED_AT = OffsetDateTime.of(2023, 11, 2, 10, 15, 30, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime LATER = SYNCED_AT.plusMinutes(5);
+
+    LocalRemoteObjectTreeComparator comparator = new LocalRemoteObjectTreeComparator();
+
+    SyncManifest syncManifest = new SyncManifest();
+
+    @Test
+    void changeSinceSync_NeitherSideChanged() {
+        // Given a path synced with the remote page as it still is
+        syncManifest.recordSynced("/index.html", 16L, SYNCED_AT, "synced-hash");
+
+        // When the local file has the synced content, then nothing changed
+        assertThat(changeSinceSync(page(16L, SYNCED_AT), "synced-hash"), is(SyncedChange.NONE));
+    }
+
+    @Test
+    void changeSinceSync_SameInstantInOtherOffset() {
+        // Given a path synced with the remote page as it still is
+        syncManifest.recordSynced("/index.html", 16L, SYNCED_AT, "synced-hash");
+
+        // When the remote updatedAt is listed in another offset, then
+        // nothing changed
+        OffsetDateTime sameInstant = SYNCED_AT.withOffsetSameInstant(ZoneOffset.ofHours(-5));
+        assertThat(changeSinceSync(page(16L, sameInstant), "synced-hash"), is(SyncedChange.NONE));
+    }
+
+    @Test
+    void changeSinceSync_LocalChanged() {
+        // Given a path synced with the remote page as it still is
+        syncManifest.recordSynced("/index.html", 16L, SYNCED_AT, "synced-hash");
+
+        // When the local file's content differs, then the local side changed
+        assertThat(changeSinceSync(page(16L, SYNCED_AT), "edited-hash"), is(SyncedChange.LOCAL));
+    }
+
+    @Test
+    void changeSinceSync_RemoteChanged() {
+        // Given a path synced with the remote page
+        syncManifest.recordSynced("/index.html", 16L, SYNCED_AT, "synced-hash");
+
+        // When the remote page has been updated since, and the local file
+        // has the synced content, then the remote side changed
+        assertThat(changeSinceSync(page(16L, LATER), "synced-hash"), is(SyncedChange.REMOTE));
+    }
+
+    @Test
+    void changeSinceSync_BothChanged() {
+        // Given a path synced with the remote page
+        syncManifest.recordSynced("/index.html", 16L, SYNCED_AT, "synced-hash");
+
+        // When both sides have changed since, then which is newer is unknown
+        assertThat(changeSinceSync(page(16L, LATER), "edited-hash"), is(SyncedChange.UNKNOWN));
+    }
+
+    @Test
+    void changeSinceSync_RemoteReplaced() {
+        // Given a path synced with a remote page that has since been
+        // replaced by another
+        syncManifest.recordSynced("/index.html", 16L, SYNCED_AT, "synced-hash");
+
+        // When the path is compared, then which is newer is unknown
+        assertThat(changeSinceSync(page(17L, SYNCED_AT), "synced-hash"), is(SyncedChange.UNKNOWN));
+        assertThat(changeSinceSync(page(null, SYNCED_AT), "synced-hash"), is(SyncedChange.UNKNOWN));
+    }
+
+    @Test
+    void changeSinceSync_NotRecorded() {
+        // Given a manifest without the path, then which is newer is unknown
+        assertThat(changeSinceSync(page(16L, SYNCED_AT), "synced-hash"), is(SyncedChange.UNKNOWN));
+
+        // And given no manifest at all, then which is newer is unknown
+        assertThat(comparator.changeSinceSync(null, "/index.html", page(16L, SYNCED_AT), "synced-hash"),
+            is(SyncedChange.UNKNOWN));
+    }
+
+    @Test
+    void changeSinceSync_LocalFileNotHashed() {
+        // Given a path synced with the remote page as it still is
+        syncManifest.recordSynced("/index.html", 16L, SYNCED_AT, "synced-hash");
+
+        // When the local file has no hash (ie, it's a directory), then which
+        // is newer is unknown
+        assertThat(changeSinceSync(page(16L, SYNCED_AT), null), is(SyncedChange.UNKNOWN));
+    }
+
+    @Test
+    void changeSinceSync_UploadedSinceLastListing() {
+        // Given a path uploaded without a remote updatedAt
+        syncManifest.recordUpload("/index.html", 16L, "uploaded-hash");
+
+        // When the local file still has the uploaded content, then nothing
+        // changed
+        assertThat(changeSinceSync(page(16L, LATER), "uploaded-hash"), is(SyncedChange.NONE));
+
+        // And the listed updatedAt should have been recorded
+        assertThat(syncManifest.getEntry("/index.html").orElseThrow().getRemoteUpdatedAt().orElseThrow(),
+            is(LATER));
+
+        // And when the remote page is later updated again, then the remote
+        // side changed
+        assertThat(changeSinceSync(page(16L, LATER.plusMinutes(1)), "uploaded-hash"), is(SyncedChange.REMOTE));
+    }
+
+    @Test
+    void changeSinceSync_EditedSinceUpload() {
+        // Given a path uploaded without a remote updatedAt
+        syncManifest.recordUpload("/index.html", 16L, "uploaded-hash");
+
+        // When the local file has been edited since, then the local side
+        // changed
+        assertThat(changeSinceSync(page(16L, LATER), "edited-hash"), is(SyncedChange.LOCAL));
+    }
+
+    @Nonnull
+    private SyncedChange changeSinceSync(@Nonnull CmsPage remotePage, String localHash) {
+        return comparator.changeSinceSync(syncManifest, "/index.html", remotePage, localHash);
+    }
+
+    @Nonnull
+    private static CmsPage page(Long id, @Nonnull OffsetDateTime updatedAt) {
+        CmsPage page = new CmsPage();
+        page.setId(id);
+        page.setPath("/index.html");
+        page.setUpdatedAt(updatedAt);
+        return page;
+    }
+
+}
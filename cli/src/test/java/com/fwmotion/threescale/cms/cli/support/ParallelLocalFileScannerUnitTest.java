@@ -0,0 +1,178 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelLocalFileScannerUnitTest {
+
+    private static final int PARALLELISM = 4;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scan_MatchesSerialWalk() throws Exception {
+        // Given ignore rules at the root, some overridden by nested
+        // .cmsignore files, with ! re-including what an outer scope ignored
+        writeFile(".cmsignore", "*.txt\n/drafts/\n# comment\n");
+        writeFile("index.html", "<p>Home</p>");
+        writeFile("notes.txt", "Notes");
+        writeFile("drafts/wip.html", "<p>WIP</p>");
+        writeFile("docs/.cmsignore", "!keep.txt\n*.pdf\n");
+        writeFile("docs/keep.txt", "Kept");
+        writeFile("docs/other.txt", "Other");
+        writeFile("docs/guide.pdf", "PDF");
+        writeFile("docs/api/.cmsignore", "!*.pdf\n");
+        writeFile("docs/api/spec.pdf", "PDF");
+        writeFile("docs/api/deep/er/page.html", "<p>Deep</p>");
+        writeFile("blog/post.pdf", "PDF");
+
+        // And empty directories, and one with only ignored files
+        Files.createDirectories(tempDir.resolve("empty/nested"));
+        writeFile("only-ignored/readme.txt", "Ignored");
+
+        // And files that generate the same path key, in more than one
+        // directory
+        writeFile("about.htm", "<p>Old about</p>");
+        writeFile("about.html", "<p>About</p>");
+        writeFile("docs/api/intro.htm", "<p>Old intro</p>");
+        writeFile("docs/api/intro.html", "<p>Intro</p>");
+
+        // And a link to another directory, and a link to nothing
+        Files.createSymbolicLink(tempDir.resolve("linked"), tempDir.resolve("docs/api"));
+        Files.createSymbolicLink(tempDir.resolve("dangling.png"), tempDir.resolve("missing.png"));
+
+        // When the directory is scanned serially and in parallel
+        Scan serial = scanSerially();
+        Scan parallel = scanInParallel();
+
+        // Then the same objects should be registered, in the same order (so
+        // the same file wins each path key), and the same paths ignored
+        assertThat(parallel.registered, is(serial.registered));
+        assertThat(parallel.objectsByPathKey(), is(serial.objectsByPathKey()));
+        assertThat(parallel.ignored, is(serial.ignored));
+
+        // And the scan should have found what the rules say it should
+        assertThat(serial.objectsByPathKey().keySet(), hasItems(
+            "/index.html", "/docs/keep.txt", "/docs/api/spec.pdf", "/docs/api/deep/er/page.html",
+            "/blog/post.pdf", "/about.html", "/linked/spec.pdf", "/dangling.png",
+            "/docs/", "/docs/api/deep/er/", "/linked/"));
+        assertThat(serial.objectsByPathKey().keySet(), not(hasItems(
+            "/empty/", "/empty/nested/", "/only-ignored/", "/drafts/")));
+        assertThat(serial.ignored, hasItems(
+            "/notes.txt", "/drafts/", "/docs/other.txt", "/docs/guide.pdf", "/only-ignored/readme.txt"));
+    }
+
+    @Test
+    void scan_SiblingRulesDoNotLeak() throws Exception {
+        // Given sibling directories, one of which ignores what the other has
+        writeFile("a/.cmsignore", "*.css\n");
+        writeFile("a/site.css", "body {}");
+        writeFile("b/site.css", "body {}");
+
+        // When the directory is scanned serially and in parallel
+        Scan serial = scanSerially();
+        Scan parallel = scanInParallel();
+
+        // Then only the first directory's file should be ignored by either
+        assertThat(serial.ignored, is(Set.of("/a/site.css")));
+        assertThat(parallel.ignored, is(serial.ignored));
+        assertThat(parallel.registered, is(serial.registered));
+    }
+
+    @Test
+    void scan_FailsOnSymlinkLoop() throws Exception {
+        // Given a link from a subdirectory back to the root
+        writeFile("a/index.html", "<p>A</p>");
+        Files.createSymbolicLink(tempDir.resolve("a/loop"), tempDir);
+
+        // When the directory is scanned serially and in parallel, then both
+        // should fail as the loop is found
+        assertThrows(FileSystemLoopException.class, this::scanSerially);
+        assertThrows(FileSystemLoopException.class, this::scanInParallel);
+    }
+
+    @Test
+    void scan_FailsOnIgnoredSymlinkLoop() throws Exception {
+        // Given a link from a subdirectory back to the root, which is ignored
+        writeFile(".cmsignore", "loop\n");
+        writeFile("a/index.html", "<p>A</p>");
+        Files.createSymbolicLink(tempDir.resolve("a/loop"), tempDir);
+
+        // When the directory is scanned serially and in parallel, then both
+        // should still fail, as the serial walk finds the loop before the
+        // ignore rules are applied
+        assertThrows(FileSystemLoopException.class, this::scanSerially);
+        assertThrows(FileSystemLoopException.class, this::scanInParallel);
+    }
+
+    @Nonnull
+    private Scan scanSerially() throws IOException {
+        Scan scan = new Scan();
+
+        Files.walkFileTree(
+            tempDir,
+            Set.of(FileVisitOption.FOLLOW_LINKS),
+            Integer.MAX_VALUE,
+            new LocalFileVisitor(new LocalFileCmsObjectGenerator(),
+                new CmsObjectPathKeyGenerator(),
+                tempDir,
+                Set.of(),
+                scan.ignored::add,
+                (pathKey, entry) -> scan.registered.add(Map.entry(pathKey, entry.getRight().toPath()))));
+
+        return scan;
+    }
+
+    @Nonnull
+    private Scan scanInParallel() throws IOException {
+        Scan scan = new Scan();
+
+        new ParallelLocalFileScanner(new LocalFileCmsObjectGenerator(),
+            new CmsObjectPathKeyGenerator(),
+            tempDir,
+            Set.of())
+            .scan(PARALLELISM,
+                scan.ignored::add,
+                (pathKey, entry) -> scan.registered.add(Map.entry(pathKey, entry.getRight().toPath())));
+
+        return scan;
+    }
+
+    private void writeFile(@Nonnull String name, @Nonnull String content) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+    }
+
+    private static final class Scan {
+
+        private final List<Map.Entry<String, Path>> registered = new ArrayList<>();
+        private final Set<String> ignored = new HashSet<>();
+
+        /**
+         * @return the file registered last for each path key, as the
+         * comparator keeps it
+         */
+        @Nonnull
+        private Map<String, Path> objectsByPathKey() {
+            Map<String, Path> objectsByPathKey = new HashMap<>();
+            registered.forEach(entry -> objectsByPathKey.put(entry.getKey(), entry.getValue()));
+            return objectsByPathKey;
+        }
+
+    }
+
+}
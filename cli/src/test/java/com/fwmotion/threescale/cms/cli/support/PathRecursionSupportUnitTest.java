@@ -0,0 +1,232 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PathRecursionSupportUnitTest {
+
+    private static final long ROOT_SECTION_ID = 1L;
+
+    PathRecursionSupport pathRecursionSupport = new PathRecursionSupport();
+
+    CmsObjectPathKeyGenerator pathKeyGenerator = new CmsObjectPathKeyGenerator();
+
+    @Test
+    void calculateSpecifiedPaths_MatchesOriginalRecursion() {
+        // Given a tree of sections, with files and pages in them (some pages
+        // with paths outside their sections, and some files in sections that
+        // don't exist), and layouts and partials
+        CmsPathIndex pathIndex = CmsPathIndex.build(generateTree(new Random(20231102L)), pathKeyGenerator);
+        Map<String, CmsObject> objectsByPath = pathIndex.getObjectsByPathKey();
+        List<String> pathKeys = objectsByPath.keySet().stream().sorted().toList();
+
+        for (PathRecursionSupport.RecursionOption recurseBy : PathRecursionSupport.RecursionOption.values()) {
+            // When each path is specified on its own, then the same paths
+            // should be selected as the original recursion selected
+            for (String pathKey : pathKeys) {
+                assertThat(recurseBy + " from " + pathKey,
+                    pathRecursionSupport.calculateSpecifiedPaths(List.of(pathKey), recurseBy, pathIndex),
+                    is(OriginalPathRecursion.calculateSpecifiedPaths(List.of(pathKey), recurseBy, objectsByPath)));
+            }
+
+            // And when several paths are specified together, some within
+            // others, then the same paths should be selected
+            Random random = new Random(recurseBy.ordinal());
+            for (int i = 0; i < 50; i++) {
+                List<String> specifiedPaths = random.ints(1 + random.nextInt(5), 0, pathKeys.size())
+                    .mapToObj(pathKeys::get)
+                    .toList();
+
+                assertThat(recurseBy + " from " + specifiedPaths,
+                    pathRecursionSupport.calculateSpecifiedPaths(specifiedPaths, recurseBy, pathIndex),
+                    is(OriginalPathRecursion.calculateSpecifiedPaths(specifiedPaths, recurseBy, objectsByPath)));
+            }
+        }
+    }
+
+    @Test
+    void calculateSpecifiedPaths_SectionWithoutIdHasNoChildrenById() {
+        // Given a section without an ID (ie, one only known locally), and
+        // objects without parents
+        CmsSection root = section(ROOT_SECTION_ID, null, "/");
+        CmsSection localSection = section(null, ROOT_SECTION_ID, "/local/");
+        CmsFile orphan = file(null, "/local/orphan.png");
+        CmsPathIndex pathIndex = CmsPathIndex.build(List.of(root, localSection, orphan), pathKeyGenerator);
+
+        // When it is recursed into by parent ID, then only it should be
+        // selected; the original recursion took every object without a
+        // parent to be its child, the root section included
+        assertThat(pathRecursionSupport.calculateSpecifiedPaths(List.of("/local/"),
+                PathRecursionSupport.RecursionOption.PARENT_ID, pathIndex),
+            is(Set.of("/local/")));
+
+        // And when it is recursed into by path prefix, then what is under it
+        // by path should be selected
+        assertThat(pathRecursionSupport.calculateSpecifiedPaths(List.of("/local/"),
+                PathRecursionSupport.RecursionOption.PATH_PREFIX, pathIndex),
+            is(Set.of("/local/", "/local/orphan.png")));
+    }
+
+    @Test
+    void calculateSpecifiedPaths_UnknownPath() {
+        // Given a tree with only a root section
+        CmsPathIndex pathIndex = CmsPathIndex.build(List.of(section(ROOT_SECTION_ID, null, "/")), pathKeyGenerator);
+
+        // When a path that isn't in it is specified, then it should fail
+        assertThrows(IllegalArgumentException.class,
+            () -> pathRecursionSupport.calculateSpecifiedPaths(List.of("/", "/missing/"),
+                PathRecursionSupport.RecursionOption.NONE, pathIndex));
+    }
+
+    @Nonnull
+    private static List<CmsObject> generateTree(@Nonnull Random random) {
+        List<CmsSection> sections = new ArrayList<>();
+        sections.add(section(ROOT_SECTION_ID, null, "/"));
+
+        for (int i = 0; i < 40; i++) {
+            CmsSection parent = sections.get(random.nextInt(sections.size()));
+            sections.add(section(100L + i, parent.getId(), parent.getPath() + "s" + i + "/"));
+        }
+
+        List<CmsObject> objects = new ArrayList<>(sections);
+        for (int i = 0; i < 300; i++) {
+            CmsSection section = sections.get(random.nextInt(sections.size()));
+
+            switch (random.nextInt(6)) {
+                case 0, 1 -> objects.add(file(section.getId(), section.getPath() + "f" + i + ".png"));
+                case 2 -> objects.add(page(section.getId(), section.getPath() + "p" + i));
+                case 3 -> {
+                    // A page whose path is in another section than it is
+                    CmsSection pathSection = sections.get(random.nextInt(sections.size()));
+                    objects.add(page(section.getId(), pathSection.getPath() + "p" + i));
+                }
+                case 4 -> objects.add(file(9999L, section.getPath() + "orphan" + i + ".png"));
+                default -> {
+                    CmsLayout layout = new CmsLayout();
+                    layout.setId(1000L + i);
+                    layout.setSystemName("layout" + i);
+                    objects.add(layout);
+                }
+            }
+        }
+
+        return objects;
+    }
+
+    @Nonnull
+    private static CmsSection section(Long id, Long parentId, @Nonnull String path) {
+        CmsSection section = new CmsSection();
+        section.setId(id);
+        section.setParentId(parentId);
+        section.setPath(path);
+        return section;
+    }
+
+    @Nonnull
+    private static CmsFile file(Long sectionId, @Nonnull String path) {
+        CmsFile file = new CmsFile();
+        file.setSectionId(sectionId);
+        file.setPath(path);
+        return file;
+    }
+
+    @Nonnull
+    private static CmsPage page(Long sectionId, @Nonnull String path) {
+        CmsPage page = new CmsPage();
+        page.setSectionId(sectionId);
+        page.setPath(path);
+        page.setContentType("text/html");
+        return page;
+    }
+
+    /**
+     * The recursion as it was before objects were indexed by parent ID and
+     * path, to compare against
+     */
+    private static final class OriginalPathRecursion {
+
+        private static final Map<Class<? extends CmsObject>, Function<? super CmsObject, Long>> GET_PARENT_ID_FUNCTIONS =
+            Map.of(
+                CmsFile.class, file -> ((CmsFile) file).getSectionId(),
+                CmsPage.class, page -> ((CmsPage) page).getSectionId(),
+                CmsSection.class, section -> ((CmsSection) section).getParentId()
+            );
+
+        private static void addChildObjectsToList(LinkedList<Pair<String, CmsObject>> recursingList, Map<String, CmsObject> objectsByPath) {
+            ListIterator<Pair<String, CmsObject>> treeWalker = recursingList.listIterator();
+
+            while (treeWalker.hasNext()) {
+                Pair<String, CmsObject> currentPair = treeWalker.next();
+                CmsObject currentObject = currentPair.getRight();
+
+                if (currentObject.getType() != ThreescaleObjectType.SECTION) {
+                    continue;
+                }
+
+                Long parentId = currentObject.getId();
+
+                int addedChildren = Math.toIntExact(
+                    objectsByPath.entrySet()
+                        .stream()
+                        .filter(childEntry -> {
+                            CmsObject childObject = childEntry.getValue();
+                            Long childParentId = GET_PARENT_ID_FUNCTIONS.getOrDefault(childObject.getClass(), o -> Long.MIN_VALUE)
+                                .apply(childObject);
+
+                            return Objects.equals(parentId, childParentId);
+                        })
+                        .peek(e -> treeWalker.add(Pair.of(e)))
+                        .count());
+
+                for (int i = 0; i < addedChildren; i++) {
+                    treeWalker.previous();
+                }
+            }
+        }
+
+        private static Set<String> calculateSpecifiedPaths(@Nonnull Collection<String> specifiedPaths,
+                                                           @Nonnull PathRecursionSupport.RecursionOption recurseBy,
+                                                           @Nonnull Map<String, CmsObject> objectsByPath) {
+            return switch (recurseBy) {
+                case NONE -> new HashSet<>(specifiedPaths);
+                case PATH_PREFIX -> specifiedPaths.stream()
+                    .flatMap(pathKey -> {
+                        if (objectsByPath.get(pathKey).getType() == ThreescaleObjectType.SECTION) {
+                            return objectsByPath.keySet().stream()
+                                .filter(subKey -> StringUtils.startsWith(subKey, pathKey));
+                        }
+
+                        return Stream.of(pathKey);
+                    })
+                    .collect(Collectors.toSet());
+                case PARENT_ID -> specifiedPaths.stream()
+                    .flatMap(pathKey -> {
+                        CmsObject parentObject = objectsByPath.get(pathKey);
+
+                        LinkedList<Pair<String, CmsObject>> recursingList = new LinkedList<>();
+                        recursingList.add(Pair.of(pathKey, parentObject));
+
+                        addChildObjectsToList(recursingList, objectsByPath);
+
+                        return recursingList.stream()
+                            .map(Pair::getKey);
+                    })
+                    .collect(Collectors.toSet());
+            };
+        }
+
+    }
+
+}
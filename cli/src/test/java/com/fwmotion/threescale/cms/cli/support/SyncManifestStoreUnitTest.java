@@ -0,0 +1,151 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class SyncManifestStoreUnitTest {
+
+    private static final OffsetDateTime UPDATED_AT = OffsetDateTime.of(2023, 11, 2, 10, 15, 30, 0, ZoneOffset.ofHours(2));
+
+    @TempDir
+    File rootDirectory;
+
+    SyncManifestStore syncManifestStore = new SyncManifestStore();
+
+    @Test
+    void save_RoundTripsEntries() throws Exception {
+        // Given a manifest with a downloaded and an uploaded path
+        SyncManifest manifest = new SyncManifest();
+        manifest.recordSynced("/index.html", 16L, UPDATED_AT, "hash-of-index");
+        manifest.recordUpload("/css/site.css", 32L, "hash-of-css");
+
+        // When it is saved and loaded again
+        syncManifestStore.save(rootDirectory, "example-admin.3scale.net", manifest);
+        SyncManifest loaded = syncManifestStore.load(rootDirectory, "example-admin.3scale.net");
+
+        // Then the downloaded entry should be as it was recorded
+        assertThat(loaded.getEntries().keySet(), containsInAnyOrder("/index.html", "/css/site.css"));
+        SyncManifest.Entry index = loaded.getEntry("/index.html").orElseThrow();
+        assertThat(index.getRemoteId(), is(16L));
+        assertThat(index.getRemoteUpdatedAt().orElseThrow().isEqual(UPDATED_AT), is(true));
+        assertThat(index.getContentHash(), is("hash-of-index"));
+
+        // And the uploaded entry should still be waiting for its updatedAt
+        SyncManifest.Entry css = loaded.getEntry("/css/site.css").orElseThrow();
+        assertThat(css.getRemoteId(), is(32L));
+        assertThat(css.getRemoteUpdatedAt().isPresent(), is(false));
+        assertThat(css.getContentHash(), is("hash-of-css"));
+
+        // And the loaded manifest should be unmodified, with no temporary
+        // file left behind
+        assertThat(loaded.isModified(), is(false));
+        assertThat(rootDirectory.list(), arrayContaining(SyncManifestStore.MANIFEST_FILENAME));
+    }
+
+    @Test
+    void save_KeepsTenantsSeparate() throws Exception {
+        // Given a manifest saved for each of 2 tenants
+        SyncManifest staging = new SyncManifest();
+        staging.recordSynced("/index.html", 16L, UPDATED_AT, "staging-hash");
+        syncManifestStore.save(rootDirectory, "staging-admin.3scale.net", staging);
+
+        SyncManifest production = new SyncManifest();
+        production.recordSynced("/index.html", 64L, UPDATED_AT, "production-hash");
+        production.recordSynced("/about.html", 65L, UPDATED_AT, "about-hash");
+        syncManifestStore.save(rootDirectory, "production-admin.3scale.net", production);
+
+        // When each tenant's manifest is loaded
+        SyncManifest loadedStaging = syncManifestStore.load(rootDirectory, "staging-admin.3scale.net");
+        SyncManifest loadedProduction = syncManifestStore.load(rootDirectory, "production-admin.3scale.net");
+
+        // Then each should have only its own entries
+        assertThat(loadedStaging.getEntries().keySet(), contains("/index.html"));
+        assertThat(loadedStaging.getEntry("/index.html").orElseThrow().getRemoteId(), is(16L));
+        assertThat(loadedStaging.getEntry("/index.html").orElseThrow().getContentHash(), is("staging-hash"));
+
+        assertThat(loadedProduction.getEntries().keySet(), containsInAnyOrder("/index.html", "/about.html"));
+        assertThat(loadedProduction.getEntry("/index.html").orElseThrow().getRemoteId(), is(64L));
+
+        // And a tenant that was never synced should have no entries
+        assertThat(syncManifestStore.load(rootDirectory, "other-admin.3scale.net").getEntries(),
+            is(anEmptyMap()));
+    }
+
+    @Test
+    void save_ReplacesOnlyItsOwnTenant() throws Exception {
+        // Given manifests saved for 2 tenants
+        SyncManifest staging = new SyncManifest();
+        staging.recordSynced("/index.html", 16L, UPDATED_AT, "staging-hash");
+        syncManifestStore.save(rootDirectory, "staging-admin.3scale.net", staging);
+
+        SyncManifest production = new SyncManifest();
+        production.recordSynced("/index.html", 64L, UPDATED_AT, "production-hash");
+        syncManifestStore.save(rootDirectory, "production-admin.3scale.net", production);
+
+        // When a path is removed from one tenant's manifest and it's saved,
+        // with the domain written differently
+        SyncManifest loadedStaging = syncManifestStore.load(rootDirectory, "staging-admin.3scale.net");
+        loadedStaging.remove("/index.html");
+        syncManifestStore.save(rootDirectory, " staging-admin.3scale.net/", loadedStaging);
+
+        // Then only that tenant's entry should be gone
+        assertThat(syncManifestStore.load(rootDirectory, "staging-admin.3scale.net").getEntries(),
+            is(anEmptyMap()));
+        assertThat(syncManifestStore.load(rootDirectory, "production-admin.3scale.net").getEntries().keySet(),
+            contains("/index.html"));
+    }
+
+    @Test
+    void load_MissingFile() {
+        // Given no manifest file
+        // When the manifest is loaded, then it should be empty
+        SyncManifest loaded = syncManifestStore.load(rootDirectory, "example-admin.3scale.net");
+        assertThat(loaded.getEntries(), is(anEmptyMap()));
+    }
+
+    @Test
+    void load_UnreadableOrUnknownFile() throws Exception {
+        Path manifestPath = rootDirectory.toPath().resolve(SyncManifestStore.MANIFEST_FILENAME);
+
+        // Given a manifest file that isn't JSON, then it should give an empty
+        // manifest
+        Files.writeString(manifestPath, "not json {");
+        assertThat(syncManifestStore.load(rootDirectory, "example-admin.3scale.net").getEntries(),
+            is(anEmptyMap()));
+
+        // And given a manifest file in another format version, then it
+        // should give an empty manifest
+        Files.writeString(manifestPath, """
+            {"version": 2, "tenants": {"example-admin.3scale.net": {
+              "/index.html": {"id": 16, "sha256": "hash"}}}}""");
+        assertThat(syncManifestStore.load(rootDirectory, "example-admin.3scale.net").getEntries(),
+            is(anEmptyMap()));
+    }
+
+    @Test
+    void load_SkipsInvalidEntries() throws Exception {
+        // Given a manifest file with some invalid entries
+        Files.writeString(rootDirectory.toPath().resolve(SyncManifestStore.MANIFEST_FILENAME), """
+            {"version": 1, "tenants": {"example-admin.3scale.net": {
+              "/valid.html": {"id": 16, "updatedAt": "2023-11-02T10:15:30+02:00", "sha256": "hash"},
+              "/no-id.html": {"sha256": "hash"},
+              "/no-hash.html": {"id": 17},
+              "/bad-date.html": {"id": 18, "updatedAt": "yesterday", "sha256": "hash"}}}}""");
+
+        // When the manifest is loaded
+        SyncManifest loaded = syncManifestStore.load(rootDirectory, "example-admin.3scale.net");
+
+        // Then only the valid entry should have been loaded
+        assertThat(loaded.getEntries().keySet(), contains("/valid.html"));
+    }
+
+}
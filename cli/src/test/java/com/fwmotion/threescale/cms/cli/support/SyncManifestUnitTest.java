@@ -0,0 +1,80 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SyncManifestUnitTest {
+
+    private static final OffsetDateTime UPDATED_AT = OffsetDateTime.of(2023, 11, 2, 10, 15, 30, 0, ZoneOffset.UTC);
+
+    @Test
+    void recordRemoteUpdatedAt_CompletesUploadedEntry() {
+        // Given a loaded manifest with an uploaded entry
+        SyncManifest manifest = new SyncManifest(Map.of(
+            "/index.html", new SyncManifest.Entry(16L, null, "hash")));
+        assertThat(manifest.isModified(), is(false));
+
+        // When the remote updatedAt is recorded from a listing
+        manifest.recordRemoteUpdatedAt("/index.html", UPDATED_AT);
+
+        // Then the entry should have it, and the rest of the entry unchanged
+        SyncManifest.Entry entry = manifest.getEntry("/index.html").orElseThrow();
+        assertThat(entry.getRemoteId(), is(16L));
+        assertThat(entry.getRemoteUpdatedAt().orElseThrow(), is(UPDATED_AT));
+        assertThat(entry.getContentHash(), is("hash"));
+        assertThat(manifest.isModified(), is(true));
+    }
+
+    @Test
+    void recordRemoteUpdatedAt_IgnoresUnknownPath() {
+        // Given an empty manifest
+        SyncManifest manifest = new SyncManifest();
+
+        // When a remote updatedAt is recorded for a path it doesn't have
+        manifest.recordRemoteUpdatedAt("/index.html", UPDATED_AT);
+
+        // Then no entry should have been added
+        assertThat(manifest.getEntry("/index.html").isPresent(), is(false));
+    }
+
+    @Test
+    void remove_OnlyModifiesWhenPresent() {
+        // Given a loaded manifest
+        SyncManifest manifest = new SyncManifest(Map.of(
+            "/index.html", new SyncManifest.Entry(16L, UPDATED_AT, "hash")));
+
+        // When a path it doesn't have is removed, then it should be
+        // unmodified
+        manifest.remove("/other.html");
+        assertThat(manifest.isModified(), is(false));
+
+        // And when a path it has is removed, then it should be modified
+        manifest.remove("/index.html");
+        assertThat(manifest.isModified(), is(true));
+        assertThat(manifest.getEntry("/index.html").isPresent(), is(false));
+    }
+
+    @Test
+    void hashFile_MatchesHashContent(@TempDir Path tempDir) throws Exception {
+        // Given a file with more than one buffer's worth of content
+        byte[] content = "<p>Café</p>\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(tempDir.resolve("index.html"), content);
+
+        // When the file and its content are hashed, then the hashes should
+        // be the same SHA-256
+        assertThat(SyncManifest.hashFile(file.toFile()), is(SyncManifest.hashContent(content)));
+        assertThat(SyncManifest.hashContent(new byte[0]),
+            is("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"));
+    }
+
+}
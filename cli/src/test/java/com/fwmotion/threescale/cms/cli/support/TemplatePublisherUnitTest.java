@@ -0,0 +1,181 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.ThreescaleCmsClient;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsApiException;
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class TemplatePublisherUnitTest {
+
+    @Mock
+    ThreescaleCmsClient client;
+
+    TemplatePublisher templatePublisher = new TemplatePublisher();
+
+    @Test
+    void saved_AfterEachSave_PublishesTemplatesRightAway() throws Exception {
+        // Given a publication after each save
+        TemplatePublisher.Publication publication = begin(TemplatePublisher.PublishTiming.AFTER_EACH_SAVE);
+        CmsSection section = section("/css/");
+        CmsPage page = page(1L, "/index.html");
+        CmsLayout layout = layout("main-layout");
+
+        // When a section is saved, then nothing should be published
+        publication.saved(section);
+        then(client).shouldHaveNoInteractions();
+
+        // And when templates are saved, then each should be published
+        publication.saved(page);
+        then(client).should().publish(page);
+        publication.saved(layout);
+        then(client).should().publish(layout);
+
+        // And nothing more should be published once all objects are saved
+        publication.finish(List.of(section, page, layout));
+        then(client).shouldHaveNoMoreInteractions();
+        assertThat(publication.getFailuresByPath(), is(anEmptyMap()));
+    }
+
+    @Test
+    void finish_AfterAllSaves_PublishesAllTemplates() throws Exception {
+        // Given a publication after all saves
+        TemplatePublisher.Publication publication = begin(TemplatePublisher.PublishTiming.AFTER_ALL_SAVES);
+        CmsSection section = section("/css/");
+        CmsPage page = page(1L, "/index.html");
+        CmsLayout layout = layout("main-layout");
+
+        // When objects are saved, then nothing should be published yet
+        publication.saved(section);
+        publication.saved(page);
+        publication.saved(layout);
+        then(client).shouldHaveNoInteractions();
+
+        // And when all objects are saved, then only the templates should be
+        // published
+        publication.finish(List.of(section, page, layout));
+        then(client).should().publish(page);
+        then(client).should().publish(layout);
+        then(client).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void finish_Never_PublishesNothing() throws Exception {
+        // Given templates are to be kept as drafts
+        TemplatePublisher.Publication publication = begin(TemplatePublisher.PublishTiming.NEVER);
+        CmsPage page = page(1L, "/index.html");
+
+        // When a template is saved and all objects are saved
+        publication.saved(page);
+        publication.finish(List.of(page));
+
+        // Then nothing should have been published
+        then(client).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void finish_AfterAllSaves_CollectsFailures() throws Exception {
+        // Given 2 of 4 templates will fail to publish
+        TemplatePublisher.Publication publication = begin(TemplatePublisher.PublishTiming.AFTER_ALL_SAVES);
+        List<CmsPage> pages = List.of(
+            page(1L, "/d.html"),
+            page(2L, "/c.html"),
+            page(3L, "/b.html"),
+            page(4L, "/a.html"));
+
+        // (Lenient, as the other templates are published with the same method)
+        lenient().doThrow(new ThreescaleCmsApiException(422, "Page d is invalid"))
+            .when(client).publish(pages.get(0));
+        lenient().doThrow(new ThreescaleCmsApiException(422, "Page b is invalid"))
+            .when(client).publish(pages.get(2));
+
+        // When all templates are published
+        publication.finish(pages);
+
+        // Then every template should still have been published
+        then(client).should(times(4)).publish(any(CmsTemplate.class));
+
+        // And the failures should be reported by path key, in order
+        SortedMap<String, Exception> failures = publication.getFailuresByPath();
+        assertThat(failures.keySet(), contains("/b.html", "/d.html"));
+        assertThat(failures.get("/b.html").getMessage(), is("Page b is invalid"));
+        assertThat(failures.get("/d.html").getMessage(), is("Page d is invalid"));
+    }
+
+    @Test
+    void saved_AfterEachSave_CollectsFailures() throws Exception {
+        // Given a template will fail to publish
+        TemplatePublisher.Publication publication = begin(TemplatePublisher.PublishTiming.AFTER_EACH_SAVE);
+        CmsPage failingPage = page(1L, "/a.html");
+        CmsPage page = page(2L, "/b.html");
+
+        // (Lenient, as the other template is published with the same method)
+        lenient().doThrow(new ThreescaleCmsApiException(422, "Page a is invalid"))
+            .when(client).publish(failingPage);
+
+        // When both templates are saved
+        publication.saved(failingPage);
+        publication.saved(page);
+
+        // Then the other template should still have been published
+        then(client).should().publish(page);
+
+        // And the failure should be reported
+        assertThat(publication.getFailuresByPath().keySet(), contains("/a.html"));
+    }
+
+    @Nonnull
+    private TemplatePublisher.Publication begin(@Nonnull TemplatePublisher.PublishTiming timing) {
+        return templatePublisher.begin(client, timing, 2, TemplatePublisherUnitTest::pathKey);
+    }
+
+    @Nonnull
+    private static String pathKey(@Nonnull CmsObject object) {
+        if (object instanceof CmsSection section) {
+            return section.getPath();
+        } else if (object instanceof CmsPage page) {
+            return page.getPath();
+        } else if (object instanceof CmsLayout layout) {
+            return "/l_" + layout.getSystemName() + ".html.liquid";
+        }
+        throw new IllegalArgumentException("Unexpected object " + object);
+    }
+
+    @Nonnull
+    private static CmsSection section(@Nonnull String path) {
+        CmsSection section = new CmsSection();
+        section.setPath(path);
+        return section;
+    }
+
+    @Nonnull
+    private static CmsPage page(long id, @Nonnull String path) {
+        CmsPage page = new CmsPage();
+        page.setId(id);
+        page.setPath(path);
+        return page;
+    }
+
+    @Nonnull
+    private static CmsLayout layout(@Nonnull String systemName) {
+        CmsLayout layout = new CmsLayout();
+        layout.setId(100L);
+        layout.setSystemName(systemName);
+        return layout;
+    }
+
+}
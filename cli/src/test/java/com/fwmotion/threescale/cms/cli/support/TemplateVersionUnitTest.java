@@ -0,0 +1,77 @@
+package com.fwmotion.threescale.cms.cli.support;
+
+import com.fwmotion.threescale.cms.model.CmsPage;
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class TemplateVersionUnitTest {
+
+    @Test
+    void draft_TrimsDraft() {
+        // Given a template with a draft surrounded by whitespace
+        CmsPage page = page("\n  <p>Draft</p>\n\n", "<p>Published</p>");
+
+        // When its downloaded draft content is requested, then it should be
+        // the trimmed draft
+        assertThat(TemplateVersion.DRAFT.getDownloadedContent(page).map(String::new),
+            is(Optional.of("<p>Draft</p>")));
+    }
+
+    @Test
+    void draft_FallsBackToPublished() {
+        // Given templates without a draft, or with a blank one
+        // Then their downloaded draft content should be the trimmed published
+        // content
+        assertThat(TemplateVersion.DRAFT.getDownloadedContent(page(null, " <p>Published</p>\n")).map(String::new),
+            is(Optional.of("<p>Published</p>")));
+        assertThat(TemplateVersion.DRAFT.getDownloadedContent(page(" \n ", "<p>Published</p>")).map(String::new),
+            is(Optional.of("<p>Published</p>")));
+    }
+
+    @Test
+    void draft_NoContent() {
+        // Given templates without content, or listed without it
+        // Then they should have no downloaded draft content
+        assertThat(TemplateVersion.DRAFT.getDownloadedContent(page(null, null)).isPresent(), is(false));
+        assertThat(TemplateVersion.DRAFT.getDownloadedContent(page("", " ")).isPresent(), is(false));
+    }
+
+    @Test
+    void published_IsNotTrimmedOrFallenBackFrom() {
+        // Given a template with published content surrounded by whitespace
+        // Then its downloaded published content should be as it is
+        assertThat(TemplateVersion.PUBLISHED.getDownloadedContent(page("<p>Draft</p>", " <p>Published</p>\n"))
+                .map(String::new),
+            is(Optional.of(" <p>Published</p>\n")));
+
+        // And given a template that was never published, then it should have
+        // no downloaded published content
+        assertThat(TemplateVersion.PUBLISHED.getDownloadedContent(page("<p>Draft</p>", null)).isPresent(),
+            is(false));
+    }
+
+    @Test
+    void getDownloadedContent_EncodesInDefaultCharset() {
+        // Given a template with non-ASCII content
+        CmsPage page = page("<p>Café ☕</p>", null);
+
+        // When its downloaded draft content is requested, then it should be
+        // encoded as downloaded files are
+        assertThat(TemplateVersion.DRAFT.getDownloadedContent(page).orElseThrow(),
+            is("<p>Café ☕</p>".getBytes(Charset.defaultCharset())));
+    }
+
+    private static CmsPage page(@Nullable String draftContent, @Nullable String publishedContent) {
+        CmsPage page = new CmsPage();
+        page.setDraftContent(draftContent);
+        page.setPublishedContent(publishedContent);
+        return page;
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.fwmotion.threescale.cms;
+
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsException;
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking companion to {@link ThreescaleCmsClient}; every operation
+ * returns immediately with a future for its result.
+ * <p>
+ * Failures are delivered through the returned future rather than thrown, so
+ * a {@link com.fwmotion.threescale.cms.exception.ThreescaleCmsApiException}
+ * (for example) is the cause of the future's failure.
+ */
+public interface AsyncThreescaleCmsClient extends AutoCloseable {
+
+    @Nonnull
+    CompletableFuture<List<CmsObject>> listAllCmsObjects();
+
+    @Nonnull
+    CompletableFuture<List<CmsObject>> listAllCmsObjects(boolean includeTemplateContent);
+
+    @Nonnull
+    CompletableFuture<Map<ThreescaleObjectType, Integer>> countCmsObjects();
+
+    @Nonnull
+    CompletableFuture<List<CmsSection>> listSections();
+
+    @Nonnull
+    CompletableFuture<List<CmsFile>> listFiles();
+
+    @Nonnull
+    CompletableFuture<List<CmsTemplate>> listTemplates(boolean includeContent);
+
+    @Nonnull
+    CompletableFuture<Optional<InputStream>> getFileContent(long fileId);
+
+    @Nonnull
+    CompletableFuture<Optional<InputStream>> getFileContent(@Nonnull CmsFile file);
+
+    @Nonnull
+    CompletableFuture<Long> downloadFileContent(long fileId, @Nonnull WritableByteChannel target);
+
+    @Nonnull
+    CompletableFuture<Long> downloadFileContent(@Nonnull CmsFile file, @Nonnull WritableByteChannel target);
+
+    @Nonnull
+    CompletableFuture<Long> downloadFileContent(long fileId, @Nonnull Path target);
+
+    @Nonnull
+    CompletableFuture<Long> downloadFileContent(@Nonnull CmsFile file, @Nonnull Path target);
+
+    @Nonnull
+    CompletableFuture<Optional<InputStream>> getTemplateDraft(long templateId);
+
+    @Nonnull
+    CompletableFuture<Optional<InputStream>> getTemplateDraft(@Nonnull CmsTemplate template);
+
+    @Nonnull
+    CompletableFuture<Optional<InputStream>> getTemplatePublished(long templateId);
+
+    @Nonnull
+    CompletableFuture<Optional<InputStream>> getTemplatePublished(@Nonnull CmsTemplate template);
+
+    @Nonnull
+    CompletableFuture<Void> save(@Nonnull CmsSection section);
+
+    @Nonnull
+    CompletableFuture<Void> save(@Nonnull CmsFile file, @Nonnull File fileContent);
+
+    @Nonnull
+    CompletableFuture<Void> save(@Nonnull CmsTemplate template, @Nonnull File draft);
+
+    @Nonnull
+    CompletableFuture<Void> publish(long templateId);
+
+    @Nonnull
+    CompletableFuture<Void> publish(@Nonnull CmsTemplate template);
+
+    @Nonnull
+    CompletableFuture<Void> delete(@Nonnull ThreescaleObjectType type, long id);
+
+    @Nonnull
+    CompletableFuture<Void> delete(@Nonnull CmsObject object);
+
+    /**
+     * Stop accepting new operations; operations already accepted still run
+     * to completion.
+     */
+    @Override
+    void close() throws ThreescaleCmsException;
+}
@@ -0,0 +1,294 @@
+package com.fwmotion.threescale.cms;
+
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsNonApiException;
+import com.fwmotion.threescale.cms.model.*;
+import jakarta.annotation.Nonnull;
+import jakarta.validation.constraints.Positive;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs the operations of a {@link ThreescaleCmsClient} on an executor.
+ * <p>
+ * At most {@code maxOperationsInFlight} operations run at the same time;
+ * further operations wait in a queue (without holding a thread) until one
+ * finishes, and are then run in the order they were requested, on the
+ * thread of the operation that finished.
+ * <p>
+ * Each operation is a blocking call on the wrapped client, so it holds one
+ * of the executor's threads while it runs, whichever HTTP transport the
+ * wrapped client uses; the asynchronous transports share connections
+ * between calls, but don't save threads here.
+ * <p>
+ * The wrapped client isn't closed along with this one, as it may be shared.
+ */
+public class AsyncThreescaleCmsClientImpl implements AsyncThreescaleCmsClient {
+
+    private final ThreescaleCmsClient client;
+    private final Executor executor;
+    private final int maxOperationsInFlight;
+
+    private final Queue<Operation<?>> waitingOperations = new ArrayDeque<>();
+    private int operationsInFlight = 0;
+    private boolean closed = false;
+
+    public AsyncThreescaleCmsClientImpl(@Nonnull ThreescaleCmsClient client,
+                                        @Nonnull Executor executor,
+                                        @Positive int maxOperationsInFlight) {
+        if (maxOperationsInFlight < 1) {
+            throw new IllegalArgumentException("maxOperationsInFlight must be positive");
+        }
+
+        this.client = client;
+        this.executor = executor;
+        this.maxOperationsInFlight = maxOperationsInFlight;
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<List<CmsObject>> listAllCmsObjects() {
+        return submit(client::listAllCmsObjects);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<List<CmsObject>> listAllCmsObjects(boolean includeTemplateContent) {
+        return submit(() -> client.listAllCmsObjects(includeTemplateContent));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Map<ThreescaleObjectType, Integer>> countCmsObjects() {
+        return submit(client::countCmsObjects);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<List<CmsSection>> listSections() {
+        return submit(client::listSections);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<List<CmsFile>> listFiles() {
+        return submit(client::listFiles);
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<List<CmsTemplate>> listTemplates(boolean includeContent) {
+        return submit(() -> client.listTemplates(includeContent));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<InputStream>> getFileContent(long fileId) {
+        return submit(() -> client.getFileContent(fileId));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<InputStream>> getFileContent(@Nonnull CmsFile file) {
+        return submit(() -> client.getFileContent(file));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Long> downloadFileContent(long fileId, @Nonnull WritableByteChannel target) {
+        return submit(() -> client.downloadFileContent(fileId, target));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Long> downloadFileContent(@Nonnull CmsFile file, @Nonnull WritableByteChannel target) {
+        return submit(() -> client.downloadFileContent(file, target));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Long> downloadFileContent(long fileId, @Nonnull Path target) {
+        return submit(() -> client.downloadFileContent(fileId, target));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Long> downloadFileContent(@Nonnull CmsFile file, @Nonnull Path target) {
+        return submit(() -> client.downloadFileContent(file, target));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<InputStream>> getTemplateDraft(long templateId) {
+        return submit(() -> client.getTemplateDraft(templateId));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<InputStream>> getTemplateDraft(@Nonnull CmsTemplate template) {
+        return submit(() -> client.getTemplateDraft(template));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<InputStream>> getTemplatePublished(long templateId) {
+        return submit(() -> client.getTemplatePublished(templateId));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<InputStream>> getTemplatePublished(@Nonnull CmsTemplate template) {
+        return submit(() -> client.getTemplatePublished(template));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> save(@Nonnull CmsSection section) {
+        return submitVoid(() -> client.save(section));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> save(@Nonnull CmsFile file, @Nonnull File fileContent) {
+        return submitVoid(() -> client.save(file, fileContent));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> save(@Nonnull CmsTemplate template, @Nonnull File draft) {
+        return submitVoid(() -> client.save(template, draft));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> publish(long templateId) {
+        return submitVoid(() -> client.publish(templateId));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> publish(@Nonnull CmsTemplate template) {
+        return submitVoid(() -> client.publish(template));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> delete(@Nonnull ThreescaleObjectType type, long id) {
+        return submitVoid(() -> client.delete(type, id));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> delete(@Nonnull CmsObject object) {
+        return submitVoid(() -> client.delete(object));
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> submitVoid(@Nonnull Runnable operation) {
+        return submit(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    @Nonnull
+    private <T> CompletableFuture<T> submit(@Nonnull Supplier<T> supplier) {
+        Operation<T> operation = new Operation<>(supplier);
+
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                    new ThreescaleCmsNonApiException("Asynchronous 3scale CMS client has been closed"));
+            }
+
+            if (operationsInFlight >= maxOperationsInFlight) {
+                waitingOperations.add(operation);
+                return operation.future;
+            }
+
+            operationsInFlight++;
+        }
+
+        start(operation);
+        return operation.future;
+    }
+
+    private void start(@Nonnull Operation<?> operation) {
+        Operation<?> next = operation;
+        while (next != null) {
+            try {
+                executor.execute(next);
+                return;
+            } catch (RejectedExecutionException e) {
+                next.future.completeExceptionally(
+                    new ThreescaleCmsNonApiException("Couldn't start 3scale CMS operation", e));
+                next = operationFinished();
+            }
+        }
+    }
+
+    /**
+     * @return the next waiting operation, to which the finished operation's
+     * slot passes straight away, or {@code null} if none are waiting
+     */
+    private synchronized Operation<?> operationFinished() {
+        Operation<?> next = waitingOperations.poll();
+        if (next == null) {
+            operationsInFlight--;
+        }
+        return next;
+    }
+
+    private final class Operation<T> implements Runnable {
+
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Operation(@Nonnull Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        /**
+         * Run this operation, then any that were waiting for it to finish;
+         * they're run in a loop, rather than each starting the next, so that
+         * a long queue can't overflow the stack.
+         */
+        @Override
+        public void run() {
+            Operation<?> operation = this;
+            while (operation != null) {
+                operation.complete();
+                operation = operationFinished();
+            }
+        }
+
+        private void complete() {
+            try {
+                // Skip operations cancelled while they were waiting
+                if (!future.isDone()) {
+                    future.complete(supplier.get());
+                }
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+    }
+
+}
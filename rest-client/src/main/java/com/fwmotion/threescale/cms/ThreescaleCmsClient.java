@@ -2,32 +2,86 @@ package com.fwmotion.threescale.cms;
 
 import com.fwmotion.threescale.cms.exception.ThreescaleCmsCannotDeleteBuiltinException;
 import com.fwmotion.threescale.cms.exception.ThreescaleCmsException;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsNonApiException;
 import com.fwmotion.threescale.cms.model.*;
 import jakarta.annotation.Nonnull;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public interface ThreescaleCmsClient {
+public interface ThreescaleCmsClient extends AutoCloseable {
 
     @Nonnull
     default Stream<CmsObject> streamAllCmsObjects() throws ThreescaleCmsException {
+        return streamAllCmsObjects(false);
+    }
+
+    /**
+     * The stream may be reading listings in the background, which only stop
+     * once it is closed, so it should be closed after use.
+     *
+     * @param includeTemplateContent whether to include the draft and
+     *                               published content of templates
+     */
+    @Nonnull
+    default Stream<CmsObject> streamAllCmsObjects(boolean includeTemplateContent) throws ThreescaleCmsException {
         return Stream.of(
             streamSections(),
             streamFiles(),
-            streamTemplates(false)
+            streamTemplates(includeTemplateContent)
         ).flatMap(s -> s);
     }
 
     @Nonnull
     default List<CmsObject> listAllCmsObjects() throws ThreescaleCmsException {
-        return streamAllCmsObjects()
-            .collect(Collectors.toList());
+        return listAllCmsObjects(false);
+    }
+
+    @Nonnull
+    default List<CmsObject> listAllCmsObjects(boolean includeTemplateContent) throws ThreescaleCmsException {
+        try (Stream<CmsObject> cmsObjects = streamAllCmsObjects(includeTemplateContent)) {
+            return cmsObjects.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Count the objects in each CMS collection. This lists them all;
+     * implementations should override it with something cheaper, such as
+     * reading the pagination metadata of a one-entry page of each.
+     *
+     * @return number of objects by type; a type is missing if the CMS didn't
+     * report its total
+     */
+    @Nonnull
+    default Map<ThreescaleObjectType, Integer> countCmsObjects() throws ThreescaleCmsException {
+        Map<ThreescaleObjectType, Integer> counts = new EnumMap<>(ThreescaleObjectType.class);
+        for (ThreescaleObjectType type : ThreescaleObjectType.values()) {
+            counts.put(type, 0);
+        }
+
+        try (Stream<CmsObject> cmsObjects = streamAllCmsObjects()) {
+            counts.putAll(cmsObjects.collect(Collectors.groupingBy(CmsObject::getType,
+                Collectors.summingInt(object -> 1))));
+        }
+
+        return counts;
     }
 
     @Nonnull
@@ -58,6 +112,88 @@ public interface ThreescaleCmsClient {
             .flatMap(this::getFileContent);
     }
 
+    /**
+     * Download file content directly into a channel, without holding the
+     * whole file in memory.
+     *
+     * @param fileId ID of the file to download
+     * @param target channel to write the file content to; it is not closed
+     * @return the number of bytes written
+     * @throws ThreescaleCmsException if no content could be retrieved
+     */
+    default long downloadFileContent(long fileId, @Nonnull WritableByteChannel target) throws ThreescaleCmsException {
+        InputStream content = getFileContent(fileId)
+            .orElseThrow(() -> new ThreescaleCmsNonApiException("No content returned for file " + fileId));
+
+        try (content) {
+            // The target's stream isn't closed, as that would close the target
+            return content.transferTo(Channels.newOutputStream(target));
+        } catch (IOException e) {
+            throw new ThreescaleCmsNonApiException("IOException while writing content of file " + fileId, e);
+        }
+    }
+
+    default long downloadFileContent(@Nonnull CmsFile file, @Nonnull WritableByteChannel target) throws ThreescaleCmsException {
+        return downloadFileContent(Objects.requireNonNull(file.getId()), target);
+    }
+
+    /**
+     * Download file content directly to a local file, without holding the
+     * whole file in memory. The content is written to a temporary file next
+     * to the target, which then replaces any existing local file, so that a
+     * failed download leaves the existing file as it was.
+     *
+     * @param fileId ID of the file to download
+     * @param target path of the local file to write
+     * @return the number of bytes written
+     * @throws ThreescaleCmsException if no content could be retrieved, or the
+     *                                local file couldn't be written
+     */
+    default long downloadFileContent(long fileId, @Nonnull Path target) throws ThreescaleCmsException {
+        return downloadToPath(target, channel -> downloadFileContent(fileId, channel));
+    }
+
+    default long downloadFileContent(@Nonnull CmsFile file, @Nonnull Path target) throws ThreescaleCmsException {
+        return downloadToPath(target, channel -> downloadFileContent(file, channel));
+    }
+
+    private long downloadToPath(@Nonnull Path target,
+                                @Nonnull ToLongFunction<WritableByteChannel> download) {
+        Path partialTarget = target.resolveSibling("." + target.getFileName() + ".part");
+        boolean downloaded = false;
+
+        try {
+            long bytesWritten;
+            try (FileChannel channel = FileChannel.open(partialTarget,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+                bytesWritten = download.applyAsLong(channel);
+            }
+
+            try {
+                Files.move(partialTarget, target,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partialTarget, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            downloaded = true;
+
+            return bytesWritten;
+        } catch (IOException e) {
+            throw new ThreescaleCmsNonApiException("IOException while writing file content to " + target, e);
+        } finally {
+            if (!downloaded) {
+                try {
+                    Files.deleteIfExists(partialTarget);
+                } catch (IOException e) {
+                    // The download already failed; that's what to report
+                }
+            }
+        }
+    }
+
     @Nonnull
     Stream<CmsTemplate> streamTemplates(boolean includeContent);
 
@@ -110,4 +246,13 @@ public interface ThreescaleCmsClient {
             delete(object.getType(), object.getId());
         }
     }
+
+    /**
+     * Release anything held by this client. Connections and worker threads
+     * are owned by the {@link ThreescaleCmsClientFactory} that built the
+     * client, and are released when the factory is closed.
+     */
+    @Override
+    default void close() throws ThreescaleCmsException {
+    }
 }
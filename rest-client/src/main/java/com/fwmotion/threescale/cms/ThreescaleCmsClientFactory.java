@@ -1,76 +1,299 @@
 package com.fwmotion.threescale.cms;
 
 import com.fwmotion.threescale.cms.exception.ThreescaleCmsNonApiException;
+import com.fwmotion.threescale.cms.support.AdaptiveRateLimiter;
 import com.fwmotion.threescale.cms.support.ApiClientBuilder;
+import com.fwmotion.threescale.cms.support.RetryingInvocationInterceptor;
 import com.redhat.threescale.rest.cms.ApiClient;
 import com.redhat.threescale.rest.cms.auth.ApiKeyAuth;
 import com.redhat.threescale.rest.cms.auth.Authentication;
 import jakarta.annotation.Nonnull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
 import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.client5.http.ssl.TrustAllStrategy;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.io.ModalCloseable;
+import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 
-import java.io.IOException;
+import javax.net.ssl.SSLContext;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ThreescaleCmsClientFactory implements AutoCloseable {
 
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 32;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 16;
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_SOCKET_TIMEOUT = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_IDLE_CONNECTION_TIMEOUT = Duration.ofMinutes(1);
+    public static final int DEFAULT_MAX_ASYNC_OPERATIONS_IN_FLIGHT = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final Duration DEFAULT_RETRY_BASE_DELAY = Duration.ofMillis(500);
+    public static final Duration DEFAULT_RETRY_MAX_DELAY = Duration.ofSeconds(30);
+
     private String baseUrl;
     private boolean useInsecureConnections;
     private String providerKey;
     private String accessToken;
+    private int maxPagesInFlight;
+    private int maxConcurrentListings;
+
+    private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private Duration socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+    private Duration responseTimeout = DEFAULT_RESPONSE_TIMEOUT;
+    private Duration keepAlive = DEFAULT_KEEP_ALIVE;
+    private Duration idleConnectionTimeout = DEFAULT_IDLE_CONNECTION_TIMEOUT;
+    private boolean tcpNoDelay = true;
+    private HttpTransport httpTransport = HttpTransport.CLASSIC;
+    private Executor asyncExecutor;
+    private int maxAsyncOperationsInFlight = DEFAULT_MAX_ASYNC_OPERATIONS_IN_FLIGHT;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private Duration retryBaseDelay = DEFAULT_RETRY_BASE_DELAY;
+    private Duration retryMaxDelay = DEFAULT_RETRY_MAX_DELAY;
+    private double maxRequestsPerSecond;
+    private ApiClient.InvocationInterceptor invocationInterceptor;
 
     private HttpClientConnectionManager httpClientConnectionManager;
     private CloseableHttpClient httpClient;
+    private AsyncClientConnectionManager asyncClientConnectionManager;
+    private CloseableHttpAsyncClient asyncHttpClient;
+    private ExecutorService executorService;
+    private ApiClient.InvocationInterceptor defaultInvocationInterceptor;
+    private final List<ModalCloseable> retiredHttpClients = new ArrayList<>();
 
-    private void tryCloseHttpClient() {
+    /**
+     * Stop handing out the HTTP clients built so far, so that new ones are
+     * built with the current settings. Clients already issued by this factory
+     * keep using the old HTTP clients, so those are only closed along with
+     * the factory.
+     */
+    private synchronized void retireHttpClients() {
         if (httpClient != null) {
-            try {
-                httpClient.close();
-            } catch (IOException e) {
-                throw new ThreescaleCmsNonApiException("Couldn't close old HTTP client", e);
-            }
+            retiredHttpClients.add(httpClient);
         }
         httpClient = null;
+        httpClientConnectionManager = null;
+
+        if (asyncHttpClient != null) {
+            retiredHttpClients.add(asyncHttpClient);
+        }
+        asyncHttpClient = null;
+        asyncClientConnectionManager = null;
     }
 
-    private CloseableHttpClient getHttpClient() {
+    @Nonnull
+    private SSLContext newInsecureSslContext() {
+        try {
+            return SSLContexts.custom()
+                .loadTrustMaterial(null, new TrustAllStrategy())
+                .build();
+        } catch (NoSuchAlgorithmException | KeyManagementException |
+                 KeyStoreException e) {
+            throw new ThreescaleCmsNonApiException("Unable to create insecure HttpClient", e);
+        }
+    }
+
+    @Nonnull
+    private ConnectionConfig newConnectionConfig() {
+        return ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.of(connectTimeout))
+            .setSocketTimeout(Timeout.of(socketTimeout))
+            .build();
+    }
+
+    @Nonnull
+    private RequestConfig newRequestConfig() {
+        return RequestConfig.custom()
+            .setResponseTimeout(Timeout.of(responseTimeout))
+            // Used unless the server sends a Keep-Alive header
+            .setConnectionKeepAlive(TimeValue.of(keepAlive))
+            .build();
+    }
+
+    private synchronized CloseableHttpClient getHttpClient() {
         if (httpClient == null) {
+            PoolingHttpClientConnectionManagerBuilder connectionManagerBuilder = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnectionsTotal)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultSocketConfig(SocketConfig.custom()
+                    .setSoTimeout(Timeout.of(socketTimeout))
+                    .setTcpNoDelay(tcpNoDelay)
+                    .build())
+                .setDefaultConnectionConfig(newConnectionConfig());
+
+            if (isUseInsecureConnections()) {
+                connectionManagerBuilder.setSSLSocketFactory(new SSLConnectionSocketFactory(
+                    newInsecureSslContext(),
+                    NoopHostnameVerifier.INSTANCE));
+            }
+
+            httpClientConnectionManager = connectionManagerBuilder.build();
+
+            HttpClientBuilder httpClientBuilder = HttpClients.custom()
+                .setConnectionManager(httpClientConnectionManager)
+                .setDefaultRequestConfig(newRequestConfig());
+
+            if (!idleConnectionTimeout.isZero()) {
+                httpClientBuilder
+                    .evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.of(idleConnectionTimeout));
+            }
+
+            httpClient = httpClientBuilder.build();
+        }
+
+        return httpClient;
+    }
+
+    private synchronized CloseableHttpAsyncClient getAsyncHttpClient() {
+        if (asyncHttpClient == null) {
+            TlsStrategy insecureTlsStrategy = null;
             if (isUseInsecureConnections()) {
-                try {
-                    SSLConnectionSocketFactory connectionSocketFactory = new SSLConnectionSocketFactory(SSLContexts.custom()
-                        .loadTrustMaterial(null, new TrustAllStrategy())
-                        .build(),
-                        NoopHostnameVerifier.INSTANCE);
-
-                    httpClientConnectionManager = PoolingHttpClientConnectionManagerBuilder.create()
-                        .setSSLSocketFactory(connectionSocketFactory)
-                        .build();
-                    httpClient = HttpClients.custom()
-                        .setConnectionManager(httpClientConnectionManager)
-                        .build();
-                } catch (NoSuchAlgorithmException | KeyManagementException |
-                         KeyStoreException e) {
-                    throw new ThreescaleCmsNonApiException("Unable to create insecure HttpClient", e);
+                insecureTlsStrategy = ClientTlsStrategyBuilder.create()
+                    .setSslContext(newInsecureSslContext())
+                    .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                    .build();
+            }
+
+            IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(Timeout.of(socketTimeout))
+                .setTcpNoDelay(tcpNoDelay)
+                .build();
+
+            if (httpTransport == HttpTransport.HTTP2) {
+                // One connection per host, with every request multiplexed
+                // over it as its own stream
+                H2AsyncClientBuilder h2ClientBuilder = HttpAsyncClients.customHttp2()
+                    .setIOReactorConfig(ioReactorConfig)
+                    .setDefaultConnectionConfig(newConnectionConfig())
+                    .setDefaultRequestConfig(newRequestConfig());
+
+                if (insecureTlsStrategy != null) {
+                    h2ClientBuilder.setTlsStrategy(insecureTlsStrategy);
+                }
+
+                if (!idleConnectionTimeout.isZero()) {
+                    h2ClientBuilder.evictIdleConnections(TimeValue.of(idleConnectionTimeout));
                 }
+
+                asyncHttpClient = h2ClientBuilder.build();
             } else {
-                httpClient = HttpClients.createDefault();
+                PoolingAsyncClientConnectionManagerBuilder connectionManagerBuilder = PoolingAsyncClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(maxConnectionsTotal)
+                    .setMaxConnPerRoute(maxConnectionsPerRoute)
+                    .setDefaultConnectionConfig(newConnectionConfig())
+                    .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                        .build());
+
+                if (insecureTlsStrategy != null) {
+                    connectionManagerBuilder.setTlsStrategy(insecureTlsStrategy);
+                }
+
+                asyncClientConnectionManager = connectionManagerBuilder.build();
+
+                HttpAsyncClientBuilder asyncClientBuilder = HttpAsyncClients.custom()
+                    .setConnectionManager(asyncClientConnectionManager)
+                    .setIOReactorConfig(ioReactorConfig)
+                    .setDefaultRequestConfig(newRequestConfig());
+
+                if (!idleConnectionTimeout.isZero()) {
+                    asyncClientBuilder
+                        .evictExpiredConnections()
+                        .evictIdleConnections(TimeValue.of(idleConnectionTimeout));
+                }
+
+                asyncHttpClient = asyncClientBuilder.build();
             }
+
+            asyncHttpClient.start();
         }
 
-        return httpClient;
+        return asyncHttpClient;
+    }
+
+    /**
+     * The rate limiter is shared by every client from this factory, as
+     * 3scale's limits apply to the tenant as a whole.
+     */
+    @Nonnull
+    private synchronized ApiClient.InvocationInterceptor resolveInvocationInterceptor() {
+        if (invocationInterceptor != null) {
+            return invocationInterceptor;
+        }
+
+        if (defaultInvocationInterceptor == null) {
+            defaultInvocationInterceptor = new RetryingInvocationInterceptor(
+                new AdaptiveRateLimiter(maxRequestsPerSecond, maxConnectionsPerRoute),
+                maxRetries,
+                retryBaseDelay,
+                retryMaxDelay);
+        }
+
+        return defaultInvocationInterceptor;
+    }
+
+    private ExecutorService getExecutorService() {
+        if (executorService == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "3scale-cms-worker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            executorService = Executors.newCachedThreadPool(threadFactory);
+        }
+
+        return executorService;
     }
 
     private ApiClient newApiClient() {
         ApiClient apiClient = ApiClientBuilder.buildApiClient(getHttpClient());
 
+        if (httpTransport != HttpTransport.CLASSIC) {
+            apiClient.setAsyncHttpClient(getAsyncHttpClient());
+            apiClient.setRequestBodyExecutor(getExecutorService());
+        }
+
+        apiClient.setInvocationInterceptor(resolveInvocationInterceptor());
+
         apiClient.setBasePath(baseUrl);
 
         if (providerKey != null) {
@@ -100,7 +323,7 @@ public class ThreescaleCmsClientFactory implements AutoCloseable {
 
     public void setUseInsecureConnections(boolean useInsecureConnections) {
         if (this.useInsecureConnections != useInsecureConnections) {
-            tryCloseHttpClient();
+            retireHttpClients();
         }
         this.useInsecureConnections = useInsecureConnections;
     }
@@ -123,18 +346,337 @@ public class ThreescaleCmsClientFactory implements AutoCloseable {
         this.providerKey = null;
     }
 
+    public int getMaxPagesInFlight() {
+        return maxPagesInFlight;
+    }
+
+    /**
+     * Set the number of list pages each listing operation may request ahead
+     * of the page currently being consumed; {@code 0} (the default) requests
+     * one page at a time.
+     *
+     * @param maxPagesInFlight maximum number of outstanding page requests per
+     *                         listing
+     */
+    public void setMaxPagesInFlight(@PositiveOrZero int maxPagesInFlight) {
+        this.maxPagesInFlight = maxPagesInFlight;
+    }
+
+    public int getMaxConcurrentListings() {
+        return maxConcurrentListings;
+    }
+
+    /**
+     * Set the number of listings (sections, files, templates) to read at the
+     * same time when listing all CMS objects; {@code 0} (the default) reads
+     * them one after another.
+     *
+     * @param maxConcurrentListings maximum number of listings to read at the
+     *                              same time
+     */
+    public void setMaxConcurrentListings(@PositiveOrZero int maxConcurrentListings) {
+        this.maxConcurrentListings = maxConcurrentListings;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * Set the maximum number of pooled HTTP connections, across all routes.
+     * Changing connection settings only affects clients built afterwards.
+     *
+     * @param maxConnectionsTotal maximum number of pooled connections
+     */
+    public void setMaxConnectionsTotal(@Positive int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        retireHttpClients();
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Set the maximum number of pooled HTTP connections to a single host. As
+     * all requests go to the admin portal or the developer portal, this is
+     * what limits how many requests can be made concurrently.
+     *
+     * @param maxConnectionsPerRoute maximum number of pooled connections per
+     *                               host
+     */
+    public void setMaxConnectionsPerRoute(@Positive int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        defaultInvocationInterceptor = null;
+        retireHttpClients();
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @param connectTimeout time allowed to establish a connection;
+     *                       {@link Duration#ZERO} waits indefinitely
+     */
+    public void setConnectTimeout(@Nonnull Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        retireHttpClients();
+    }
+
+    public Duration getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    /**
+     * @param socketTimeout time allowed between packets of data on an
+     *                      established connection; {@link Duration#ZERO}
+     *                      waits indefinitely
+     */
+    public void setSocketTimeout(@Nonnull Duration socketTimeout) {
+        this.socketTimeout = socketTimeout;
+        retireHttpClients();
+    }
+
+    public Duration getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    /**
+     * @param responseTimeout time allowed for the server to start responding
+     *                        to a request; {@link Duration#ZERO} waits
+     *                        indefinitely
+     */
+    public void setResponseTimeout(@Nonnull Duration responseTimeout) {
+        this.responseTimeout = responseTimeout;
+        retireHttpClients();
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @param keepAlive how long to keep an idle connection for reuse when the
+     *                  server doesn't say how long it will keep it open
+     */
+    public void setKeepAlive(@Nonnull Duration keepAlive) {
+        this.keepAlive = keepAlive;
+        retireHttpClients();
+    }
+
+    public Duration getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     * @param idleConnectionTimeout how long a pooled connection may stay
+     *                              unused before a background thread closes
+     *                              it; {@link Duration#ZERO} disables
+     *                              eviction
+     */
+    public void setIdleConnectionTimeout(@Nonnull Duration idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+        retireHttpClients();
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        retireHttpClients();
+    }
+
+    public HttpTransport getHttpTransport() {
+        return httpTransport;
+    }
+
+    /**
+     * Set how API requests are sent. Whichever is chosen, file content is
+     * still streamed over the classic (blocking) client. Changing the
+     * transport only affects clients built afterwards.
+     *
+     * @param httpTransport the HTTP transport for API requests
+     */
+    public void setHttpTransport(@Nonnull HttpTransport httpTransport) {
+        this.httpTransport = httpTransport;
+        retireHttpClients();
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Set the executor that runs the operations of asynchronous clients;
+     * {@code null} (the default) uses worker threads owned by this factory.
+     *
+     * @param asyncExecutor executor for asynchronous client operations
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public int getMaxAsyncOperationsInFlight() {
+        return maxAsyncOperationsInFlight;
+    }
+
+    /**
+     * Set the number of operations each asynchronous client runs at the same
+     * time; further operations wait until one finishes. With the
+     * {@link HttpTransport#CLASSIC} transport, there is little point in this
+     * being more than {@link #getMaxConnectionsPerRoute()}.
+     *
+     * @param maxAsyncOperationsInFlight maximum number of operations in
+     *                                   progress per asynchronous client
+     */
+    public void setMaxAsyncOperationsInFlight(@Positive int maxAsyncOperationsInFlight) {
+        this.maxAsyncOperationsInFlight = maxAsyncOperationsInFlight;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Set the number of times to retry an API call that was throttled or
+     * failed for a transient reason; {@code 0} never retries.
+     *
+     * @param maxRetries maximum number of retries per API call
+     * @see RetryingInvocationInterceptor
+     */
+    public void setMaxRetries(@PositiveOrZero int maxRetries) {
+        this.maxRetries = maxRetries;
+        defaultInvocationInterceptor = null;
+    }
+
+    public Duration getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    /**
+     * @param retryBaseDelay longest delay before the first retry, when the
+     *                       server doesn't say; the delay doubles with each
+     *                       further retry
+     */
+    public void setRetryBaseDelay(@Nonnull Duration retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+        defaultInvocationInterceptor = null;
+    }
+
+    public Duration getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    /**
+     * @param retryMaxDelay longest delay between retries; calls the server
+     *                      asks to delay for longer fail instead
+     */
+    public void setRetryMaxDelay(@Nonnull Duration retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+        defaultInvocationInterceptor = null;
+    }
+
+    public double getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    /**
+     * Set the maximum rate at which to start API calls, across every client
+     * from this factory; {@code 0} (the default) doesn't limit the rate.
+     * Whatever the rate, the number of calls in flight is lowered whenever
+     * the server throttles calls, and raised again gradually.
+     *
+     * @param maxRequestsPerSecond maximum number of API calls per second
+     * @see AdaptiveRateLimiter
+     */
+    public void setMaxRequestsPerSecond(@PositiveOrZero double maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        defaultInvocationInterceptor = null;
+    }
+
+    public ApiClient.InvocationInterceptor getInvocationInterceptor() {
+        return invocationInterceptor;
+    }
+
+    /**
+     * Replace the default retry and rate limiting of API calls.
+     *
+     * @param invocationInterceptor interceptor to wrap each blocking API call
+     *                              with, or {@code null} for the default
+     */
+    public void setInvocationInterceptor(ApiClient.InvocationInterceptor invocationInterceptor) {
+        this.invocationInterceptor = invocationInterceptor;
+    }
+
     @Nonnull
     public ThreescaleCmsClient getThreescaleCmsClient() {
-        return new ThreescaleCmsClientImpl(newApiClient());
+        ThreescaleCmsClientImpl client = new ThreescaleCmsClientImpl(newApiClient());
+
+        if (maxPagesInFlight > 0) {
+            client.setPagePrefetch(getExecutorService(), maxPagesInFlight);
+        }
+
+        if (maxConcurrentListings > 1) {
+            client.setListingConcurrency(getExecutorService(), maxConcurrentListings);
+        }
+
+        return client;
+    }
+
+    @Nonnull
+    public AsyncThreescaleCmsClient getAsyncThreescaleCmsClient() {
+        Executor executor = asyncExecutor;
+        if (executor == null) {
+            executor = getExecutorService();
+        }
+
+        return new AsyncThreescaleCmsClientImpl(getThreescaleCmsClient(), executor, maxAsyncOperationsInFlight);
     }
 
     @Override
     public void close() throws Exception {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
         if (httpClientConnectionManager != null) {
             httpClientConnectionManager.close();
         }
         if (httpClient != null) {
             httpClient.close();
         }
+        if (asyncHttpClient != null) {
+            asyncHttpClient.close(CloseMode.GRACEFUL);
+        }
+        if (asyncClientConnectionManager != null) {
+            asyncClientConnectionManager.close();
+        }
+        for (ModalCloseable retiredHttpClient : retiredHttpClients) {
+            retiredHttpClient.close(CloseMode.GRACEFUL);
+        }
+        retiredHttpClients.clear();
+    }
+
+    public enum HttpTransport {
+        /**
+         * HttpClient's classic, blocking client; each request in progress
+         * holds a thread and a pooled connection
+         */
+        CLASSIC,
+
+        /**
+         * HttpClient's asynchronous client over pooled connections,
+         * negotiating HTTP/2 with TLS servers that offer it
+         */
+        ASYNC,
+
+        /**
+         * HttpClient's asynchronous HTTP/2 client, which multiplexes every
+         * request to a host over a single connection; the server must
+         * support HTTP/2
+         */
+        HTTP2
     }
 }
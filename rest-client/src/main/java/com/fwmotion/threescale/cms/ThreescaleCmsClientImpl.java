@@ -7,6 +7,8 @@ import com.fwmotion.threescale.cms.mappers.CmsFileMapper;
 import com.fwmotion.threescale.cms.mappers.CmsSectionMapper;
 import com.fwmotion.threescale.cms.mappers.CmsTemplateMapper;
 import com.fwmotion.threescale.cms.model.*;
+import com.fwmotion.threescale.cms.support.AbstractPagedRestApiSpliterator;
+import com.fwmotion.threescale.cms.support.ConcurrentListingSpliterator;
 import com.fwmotion.threescale.cms.support.PagedFilesSpliterator;
 import com.fwmotion.threescale.cms.support.PagedSectionsSpliterator;
 import com.fwmotion.threescale.cms.support.PagedTemplatesSpliterator;
@@ -19,21 +21,32 @@ import com.redhat.threescale.rest.cms.model.Error;
 import com.redhat.threescale.rest.cms.model.*;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
-import org.apache.commons.io.FileUtils;
+import jakarta.validation.constraints.PositiveOrZero;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.mapstruct.factory.Mappers;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -48,6 +61,12 @@ public class ThreescaleCmsClientImpl implements ThreescaleCmsClient {
     private final TemplatesApi templatesApi;
     private final ObjectMapper objectMapper;
 
+    private Executor pagePrefetchExecutor;
+    private int maxPagesInFlight;
+    private Executor listingExecutor;
+    private int maxConcurrentListings;
+    private volatile ProviderAccount providerAccount;
+
     public ThreescaleCmsClientImpl(@Nonnull FilesApi filesApi,
                                    @Nonnull SectionsApi sectionsApi,
                                    @Nonnull TemplatesApi templatesApi,
@@ -65,6 +84,46 @@ public class ThreescaleCmsClientImpl implements ThreescaleCmsClient {
             apiClient.getObjectMapper());
     }
 
+    /**
+     * Configure listing operations to request upcoming pages in the
+     * background.
+     *
+     * @param executor         the executor to run page requests on, or
+     *                         {@code null} to request pages one at a time
+     * @param maxPagesInFlight maximum number of outstanding page requests per
+     *                         listing; {@code 0} requests pages one at a time
+     * @see AbstractPagedRestApiSpliterator#setPagePrefetch(Executor, int)
+     */
+    public void setPagePrefetch(@Nullable Executor executor,
+                                @PositiveOrZero int maxPagesInFlight) {
+        this.pagePrefetchExecutor = executor;
+        this.maxPagesInFlight = maxPagesInFlight;
+    }
+
+    /**
+     * Configure {@link #streamAllCmsObjects()} to list sections, files and
+     * templates at the same time, rather than one after another. Objects are
+     * still supplied in the same order.
+     *
+     * @param executor              the executor to run listings on, or
+     *                              {@code null} to list one after another
+     * @param maxConcurrentListings maximum number of listings to run at the
+     *                              same time; {@code 1} or less lists one
+     *                              after another
+     * @see ConcurrentListingSpliterator
+     */
+    public void setListingConcurrency(@Nullable Executor executor,
+                                      @PositiveOrZero int maxConcurrentListings) {
+        this.listingExecutor = executor;
+        this.maxConcurrentListings = maxConcurrentListings;
+    }
+
+    @Nonnull
+    private <T, S extends AbstractPagedRestApiSpliterator<T>> S withPagePrefetch(@Nonnull S spliterator) {
+        spliterator.setPagePrefetch(pagePrefetchExecutor, maxPagesInFlight);
+        return spliterator;
+    }
+
     private <T> T handleApiErrors(
         @Nonnull ApiBlock<T> apiBlock,
         @Nullable ApiExceptionTransformer<?> exceptionTransformer
@@ -122,59 +181,189 @@ public class ThreescaleCmsClientImpl implements ThreescaleCmsClient {
         return exceptionTransformer.transformException(apiException);
     }
 
+    @Nonnull
+    @Override
+    public Stream<CmsObject> streamAllCmsObjects(boolean includeTemplateContent) {
+        if (listingExecutor == null || maxConcurrentListings <= 1) {
+            return ThreescaleCmsClient.super.streamAllCmsObjects(includeTemplateContent);
+        }
+
+        ConcurrentListingSpliterator<CmsObject> spliterator = new ConcurrentListingSpliterator<>(
+            listingExecutor,
+            maxConcurrentListings,
+            List.of(
+                this::streamSections,
+                this::streamFiles,
+                () -> streamTemplates(includeTemplateContent)));
+
+        return StreamSupport.stream(spliterator, false)
+            .onClose(spliterator::cancel);
+    }
+
+    @Nonnull
+    @Override
+    public Map<ThreescaleObjectType, Integer> countCmsObjects() {
+        return handleApiErrors(() -> {
+            Map<ThreescaleObjectType, Integer> counts = new EnumMap<>(ThreescaleObjectType.class);
+
+            putTotalEntries(counts, ThreescaleObjectType.SECTION,
+                sectionsApi.listSections(1, 1).getMetadata());
+            putTotalEntries(counts, ThreescaleObjectType.FILE,
+                filesApi.listFiles(1, 1, null).getMetadata());
+            putTotalEntries(counts, ThreescaleObjectType.TEMPLATE,
+                templatesApi.listTemplates(1, 1, false).getMetadata());
+
+            return counts;
+        });
+    }
+
+    private static void putTotalEntries(@Nonnull Map<ThreescaleObjectType, Integer> counts,
+                                        @Nonnull ThreescaleObjectType type,
+                                        @Nullable ListPaginationMetadata metadata) {
+        Optional.ofNullable(metadata)
+            .map(ListPaginationMetadata::getTotalEntries)
+            .ifPresent(totalEntries -> counts.put(type, totalEntries));
+    }
+
     @Nonnull
     @Override
     public Stream<CmsSection> streamSections() {
-        return StreamSupport.stream(new PagedSectionsSpliterator(sectionsApi, objectMapper), true);
+        return StreamSupport.stream(withPagePrefetch(new PagedSectionsSpliterator(sectionsApi, objectMapper)), true);
     }
 
     @Nonnull
     @Override
     public Stream<CmsFile> streamFiles() {
-        return StreamSupport.stream(new PagedFilesSpliterator(filesApi, objectMapper), true);
+        return StreamSupport.stream(withPagePrefetch(new PagedFilesSpliterator(filesApi, objectMapper)), true);
     }
 
     @Nonnull
     @Override
     public Optional<InputStream> getFileContent(long fileId) {
+        return executeFileContentRequest(fileId, null, ThreescaleCmsClientImpl::readFileContent);
+    }
+
+    @Nonnull
+    @Override
+    public Optional<InputStream> getFileContent(@Nonnull CmsFile file) {
+        return executeFileContentRequest(
+            Objects.requireNonNull(file.getId()),
+            file.getPath(),
+            ThreescaleCmsClientImpl::readFileContent);
+    }
+
+    @Override
+    public long downloadFileContent(long fileId, @Nonnull WritableByteChannel target) {
+        return executeFileContentRequest(fileId, null,
+            response -> writeFileContent(fileId, response, target));
+    }
+
+    @Override
+    public long downloadFileContent(@Nonnull CmsFile file, @Nonnull WritableByteChannel target) {
+        long fileId = Objects.requireNonNull(file.getId());
+
+        return executeFileContentRequest(fileId, file.getPath(),
+            response -> writeFileContent(fileId, response, target));
+    }
+
+    @Nonnull
+    private static Optional<InputStream> readFileContent(@Nullable ClassicHttpResponse response) throws IOException {
+        if (response == null) {
+            return Optional.empty();
+        }
+
+        // TODO: Validate response headers, status code, etc
+
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(
+            new ByteArrayInputStream(entity.getContent().readAllBytes())
+        );
+    }
+
+    private static long writeFileContent(long fileId,
+                                         @Nullable ClassicHttpResponse response,
+                                         @Nonnull WritableByteChannel target) throws IOException {
+        HttpEntity entity = Optional.ofNullable(response)
+            .map(ClassicHttpResponse::getEntity)
+            .orElseThrow(() -> new ThreescaleCmsNonApiException("No content returned for file " + fileId));
+
+        // The developer portal answers errors with an HTML page, which
+        // mustn't end up in the local file
+        int statusCode = response.getCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            throw new ThreescaleCmsApiException(statusCode,
+                "Unexpected HTTP status " + statusCode + " while retrieving content of file " + fileId);
+        }
+
+        // Copy through a bounded buffer, rather than holding the whole
+        // body in memory; the target channel is left open for the caller
+        try (InputStream content = entity.getContent()) {
+            return content.transferTo(Channels.newOutputStream(target));
+        }
+    }
+
+    /**
+     * Request the content of a file from the developer portal.
+     *
+     * @param fileId   ID of the file to retrieve
+     * @param filePath path of the file in the developer portal, if already
+     *                 known (ie, from a listing); otherwise, the file is
+     *                 looked up by ID first
+     */
+    private <T> T executeFileContentRequest(long fileId,
+                                            @Nullable String filePath,
+                                            @Nonnull HttpClientResponseHandler<T> responseHandler) {
         return handleApiErrors(() -> {
             CloseableHttpClient httpClient = filesApi.getApiClient().getHttpClient();
-            ModelFile file = filesApi.getFile(fileId);
-            ProviderAccount account = filesApi.readProviderSettings().getAccount();
+            String path = StringUtils.isNotEmpty(filePath)
+                ? filePath
+                : filesApi.getFile(fileId).getPath();
+            ProviderAccount account = getProviderAccount();
 
-            HttpGet request = new HttpGet(account.getBaseUrl() + file.getPath());
+            HttpGet request = new HttpGet(account.getBaseUrl() + path);
             request.setHeader(HttpHeaders.ACCEPT, "*/*");
             if (StringUtils.isNotEmpty(account.getSiteAccessCode())) {
                 request.addHeader("Cookie", "access_code=" + account.getSiteAccessCode());
             }
 
             try {
-                return httpClient.execute(request, response -> {
-                    if (response == null) {
-                        return Optional.empty();
-                    }
-
-                    // TODO: Validate response headers, status code, etc
-
-                    HttpEntity entity = response.getEntity();
-                    if (entity == null) {
-                        return Optional.empty();
-                    }
-
-                    return Optional.of(
-                        new ByteArrayInputStream(entity.getContent().readAllBytes())
-                    );
-                });
+                return httpClient.execute(request, responseHandler);
             } catch (IOException e) {
                 throw new ThreescaleCmsNonApiException("IOException while retrieving file content", e);
             }
         });
     }
 
+    /**
+     * The provider account settings (developer portal base URL and access
+     * code) don't change while the client is in use, so they are only read
+     * once.
+     */
+    @Nonnull
+    private ProviderAccount getProviderAccount() throws ApiException {
+        ProviderAccount account = providerAccount;
+
+        if (account == null) {
+            synchronized (this) {
+                account = providerAccount;
+                if (account == null) {
+                    account = filesApi.readProviderSettings().getAccount();
+                    providerAccount = account;
+                }
+            }
+        }
+
+        return account;
+    }
+
     @Nonnull
     @Override
     public Stream<CmsTemplate> streamTemplates(boolean includeContent) {
-        return StreamSupport.stream(new PagedTemplatesSpliterator(templatesApi, objectMapper, includeContent), true);
+        return StreamSupport.stream(withPagePrefetch(new PagedTemplatesSpliterator(templatesApi, objectMapper, includeContent)), true);
     }
 
     @Nonnull
@@ -355,14 +544,9 @@ public class ThreescaleCmsClientImpl implements ThreescaleCmsClient {
             throw new IllegalArgumentException("New template must have draft content");
         }
 
-        String draft;
-        try {
-            draft = FileUtils.readFileToString(templateDraft, Charset.defaultCharset());
-        } catch (IOException e) {
-            throw new ThreescaleCmsNonApiException("Exception while reading file content for template draft", e);
-        }
+        Path draft = readableDraft(templateDraft);
 
-        return handleApiErrors(() -> templatesApi.createTemplate(template.getType(),
+        return handleApiErrors(() -> templatesApi.createTemplateFromFiles(template.getType(),
             template.getSystemName(),
             template.getTitle(),
             template.getPath(),
@@ -377,18 +561,11 @@ public class ThreescaleCmsClientImpl implements ThreescaleCmsClient {
 
     @SuppressWarnings("UnusedReturnValue")
     private Template saveUpdatedTemplate(long id, @Nonnull TemplateUpdatableFields template, @Nullable File templateDraft) {
-        String draft;
-        if (templateDraft == null) {
-            draft = null;
-        } else {
-            try {
-                draft = FileUtils.readFileToString(templateDraft, Charset.defaultCharset());
-            } catch (IOException e) {
-                throw new ThreescaleCmsNonApiException("Exception while reading file content for template draft", e);
-            }
-        }
+        Path draft = templateDraft == null
+            ? null
+            : readableDraft(templateDraft);
 
-        return handleApiErrors(() -> templatesApi.updateTemplate(id,
+        return handleApiErrors(() -> templatesApi.updateTemplateFromFiles(id,
             template.getSystemName(),
             template.getTitle(),
             template.getPath(),
@@ -401,6 +578,21 @@ public class ThreescaleCmsClientImpl implements ThreescaleCmsClient {
             template.getContentType()));
     }
 
+    /**
+     * The draft is read from its file as the request is sent (and again if
+     * the request is retried), so check up front that it can be read
+     */
+    @Nonnull
+    private static Path readableDraft(@Nonnull File templateDraft) {
+        Path draft = templateDraft.toPath();
+
+        if (!Files.isRegularFile(draft) || !Files.isReadable(draft)) {
+            throw new ThreescaleCmsNonApiException("Cannot read file content for template draft: " + templateDraft);
+        }
+
+        return draft;
+    }
+
     @Override
     public void publish(long templateId) throws ThreescaleCmsApiException {
         handleApiErrors(() -> templatesApi.publishTemplate(templateId));
@@ -8,6 +8,8 @@ import org.mapstruct.Mapping;
 @Mapper
 public interface CmsTemplateMapper {
 
+    @Mapping(target = "draftContent", source = "draft")
+    @Mapping(target = "publishedContent", source = "published")
     CmsBuiltinPage fromRestBuiltinPage(BuiltinPage builtinPage);
 
     @Mapping(target = "layoutName", source = "layout")
@@ -16,6 +18,8 @@ public interface CmsTemplateMapper {
     @Mapping(target = "sectionId", ignore = true)
     TemplateUpdatableFields toRestBuiltinPage(CmsBuiltinPage builtinPage);
 
+    @Mapping(target = "draftContent", source = "draft")
+    @Mapping(target = "publishedContent", source = "published")
     CmsBuiltinPartial fromRestBuiltinPartial(BuiltinPartial builtinPartial);
 
     @Mapping(target = "draft", ignore = true)
@@ -47,6 +51,8 @@ public interface CmsTemplateMapper {
     @Mapping(target = "sectionId", ignore = true)
     TemplateUpdatableFields toRestLayoutUpdate(CmsLayout layout);
 
+    @Mapping(target = "draftContent", source = "draft")
+    @Mapping(target = "publishedContent", source = "published")
     @Mapping(target = "sectionId", ignore = true)
     CmsPage fromRestPage(Page page);
 
@@ -63,6 +69,8 @@ public interface CmsTemplateMapper {
     @Mapping(target = "systemName", ignore = true)
     TemplateUpdatableFields toRestPageUpdate(CmsPage page);
 
+    @Mapping(target = "draftContent", source = "draft")
+    @Mapping(target = "publishedContent", source = "published")
     CmsPartial fromRestPartial(Partial partial);
 
     @Mapping(target = "type", constant = "PARTIAL")
@@ -16,6 +16,8 @@ public class CmsBuiltinPartial implements CmsBuiltinTemplate {
     private String contentType;
     private String handler;
     private Boolean liquidEnabled;
+    private String draftContent;
+    private String publishedContent;
 
     @Override
     public OffsetDateTime getCreatedAt() {
@@ -77,6 +79,24 @@ public class CmsBuiltinPartial implements CmsBuiltinTemplate {
         this.liquidEnabled = liquidEnabled;
     }
 
+    @Override
+    public String getDraftContent() {
+        return draftContent;
+    }
+
+    public void setDraftContent(String draftContent) {
+        this.draftContent = draftContent;
+    }
+
+    @Override
+    public String getPublishedContent() {
+        return publishedContent;
+    }
+
+    public void setPublishedContent(String publishedContent) {
+        this.publishedContent = publishedContent;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -101,6 +121,8 @@ public class CmsBuiltinPartial implements CmsBuiltinTemplate {
             .append("contentType", contentType)
             .append("handler", handler)
             .append("liquidEnabled", liquidEnabled)
+            .append("draftContent", draftContent)
+            .append("publishedContent", publishedContent)
             .toString();
     }
 }
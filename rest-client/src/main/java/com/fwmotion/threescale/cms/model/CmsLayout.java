@@ -88,6 +88,7 @@ public class CmsLayout implements CmsTemplate {
         this.liquidEnabled = liquidEnabled;
     }
 
+    @Override
     public String getDraftContent() {
         return draftContent;
     }
@@ -96,6 +97,7 @@ public class CmsLayout implements CmsTemplate {
         this.draftContent = draftContent;
     }
 
+    @Override
     public String getPublishedContent() {
         return publishedContent;
     }
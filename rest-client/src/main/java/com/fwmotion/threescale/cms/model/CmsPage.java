@@ -20,6 +20,8 @@ public class CmsPage implements CmsTemplate {
     private Boolean hidden;
     private String layout;
     private String title;
+    private String draftContent;
+    private String publishedContent;
 
     @Override
     public OffsetDateTime getCreatedAt() {
@@ -113,6 +115,24 @@ public class CmsPage implements CmsTemplate {
         this.title = title;
     }
 
+    @Override
+    public String getDraftContent() {
+        return draftContent;
+    }
+
+    public void setDraftContent(String draftContent) {
+        this.draftContent = draftContent;
+    }
+
+    @Override
+    public String getPublishedContent() {
+        return publishedContent;
+    }
+
+    public void setPublishedContent(String publishedContent) {
+        this.publishedContent = publishedContent;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -140,6 +160,8 @@ public class CmsPage implements CmsTemplate {
             .append("hidden", hidden)
             .append("layout", layout)
             .append("title", title)
+            .append("draftContent", draftContent)
+            .append("publishedContent", publishedContent)
             .toString();
     }
 }
@@ -1,6 +1,7 @@
 package com.fwmotion.threescale.cms.model;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 
 public interface CmsTemplate extends CmsObject {
 
@@ -10,4 +11,17 @@ public interface CmsTemplate extends CmsObject {
         return ThreescaleObjectType.TEMPLATE;
     }
 
+    /**
+     * @return the draft content, if it was requested when listing templates
+     */
+    @Nullable
+    String getDraftContent();
+
+    /**
+     * @return the published content, if it was requested when listing
+     * templates
+     */
+    @Nullable
+    String getPublishedContent();
+
 }
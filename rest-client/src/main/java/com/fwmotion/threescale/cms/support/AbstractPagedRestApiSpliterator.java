@@ -14,6 +14,9 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public abstract class AbstractPagedRestApiSpliterator<T> implements Spliterator<T> {
@@ -22,10 +25,23 @@ public abstract class AbstractPagedRestApiSpliterator<T> implements Spliterator<
 
     private final int requestedPageSize;
     private final ObjectMapper objectMapper;
-    private Iterator<T> currentPageIterator;
-    private int currentPageSize;
+    private List<T> currentPage;
+    private int currentPageIndex;
     private int currentPageNumber;
-    private boolean didSplit = false;
+    private boolean exhausted = false;
+
+    // Range of pages this spliterator is responsible for. Until pagination
+    // metadata has been seen, the range is unbounded; the spliterator holding
+    // the end of the list keeps going until an empty page is returned.
+    private int lastPageNumber = Integer.MAX_VALUE;
+    private boolean openEnded = true;
+    private boolean rangeBounded = false;
+    private volatile ListPaginationMetadata latestPaginationMetadata;
+
+    private Executor prefetchExecutor;
+    private int maxPagesInFlight;
+    private final Deque<CompletableFuture<Collection<T>>> pagesInFlight = new ArrayDeque<>();
+    private int lastRequestedPageNumber;
 
     protected AbstractPagedRestApiSpliterator(@Positive int requestedPageSize,
                                               @Nonnull ObjectMapper objectMapper,
@@ -33,9 +49,10 @@ public abstract class AbstractPagedRestApiSpliterator<T> implements Spliterator<
                                               @PositiveOrZero int currentPageNumber) {
         this.requestedPageSize = requestedPageSize;
         this.objectMapper = objectMapper;
-        this.currentPageIterator = currentPage.iterator();
-        this.currentPageSize = currentPage.size();
+        this.currentPage = new ArrayList<>(currentPage);
+        this.currentPageIndex = 0;
         this.currentPageNumber = currentPageNumber;
+        this.lastRequestedPageNumber = currentPageNumber;
     }
 
     protected AbstractPagedRestApiSpliterator(@Nonnull Collection<T> currentPage,
@@ -49,6 +66,31 @@ public abstract class AbstractPagedRestApiSpliterator<T> implements Spliterator<
         return objectMapper;
     }
 
+    /**
+     * Fetch upcoming pages in the background instead of requesting each page
+     * only after the previous one has been consumed. Once the first page
+     * reports the total number of pages, the remaining pages are requested
+     * right away, keeping at most {@code maxPagesInFlight} requests
+     * outstanding. Elements are still supplied in page order.
+     * <p>
+     * Spliterators split off from this one after the call inherit the
+     * setting, and prefetch within their own range of pages.
+     *
+     * @param executor         the executor to run page requests on, or
+     *                         {@code null} to disable prefetching
+     * @param maxPagesInFlight maximum number of page requests to keep
+     *                         outstanding; {@code 0} disables prefetching
+     */
+    public void setPagePrefetch(@Nullable Executor executor,
+                                @PositiveOrZero int maxPagesInFlight) {
+        this.prefetchExecutor = executor;
+        this.maxPagesInFlight = maxPagesInFlight;
+    }
+
+    private boolean isPrefetching() {
+        return prefetchExecutor != null && maxPagesInFlight > 0;
+    }
+
     @Nullable
     abstract protected Collection<T> getPage(@PositiveOrZero int pageNumber,
                                              @Positive int pageSize);
@@ -65,56 +107,258 @@ public abstract class AbstractPagedRestApiSpliterator<T> implements Spliterator<
 
     @Override
     public boolean tryAdvance(@Nonnull Consumer<? super T> action) {
-        // Try to advance to next page if the current one doesn't exist
-        if (!currentPageIterator.hasNext()) {
-            if (didSplit) {
+        // Try to advance to next page if the current one is used up
+        while (currentPageIndex >= currentPage.size()) {
+            if (!advancePage()) {
                 return false;
             }
+        }
 
-            Collection<T> nextPage = getPage(currentPageNumber + 1, requestedPageSize);
+        action.accept(currentPage.get(currentPageIndex++));
+        return true;
+    }
 
-            if (nextPage == null || nextPage.isEmpty()) {
-                didSplit = true;
-                return false;
-            }
+    private boolean advancePage() {
+        return advancePage(isPrefetching());
+    }
+
+    private boolean advancePage(boolean prefetch) {
+        if (exhausted) {
+            return false;
+        }
+
+        if (!openEnded && currentPageNumber >= lastPageNumber) {
+            exhausted = true;
+            return false;
+        }
+
+        Collection<T> nextPage;
+        if (prefetch) {
+            nextPage = takePrefetchedPage();
+        } else {
+            nextPage = getPage(currentPageNumber + 1, requestedPageSize);
+            lastRequestedPageNumber = Math.max(lastRequestedPageNumber, currentPageNumber + 1);
+        }
+
+        if (nextPage == null || nextPage.isEmpty()) {
+            exhausted = true;
+            cancelPagesInFlight();
+            return false;
+        }
+
+        currentPage = new ArrayList<>(nextPage);
+        currentPageIndex = 0;
+        currentPageNumber++;
+        boundRangeFromMetadata();
 
-            currentPageIterator = nextPage.iterator();
-            currentPageSize = nextPage.size();
-            currentPageNumber++;
+        // Pages turned up past the reported end (ie, the list grew while it
+        // was being read) belong to whichever spliterator holds the end
+        if (openEnded && currentPageNumber > lastPageNumber) {
+            lastPageNumber = currentPageNumber;
         }
 
-        action.accept(currentPageIterator.next());
         return true;
     }
 
+    @Nullable
+    private Collection<T> takePrefetchedPage() {
+        requestPrefetchPages();
+
+        CompletableFuture<Collection<T>> nextPageFuture = pagesInFlight.pollFirst();
+        if (nextPageFuture == null) {
+            return null;
+        }
+
+        Collection<T> nextPage;
+        try {
+            nextPage = nextPageFuture.join();
+        } catch (CompletionException e) {
+            cancelPagesInFlight();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        // The page just received may have reported the total page count, so
+        // top up the outstanding requests before handing the page over
+        boundRangeFromMetadata();
+        requestPrefetchPages();
+
+        return nextPage;
+    }
+
+    private void requestPrefetchPages() {
+        // Until the total is known, only ask for the next page; afterward,
+        // ask for everything in range. The spliterator holding the end of the
+        // list also asks for the first page past the end (which is expected
+        // to be empty, and terminates iteration as it always has)
+        int lastPageToRequest;
+        if (!rangeBounded) {
+            lastPageToRequest = currentPageNumber + 1;
+        } else if (openEnded) {
+            lastPageToRequest = Math.max(lastPageNumber, currentPageNumber) + 1;
+        } else {
+            lastPageToRequest = lastPageNumber;
+        }
+
+        while (pagesInFlight.size() < maxPagesInFlight
+            && lastRequestedPageNumber < lastPageToRequest) {
+            int pageNumber = ++lastRequestedPageNumber;
+
+            pagesInFlight.addLast(CompletableFuture.supplyAsync(
+                () -> getPage(pageNumber, requestedPageSize),
+                prefetchExecutor));
+        }
+    }
+
+    private void cancelPagesInFlight() {
+        pagesInFlight.forEach(future -> future.cancel(false));
+        pagesInFlight.clear();
+    }
+
+    /**
+     * Once a page has reported the total number of pages and entries, limit
+     * this spliterator's range to the pages that actually exist, which lets
+     * it be split arithmetically and sized exactly.
+     */
+    private void boundRangeFromMetadata() {
+        if (rangeBounded) {
+            return;
+        }
+
+        ListPaginationMetadata metadata = latestPaginationMetadata;
+        if (metadata == null
+            || metadata.getTotalPages() == null
+            || metadata.getTotalEntries() == null) {
+            return;
+        }
+
+        lastPageNumber = Math.max(
+            Math.min(lastPageNumber, metadata.getTotalPages()),
+            currentPageNumber);
+        rangeBounded = true;
+    }
+
+    /**
+     * Make sure this spliterator's range of pages is known, fetching the
+     * first page for its metadata if nothing has been fetched yet. That page
+     * is fetched directly, even when prefetching, so that the rest of the
+     * range can still be split before any further pages are requested. When
+     * the API doesn't report totals, the rest of the list is read up front.
+     */
+    private void ensureRangeBounded() {
+        if (rangeBounded) {
+            return;
+        }
+
+        boundRangeFromMetadata();
+        if (rangeBounded) {
+            return;
+        }
+
+        if (currentPageIndex >= currentPage.size()) {
+            advancePage(isPrefetching() && !pagesInFlight.isEmpty());
+            boundRangeFromMetadata();
+            if (rangeBounded) {
+                return;
+            }
+        }
+
+        List<T> remaining = new ArrayList<>(currentPage.subList(currentPageIndex, currentPage.size()));
+        while (advancePage()) {
+            remaining.addAll(currentPage);
+        }
+
+        currentPage = remaining;
+        currentPageIndex = 0;
+        lastPageNumber = currentPageNumber;
+        openEnded = false;
+        exhausted = true;
+        rangeBounded = true;
+    }
+
     @Nullable
     @Override
     public AbstractPagedRestApiSpliterator<T> trySplit() {
-        // Don't split again
-        if (didSplit) {
+        ensureRangeBounded();
+
+        if (exhausted) {
             return null;
         }
-        didSplit = true;
 
-        // If at the end of the list, return null
-        if (currentPageNumber > 0 && !currentPageIterator.hasNext() && currentPageSize < requestedPageSize) {
+        // Count the partially-read current page (if any) as one of the pages
+        // to be divided, so that it goes along with the first half
+        boolean hasBufferedElements = currentPageIndex < currentPage.size();
+        int firstPageNumber = hasBufferedElements
+            ? currentPageNumber
+            : currentPageNumber + 1;
+        int pageCount = lastPageNumber - firstPageNumber + 1;
+
+        if (pageCount < 2) {
             return null;
         }
 
-        // Get the next page
-        Collection<T> nextPage = getPage(currentPageNumber + 1, requestedPageSize);
+        // Pages already being fetched in the background come first, so they
+        // go along with the prefix
+        int prefixLastPageNumber = Math.max(
+            firstPageNumber + pageCount / 2 - 1,
+            lastRequestedPageNumber);
 
-        if (nextPage == null || nextPage.isEmpty()) {
+        if (prefixLastPageNumber >= lastPageNumber) {
             return null;
         }
 
-        return doSplit(requestedPageSize, nextPage, currentPageNumber + 1);
+        List<T> prefixCurrentPage = hasBufferedElements
+            ? currentPage.subList(currentPageIndex, currentPage.size())
+            : Collections.emptyList();
+
+        AbstractPagedRestApiSpliterator<T> prefix = doSplit(
+            requestedPageSize,
+            prefixCurrentPage,
+            currentPageNumber);
+        prefix.lastPageNumber = prefixLastPageNumber;
+        prefix.openEnded = false;
+        prefix.rangeBounded = true;
+        prefix.latestPaginationMetadata = latestPaginationMetadata;
+        prefix.setPagePrefetch(prefetchExecutor, maxPagesInFlight);
+        prefix.pagesInFlight.addAll(pagesInFlight);
+        prefix.lastRequestedPageNumber = lastRequestedPageNumber;
+        pagesInFlight.clear();
+
+        currentPage = Collections.emptyList();
+        currentPageIndex = 0;
+        currentPageNumber = prefixLastPageNumber;
+        lastRequestedPageNumber = prefixLastPageNumber;
+
+        return prefix;
     }
 
     @PositiveOrZero
     @Override
     public long estimateSize() {
-        return Long.MAX_VALUE;
+        long size = currentPage.size() - currentPageIndex;
+
+        // Sizing doesn't fetch anything; until a page has reported the
+        // totals, the size isn't known
+        if (!exhausted && !rangeBounded) {
+            return Long.MAX_VALUE;
+        }
+
+        ListPaginationMetadata metadata = latestPaginationMetadata;
+        if (!exhausted
+            && currentPageNumber < lastPageNumber
+            && metadata != null
+            && metadata.getTotalEntries() != null) {
+            int perPage = Optional.ofNullable(metadata.getPerPage())
+                .orElse(requestedPageSize);
+            long totalEntries = metadata.getTotalEntries();
+
+            size += Math.min((long) lastPageNumber * perPage, totalEntries)
+                - Math.min((long) currentPageNumber * perPage, totalEntries);
+        }
+
+        return Math.max(size, 0);
     }
 
     protected void validateResultPageSize(@Nonnull String type,
@@ -122,6 +366,10 @@ public abstract class AbstractPagedRestApiSpliterator<T> implements Spliterator<
                                           @Positive int pageSize,
                                           @Nonnull Collection<T> resultPage,
                                           @Nullable ListPaginationMetadata paginationMetadata) {
+        if (paginationMetadata != null) {
+            latestPaginationMetadata = paginationMetadata;
+        }
+
         int currentPage = Optional.ofNullable(paginationMetadata)
             .map(ListPaginationMetadata::getCurrentPage)
             .orElse(pageNumber);
@@ -140,7 +388,10 @@ public abstract class AbstractPagedRestApiSpliterator<T> implements Spliterator<
             || currentPage == totalPages) {
             expectedPageSize = Optional.ofNullable(paginationMetadata)
                 .map(ListPaginationMetadata::getTotalEntries)
-                .map(totalEntries -> totalEntries % perPage)
+                // A last page is full when the entries fill every page
+                .map(totalEntries -> totalEntries > 0 && totalEntries % perPage == 0
+                    ? perPage
+                    : totalEntries % perPage)
                 .orElseGet(resultPage::size);
         } else {
             expectedPageSize = perPage;
@@ -0,0 +1,176 @@
+package com.fwmotion.threescale.cms.support;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate and concurrency of requests to the 3scale API.
+ * <p>
+ * The rate is limited with a token bucket, holding up to one second's worth
+ * of requests. Concurrency is adapted AIMD-style (as in TCP congestion
+ * control): each request that isn't throttled raises the concurrency limit
+ * a little, so that it grows by about one for each full round of requests,
+ * while a throttled request halves it. Once a server asks for requests to
+ * stop for a while (with {@code Retry-After}), no requests are started until
+ * that time has passed.
+ */
+public class AdaptiveRateLimiter {
+
+    private static final double DECREASE_FACTOR = 0.5;
+
+    private final double maxRequestsPerSecond;
+    private final double maxTokens;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private double concurrencyLimit;
+    private int requestsInFlight = 0;
+    private long pausedUntilNanos;
+    private long requestsStarted = 0;
+    private long lastDecreaseRequestNumber = 0;
+
+    /**
+     * @param maxRequestsPerSecond maximum rate to start requests at;
+     *                             {@code 0} doesn't limit the rate
+     * @param maxConcurrency       maximum (and initial) number of requests in
+     *                             flight
+     */
+    public AdaptiveRateLimiter(@PositiveOrZero double maxRequestsPerSecond,
+                               @Positive int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        this.minConcurrency = 1;
+        this.maxConcurrency = maxConcurrency;
+        this.maxTokens = Math.max(maxRequestsPerSecond, 1);
+        this.tokens = maxTokens;
+        this.concurrencyLimit = maxConcurrency;
+
+        long now = System.nanoTime();
+        this.lastRefillNanos = now;
+        this.pausedUntilNanos = now;
+    }
+
+    /**
+     * Wait until a request may be started.
+     *
+     * @return a permit, which must be released once the request has finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Nonnull
+    public synchronized Permit acquire() throws InterruptedException {
+        while (true) {
+            long now = System.nanoTime();
+            refillTokens(now);
+
+            long waitNanos;
+            if (now - pausedUntilNanos < 0) {
+                waitNanos = pausedUntilNanos - now;
+            } else if (requestsInFlight >= (int) concurrencyLimit) {
+                // Woken by a release
+                waitNanos = 0;
+            } else if (maxRequestsPerSecond > 0 && tokens < 1) {
+                waitNanos = (long) Math.ceil((1 - tokens) / maxRequestsPerSecond * TimeUnit.SECONDS.toNanos(1));
+            } else {
+                if (maxRequestsPerSecond > 0) {
+                    tokens -= 1;
+                }
+                requestsInFlight++;
+                return new Permit(++requestsStarted);
+            }
+
+            if (waitNanos == 0) {
+                wait();
+            } else {
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            }
+        }
+    }
+
+    private void refillTokens(long now) {
+        if (maxRequestsPerSecond > 0) {
+            double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            tokens = Math.min(maxTokens, tokens + elapsedSeconds * maxRequestsPerSecond);
+        }
+        lastRefillNanos = now;
+    }
+
+    private synchronized void release(@Nonnull Permit permit,
+                                      boolean throttled,
+                                      @Nullable Duration retryAfter) {
+        requestsInFlight--;
+
+        if (throttled) {
+            // Requests already in flight when the limit was lowered are
+            // likely to be throttled too; only lower it once for them
+            if (permit.requestNumber > lastDecreaseRequestNumber) {
+                concurrencyLimit = Math.max(minConcurrency, concurrencyLimit * DECREASE_FACTOR);
+                lastDecreaseRequestNumber = requestsStarted;
+            }
+
+            if (retryAfter != null && !retryAfter.isNegative()) {
+                long resumeNanos = System.nanoTime() + retryAfter.toNanos();
+                if (resumeNanos - pausedUntilNanos > 0) {
+                    pausedUntilNanos = resumeNanos;
+                }
+            }
+        } else {
+            concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+        }
+
+        notifyAll();
+    }
+
+    /**
+     * @return the number of requests currently allowed in flight
+     */
+    public synchronized int getConcurrencyLimit() {
+        return (int) concurrencyLimit;
+    }
+
+    public final class Permit {
+
+        private final long requestNumber;
+        private boolean released = false;
+
+        private Permit(long requestNumber) {
+            this.requestNumber = requestNumber;
+        }
+
+        /**
+         * Release the permit after a request the server accepted (even if it
+         * failed for some other reason)
+         */
+        public void release() {
+            release(false, null);
+        }
+
+        /**
+         * Release the permit after a request the server throttled
+         *
+         * @param retryAfter how long the server asked to wait before sending
+         *                   more requests, if it said
+         */
+        public void releaseThrottled(@Nullable Duration retryAfter) {
+            release(true, retryAfter);
+        }
+
+        private void release(boolean throttled, @Nullable Duration retryAfter) {
+            if (!released) {
+                released = true;
+                AdaptiveRateLimiter.this.release(this, throttled, retryAfter);
+            }
+        }
+
+    }
+
+}
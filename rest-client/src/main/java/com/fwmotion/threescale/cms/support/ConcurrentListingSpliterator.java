@@ -0,0 +1,181 @@
+package com.fwmotion.threescale.cms.support;
+
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsNonApiException;
+import jakarta.annotation.Nonnull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Concatenates several listings, while reading them concurrently.
+ * <p>
+ * Up to {@code maxConcurrentListings} of the listings are read at the same
+ * time on the supplied executor, with each listing's elements buffered as
+ * they arrive. Elements are still supplied in the order of the listings
+ * given, and within each listing in its own order, so that the result is the
+ * same as if the listings were read one after another.
+ * <p>
+ * The first listing buffers at most {@code bufferCapacity} elements ahead of
+ * the consumer, after which it waits to be drained. The later listings can't
+ * be drained until the ones before them end, so they buffer everything they
+ * read rather than wait; that way, all the listings take roughly as long as
+ * the slowest of them. Listings still running are only stopped by
+ * {@link #cancel()}, so streams over this spliterator should call it when
+ * closed, and be closed when no longer needed.
+ */
+public class ConcurrentListingSpliterator<T> implements Spliterator<T> {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 100;
+
+    private static final Object END_OF_LISTING = new Object();
+
+    private final Executor executor;
+    private final int maxConcurrentListings;
+    private final List<Supplier<? extends Stream<? extends T>>> listings;
+    private final List<BlockingQueue<Object>> buffers;
+    private final List<Future<?>> tasks = new ArrayList<>();
+
+    private int currentListingIndex = 0;
+    private int listingsRunning = 0;
+    private volatile boolean cancelled = false;
+
+    public ConcurrentListingSpliterator(@Nonnull Executor executor,
+                                        @Positive int maxConcurrentListings,
+                                        @Nonnull List<Supplier<? extends Stream<? extends T>>> listings) {
+        this(executor, maxConcurrentListings, DEFAULT_BUFFER_CAPACITY, listings);
+    }
+
+    public ConcurrentListingSpliterator(@Nonnull Executor executor,
+                                        @Positive int maxConcurrentListings,
+                                        @Positive int bufferCapacity,
+                                        @Nonnull List<Supplier<? extends Stream<? extends T>>> listings) {
+        this.executor = executor;
+        this.maxConcurrentListings = maxConcurrentListings;
+        this.listings = List.copyOf(listings);
+        this.buffers = new ArrayList<>(listings.size());
+
+        for (int i = 0; i < listings.size(); i++) {
+            buffers.add(i == 0
+                ? new ArrayBlockingQueue<>(bufferCapacity)
+                : new LinkedBlockingQueue<>());
+        }
+
+        startListings();
+    }
+
+    private synchronized void startListings() {
+        while (!cancelled
+            && listingsRunning < maxConcurrentListings
+            && tasks.size() < listings.size()) {
+            Supplier<? extends Stream<? extends T>> listing = listings.get(tasks.size());
+            BlockingQueue<Object> buffer = buffers.get(tasks.size());
+
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                readListing(listing, buffer);
+                return null;
+            });
+
+            listingsRunning++;
+            tasks.add(task);
+            executor.execute(task);
+        }
+    }
+
+    private void readListing(@Nonnull Supplier<? extends Stream<? extends T>> listing,
+                             @Nonnull BlockingQueue<Object> buffer) {
+        try (Stream<? extends T> stream = listing.get()) {
+            stream.takeWhile(element -> !cancelled)
+                .forEachOrdered(element -> put(buffer, element));
+            put(buffer, END_OF_LISTING);
+        } catch (CancellationException e) {
+            // Nobody is waiting for the rest of this listing
+        } catch (RuntimeException | Error e) {
+            if (!cancelled) {
+                put(buffer, new ListingFailure(e));
+            }
+        } finally {
+            synchronized (this) {
+                listingsRunning--;
+            }
+            startListings();
+        }
+    }
+
+    private void put(@Nonnull BlockingQueue<Object> buffer,
+                     @Nonnull Object element) {
+        try {
+            buffer.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Listing cancelled");
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(@Nonnull Consumer<? super T> action) {
+        while (currentListingIndex < buffers.size()) {
+            Object next;
+            try {
+                next = buffers.get(currentListingIndex).take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new ThreescaleCmsNonApiException("Interrupted while listing CMS objects", e);
+            }
+
+            if (next == END_OF_LISTING) {
+                currentListingIndex++;
+                continue;
+            }
+
+            if (next instanceof ListingFailure failure) {
+                cancel();
+                if (failure.cause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw (Error) failure.cause();
+            }
+
+            @SuppressWarnings("unchecked")
+            T element = (T) next;
+
+            action.accept(element);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Stop reading any listings still in progress, and don't start any more.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        tasks.forEach(task -> task.cancel(true));
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    private record ListingFailure(@Nonnull Throwable cause) {
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.fwmotion.threescale.cms.support;
+
+import com.redhat.threescale.rest.cms.ApiClient;
+import com.redhat.threescale.rest.cms.ApiException;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.PositiveOrZero;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries API calls that failed for transient reasons, and paces calls with
+ * an {@link AdaptiveRateLimiter}.
+ * <p>
+ * Throttled calls ({@code 429 Too Many Requests}) weren't acted on by the
+ * server, so are retried whatever their method. Other transient failures
+ * (connection failures, and {@code 502}, {@code 503} and {@code 504}
+ * responses) are only retried for idempotent methods, as the server may have
+ * acted on the call before it failed.
+ * <p>
+ * Retries wait for the delay the server asked for with {@code Retry-After},
+ * or otherwise for an exponentially increasing delay with "full jitter" (a
+ * random delay up to the exponential delay), so that concurrent callers
+ * don't retry in lockstep. Calls the server asks to delay for longer than
+ * the maximum delay fail instead of waiting.
+ * <p>
+ * Both {@code 429} and {@code 503} responses count as throttling for the
+ * rate limiter, lowering the number of calls it lets through at once.
+ */
+public class RetryingInvocationInterceptor implements ApiClient.InvocationInterceptor {
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+    private static final Set<Integer> TRANSIENT_STATUSES = Set.of(
+        HttpStatus.SC_BAD_GATEWAY,
+        HttpStatus.SC_SERVICE_UNAVAILABLE,
+        HttpStatus.SC_GATEWAY_TIMEOUT);
+
+    private final AdaptiveRateLimiter rateLimiter;
+    private final int maxRetries;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+
+    /**
+     * @param rateLimiter rate limiter to pace calls with, or {@code null} to
+     *                    send calls as soon as they're made
+     * @param maxRetries  maximum number of times to retry each call
+     * @param baseDelay   delay before the first retry, without jitter; each
+     *                    following retry doubles it
+     * @param maxDelay    longest delay between retries, without jitter
+     */
+    public RetryingInvocationInterceptor(@Nullable AdaptiveRateLimiter rateLimiter,
+                                         @PositiveOrZero int maxRetries,
+                                         @Nonnull Duration baseDelay,
+                                         @Nonnull Duration maxDelay) {
+        this.rateLimiter = rateLimiter;
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    @Override
+    public <T> T intercept(String method,
+                           String path,
+                           ApiClient.Invocation<T> invocation) throws ApiException {
+        for (int retry = 0; ; retry++) {
+            AdaptiveRateLimiter.Permit permit = acquirePermit();
+
+            try {
+                T result = invocation.invoke();
+                releasePermit(permit, false, null);
+                return result;
+            } catch (ApiException e) {
+                boolean throttled = e.getCode() == HttpStatus.SC_TOO_MANY_REQUESTS
+                    || e.getCode() == HttpStatus.SC_SERVICE_UNAVAILABLE;
+                Duration retryAfter = getRetryAfter(e.getResponseHeaders());
+                releasePermit(permit, throttled, retryAfter);
+
+                if (retry >= maxRetries
+                    || !isRetryable(method, e)
+                    || retryAfter != null && retryAfter.compareTo(maxDelay) > 0) {
+                    throw e;
+                }
+
+                sleep(retryAfter != null ? retryAfter : getBackoffDelay(retry));
+            } catch (RuntimeException | Error e) {
+                releasePermit(permit, false, null);
+                throw e;
+            }
+        }
+    }
+
+    private boolean isRetryable(@Nonnull String method, @Nonnull ApiException e) {
+        if (e.getCode() == HttpStatus.SC_TOO_MANY_REQUESTS) {
+            return true;
+        }
+
+        if (!IDEMPOTENT_METHODS.contains(method)) {
+            return false;
+        }
+
+        // No response at all (eg, the connection failed)
+        return e.getCode() == 0 && e.getCause() != null
+            || TRANSIENT_STATUSES.contains(e.getCode());
+    }
+
+    @Nonnull
+    private Duration getBackoffDelay(int retry) {
+        long exponentialMillis = baseDelay.toMillis() << Math.min(retry, 30);
+        long capMillis = Math.min(Math.max(exponentialMillis, 0), maxDelay.toMillis());
+
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(capMillis + 1));
+    }
+
+    /**
+     * Parse a {@code Retry-After} header, as either a number of seconds or
+     * an HTTP date.
+     */
+    @Nullable
+    static Duration getRetryAfter(@Nullable Map<String, List<String>> responseHeaders) {
+        if (responseHeaders == null) {
+            return null;
+        }
+
+        String value = responseHeaders.entrySet()
+            .stream()
+            .filter(header -> HttpHeaders.RETRY_AFTER.equalsIgnoreCase(header.getKey()))
+            .flatMap(header -> header.getValue().stream())
+            .findFirst()
+            .map(String::trim)
+            .orElse(null);
+
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Math.max(Long.parseLong(value), 0));
+        } catch (NumberFormatException e) {
+            Instant retryAt = DateUtils.parseStandardDate(value);
+            if (retryAt == null) {
+                return null;
+            }
+
+            Duration delay = Duration.between(Instant.now(), retryAt);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        }
+    }
+
+    @Nullable
+    private AdaptiveRateLimiter.Permit acquirePermit() throws ApiException {
+        if (rateLimiter == null) {
+            return null;
+        }
+
+        try {
+            return rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(e);
+        }
+    }
+
+    private static void releasePermit(@Nullable AdaptiveRateLimiter.Permit permit,
+                                      boolean throttled,
+                                      @Nullable Duration retryAfter) {
+        if (permit == null) {
+            return;
+        }
+
+        if (throttled) {
+            permit.releaseThrottled(retryAfter);
+        } else {
+            permit.release();
+        }
+    }
+
+    private static void sleep(@Nonnull Duration delay) throws ApiException {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(e);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.fwmotion.threescale.cms;
+
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsApiException;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsNonApiException;
+import com.fwmotion.threescale.cms.model.CmsSection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.fwmotion.threescale.cms.matchers.InputStreamContentsMatcher.inputStreamContents;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncThreescaleCmsClientImplUnitTest {
+
+    @Mock
+    ThreescaleCmsClient threescaleCmsClient;
+
+    ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void getTemplateDraft_CompletesWithResult() throws Exception {
+        // Given the template draft can be retrieved
+        given(threescaleCmsClient.getTemplateDraft(16))
+            .willReturn(Optional.of(new ByteArrayInputStream("draft".getBytes())));
+
+        AsyncThreescaleCmsClient asyncClient = new AsyncThreescaleCmsClientImpl(threescaleCmsClient, executorService, 2);
+
+        // When the draft is requested
+        Optional<InputStream> result = asyncClient.getTemplateDraft(16)
+            .get(10, TimeUnit.SECONDS);
+
+        // Then the future should complete with the draft
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), inputStreamContents(is("draft")));
+    }
+
+    @Test
+    void save_ApiErrorFailsFuture() {
+        // Given the section can't be saved
+        CmsSection section = new CmsSection();
+        ThreescaleCmsApiException apiException = new ThreescaleCmsApiException(422, "Unprocessable Entity");
+        willAnswer(invocation -> {
+            throw apiException;
+        }).given(threescaleCmsClient).save(section);
+
+        AsyncThreescaleCmsClient asyncClient = new AsyncThreescaleCmsClientImpl(threescaleCmsClient, executorService, 2);
+
+        // When the section is saved
+        CompletableFuture<Void> future = asyncClient.save(section);
+
+        // Then the future should fail with the same exception
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> future.get(10, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), is(sameInstance(apiException)));
+    }
+
+    @Test
+    void publish_LimitsOperationsInFlight() throws Exception {
+        // Given publishing takes a while
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        willAnswer(invocation -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return null;
+        }).given(threescaleCmsClient).publish(anyLong());
+
+        AsyncThreescaleCmsClient asyncClient = new AsyncThreescaleCmsClientImpl(threescaleCmsClient, executorService, 3);
+
+        // When many templates are published at once
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (long templateId = 1; templateId <= 12; templateId++) {
+            futures.add(asyncClient.publish(templateId));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+            .get(10, TimeUnit.SECONDS);
+
+        // Then every template should have been published, with no more than
+        // 3 publishes in progress at a time, even with more threads available
+        then(threescaleCmsClient).should(times(12)).publish(anyLong());
+        assertThat(maxInFlight.get(), is(both(greaterThan(0)).and(lessThanOrEqualTo(3))));
+    }
+
+    @Test
+    void close_RejectsNewOperations() {
+        // Given the client has been closed
+        AsyncThreescaleCmsClient asyncClient = new AsyncThreescaleCmsClientImpl(threescaleCmsClient, executorService, 2);
+        asyncClient.close();
+
+        // When an operation is requested
+        CompletableFuture<Void> future = asyncClient.publish(16);
+
+        // Then it should fail without reaching the wrapped client
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> future.get(10, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), is(instanceOf(ThreescaleCmsNonApiException.class)));
+        then(threescaleCmsClient).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void publish_RunsLongQueueWithoutOverflowingStack() throws Exception {
+        // Given an executor that holds on to the first operation, then runs
+        // any others on the calling thread
+        List<Runnable> heldOperations = new ArrayList<>();
+        Executor executor = operation -> {
+            if (heldOperations.isEmpty()) {
+                heldOperations.add(operation);
+            } else {
+                operation.run();
+            }
+        };
+        AsyncThreescaleCmsClient asyncClient = new AsyncThreescaleCmsClientImpl(threescaleCmsClient, executor, 1);
+
+        // And a long queue of operations waiting for the first one
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (long templateId = 1; templateId <= 50_000; templateId++) {
+            futures.add(asyncClient.publish(templateId));
+        }
+
+        // When the first operation is run
+        heldOperations.get(0).run();
+
+        // Then every operation should have completed
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+            .get(10, TimeUnit.SECONDS);
+        then(threescaleCmsClient).should(times(50_000)).publish(anyLong());
+    }
+
+}
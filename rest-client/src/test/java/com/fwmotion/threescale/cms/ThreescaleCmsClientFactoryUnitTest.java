@@ -0,0 +1,88 @@
+package com.fwmotion.threescale.cms;
+
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsApiException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ThreescaleCmsClientFactoryUnitTest {
+
+    HttpServer server;
+
+    AtomicInteger requestCount = new AtomicInteger();
+
+    ThreescaleCmsClientFactory factory = new ThreescaleCmsClientFactory();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Every request is answered with 404, so it can be told apart from
+        // a request that never reached the server
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        factory.setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        factory.setProviderKey("provider-key");
+        factory.setMaxRetries(0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        factory.close();
+        server.stop(0);
+    }
+
+    @Test
+    void setMaxConnectionsTotal_KeepsIssuedClientsWorking() {
+        // Given a client issued by the factory
+        ThreescaleCmsClient issuedClient = factory.getThreescaleCmsClient();
+
+        // When connection settings are changed afterwards
+        factory.setMaxConnectionsTotal(4);
+        factory.setConnectTimeout(Duration.ofSeconds(10));
+
+        // Then the issued client should still reach the server
+        ThreescaleCmsApiException exception = assertThrows(ThreescaleCmsApiException.class,
+            () -> issuedClient.publish(1L));
+        assertThat(exception.getHttpStatus(), is(404));
+
+        // And so should a client issued with the new settings
+        ThreescaleCmsClient newClient = factory.getThreescaleCmsClient();
+        exception = assertThrows(ThreescaleCmsApiException.class,
+            () -> newClient.publish(1L));
+        assertThat(exception.getHttpStatus(), is(404));
+
+        assertThat(requestCount.get(), is(2));
+    }
+
+    @Test
+    void setHttpTransport_KeepsIssuedClientsWorking() {
+        // Given a client issued by the factory with the asynchronous transport
+        factory.setHttpTransport(ThreescaleCmsClientFactory.HttpTransport.ASYNC);
+        ThreescaleCmsClient issuedClient = factory.getThreescaleCmsClient();
+
+        // When the transport is changed afterwards
+        factory.setHttpTransport(ThreescaleCmsClientFactory.HttpTransport.CLASSIC);
+
+        // Then the issued client should still reach the server
+        ThreescaleCmsApiException exception = assertThrows(ThreescaleCmsApiException.class,
+            () -> issuedClient.publish(1L));
+        assertThat(exception.getHttpStatus(), is(404));
+        assertThat(requestCount.get(), is(1));
+    }
+
+}
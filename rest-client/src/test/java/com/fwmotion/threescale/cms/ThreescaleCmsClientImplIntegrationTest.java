@@ -73,6 +73,22 @@ public class ThreescaleCmsClientImplIntegrationTest {
         ));
     }
 
+    @Test
+    void listAllCmsObjects_AsyncHttpTransport() {
+        clientFactory.setHttpTransport(ThreescaleCmsClientFactory.HttpTransport.ASYNC);
+        cmsClient = clientFactory.getThreescaleCmsClient();
+
+        List<CmsObject> result = cmsClient.listAllCmsObjects();
+
+        assertThat(result, hasSize(99));
+        assertThat(result, hasItems(
+            FilesApiTestSupport.FAVICON_FILE_MATCHER,
+            SectionsApiTestSupport.ROOT_BUILTIN_SECTION_MATCHER,
+            SectionsApiTestSupport.CSS_SECTION_MATCHER,
+            TemplatesApiTestSupport.MAIN_LAYOUT_MATCHER
+        ));
+    }
+
     @Test
     void getFileContent() throws Exception {
         Optional<InputStream> result = cmsClient.getFileContent(16);
@@ -2,6 +2,8 @@ package com.fwmotion.threescale.cms;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fwmotion.threescale.cms.mixins.EnumHandlerMixIn;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsApiException;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsNonApiException;
 import com.fwmotion.threescale.cms.model.*;
 import com.fwmotion.threescale.cms.testsupport.FilesApiTestSupport;
 import com.fwmotion.threescale.cms.testsupport.SectionsApiTestSupport;
@@ -11,6 +13,7 @@ import com.redhat.threescale.rest.cms.api.FilesApi;
 import com.redhat.threescale.rest.cms.api.SectionsApi;
 import com.redhat.threescale.rest.cms.api.TemplatesApi;
 import com.redhat.threescale.rest.cms.model.*;
+import jakarta.annotation.Nonnull;
 import org.apache.commons.io.IOUtils;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
@@ -23,29 +26,40 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.fwmotion.threescale.cms.matchers.HeaderMatcher.header;
 import static com.fwmotion.threescale.cms.matchers.InputStreamContentsMatcher.inputStreamContents;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.times;
 
 @ExtendWith(MockitoExtension.class)
 class ThreescaleCmsClientImplUnitTest {
@@ -107,6 +121,35 @@ class ThreescaleCmsClientImplUnitTest {
             TemplatesApiTestSupport.MAIN_LAYOUT_MATCHER));
     }
 
+    @Test
+    void testStreamAllCmsObjects_ConcurrentListings() throws Exception {
+        sectionsApiTestSupport.givenListSectionRootAndCss();
+        filesApiTestSupport.givenListFilesOnlyFavicon();
+        templatesApiTestSupport.givenListTemplatesOnlyMainLayout();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        List<CmsObject> result;
+        try {
+            threescaleCmsClient.setListingConcurrency(executorService, 3);
+
+            try (Stream<CmsObject> cmsObjects = threescaleCmsClient.streamAllCmsObjects()) {
+                result = cmsObjects.collect(Collectors.toList());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        sectionsApiTestSupport.thenOnlyListSectionsCalled();
+        filesApiTestSupport.thenOnlyListFilesCalled();
+        templatesApiTestSupport.thenOnlyListTemplatesCalled();
+
+        assertThat(result, contains(
+            SectionsApiTestSupport.ROOT_BUILTIN_SECTION_MATCHER,
+            SectionsApiTestSupport.CSS_SECTION_MATCHER,
+            FilesApiTestSupport.FAVICON_FILE_MATCHER,
+            TemplatesApiTestSupport.MAIN_LAYOUT_MATCHER));
+    }
+
     @Test
     void listAllCmsObjects() throws Exception {
         sectionsApiTestSupport.givenListSectionOnlyRoot();
@@ -179,6 +222,34 @@ class ThreescaleCmsClientImplUnitTest {
         assertThat(result, contains(FilesApiTestSupport.FAVICON_FILE_MATCHER));
     }
 
+    @Test
+    void countCmsObjects() throws Exception {
+        // Given each collection reports its total on a one-entry page, except
+        // files, which don't report one
+        given(sectionsApi.listSections(eq(1), eq(1)))
+            .willReturn(new SectionList()
+                .metadata(new ListPaginationMetadata()
+                    .currentPage(1)
+                    .totalPages(3)
+                    .totalEntries(3)));
+        given(filesApi.listFiles(eq(1), eq(1), isNull()))
+            .willReturn(new FileList());
+        given(templatesApi.listTemplates(eq(1), eq(1), eq(false)))
+            .willReturn(new TemplateList()
+                .metadata(new ListPaginationMetadata()
+                    .currentPage(1)
+                    .totalPages(42)
+                    .totalEntries(42)));
+
+        // When the objects are counted
+        Map<ThreescaleObjectType, Integer> result = threescaleCmsClient.countCmsObjects();
+
+        // Then only the reported totals should be returned
+        assertThat(result, is(Map.of(
+            ThreescaleObjectType.SECTION, 3,
+            ThreescaleObjectType.TEMPLATE, 42)));
+    }
+
     @Test
     void getFileContent_ByIdNoAccessCode() throws Exception {
         // Given the HTTP client is accessible
@@ -437,6 +508,162 @@ class ThreescaleCmsClientImplUnitTest {
         assertThat(resultOptional.get(), inputStreamContents(equalTo("response data")));
     }
 
+    @Test
+    void getFileContent_ByListedCmsFileTwice() throws Exception {
+        // Given the HTTP client is accessible
+        given(filesApi.getApiClient()).willReturn(apiClient);
+
+        // And the Files API will return information about the tenant account
+        given(filesApi.readProviderSettings())
+            .willReturn(new WrappedProviderAccount()
+                .account(new ProviderAccount()
+                    .baseUrl("https://3scale.example.com")
+                    .siteAccessCode("")));
+
+        // And any direct HTTP request will return a result
+        given(httpClientMock.execute(ArgumentMatchers.any(HttpUriRequest.class), ArgumentMatchers.<HttpClientResponseHandler<?>>any()))
+            .willAnswer(invocation -> ((HttpClientResponseHandler<?>) invocation.getArgument(1))
+                .handleResponse(httpResponseMock));
+
+        given(httpResponseMock.getEntity())
+            .willAnswer(invocation -> new BasicHttpEntity(
+                IOUtils.toInputStream("response data", Charset.defaultCharset()),
+                ContentType.APPLICATION_JSON));
+
+        // When file content is requested twice for a file that already has
+        // its path from being listed
+        CmsFile cmsFile = new CmsFile();
+        cmsFile.setId(16L);
+        cmsFile.setPath(FilesApiTestSupport.FAVICON_FILE.getPath());
+
+        Optional<InputStream> firstResult = threescaleCmsClient.getFileContent(cmsFile);
+        Optional<InputStream> secondResult = threescaleCmsClient.getFileContent(cmsFile);
+
+        // Then the file should not have been looked up, and the tenant
+        // account should only have been read once
+        then(filesApi).should().readProviderSettings();
+        //noinspection ResultOfMethodCallIgnored
+        then(filesApi).should(atLeastOnce()).getApiClient();
+        then(filesApi).shouldHaveNoMoreInteractions();
+
+        // And both requests should have been for the listed path
+        ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        //noinspection resource
+        then(httpClientMock).should(times(2)).execute(requestCaptor.capture(), responseHandlerMatcher.capture());
+        assertThat(requestCaptor.getAllValues(), everyItem(
+            hasProperty("uri", is(URI.create("https://3scale.example.com" + FilesApiTestSupport.FAVICON_FILE.getPath())))));
+
+        // And the actual response data should have been returned both times
+        assertTrue(firstResult.isPresent());
+        assertThat(firstResult.get(), inputStreamContents(equalTo("response data")));
+        assertTrue(secondResult.isPresent());
+        assertThat(secondResult.get(), inputStreamContents(equalTo("response data")));
+    }
+
+    @Test
+    void downloadFileContent_ToChannel() throws Exception {
+        // Given the HTTP client is accessible
+        given(filesApi.getApiClient()).willReturn(apiClient);
+
+        // And the Files API will return information about the file
+        given(filesApi.getFile(eq(16L)))
+            .willReturn(FilesApiTestSupport.FAVICON_FILE);
+
+        // And the Files API will return information about the tenant account
+        given(filesApi.readProviderSettings())
+            .willReturn(new WrappedProviderAccount()
+                .account(new ProviderAccount()
+                    .baseUrl("https://3scale.example.com")
+                    .siteAccessCode("")));
+
+        // And any direct HTTP request will return a result
+        given(httpClientMock.execute(ArgumentMatchers.any(HttpUriRequest.class), ArgumentMatchers.<HttpClientResponseHandler<?>>any()))
+            .willAnswer(invocation -> ((HttpClientResponseHandler<?>) invocation.getArgument(1))
+                .handleResponse(httpResponseMock));
+
+        BasicHttpEntity responseEntity = new BasicHttpEntity(
+            IOUtils.toInputStream("response data", Charset.defaultCharset()),
+            ContentType.APPLICATION_OCTET_STREAM);
+        given(httpResponseMock.getEntity()).willReturn(responseEntity);
+        given(httpResponseMock.getCode()).willReturn(200);
+
+        // When file content is downloaded into a channel
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        long bytesWritten = threescaleCmsClient.downloadFileContent(16, Channels.newChannel(target));
+
+        // Then the HTTP client should have a request to pull file content
+        ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        //noinspection resource
+        then(httpClientMock).should(only()).execute(requestCaptor.capture(), responseHandlerMatcher.capture());
+        assertThat(requestCaptor.getValue().getUri(), is(URI.create("https://3scale.example.com" + FilesApiTestSupport.FAVICON_FILE.getPath())));
+
+        // And the response data should have been written to the channel
+        assertThat(target.toString(Charset.defaultCharset()), is("response data"));
+        assertThat(bytesWritten, is((long) "response data".length()));
+    }
+
+    @Test
+    void downloadFileContent_ToPath(@TempDir Path tempDir) throws Exception {
+        // Given an existing local file
+        Path target = Files.writeString(tempDir.resolve("favicon.ico"), "old content");
+
+        // And the file's content will be returned
+        givenFileContentResponse(200, "response data");
+
+        // When file content is downloaded to the local file
+        long bytesWritten = threescaleCmsClient.downloadFileContent(16, target);
+
+        // Then the local file should have been replaced
+        assertThat(Files.readString(target), is("response data"));
+        assertThat(bytesWritten, is((long) "response data".length()));
+
+        // And nothing else should have been left behind
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.collect(Collectors.toList()), contains(target));
+        }
+    }
+
+    @Test
+    void downloadFileContent_ToPath_ErrorStatus(@TempDir Path tempDir) throws Exception {
+        // Given an existing local file
+        Path target = Files.writeString(tempDir.resolve("favicon.ico"), "old content");
+
+        // And the developer portal will answer with an error page
+        givenFileContentResponse(404, "<html>Not Found</html>");
+
+        // When file content is downloaded to the local file, then the error
+        // status should be reported
+        ThreescaleCmsApiException exception = assertThrows(ThreescaleCmsApiException.class,
+            () -> threescaleCmsClient.downloadFileContent(16, target));
+        assertThat(exception.getHttpStatus(), is(404));
+
+        // And the local file should have been left as it was
+        assertThat(Files.readString(target), is("old content"));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.collect(Collectors.toList()), contains(target));
+        }
+    }
+
+    private void givenFileContentResponse(int statusCode, @Nonnull String content) throws Exception {
+        given(filesApi.getApiClient()).willReturn(apiClient);
+        given(filesApi.getFile(eq(16L)))
+            .willReturn(FilesApiTestSupport.FAVICON_FILE);
+        given(filesApi.readProviderSettings())
+            .willReturn(new WrappedProviderAccount()
+                .account(new ProviderAccount()
+                    .baseUrl("https://3scale.example.com")
+                    .siteAccessCode("")));
+
+        given(httpClientMock.execute(ArgumentMatchers.any(HttpUriRequest.class), ArgumentMatchers.<HttpClientResponseHandler<?>>any()))
+            .willAnswer(invocation -> ((HttpClientResponseHandler<?>) invocation.getArgument(1))
+                .handleResponse(httpResponseMock));
+
+        given(httpResponseMock.getEntity()).willReturn(new BasicHttpEntity(
+            IOUtils.toInputStream(content, Charset.defaultCharset()),
+            ContentType.APPLICATION_OCTET_STREAM));
+        given(httpResponseMock.getCode()).willReturn(statusCode);
+    }
+
     @Test
     void streamTemplates_WithNoContent() throws Exception {
         templatesApiTestSupport.givenListTemplatesOnlyMainLayout();
@@ -768,6 +995,75 @@ class ThreescaleCmsClientImplUnitTest {
         then(templatesApi).shouldHaveNoInteractions();
     }
 
+    @Test
+    void save_NewPage(@TempDir Path tempDir) throws Exception {
+        // Given a CmsPage object with no ID yet
+        CmsPage newPage = new CmsPage();
+        newPage.setId(null);
+        newPage.setPath("/new-page");
+        newPage.setSectionId(30L);
+        newPage.setLayout("main_layout");
+
+        // And a draft file
+        Path draft = Files.writeString(tempDir.resolve("new-page.html.liquid"), "<p>Draft</p>");
+
+        // And the generated API will respond with an object with an ID
+        given(templatesApi.createTemplateFromFiles(
+            eq(EnumTemplateType.PAGE),
+            nullable(String.class),
+            nullable(String.class),
+            eq(newPage.getPath()),
+            eq(draft),
+            eq(newPage.getSectionId()),
+            eq(newPage.getLayout()),
+            nullable(Long.class),
+            nullable(Boolean.class),
+            nullable(EnumHandler.class),
+            nullable(String.class)))
+            .willReturn(new Page()
+                .id(18L));
+
+        // When the interface code is called
+        threescaleCmsClient.save(newPage, draft.toFile());
+
+        // Then the draft file should have been passed on to be read as the
+        // request is sent
+        then(templatesApi).should(only()).createTemplateFromFiles(
+            eq(EnumTemplateType.PAGE),
+            nullable(String.class),
+            nullable(String.class),
+            eq(newPage.getPath()),
+            eq(draft),
+            eq(newPage.getSectionId()),
+            eq(newPage.getLayout()),
+            nullable(Long.class),
+            nullable(Boolean.class),
+            nullable(EnumHandler.class),
+            nullable(String.class));
+        then(sectionsApi).shouldHaveNoInteractions();
+        then(filesApi).shouldHaveNoInteractions();
+
+        // And the page should have had its ID updated
+        assertThat(newPage.getId(), is(18L));
+    }
+
+    @Test
+    void save_UpdatedPageMissingDraft(@TempDir Path tempDir) {
+        // Given a CmsPage object with an ID already
+        CmsPage updatedPage = new CmsPage();
+        updatedPage.setId(18L);
+        updatedPage.setPath("/page");
+
+        // When the interface code is called with a draft file that doesn't
+        // exist
+        File missingDraft = tempDir.resolve("missing.html.liquid").toFile();
+
+        // Then it should fail without calling the API
+        assertThrows(ThreescaleCmsNonApiException.class,
+            () -> threescaleCmsClient.save(updatedPage, missingDraft));
+        then(templatesApi).shouldHaveNoInteractions();
+    }
+
     @Test
     void testGetFileContent() {
     }
@@ -0,0 +1,84 @@
+package com.fwmotion.threescale.cms;
+
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsNonApiException;
+import com.fwmotion.threescale.cms.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Tests the default methods of {@link ThreescaleCmsClient}, as implementations
+ * outside this project that don't override them see them
+ */
+@ExtendWith(MockitoExtension.class)
+class ThreescaleCmsClientUnitTest {
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    ThreescaleCmsClient threescaleCmsClient;
+
+    @Test
+    void countCmsObjects_CountsListing() {
+        // Given a section with a file in it, and a template
+        given(threescaleCmsClient.streamSections())
+            .willReturn(Stream.of(new CmsSection()));
+        given(threescaleCmsClient.streamFiles())
+            .willReturn(Stream.of(new CmsFile()));
+        given(threescaleCmsClient.streamTemplates(false))
+            .willReturn(Stream.of(new CmsPage()));
+
+        // When the objects are counted
+        Map<ThreescaleObjectType, Integer> result = threescaleCmsClient.countCmsObjects();
+
+        // Then each type should have been counted
+        assertThat(result, is(Map.of(
+            ThreescaleObjectType.SECTION, 1,
+            ThreescaleObjectType.FILE, 1,
+            ThreescaleObjectType.TEMPLATE, 1)));
+    }
+
+    @Test
+    void downloadFileContent_ToChannel() throws Exception {
+        // Given the file's content can be retrieved
+        given(threescaleCmsClient.getFileContent(16))
+            .willReturn(Optional.of(new ByteArrayInputStream("file content".getBytes())));
+
+        // When the file is downloaded into a channel
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(target);
+        long bytesWritten = threescaleCmsClient.downloadFileContent(16, channel);
+
+        // Then the content should have been written, and the channel left
+        // open
+        assertThat(bytesWritten, is(12L));
+        assertThat(target.toString(), is("file content"));
+        assertThat(channel.isOpen(), is(true));
+    }
+
+    @Test
+    void downloadFileContent_NoContent() {
+        // Given the file's content can't be retrieved
+        given(threescaleCmsClient.getFileContent(16))
+            .willReturn(Optional.empty());
+
+        // When the file is downloaded, then it should fail
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        assertThrows(ThreescaleCmsNonApiException.class,
+            () -> threescaleCmsClient.downloadFileContent(16, Channels.newChannel(target)));
+    }
+
+}
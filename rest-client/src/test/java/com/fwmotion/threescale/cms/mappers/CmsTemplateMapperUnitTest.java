@@ -1,10 +1,14 @@
 package com.fwmotion.threescale.cms.mappers;
 
+import com.fwmotion.threescale.cms.model.CmsPartial;
+import com.fwmotion.threescale.cms.model.CmsTemplate;
 import com.redhat.threescale.rest.cms.model.EnumHandler;
+import com.redhat.threescale.rest.cms.model.Partial;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -54,4 +58,19 @@ class CmsTemplateMapperUnitTest {
         assertThat(result, is(EnumHandler.TEXTILE));
     }
 
+    @Test
+    void fromRest_TemplateContent() {
+        Partial partial = new Partial();
+        partial.setId(16L);
+        partial.setSystemName("header");
+        partial.setDraft("<header>draft</header>");
+        partial.setPublished("<header>published</header>");
+
+        CmsTemplate result = templateMapper.fromRest(partial);
+
+        assertThat(result, is(instanceOf(CmsPartial.class)));
+        assertThat(result.getDraftContent(), is("<header>draft</header>"));
+        assertThat(result.getPublishedContent(), is("<header>published</header>"));
+    }
+
 }
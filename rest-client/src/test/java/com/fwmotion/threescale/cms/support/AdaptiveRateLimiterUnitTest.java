@@ -0,0 +1,112 @@
+package com.fwmotion.threescale.cms.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class AdaptiveRateLimiterUnitTest {
+
+    @Test
+    void releaseThrottled_HalvesConcurrencyOncePerRound() throws Exception {
+        // Given 8 requests in flight
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(0, 8);
+        List<AdaptiveRateLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            permits.add(rateLimiter.acquire());
+        }
+
+        // When all of them are throttled
+        permits.forEach(permit -> permit.releaseThrottled(null));
+
+        // Then the limit should only have been halved once
+        assertThat(rateLimiter.getConcurrencyLimit(), is(4));
+
+        // And a throttled request started afterward should halve it again
+        rateLimiter.acquire().releaseThrottled(null);
+        assertThat(rateLimiter.getConcurrencyLimit(), is(2));
+    }
+
+    @Test
+    void release_RaisesConcurrencyGradually() throws Exception {
+        // Given the limit has been lowered to 2
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(0, 8);
+        rateLimiter.acquire().releaseThrottled(null);
+        rateLimiter.acquire().releaseThrottled(null);
+        assertThat(rateLimiter.getConcurrencyLimit(), is(2));
+
+        // When one request succeeds, then the limit shouldn't yet have grown
+        rateLimiter.acquire().release();
+        assertThat(rateLimiter.getConcurrencyLimit(), is(2));
+
+        // And after about a full round of requests succeeds, it should have
+        // grown by one
+        rateLimiter.acquire().release();
+        rateLimiter.acquire().release();
+        assertThat(rateLimiter.getConcurrencyLimit(), is(3));
+    }
+
+    @Test
+    void acquire_WaitsForConcurrencyLimit() throws Exception {
+        // Given the only permit is in use
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(0, 1);
+        AdaptiveRateLimiter.Permit permit = rateLimiter.acquire();
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            // When another request is started
+            Future<AdaptiveRateLimiter.Permit> waiting = executorService.submit(rateLimiter::acquire);
+
+            // Then it should wait until the first one is released
+            assertThat(waitBriefly(waiting), is(false));
+            permit.release();
+            assertThat(waiting.get(10, TimeUnit.SECONDS), is(notNullValue()));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void acquire_WaitsForRetryAfter() throws Exception {
+        // Given the server asked for requests to stop for 200 milliseconds
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(0, 4);
+        rateLimiter.acquire().releaseThrottled(Duration.ofMillis(200));
+
+        // When another request is started
+        long start = System.nanoTime();
+        rateLimiter.acquire();
+
+        // Then it should have waited
+        assertThat(Duration.ofNanos(System.nanoTime() - start), is(greaterThanOrEqualTo(Duration.ofMillis(150))));
+    }
+
+    @Test
+    void acquire_LimitsRate() throws Exception {
+        // Given a rate of 20 requests per second
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(20, 100);
+
+        // When 30 requests are started (20 immediately, from the full bucket)
+        long start = System.nanoTime();
+        for (int i = 0; i < 30; i++) {
+            rateLimiter.acquire().release();
+        }
+
+        // Then the last 10 should have taken about half a second
+        assertThat(Duration.ofNanos(System.nanoTime() - start), is(greaterThanOrEqualTo(Duration.ofMillis(400))));
+    }
+
+    private static boolean waitBriefly(Future<?> future) throws Exception {
+        try {
+            future.get(100, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+}
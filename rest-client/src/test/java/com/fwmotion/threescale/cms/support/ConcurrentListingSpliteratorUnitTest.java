@@ -0,0 +1,152 @@
+package com.fwmotion.threescale.cms.support;
+
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrentListingSpliteratorUnitTest {
+
+    ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void tryAdvance_KeepsListingOrderWithSmallBuffers() {
+        // Given 3 listings, much longer than their buffers
+        ConcurrentListingSpliterator<Integer> spliterator = new ConcurrentListingSpliterator<>(
+            executorService, 3, 2,
+            List.of(
+                () -> IntStream.range(0, 50).boxed(),
+                () -> IntStream.range(50, 100).boxed(),
+                () -> IntStream.range(100, 150).boxed()));
+
+        // When the elements are streamed
+        List<Integer> result;
+        try (Stream<Integer> stream = StreamSupport.stream(spliterator, false)
+            .onClose(spliterator::cancel)) {
+            result = stream.collect(Collectors.toList());
+        }
+
+        // Then they should be supplied in the order of the listings
+        assertThat(result, is(IntStream.range(0, 150).boxed().collect(Collectors.toList())));
+    }
+
+    @Test
+    void tryAdvance_LaterListingsFinishWhileFirstIsRunning() {
+        // Given a first listing, longer than its buffer, that waits part way
+        // through for the other listings (much longer than the buffer) to
+        // finish
+        CountDownLatch laterListingsDone = new CountDownLatch(2);
+        AtomicBoolean finishedWhileFirstRunning = new AtomicBoolean();
+        ConcurrentListingSpliterator<Integer> spliterator = new ConcurrentListingSpliterator<>(
+            executorService, 3, 2,
+            List.of(
+                () -> IntStream.range(0, 10).boxed()
+                    .peek(i -> {
+                        if (i == 5) {
+                            finishedWhileFirstRunning.set(await(laterListingsDone));
+                        }
+                    }),
+                () -> IntStream.range(10, 60).boxed()
+                    .onClose(laterListingsDone::countDown),
+                () -> IntStream.range(60, 110).boxed()
+                    .onClose(laterListingsDone::countDown)));
+
+        // When the elements are streamed
+        List<Integer> result;
+        try (Stream<Integer> stream = StreamSupport.stream(spliterator, false)
+            .onClose(spliterator::cancel)) {
+            result = stream.collect(Collectors.toList());
+        }
+
+        // Then the later listings should have finished while the first was
+        // still running, rather than waiting for it to be drained
+        assertThat(finishedWhileFirstRunning.get(), is(true));
+
+        // And the elements should still be in the order of the listings
+        assertThat(result, is(IntStream.range(0, 110).boxed().collect(Collectors.toList())));
+    }
+
+    @Test
+    void cancel_StopsListingsWaitingOnFullBuffers() throws Exception {
+        // Given a listing that never ends, buffering 2 elements at most
+        AtomicInteger produced = new AtomicInteger();
+        ConcurrentListingSpliterator<Integer> spliterator = new ConcurrentListingSpliterator<>(
+            executorService, 2, 2,
+            List.of(
+                () -> Stream.iterate(0, i -> i + 1).peek(i -> produced.incrementAndGet()),
+                () -> IntStream.range(0, 1000).boxed()));
+
+        // When a few elements are read and the stream is closed
+        try (Stream<Integer> stream = StreamSupport.stream(spliterator, false)
+            .onClose(spliterator::cancel)) {
+            assertThat(stream.limit(3).collect(Collectors.toList()), contains(0, 1, 2));
+        }
+
+        // Then the listings should stop, having read only a buffer's length
+        // past what was consumed
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS), is(true));
+        assertThat(produced.get(), is(lessThanOrEqualTo(6)));
+    }
+
+    @Test
+    void tryAdvance_PropagatesListingFailure() {
+        // Given a second listing that fails part way through
+        ConcurrentListingSpliterator<Integer> spliterator = new ConcurrentListingSpliterator<>(
+            executorService, 2, 2,
+            List.of(
+                () -> IntStream.range(0, 10).boxed(),
+                () -> IntStream.range(10, 20).boxed()
+                    .peek(i -> {
+                        if (i == 15) {
+                            throw new IllegalStateException("Listing failed");
+                        }
+                    })));
+
+        // When the elements are streamed, then the failure should surface
+        // after the elements before it
+        AtomicInteger consumed = new AtomicInteger();
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> StreamSupport.stream(spliterator, false)
+                .forEach(i -> consumed.incrementAndGet()));
+
+        assertThat(exception.getMessage(), is("Listing failed"));
+        assertThat(consumed.get(), is(15));
+    }
+
+    private static boolean await(@Nonnull CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,323 @@
+package com.fwmotion.threescale.cms.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fwmotion.threescale.cms.exception.ThreescaleCmsApiException;
+import com.fwmotion.threescale.cms.model.CmsSection;
+import com.redhat.threescale.rest.cms.ApiException;
+import com.redhat.threescale.rest.cms.api.SectionsApi;
+import com.redhat.threescale.rest.cms.model.ListPaginationMetadata;
+import com.redhat.threescale.rest.cms.model.Section;
+import com.redhat.threescale.rest.cms.model.SectionList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class PagedSectionsSpliteratorUnitTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Mock
+    SectionsApi sectionsApi;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void prefetch_ReturnsAllPagesInOrder() throws Exception {
+        // Given 7 sections split across 4 pages (plus the empty page after)
+        givenSectionPages(7);
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+        spliterator.setPagePrefetch(executorService, 3);
+
+        // When the sections are streamed
+        List<Long> result = StreamSupport.stream(spliterator, false)
+            .map(CmsSection::getId)
+            .collect(Collectors.toList());
+
+        // Then every section should be returned in page order
+        assertThat(result, contains(1L, 2L, 3L, 4L, 5L, 6L, 7L));
+
+        // And each page (including the terminating empty page) should have
+        // been requested exactly once
+        for (int page = 1; page <= 5; page++) {
+            then(sectionsApi).should().listSections(eq(page), eq(PAGE_SIZE));
+        }
+        then(sectionsApi).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void prefetch_FullLastPage() throws Exception {
+        // Given 6 sections filling all 3 pages (plus the empty page after)
+        givenSectionPages(6);
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+        spliterator.setPagePrefetch(executorService, 3);
+
+        // When the sections are streamed
+        List<Long> result = StreamSupport.stream(spliterator, false)
+            .map(CmsSection::getId)
+            .collect(Collectors.toList());
+
+        // Then every section should be returned, without the full last page
+        // being taken as a short one
+        assertThat(result, contains(1L, 2L, 3L, 4L, 5L, 6L));
+    }
+
+    @Test
+    void prefetch_EmptyList() throws Exception {
+        // Given no sections at all
+        given(sectionsApi.listSections(eq(1), eq(PAGE_SIZE)))
+            .willReturn(new SectionList()
+                .metadata(new ListPaginationMetadata()
+                    .currentPage(1)
+                    .perPage(PAGE_SIZE)
+                    .totalPages(0)
+                    .totalEntries(0)));
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+        spliterator.setPagePrefetch(executorService, 3);
+
+        // When the sections are streamed
+        List<CmsSection> result = StreamSupport.stream(spliterator, false)
+            .collect(Collectors.toList());
+
+        // Then nothing should be returned, and only one page requested
+        assertThat(result, is(empty()));
+        then(sectionsApi).should().listSections(eq(1), eq(PAGE_SIZE));
+        then(sectionsApi).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void prefetch_PropagatesApiErrors() throws Exception {
+        // Given the second page cannot be retrieved
+        givenSectionPages(7);
+        given(sectionsApi.listSections(eq(2), eq(PAGE_SIZE)))
+            .willThrow(new ApiException("Service Unavailable", 503, null, "Service Unavailable"));
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+        spliterator.setPagePrefetch(executorService, 3);
+
+        // When the sections are streamed, then the API error should surface
+        // as it does without prefetching
+        ThreescaleCmsApiException exception = assertThrows(ThreescaleCmsApiException.class,
+            () -> StreamSupport.stream(spliterator, false)
+                .collect(Collectors.toList()));
+
+        assertThat(exception.getHttpStatus(), is(503));
+    }
+
+    @Test
+    void estimateSize_UsesPaginationMetadata() throws Exception {
+        // Given 7 sections split across 4 pages
+        givenSectionPages(7);
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+
+        // When the size is estimated before anything has been fetched
+        long unknownSize = spliterator.estimateSize();
+
+        // Then it should be unknown, without any request being made
+        assertThat(unknownSize, is(Long.MAX_VALUE));
+        then(sectionsApi).shouldHaveNoInteractions();
+
+        // And once the first section has been read, the rest should be sized
+        // exactly from the first page's metadata
+        spliterator.tryAdvance(section -> {
+        });
+        assertThat(spliterator.estimateSize(), is(6L));
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED), is(false));
+        then(sectionsApi).should().listSections(eq(1), eq(PAGE_SIZE));
+        then(sectionsApi).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void trySplit_WithoutTotals_ReadsWholeList() throws Exception {
+        // Given 3 sections across 2 pages, with no totals in the metadata
+        for (int page = 1; page <= 3; page++) {
+            SectionList sectionList = new SectionList()
+                .metadata(new ListPaginationMetadata()
+                    .currentPage(page)
+                    .perPage(PAGE_SIZE));
+
+            LongStream.rangeClosed((long) (page - 1) * PAGE_SIZE + 1, Math.min((long) page * PAGE_SIZE, 3))
+                .mapToObj(id -> new Section().id(id))
+                .forEach(sectionList::addCollectionItem);
+
+            given(sectionsApi.listSections(eq(page), eq(PAGE_SIZE)))
+                .willReturn(sectionList);
+        }
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+
+        // When split, then there should be nothing to split off
+        assertThat(spliterator.trySplit(), is(nullValue()));
+
+        // And the size should be exact, with every section still supplied
+        assertThat(spliterator.estimateSize(), is(3L));
+
+        List<Long> result = StreamSupport.stream(spliterator, false)
+            .map(CmsSection::getId)
+            .collect(Collectors.toList());
+        assertThat(result, contains(1L, 2L, 3L));
+    }
+
+    @Test
+    void trySplit_DividesPagesEvenly() throws Exception {
+        // Given 15 sections split across 8 pages
+        givenSectionPages(15);
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+
+        // When split
+        Spliterator<CmsSection> prefix = spliterator.trySplit();
+
+        // Then the first page and the following 3 pages should go to the
+        // prefix, and the last 4 pages should stay behind
+        assertThat(prefix, is(notNullValue()));
+        assertThat(prefix.estimateSize(), is(8L));
+        assertThat(spliterator.estimateSize(), is(7L));
+
+        // And each half should split again along page boundaries
+        Spliterator<CmsSection> prefixOfSuffix = spliterator.trySplit();
+        assertThat(prefixOfSuffix, is(notNullValue()));
+        assertThat(prefixOfSuffix.estimateSize(), is(4L));
+        assertThat(spliterator.estimateSize(), is(3L));
+    }
+
+    @Test
+    void trySplit_WithPrefetch_SplitsBeforePrefetching() throws Exception {
+        // Given 15 sections split across 8 pages, prefetched 4 at a time
+        givenSectionPages(15);
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+        spliterator.setPagePrefetch(executorService, 4);
+
+        // When split before anything has been read
+        Spliterator<CmsSection> prefix = spliterator.trySplit();
+
+        // Then the pages should be divided evenly, with only the first page
+        // having been requested
+        assertThat(prefix, is(notNullValue()));
+        assertThat(prefix.estimateSize(), is(8L));
+        assertThat(spliterator.estimateSize(), is(7L));
+        then(sectionsApi).should().listSections(eq(1), eq(PAGE_SIZE));
+        then(sectionsApi).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void trySplit_WhilePrefetching_GivesPagesInFlightToPrefix() throws Exception {
+        // Given 15 sections split across 8 pages, prefetched 4 at a time
+        givenSectionPages(15);
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+        spliterator.setPagePrefetch(executorService, 4);
+
+        // And the first section already read, so that the following pages
+        // have been requested
+        spliterator.tryAdvance(section -> {
+        });
+
+        // When split
+        Spliterator<CmsSection> prefix = spliterator.trySplit();
+
+        // Then the prefix should take the pages in flight, and the rest of
+        // the sections should stay behind
+        assertThat(prefix, is(notNullValue()));
+        List<Long> result = StreamSupport.stream(prefix, false)
+            .map(CmsSection::getId)
+            .collect(Collectors.toList());
+        StreamSupport.stream(spliterator, false)
+            .map(CmsSection::getId)
+            .forEach(result::add);
+
+        assertThat(result, is(LongStream.rangeClosed(2, 15).boxed().collect(Collectors.toList())));
+
+        // And each page should have been requested exactly once
+        for (int page = 1; page <= 9; page++) {
+            then(sectionsApi).should().listSections(eq(page), eq(PAGE_SIZE));
+        }
+        then(sectionsApi).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void parallelStream_ReturnsAllPagesInOrder() throws Exception {
+        // Given 15 sections split across 8 pages (plus the empty page after)
+        givenSectionPages(15);
+
+        PagedSectionsSpliterator spliterator = new PagedSectionsSpliterator(sectionsApi, objectMapper, PAGE_SIZE);
+        spliterator.setPagePrefetch(executorService, 2);
+
+        // When the sections are streamed in parallel
+        List<Long> result = StreamSupport.stream(spliterator, true)
+            .map(CmsSection::getId)
+            .collect(Collectors.toList());
+
+        // Then every section should be returned in order
+        assertThat(result, is(LongStream.rangeClosed(1, 15).boxed().collect(Collectors.toList())));
+
+        // And each page (including the terminating empty page) should have
+        // been requested exactly once
+        for (int page = 1; page <= 9; page++) {
+            then(sectionsApi).should().listSections(eq(page), eq(PAGE_SIZE));
+        }
+        then(sectionsApi).shouldHaveNoMoreInteractions();
+    }
+
+    private void givenSectionPages(int totalEntries) throws ApiException {
+        int totalPages = (totalEntries + PAGE_SIZE - 1) / PAGE_SIZE;
+
+        for (int page = 1; page <= totalPages + 1; page++) {
+            SectionList sectionList = new SectionList()
+                .metadata(new ListPaginationMetadata()
+                    .currentPage(page)
+                    .perPage(PAGE_SIZE)
+                    .totalPages(totalPages)
+                    .totalEntries(totalEntries));
+
+            LongStream.rangeClosed((long) (page - 1) * PAGE_SIZE + 1, Math.min((long) page * PAGE_SIZE, totalEntries))
+                .mapToObj(id -> new Section()
+                    .id(id)
+                    .systemName("section" + id)
+                    .partialPath("/section" + id))
+                .forEach(sectionList::addCollectionItem);
+
+            // Lenient, as requests for pages past a failure may or may not be
+            // made by the time the failure is noticed
+            lenient().when(sectionsApi.listSections(eq(page), eq(PAGE_SIZE)))
+                .thenReturn(sectionList);
+        }
+    }
+
+}
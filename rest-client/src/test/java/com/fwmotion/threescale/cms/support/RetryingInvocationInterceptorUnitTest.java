@@ -0,0 +1,135 @@
+package com.fwmotion.threescale.cms.support;
+
+import com.redhat.threescale.rest.cms.ApiClient;
+import com.redhat.threescale.rest.cms.ApiException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class RetryingInvocationInterceptorUnitTest {
+
+    @Mock
+    ApiClient.Invocation<String> invocation;
+
+    RetryingInvocationInterceptor interceptor = new RetryingInvocationInterceptor(
+        new AdaptiveRateLimiter(0, 4),
+        3,
+        Duration.ofMillis(1),
+        Duration.ofMillis(10));
+
+    @Test
+    void intercept_RetriesThrottledPost() throws Exception {
+        // Given a POST is throttled twice before succeeding
+        given(invocation.invoke())
+            .willThrow(new ApiException("Too Many Requests", 429, Map.of("Retry-After", List.of("0")), null))
+            .willThrow(new ApiException("Too Many Requests", 429, null, null))
+            .willReturn("created");
+
+        // When the call is made
+        String result = interceptor.intercept("POST", "/admin/api/cms/templates.json", invocation);
+
+        // Then it should succeed on the third attempt
+        assertThat(result, is("created"));
+        then(invocation).should(times(3)).invoke();
+    }
+
+    @Test
+    void intercept_RetriesIdempotentCallOnTransientFailure() throws Exception {
+        // Given a GET fails with a connection failure, then a 503
+        given(invocation.invoke())
+            .willThrow(new ApiException(new IOException("Connection reset")))
+            .willThrow(new ApiException("Service Unavailable", 503, null, null))
+            .willReturn("listed");
+
+        // When the call is made
+        String result = interceptor.intercept("GET", "/admin/api/cms/sections.json", invocation);
+
+        // Then it should succeed on the third attempt
+        assertThat(result, is("listed"));
+        then(invocation).should(times(3)).invoke();
+    }
+
+    @Test
+    void intercept_DoesNotRetryNonIdempotentCallOnTransientFailure() throws Exception {
+        // Given a POST fails with a 503
+        ApiException failure = new ApiException("Service Unavailable", 503, null, null);
+        given(invocation.invoke())
+            .willThrow(failure);
+
+        // When the call is made, then it should fail without a retry, as
+        // the server may have acted on it
+        ApiException exception = assertThrows(ApiException.class,
+            () -> interceptor.intercept("POST", "/admin/api/cms/templates.json", invocation));
+
+        assertThat(exception, is(sameInstance(failure)));
+        then(invocation).should(times(1)).invoke();
+    }
+
+    @Test
+    void intercept_DoesNotRetryClientErrors() throws Exception {
+        // Given a GET is rejected as not found
+        given(invocation.invoke())
+            .willThrow(new ApiException("Not Found", 404, null, null));
+
+        // When the call is made, then it should fail without a retry
+        ApiException exception = assertThrows(ApiException.class,
+            () -> interceptor.intercept("GET", "/admin/api/cms/templates/1.json", invocation));
+
+        assertThat(exception.getCode(), is(404));
+        then(invocation).should(times(1)).invoke();
+    }
+
+    @Test
+    void intercept_GivesUpAfterMaxRetries() throws Exception {
+        // Given a GET is always throttled
+        given(invocation.invoke())
+            .willThrow(new ApiException("Too Many Requests", 429, null, null));
+
+        // When the call is made, then it should fail after 3 retries
+        ApiException exception = assertThrows(ApiException.class,
+            () -> interceptor.intercept("GET", "/admin/api/cms/sections.json", invocation));
+
+        assertThat(exception.getCode(), is(429));
+        then(invocation).should(times(4)).invoke();
+    }
+
+    @Test
+    void intercept_GivesUpWhenRetryAfterTooLong() throws Exception {
+        // Given a GET is throttled for an hour
+        given(invocation.invoke())
+            .willThrow(new ApiException("Too Many Requests", 429, Map.of("retry-after", List.of("3600")), null));
+
+        // When the call is made, then it should fail rather than wait
+        assertThrows(ApiException.class,
+            () -> interceptor.intercept("GET", "/admin/api/cms/sections.json", invocation));
+
+        then(invocation).should(times(1)).invoke();
+    }
+
+    @Test
+    void getRetryAfter_ParsesSecondsAndDates() {
+        assertThat(RetryingInvocationInterceptor.getRetryAfter(Map.of("Retry-After", List.of("120"))),
+            is(Duration.ofSeconds(120)));
+        assertThat(RetryingInvocationInterceptor.getRetryAfter(Map.of("Retry-After", List.of("Wed, 21 Oct 2015 07:28:00 GMT"))),
+            is(Duration.ZERO));
+        assertThat(RetryingInvocationInterceptor.getRetryAfter(Map.of("Retry-After", List.of("soon"))),
+            is(nullValue()));
+        assertThat(RetryingInvocationInterceptor.getRetryAfter(Map.of()),
+            is(nullValue()));
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.redhat.threescale.rest.cms;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ApiClientUnitTest {
+
+    ApiClient apiClient = new ApiClient();
+
+    @Test
+    void serialize_UrlEncodedFormFromFile(@TempDir Path tempDir) throws Exception {
+        // Given a draft file in UTF-8, with characters that need encoding
+        Path draft = Files.writeString(tempDir.resolve("draft.html"),
+            "<p>Café & crème</p>", StandardCharsets.UTF_8);
+        apiClient.setFormFileCharset(StandardCharsets.UTF_8);
+
+        // And a form with the draft amongst other fields
+        Map<String, Object> formParams = new LinkedHashMap<>();
+        formParams.put("type", "page");
+        formParams.put("draft", draft);
+        formParams.put("path", "/a page");
+
+        // When the form is serialized
+        HttpEntity entity = apiClient.serialize(null, formParams, ContentType.APPLICATION_FORM_URLENCODED);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        entity.writeTo(body);
+
+        // Then the draft should be URL-encoded as UTF-8, as the other fields
+        String expected = "type=page&draft=%3Cp%3ECaf%C3%A9+%26+cr%C3%A8me%3C%2Fp%3E&path=%2Fa+page";
+        assertThat(body.toString(StandardCharsets.US_ASCII), is(expected));
+
+        // And the entity should declare its charset, and be sent chunked, as
+        // its encoded length isn't known without reading the file
+        assertThat(entity.getContentLength(), is(-1L));
+        assertThat(entity.getContentType(), is("application/x-www-form-urlencoded; charset=UTF-8"));
+
+        // And it should be repeatable, for retries
+        assertThat(entity.isRepeatable(), is(true));
+        ByteArrayOutputStream repeatedBody = new ByteArrayOutputStream();
+        entity.writeTo(repeatedBody);
+        assertThat(repeatedBody.toString(StandardCharsets.US_ASCII), is(expected));
+    }
+
+    @Test
+    void serialize_UrlEncodedFormFromFileInOtherCharset(@TempDir Path tempDir) throws Exception {
+        // Given a draft file in ISO-8859-1
+        Path draft = Files.writeString(tempDir.resolve("draft.html"),
+            "Café", StandardCharsets.ISO_8859_1);
+        apiClient.setFormFileCharset(StandardCharsets.ISO_8859_1);
+
+        // When a form with the draft is serialized
+        HttpEntity entity = apiClient.serialize(null, Map.of("draft", draft),
+            ContentType.APPLICATION_FORM_URLENCODED);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        entity.writeTo(body);
+
+        // Then the draft should be re-encoded as UTF-8
+        assertThat(body.toString(StandardCharsets.US_ASCII), is("draft=Caf%C3%A9"));
+        assertThat(entity.getContentLength(), is(-1L));
+    }
+
+    @Test
+    void serialize_MultipartFormFromFile(@TempDir Path tempDir) throws Exception {
+        // Given a draft file
+        Path draft = Files.writeString(tempDir.resolve("draft.html"),
+            "<p>Café</p>", StandardCharsets.UTF_8);
+        apiClient.setFormFileCharset(StandardCharsets.UTF_8);
+
+        // When a multipart form with the draft is serialized
+        HttpEntity entity = apiClient.serialize(null, Map.of("draft", draft), ContentType.MULTIPART_FORM_DATA);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        entity.writeTo(body);
+        String content = body.toString(StandardCharsets.UTF_8);
+
+        // Then the draft should be sent as a text field, rather than a file
+        assertThat(content, containsString("Content-Disposition: form-data; name=\"draft\"\r\n"));
+        assertThat(content, not(containsString("filename=")));
+        assertThat(content, containsString("Content-Type: text/plain; charset=UTF-8"));
+        assertThat(content, containsString("\r\n\r\n<p>Café</p>\r\n"));
+
+        // And the length of the whole form should be known
+        assertThat(entity.getContentLength(), is((long) body.size()));
+    }
+
+    @Test
+    void serialize_MultipartFormWithFile(@TempDir Path tempDir) throws Exception {
+        // Given a binary file of more than one buffer's length
+        byte[] content = new byte[100_000];
+        new Random(42).nextBytes(content);
+        Path file = Files.write(tempDir.resolve("image.png"), content);
+
+        // When a multipart form with the file is serialized
+        Map<String, Object> formParams = new LinkedHashMap<>();
+        formParams.put("path", "/image.png");
+        formParams.put("attachment", file.toFile());
+        HttpEntity entity = apiClient.serialize(null, formParams, ContentType.MULTIPART_FORM_DATA);
+
+        // Then the form should have a known length, so that it's sent with a
+        // Content-Length and can be resent
+        assertThat(entity.getContentLength(), is(greaterThan((long) content.length)));
+        assertThat(entity.isRepeatable(), is(true));
+
+        // And the file should be sent as an uploaded file, in full
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            entity.writeTo(body);
+            byte[] bodyBytes = body.toByteArray();
+            String bodyText = new String(bodyBytes, StandardCharsets.ISO_8859_1);
+
+            assertThat(bodyText, containsString(
+                "Content-Disposition: form-data; name=\"attachment\"; filename=\"image.png\"\r\n"));
+            assertThat(bodyText, containsString("Content-Type: application/octet-stream\r\n"));
+            assertThat((long) bodyBytes.length, is(entity.getContentLength()));
+
+            int contentStart = bodyText.indexOf("\r\n\r\n", bodyText.indexOf("name=\"attachment\"")) + 4;
+            assertThat(Arrays.copyOfRange(bodyBytes, contentStart, contentStart + content.length),
+                is(content));
+        }
+    }
+
+    @Test
+    void invokeAPI_AsyncStreamsLargeBodies(@TempDir Path tempDir) throws Exception {
+        // Given a server that records the request it receives
+        AtomicReference<byte[]> receivedBody = new AtomicReference<>();
+        AtomicReference<String> receivedTransferEncoding = new AtomicReference<>();
+        AtomicReference<String> receivedContentLength = new AtomicReference<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream requestBody = exchange.getRequestBody()) {
+                receivedBody.set(requestBody.readAllBytes());
+            }
+            receivedTransferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            receivedContentLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        // And an API client sending requests through the asynchronous client
+        ExecutorService requestBodyExecutor = Executors.newCachedThreadPool();
+        try (CloseableHttpAsyncClient asyncHttpClient = HttpAsyncClients.createDefault()) {
+            asyncHttpClient.start();
+            apiClient.setBasePath("http://localhost:" + server.getAddress().getPort());
+            apiClient.setAsyncHttpClient(asyncHttpClient);
+            apiClient.setRequestBodyExecutor(requestBodyExecutor);
+
+            // And a form with a file larger than the request bodies that are
+            // buffered
+            byte[] content = new byte[1_000_000];
+            new Random(42).nextBytes(content);
+            Path file = Files.write(tempDir.resolve("image.png"), content);
+
+            // When the form is sent
+            invokeAPI(Map.of("attachment", file.toFile()), "multipart/form-data");
+
+            // Then the file should have been streamed in full, with the
+            // form's length, as that is known up front
+            assertThat(receivedTransferEncoding.get(), is(nullValue()));
+            assertThat(receivedContentLength.get(), is(String.valueOf(receivedBody.get().length)));
+            assertThat(receivedBody.get().length, is(greaterThan(content.length)));
+            String bodyText = new String(receivedBody.get(), StandardCharsets.ISO_8859_1);
+            int contentStart = bodyText.indexOf("\r\n\r\n") + 4;
+            assertThat(Arrays.copyOfRange(receivedBody.get(), contentStart, contentStart + content.length),
+                is(content));
+
+            // And when a large form with a field read from a file is sent
+            String draft = "<p>Draft</p>".repeat(10_000);
+            Path draftFile = Files.writeString(tempDir.resolve("draft.html"), draft);
+            apiClient.setFormFileCharset(StandardCharsets.UTF_8);
+            invokeAPI(Map.of("draft", draftFile), "application/x-www-form-urlencoded");
+
+            // Then it should have been streamed in chunks, as its encoded
+            // length isn't known up front
+            assertThat(receivedTransferEncoding.get(), is("chunked"));
+            assertThat(new String(receivedBody.get(), StandardCharsets.US_ASCII),
+                is("draft=" + URLEncoder.encode(draft, StandardCharsets.UTF_8)));
+
+            // And when a small form is sent
+            invokeAPI(Map.of("path", "/a page"), "application/x-www-form-urlencoded");
+
+            // Then it should have been sent with its length
+            assertThat(receivedTransferEncoding.get(), is(nullValue()));
+            assertThat(receivedContentLength.get(), is("14"));
+            assertThat(new String(receivedBody.get(), StandardCharsets.US_ASCII), is("path=%2Fa+page"));
+        } finally {
+            requestBodyExecutor.shutdownNow();
+            server.stop(0);
+        }
+    }
+
+    private void invokeAPI(Map<String, Object> formParams, String contentType) throws ApiException {
+        apiClient.invokeAPI("/upload", "POST", new ArrayList<>(), new ArrayList<>(), null, null,
+            new HashMap<>(), new HashMap<>(), formParams, "application/json", contentType, new String[0],
+            new TypeReference<Void>() {
+            });
+    }
+
+}